@@ -0,0 +1,58 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.benchmarks;
+
+import java.util.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.openjdk.jmh.*;
+import org.openjdk.jmh.profile.*;
+
+
+/**
+ * The entry point for the benchmarks jar, which runs JMH with the {@linkplain GCProfiler GC profiler} always enabled,
+ * so that every suite reports it's allocation rate (<code>gc.alloc.rate.norm</code> being the bytes allocated per
+ * operation) alongside it's timing. Any other arguments are passed through to JMH unchanged.
+ */
+@NonNullByDefault
+public final class BenchmarkRunner {
+
+  private BenchmarkRunner() {
+    return;
+  }
+
+  private static boolean isGCProfiled(final @NonNull String[] args) {
+    for (int i = 0; i < args.length - 1; i++) {
+      if (!"-prof".equals(args[i])) continue;
+      if (("gc".equals(args[i + 1])) || (args[i + 1].startsWith("gc:")) || (GCProfiler.class.getName().equals(args[i + 1]))) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Run the benchmarks.
+   *
+   * @param args The JMH command line arguments.
+   * @throws Exception If there was a problem running the benchmarks.
+   */
+  public static void main(final @NonNull String[] args) throws Exception {
+    if (isGCProfiled(args)) {
+      Main.main(args);
+      return;
+    }
+    final List<String> gcProfiledArgs = new ArrayList<>(args.length + 2);
+    gcProfiledArgs.add("-prof");
+    gcProfiledArgs.add("gc");
+    gcProfiledArgs.addAll(Arrays.asList(args));
+    Main.main(gcProfiledArgs.toArray(new String[gcProfiledArgs.size()]));
+    return;
+  }
+
+}
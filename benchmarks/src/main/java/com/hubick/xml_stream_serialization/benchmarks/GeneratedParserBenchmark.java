@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.benchmarks;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.hubick.xml_stream_serialization.parser.xml.*;
+import com.hubick.xml_stream_serialization.parser.xml.annotation.*;
+
+
+/**
+ * Compares a parser {@linkplain XMLStreamParser.SchemaBuilder#defineGeneratedElement(XMLStreamParser.GeneratedElementParser)
+ * generated} at compile time against one
+ * {@linkplain XMLStreamParser.SchemaBuilder#defineElementWithInjectedTargetBuilder(String, Class) defined using
+ * injection}, over the same schema and document.
+ */
+@NonNullByDefault
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratedParserBenchmark {
+  public static final String NAMESPACE = "https://chris.hubick.com/ns/";
+  @Param({ "1000" })
+  public int bookCount;
+  private byte[] document = new byte[0];
+  private @Nullable XMLStreamParser<Book> generatedParser = null;
+  private @Nullable XMLStreamParser<Book> injectedParser = null;
+
+  @XMLElement(namespace = NAMESPACE)
+  public static class Author {
+    @XMLAttribute
+    public @Nullable String name;
+  } // Author
+
+  @XMLElement(namespace = NAMESPACE)
+  public static class Book {
+    @XMLAttribute
+    public int id;
+    @XMLChild
+    public @Nullable String title;
+    @XMLChild
+    public int year;
+    @XMLChild
+    public double price;
+    @XMLChild(name = "author")
+    public @Nullable List<Author> authors;
+  } // Book
+
+  @Setup
+  public void setup() {
+    final StringBuilder xml = new StringBuilder("<books xmlns=\"" + NAMESPACE + "\">");
+    for (int i = 0; i < bookCount; i++) {
+      xml.append("<book id=\"").append(i).append("\"><title>Title ").append(i).append("</title><year>").append(1900 + (i % 120)).append("</year><price>").append(i % 50).append(".99</price>");
+      xml.append("<author name=\"Author ").append(i).append("\"/><author name=\"Co-Author ").append(i).append("\"/></book>");
+    }
+    document = xml.append("</books>").toString().getBytes(StandardCharsets.UTF_8);
+
+    generatedParser = XMLStreamParser.buildSchema(URI.create(NAMESPACE))
+        .defineGeneratedElement(GeneratedParserBenchmark_Book_ElementParser.INSTANCE)
+        .defineContainerElementWithChildBuilder("books").addChildValueElement("book").completeDefinition()
+        .createXMLParser(Book.class, "books", "books", "book");
+
+    injectedParser = XMLStreamParser.buildSchema(URI.create(NAMESPACE))
+        .defineStringElement("title")
+        .defineSimpleElement("year", Integer.class, Integer::valueOf)
+        .defineSimpleElement("price", Double.class, Double::valueOf)
+        .defineElementWithInjectedTargetBuilder("author", Author.class).injectAttr("name", "name").completeDefinition()
+        .defineElementWithInjectedTargetBuilder("book", Book.class).injectAttr("id", "id", Integer::valueOf).injectChildObject("title").injectChildObject("year").injectChildObject("price").injectChildList("authors", "author").completeDefinition()
+        .defineContainerElementWithChildBuilder("books").addChildValueElement("book").completeDefinition()
+        .createXMLParser(Book.class, "books", "books", "book");
+    return;
+  }
+
+  private long parse(final XMLStreamParser<Book> parser) {
+    long checksum = 0;
+    final Iterator<Book> books = parser.parse(new ByteArrayInputStream(document));
+    while (books.hasNext()) {
+      final Book book = books.next();
+      checksum += book.id + book.year + Objects.requireNonNull(book.authors).size();
+    }
+    return checksum;
+  }
+
+  @Benchmark
+  public long generated() {
+    return parse(Objects.requireNonNull(generatedParser));
+  }
+
+  @Benchmark
+  public long injected() {
+    return parse(Objects.requireNonNull(injectedParser));
+  }
+
+}
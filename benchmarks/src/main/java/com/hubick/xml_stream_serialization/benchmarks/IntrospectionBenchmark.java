@@ -0,0 +1,173 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.benchmarks;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.xml.stream.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.hubick.xml_stream_serialization.introspection.*;
+
+
+/**
+ * Measures {@linkplain Introspectable.Info#writeXML(XMLStreamWriter, URI) writing} {@link Introspectable} object
+ * graphs as XML: a wide object with many attributes and child values, a deeply nested chain of objects, and a large
+ * {@linkplain Introspectable.Info.Builder#Builder(Class, URI, boolean) late-bound} collection, which is introspected
+ * as it's written. The cost of {@link Introspectable#toXMLString()} is measured over the wide object.
+ */
+@NonNullByDefault
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntrospectionBenchmark {
+  public static final URI NAMESPACE = URI.create("https://chris.hubick.com/ns/");
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+  @Param({ "200" })
+  public int width;
+  @Param({ "200" })
+  public int depth;
+  @Param({ "1000" })
+  public int itemCount;
+  private @Nullable Wide wide = null;
+  private @Nullable Level deep = null;
+  private @Nullable Catalog lateBound = null;
+
+  public static final class Wide implements Introspectable {
+    protected final List<String> values;
+
+    public Wide(final List<String> values) {
+      this.values = values;
+      return;
+    }
+
+    @Override
+    public Info<? extends Wide> introspect() {
+      final Info.Builder<Wide> builder = new Info.Builder<Wide>(Wide.class, NAMESPACE, false);
+      for (int i = 0; i < 20; i++) {
+        builder.attr("Attr" + i, i);
+      }
+      return builder.primitiveChild("Values", "Value", values).build();
+    }
+
+  } // Wide
+
+  public static final class Level implements Introspectable {
+    protected final int number;
+    protected final @Nullable Level child;
+
+    public Level(final int number, final @Nullable Level child) {
+      this.number = number;
+      this.child = child;
+      return;
+    }
+
+    @Override
+    public Info<? extends Level> introspect() {
+      return new Info.Builder<Level>(Level.class, NAMESPACE, false).attr("Number", number).complexChild(Level.class, false, "Child", child).build();
+    }
+
+  } // Level
+
+  public static final class Item implements Introspectable {
+    protected final int id;
+    protected final String name;
+
+    public Item(final int id, final String name) {
+      this.id = id;
+      this.name = name;
+      return;
+    }
+
+    @Override
+    public Info<? extends Item> introspect() {
+      return new Info.Builder<Item>(Item.class, NAMESPACE, false).attr("Id", id).attr("Name", name).build();
+    }
+
+  } // Item
+
+  public static final class Catalog implements Introspectable {
+    protected final List<Item> items;
+
+    public Catalog(final List<Item> items) {
+      this.items = items;
+      return;
+    }
+
+    @Override
+    public Info<? extends Catalog> introspect() {
+      return new Info.Builder<Catalog>(Catalog.class, NAMESPACE, true).complexChild(Item.class, false, "Items", "Item", items).build();
+    }
+
+  } // Catalog
+
+  @Setup
+  public void setup() {
+    final List<String> values = new ArrayList<>(width);
+    for (int i = 0; i < width; i++) {
+      values.add("Value " + i);
+    }
+    wide = new Wide(values);
+
+    @Nullable Level level = null;
+    for (int i = depth; i > 0; i--) {
+      level = new Level(i, level);
+    }
+    deep = level;
+
+    final List<Item> items = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      items.add(new Item(i, "Item " + i));
+    }
+    lateBound = new Catalog(items);
+    return;
+  }
+
+  private static void write(final Introspectable introspectable) throws XMLStreamException {
+    final XMLStreamWriter streamWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(OutputStream.nullOutputStream(), "UTF-8");
+    streamWriter.writeStartDocument();
+    introspectable.introspect().writeXML(streamWriter, null);
+    streamWriter.writeEndDocument();
+    streamWriter.flush();
+    return;
+  }
+
+  @Benchmark
+  public void writeWide() throws XMLStreamException {
+    write(Objects.requireNonNull(wide));
+    return;
+  }
+
+  @Benchmark
+  public void writeDeep() throws XMLStreamException {
+    write(Objects.requireNonNull(deep));
+    return;
+  }
+
+  @Benchmark
+  public void writeLateBound() throws XMLStreamException {
+    write(Objects.requireNonNull(lateBound));
+    return;
+  }
+
+  @Benchmark
+  public String toXMLString() {
+    return Objects.requireNonNull(wide).toXMLString();
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.benchmarks;
+
+import java.io.*;
+import java.lang.annotation.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.hubick.xml_stream_serialization.ws.rs.provider.xml.*;
+import com.hubick.xml_stream_serialization.ws.rs.provider.xml.soap.*;
+import com.hubick.xml_stream_serialization.xml.*;
+
+import javax.ws.rs.core.*;
+
+
+/**
+ * Measures the JAX-RS {@link XMLSerializableMessageBodyWriter} writing a regular entity, and the
+ * {@link XMLSerializableSOAPMessageBodyWriter} writing a {@linkplain XMLSerializable#createSOAPFaultWrapper(Throwable,
+ * boolean) SOAP fault}, such as an exception mapper would produce.
+ */
+@NonNullByDefault
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageBodyWriterBenchmark {
+  private static final @NonNull Annotation[] NO_ANNOTATIONS = new @NonNull Annotation[0];
+  @Param({ "100" })
+  public int itemCount;
+  private final XMLSerializableMessageBodyWriter writer = new XMLSerializableMessageBodyWriter();
+  private final XMLSerializableSOAPMessageBodyWriter soapWriter = new XMLSerializableSOAPMessageBodyWriter();
+  private @Nullable XMLSerializable entity = null;
+  private @Nullable XMLSerializable fault = null;
+
+  @Setup
+  public void setup() {
+    final List<IntrospectionBenchmark.Item> items = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      items.add(new IntrospectionBenchmark.Item(i, "Item " + i));
+    }
+    entity = new IntrospectionBenchmark.Catalog(items);
+    fault = XMLSerializable.createSOAPFaultWrapper(new IllegalStateException("Server went boom.", new IOException("Filesystem error.")), false);
+    return;
+  }
+
+  @Benchmark
+  public void writeEntity() throws IOException {
+    final XMLSerializable entity = Objects.requireNonNull(this.entity);
+    writer.writeTo(entity, entity.getClass(), entity.getClass(), NO_ANNOTATIONS, MediaType.APPLICATION_XML_TYPE, new MultivaluedHashMap<>(), OutputStream.nullOutputStream());
+    return;
+  }
+
+  @Benchmark
+  public void writeSOAPFault() throws IOException {
+    final XMLSerializable fault = Objects.requireNonNull(this.fault);
+    soapWriter.writeTo(fault, fault.getClass(), fault.getClass(), NO_ANNOTATIONS, MediaType.APPLICATION_XML_TYPE, new MultivaluedHashMap<>(), OutputStream.nullOutputStream());
+    return;
+  }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.benchmarks;
+
+import java.beans.*;
+import java.io.*;
+import java.math.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.hubick.xml_stream_serialization.parser.xml.*;
+
+
+/**
+ * Measures the throughput of {@link XMLStreamParser} over documents of differing shapes: a large flat feed of simple
+ * records, a deeply recursive document, and a feed of records with many
+ * {@linkplain XMLStreamParser.SchemaBuilder#defineElementWithInjectedTargetBuilder(String, Class) injected} fields.
+ */
+@NonNullByDefault
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserThroughputBenchmark {
+  public static final String NAMESPACE = "https://chris.hubick.com/ns/";
+  @Param({ "10000" })
+  public int entryCount;
+  @Param({ "500" })
+  public int depth;
+  @Param({ "2000" })
+  public int tradeCount;
+  private byte[] feed = new byte[0];
+  private byte[] tree = new byte[0];
+  private byte[] trades = new byte[0];
+  private @Nullable XMLStreamParser<Entry> feedParser = null;
+  private @Nullable XMLStreamParser<Node> treeParser = null;
+  private @Nullable XMLStreamParser<Trade> tradeParser = null;
+
+  public static final class Entry {
+    public final long id;
+    public final String title;
+    public final Instant updated;
+
+    public Entry(final long id, final String title, final Instant updated) {
+      this.id = id;
+      this.title = title;
+      this.updated = updated;
+      return;
+    }
+
+  } // Entry
+
+  public static final class Node {
+    public final String name;
+    public final @Nullable Node child;
+
+    public Node(final String name, final @Nullable Node child) {
+      this.name = name;
+      this.child = child;
+      return;
+    }
+
+  } // Node
+
+  public static class Trade {
+    public final String id;
+    public final String account;
+    public final String symbol;
+    public final String side;
+    public final Integer quantity;
+    public final BigDecimal price;
+    public final String currency;
+    public final LocalDate tradeDate;
+    public final LocalDate settlementDate;
+    public final String venue;
+
+    @ConstructorProperties({ "Id", "Account", "Symbol", "Side", "Quantity", "Price", "Currency", "TradeDate", "SettlementDate", "Venue" })
+    public Trade(final String id, final String account, final String symbol, final String side, final Integer quantity, final BigDecimal price, final String currency, final LocalDate tradeDate, final LocalDate settlementDate, final String venue) {
+      this.id = id;
+      this.account = account;
+      this.symbol = symbol;
+      this.side = side;
+      this.quantity = quantity;
+      this.price = price;
+      this.currency = currency;
+      this.tradeDate = tradeDate;
+      this.settlementDate = settlementDate;
+      this.venue = venue;
+      return;
+    }
+
+  } // Trade
+
+  @Setup
+  public void setup() {
+    final StringBuilder feedXML = new StringBuilder("<feed xmlns=\"" + NAMESPACE + "\">");
+    for (int i = 0; i < entryCount; i++) {
+      feedXML.append("<entry><id>").append(i).append("</id><title>Entry Title ").append(i).append("</title><updated>").append(Instant.ofEpochSecond(1577836800L + i)).append("</updated></entry>");
+    }
+    feed = feedXML.append("</feed>").toString().getBytes(StandardCharsets.UTF_8);
+
+    final StringBuilder treeXML = new StringBuilder("<tree xmlns=\"" + NAMESPACE + "\">");
+    for (int i = 0; i < depth; i++) {
+      treeXML.append("<node><name>Node ").append(i).append("</name>");
+    }
+    for (int i = 0; i < depth; i++) {
+      treeXML.append("</node>");
+    }
+    tree = treeXML.append("</tree>").toString().getBytes(StandardCharsets.UTF_8);
+
+    final StringBuilder tradesXML = new StringBuilder("<trades xmlns=\"" + NAMESPACE + "\">");
+    for (int i = 0; i < tradeCount; i++) {
+      tradesXML.append("<trade><id>T").append(i).append("</id><account>ACC").append(i % 100).append("</account><symbol>SYM").append(i % 500).append("</symbol>");
+      tradesXML.append("<side>").append(((i % 2) == 0) ? "BUY" : "SELL").append("</side><quantity>").append((i % 1000) + 1).append("</quantity><price>").append(i % 300).append(".25</price>");
+      tradesXML.append("<currency>CAD</currency><tradeDate>").append(LocalDate.of(2020, 1, 1).plusDays(i % 365)).append("</tradeDate><settlementDate>").append(LocalDate.of(2020, 1, 3).plusDays(i % 365)).append("</settlementDate><venue>TSX</venue></trade>");
+    }
+    trades = tradesXML.append("</trades>").toString().getBytes(StandardCharsets.UTF_8);
+
+    feedParser = XMLStreamParser.buildSchema(URI.create(NAMESPACE))
+        .defineSimpleElement("id", Long.class, Long::valueOf)
+        .defineStringElement("title")
+        .defineSimpleElement("updated", Instant.class, Instant::parse)
+        .defineElementWithChildBuilder("entry", Entry.class, (ctx) -> new Entry(ctx.getRequiredChildValue("id", Long.class), ctx.getRequiredChildValue("title", String.class), ctx.getRequiredChildValue("updated", Instant.class)), false, false).addChildValueElement("id").addChildValueElement("title").addChildValueElement("updated").completeDefinition()
+        .defineContainerElementWithChildBuilder("feed").addChildValueElement("entry").completeDefinition()
+        .createXMLParser(Entry.class, "feed", "feed", "entry");
+
+    treeParser = XMLStreamParser.buildSchema(URI.create(NAMESPACE))
+        .defineStringElement("name")
+        .defineElementWithChildBuilder("node", Node.class, (ctx) -> new Node(ctx.getRequiredChildValue("name", String.class), ctx.getOptionalChildValue("node", Node.class).orElse(null)), false, true).addChildValueElement("name").completeDefinition()
+        .defineContainerElementWithChildBuilder("tree").addChildValueElement("node").completeDefinition()
+        .createXMLParser(Node.class, "tree", "tree", "node");
+
+    tradeParser = XMLStreamParser.buildSchema(URI.create(NAMESPACE))
+        .defineStringElement("id")
+        .defineStringElement("account")
+        .defineStringElement("symbol")
+        .defineStringElement("side")
+        .defineSimpleElement("quantity", Integer.class, Integer::valueOf)
+        .defineSimpleElement("price", BigDecimal.class, BigDecimal::new)
+        .defineStringElement("currency")
+        .defineSimpleElement("tradeDate", LocalDate.class, LocalDate::parse)
+        .defineSimpleElement("settlementDate", LocalDate.class, LocalDate::parse)
+        .defineStringElement("venue")
+        .defineElementWithInjectedTargetBuilder("trade", Trade.class)
+        .injectChildObject("Id", "id").injectChildObject("Account", "account").injectChildObject("Symbol", "symbol").injectChildObject("Side", "side").injectChildObject("Quantity", "quantity")
+        .injectChildObject("Price", "price").injectChildObject("Currency", "currency").injectChildObject("TradeDate", "tradeDate").injectChildObject("SettlementDate", "settlementDate").injectChildObject("Venue", "venue")
+        .completeDefinition()
+        .defineContainerElementWithChildBuilder("trades").addChildValueElement("trade").completeDefinition()
+        .createXMLParser(Trade.class, "trades", "trades", "trade");
+    return;
+  }
+
+  @Benchmark
+  public long flatFeed() {
+    long checksum = 0;
+    final Iterator<Entry> entries = Objects.requireNonNull(feedParser).parse(new ByteArrayInputStream(feed));
+    while (entries.hasNext()) {
+      checksum += entries.next().id;
+    }
+    return checksum;
+  }
+
+  @Benchmark
+  public long deepTree() {
+    long levels = 0;
+    final Iterator<Node> nodes = Objects.requireNonNull(treeParser).parse(new ByteArrayInputStream(tree));
+    while (nodes.hasNext()) {
+      for (@Nullable Node node = nodes.next(); node != null; node = node.child) {
+        levels++;
+      }
+    }
+    return levels;
+  }
+
+  @Benchmark
+  public long injectedTrades() {
+    long checksum = 0;
+    final Iterator<Trade> trades = Objects.requireNonNull(tradeParser).parse(new ByteArrayInputStream(this.trades));
+    while (trades.hasNext()) {
+      checksum += trades.next().quantity;
+    }
+    return checksum;
+  }
+
+}
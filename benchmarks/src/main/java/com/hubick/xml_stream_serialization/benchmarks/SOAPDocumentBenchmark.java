@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.benchmarks;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.hubick.xml_stream_serialization.parser.xml.soap.*;
+
+
+/**
+ * Measures the throughput of parsing the SOAP envelopes from the parser's test documents, including those containing a
+ * global fault (thrown when the body is reached) and a local fault (thrown, and recovered from, mid-iteration), so
+ * that the cost of the fault path can be compared against that of a regular response.
+ */
+@NonNullByDefault
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SOAPDocumentBenchmark {
+  @Param({ "departures_ignore_extra", "departures_local_fault", "departures_global_fault" })
+  public String document = "";
+  private byte[] envelope = new byte[0];
+  private @Nullable SOAPStreamParser<SmallDocumentBenchmark.Departure> parser = null;
+
+  @Setup
+  public void setup() throws IOException {
+    try (InputStream in = Objects.requireNonNull(SOAPDocumentBenchmark.class.getResourceAsStream("/com/hubick/xml_stream_serialization/parser/xml/soap/" + document + ".xml"), document)) {
+      envelope = in.readAllBytes();
+    }
+    parser = SmallDocumentBenchmark.createDepartureParser();
+    return;
+  }
+
+  @Benchmark
+  public long parse() {
+    long checksum = 0;
+    final Iterator<SmallDocumentBenchmark.Departure> departures;
+    try {
+      departures = Objects.requireNonNull(parser).parse(new ByteArrayInputStream(envelope));
+    } catch (SOAPStreamParser.ExceptionElementException eee) {
+      return Objects.hashCode(eee.getCause().getMessage()); // A global fault.
+    }
+    while (departures.hasNext()) {
+      try {
+        checksum += departures.next().date.toEpochDay();
+      } catch (SOAPStreamParser.RecoverableExceptionElementException reee) {
+        checksum += Objects.hashCode(reee.getCause().getMessage()); // A local fault.
+      }
+    }
+    return checksum;
+  }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.benchmarks;
+
+import java.beans.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.hubick.xml_stream_serialization.parser.xml.soap.*;
+
+
+/**
+ * Measures the latency of parsing a single small (~2 KB) SOAP envelope, where the fixed cost of each parse, rather
+ * than the size of the document, dominates. The {@linkplain Mode#SampleTime sampled} results include the p50 and p99
+ * latency per parse, and running with <code>-prof gc</code> reports the bytes allocated per parse.
+ */
+@NonNullByDefault
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SmallDocumentBenchmark {
+  public static final String NAMESPACE = "https://chris.hubick.com/ns/";
+  @Param({ "12" })
+  public int departureCount;
+  private byte[] envelope = new byte[0];
+  private @Nullable SOAPStreamParser<Departure> parser = null;
+
+  public static class Departure {
+    public final String departing;
+    public final LocalDate date;
+
+    @ConstructorProperties({ "Departing", "DepartureMonthDay", "DepartureYear" })
+    public Departure(final String departing, final MonthDay departureMonthDay, final Year departureYear) {
+      this.departing = departing;
+      this.date = departureMonthDay.atYear(departureYear.getValue());
+      return;
+    }
+
+  } // Departure
+
+  @Setup
+  public void setup() {
+    final StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+    xml.append("<env:Envelope xmlns:env=\"http://www.w3.org/2003/05/soap-envelope\"><env:Header>");
+    xml.append("<h:departureYear xmlns:h=\"").append(NAMESPACE).append("\">2001</h:departureYear></env:Header>");
+    xml.append("<env:Body><h:departures xmlns:h=\"").append(NAMESPACE).append("\">");
+    for (int i = 0; i < departureCount; i++) {
+      xml.append("<h:departure><h:departing>Departure Location ").append(i).append("</h:departing>");
+      xml.append("<h:departureMonthDay>--").append(String.format("%02d", (i % 12) + 1)).append("-01</h:departureMonthDay></h:departure>");
+    }
+    envelope = xml.append("</h:departures></env:Body></env:Envelope>").toString().getBytes(StandardCharsets.UTF_8);
+    parser = createDepartureParser();
+    return;
+  }
+
+  /**
+   * Create a parser for the SOAP envelopes used by these benchmarks, which is the same schema used to parse the test
+   * documents.
+   *
+   * @return The new parser.
+   */
+  public static SOAPStreamParser<Departure> createDepartureParser() {
+    return SOAPStreamParser.buildSOAP12Schema(URI.create(NAMESPACE))
+        .defineSimpleElement("departureYear", Year.class, (ctx, value) -> Year.parse(value), true).defineHeaderElementWithChildBuilder().addChildValueElement("departureYear").completeDefinition()
+        .defineStringElement("departing")
+        .defineSimpleElement("departureMonthDay", MonthDay.class, MonthDay::parse)
+        .defineElementWithInjectedTargetBuilder("departure", Departure.class).injectChildObject("Departing", "departing").injectChildObject("DepartureMonthDay", "departureMonthDay").injectSavedObject("DepartureYear", "departureYear").completeDefinition()
+        .defineContainerElementWithChildBuilder("departures").addChildValueElement("departure").addChildExceptionElement(SOAPStreamParser.SOAP_1_2_FAULT_QNAME).completeDefinition()
+        .defineBodyElement("departures")
+        .defineEnvelopeElement(true).createSOAPParser(Departure.class, "departures", "departure");
+  }
+
+  @Benchmark
+  public long parse() {
+    long checksum = 0;
+    final Iterator<Departure> departures = Objects.requireNonNull(parser).parse(new ByteArrayInputStream(envelope));
+    while (departures.hasNext()) {
+      checksum += departures.next().date.toEpochDay();
+    }
+    return checksum;
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.benchmarks;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.xml.namespace.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.openjdk.jmh.annotations.*;
+
+import com.hubick.xml_stream_serialization.introspection.*;
+import com.hubick.xml_stream_serialization.parser.xml.*;
+import com.hubick.xml_stream_serialization.parser.xml.soap.*;
+
+
+/**
+ * Measures the throughput of parsing large documents produced by the {@link SyntheticDocumentGenerator}, for both the
+ * SOAP departures schema and an {@link Introspectable} type, so that the cost of fan-out and ignored content can be
+ * compared. The documents are generated once, from a fixed seed, before measurement begins, so every run parses
+ * identical input. Larger documents, or other mixes of content, can be requested using JMH's <code>-p</code> option.
+ */
+@NonNullByDefault
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SyntheticDocumentBenchmark {
+  private static final long SEED = 20200101L;
+  private static final QName WIDES_QNAME = new QName(IntrospectionBenchmark.NAMESPACE.toString(), "wides");
+  @Param({ "4194304" })
+  public long documentBytes;
+  @Param({ "1", "8" })
+  public int fanOut;
+  @Param({ "0", "0.25" })
+  public double ignoredRatio;
+  @Param({ "0.01" })
+  public double faultFrequency;
+  private byte[] departures = new byte[0];
+  private byte[] wides = new byte[0];
+  private @Nullable SOAPStreamParser<SmallDocumentBenchmark.Departure> departureParser = null;
+  private @Nullable XMLStreamParser<Introspectable.Info<IntrospectionBenchmark.Wide>> wideParser = null;
+
+  private byte[] generate(final SyntheticDocumentGenerator generator) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream((int)documentBytes + 64 * 1024);
+    generator.withTargetCount(Long.MAX_VALUE).withMaxBytes(documentBytes).withFanOut(fanOut).withIgnoredRatio(ignoredRatio).withFaultFrequency(faultFrequency).writeTo(out);
+    return out.toByteArray();
+  }
+
+  @Setup
+  public void setup() throws IOException {
+    departureParser = SmallDocumentBenchmark.createDepartureParser();
+    departures = generate(new SyntheticDocumentGenerator(departureParser, SEED));
+
+    IntrospectionSchema.of(new IntrospectionBenchmark.Wide(Collections.singletonList("Value")).introspect()); // Wide has no no-argument constructor to derive it's schema from.
+    wideParser = IntrospectionSchema.of(IntrospectionBenchmark.Wide.class).createXMLParser(WIDES_QNAME);
+    wides = generate(SyntheticDocumentGenerator.forType(IntrospectionBenchmark.Wide.class, WIDES_QNAME, SEED));
+    return;
+  }
+
+  @Benchmark
+  public long parseSOAP() {
+    long checksum = 0;
+    final Iterator<SmallDocumentBenchmark.Departure> departures = Objects.requireNonNull(departureParser).parse(new ByteArrayInputStream(this.departures));
+    while (departures.hasNext()) {
+      try {
+        checksum += departures.next().date.toEpochDay();
+      } catch (SOAPStreamParser.RecoverableExceptionElementException reee) {
+        checksum++;
+      }
+    }
+    return checksum;
+  }
+
+  @Benchmark
+  public long parseIntrospectable() {
+    long checksum = 0;
+    final Iterator<Introspectable.Info<IntrospectionBenchmark.Wide>> wides = Objects.requireNonNull(wideParser).parse(new ByteArrayInputStream(this.wides));
+    while (wides.hasNext()) {
+      checksum += wides.next().size();
+    }
+    return checksum;
+  }
+
+}
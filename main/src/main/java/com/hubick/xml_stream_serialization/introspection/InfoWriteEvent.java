@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.introspection;
+
+import javax.xml.stream.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import com.hubick.xml_stream_serialization.xml.*;
+
+import jdk.jfr.*;
+
+
+/**
+ * A JDK Flight Recorder event recording the {@linkplain Introspectable.Info#writeXML(XMLStreamWriter, java.net.URI)
+ * serialization} of an {@link Introspectable.Info} as XML, which (by default) is only recorded when slow. Nested
+ * objects are counted towards the event for the outermost one written, rather than being recorded individually.
+ */
+@NonNullByDefault
+@Name("com.hubick.xml_stream_serialization.InfoWrite")
+@Label("Info Write")
+@Description("The serialization of an introspected object as XML.")
+@Category({ "XML Stream Serialization", "Serialization" })
+@Threshold("10 ms")
+final class InfoWriteEvent extends Event {
+  @Label("Type")
+  @Description("The class of object written.")
+  @Nullable
+  Class<?> type;
+  @Label("Element Count")
+  @Description("The number of elements written.")
+  long elementCount;
+
+  /**
+   * A distinct {@link CountingXMLStreamWriter} subclass, which the outermost write wraps it's writer in, so that nested
+   * writes can recognize (using <code>instanceof</code>) that they're already being counted, and not record an event
+   * of their own.
+   */
+  static final class CountingStreamWriter extends CountingXMLStreamWriter {
+
+    public CountingStreamWriter(final XMLStreamWriter writer) {
+      super(writer);
+      return;
+    }
+
+  } // CountingStreamWriter
+
+}
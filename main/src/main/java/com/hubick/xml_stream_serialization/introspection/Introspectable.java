@@ -191,6 +191,22 @@ public interface Introspectable extends XMLSerializable {
 
     @Override
     public void writeXML(final XMLStreamWriter streamWriter, final @Nullable URI parentNamespace) throws XMLStreamException {
+      if (!(streamWriter instanceof InfoWriteEvent.CountingStreamWriter)) { // Only record an event for the outermost object.
+        final InfoWriteEvent event = new InfoWriteEvent();
+        if (event.isEnabled()) {
+          final InfoWriteEvent.CountingStreamWriter countingWriter = new InfoWriteEvent.CountingStreamWriter(streamWriter);
+          event.begin();
+          writeXML(countingWriter, parentNamespace);
+          event.end();
+          if (event.shouldCommit()) {
+            event.type = getType();
+            event.elementCount = countingWriter.getElementCount();
+            event.commit();
+          }
+          return;
+        }
+      }
+
       final String nsString = Optional.ofNullable(getNamespace()).map(URI::toString).orElse(XMLConstants.NULL_NS_URI);
 
       final Map<String,Info.Child<?,?>> children = getChildren();
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.xml;
+
+import java.util.*;
+
+import javax.xml.namespace.*;
+import javax.xml.stream.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * An {@link XMLStreamWriter} which delegates to another, while counting the number of elements written through it.
+ */
+@NonNullByDefault
+public class CountingXMLStreamWriter implements XMLStreamWriter {
+  protected final XMLStreamWriter writer;
+  protected long elementCount = 0;
+
+  /**
+   * Construct a new {@link CountingXMLStreamWriter}.
+   *
+   * @param writer The {@link XMLStreamWriter} to delegate to.
+   */
+  public CountingXMLStreamWriter(final XMLStreamWriter writer) {
+    this.writer = Objects.requireNonNull(writer, "null writer");
+    return;
+  }
+
+  /**
+   * Get the number of elements which have been written so far.
+   *
+   * @return The number of start and empty elements written.
+   */
+  public long getElementCount() {
+    return elementCount;
+  }
+
+  @Override
+  public void writeStartElement(final String localName) throws XMLStreamException {
+    elementCount++;
+    writer.writeStartElement(localName);
+    return;
+  }
+
+  @Override
+  public void writeStartElement(final String namespaceURI, final String localName) throws XMLStreamException {
+    elementCount++;
+    writer.writeStartElement(namespaceURI, localName);
+    return;
+  }
+
+  @Override
+  public void writeStartElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
+    elementCount++;
+    writer.writeStartElement(prefix, localName, namespaceURI);
+    return;
+  }
+
+  @Override
+  public void writeEmptyElement(final String namespaceURI, final String localName) throws XMLStreamException {
+    elementCount++;
+    writer.writeEmptyElement(namespaceURI, localName);
+    return;
+  }
+
+  @Override
+  public void writeEmptyElement(final String prefix, final String localName, final String namespaceURI) throws XMLStreamException {
+    elementCount++;
+    writer.writeEmptyElement(prefix, localName, namespaceURI);
+    return;
+  }
+
+  @Override
+  public void writeEmptyElement(final String localName) throws XMLStreamException {
+    elementCount++;
+    writer.writeEmptyElement(localName);
+    return;
+  }
+
+  @Override
+  public void writeEndElement() throws XMLStreamException {
+    writer.writeEndElement();
+    return;
+  }
+
+  @Override
+  public void writeEndDocument() throws XMLStreamException {
+    writer.writeEndDocument();
+    return;
+  }
+
+  @Override
+  public void close() throws XMLStreamException {
+    writer.close();
+    return;
+  }
+
+  @Override
+  public void flush() throws XMLStreamException {
+    writer.flush();
+    return;
+  }
+
+  @Override
+  public void writeAttribute(final String localName, final String value) throws XMLStreamException {
+    writer.writeAttribute(localName, value);
+    return;
+  }
+
+  @Override
+  public void writeAttribute(final String prefix, final String namespaceURI, final String localName, final String value) throws XMLStreamException {
+    writer.writeAttribute(prefix, namespaceURI, localName, value);
+    return;
+  }
+
+  @Override
+  public void writeAttribute(final String namespaceURI, final String localName, final String value) throws XMLStreamException {
+    writer.writeAttribute(namespaceURI, localName, value);
+    return;
+  }
+
+  @Override
+  public void writeNamespace(final String prefix, final String namespaceURI) throws XMLStreamException {
+    writer.writeNamespace(prefix, namespaceURI);
+    return;
+  }
+
+  @Override
+  public void writeDefaultNamespace(final String namespaceURI) throws XMLStreamException {
+    writer.writeDefaultNamespace(namespaceURI);
+    return;
+  }
+
+  @Override
+  public void writeComment(final String data) throws XMLStreamException {
+    writer.writeComment(data);
+    return;
+  }
+
+  @Override
+  public void writeProcessingInstruction(final String target) throws XMLStreamException {
+    writer.writeProcessingInstruction(target);
+    return;
+  }
+
+  @Override
+  public void writeProcessingInstruction(final String target, final String data) throws XMLStreamException {
+    writer.writeProcessingInstruction(target, data);
+    return;
+  }
+
+  @Override
+  public void writeCData(final String data) throws XMLStreamException {
+    writer.writeCData(data);
+    return;
+  }
+
+  @Override
+  public void writeDTD(final String dtd) throws XMLStreamException {
+    writer.writeDTD(dtd);
+    return;
+  }
+
+  @Override
+  public void writeEntityRef(final String name) throws XMLStreamException {
+    writer.writeEntityRef(name);
+    return;
+  }
+
+  @Override
+  public void writeStartDocument() throws XMLStreamException {
+    writer.writeStartDocument();
+    return;
+  }
+
+  @Override
+  public void writeStartDocument(final String version) throws XMLStreamException {
+    writer.writeStartDocument(version);
+    return;
+  }
+
+  @Override
+  public void writeStartDocument(final String encoding, final String version) throws XMLStreamException {
+    writer.writeStartDocument(encoding, version);
+    return;
+  }
+
+  @Override
+  public void writeCharacters(final String text) throws XMLStreamException {
+    writer.writeCharacters(text);
+    return;
+  }
+
+  @Override
+  public void writeCharacters(final char[] text, final int start, final int len) throws XMLStreamException {
+    writer.writeCharacters(text, start, len);
+    return;
+  }
+
+  @Override
+  public @Nullable String getPrefix(final String uri) throws XMLStreamException {
+    return writer.getPrefix(uri);
+  }
+
+  @Override
+  public void setPrefix(final String prefix, final String uri) throws XMLStreamException {
+    writer.setPrefix(prefix, uri);
+    return;
+  }
+
+  @Override
+  public void setDefaultNamespace(final String uri) throws XMLStreamException {
+    writer.setDefaultNamespace(uri);
+    return;
+  }
+
+  @Override
+  public void setNamespaceContext(final NamespaceContext context) throws XMLStreamException {
+    writer.setNamespaceContext(context);
+    return;
+  }
+
+  @Override
+  public NamespaceContext getNamespaceContext() {
+    return writer.getNamespaceContext();
+  }
+
+  @Override
+  public Object getProperty(final String name) throws IllegalArgumentException {
+    return writer.getProperty(name);
+  }
+
+}
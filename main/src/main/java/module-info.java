@@ -2,6 +2,7 @@ module com.hubick.xml_stream_serialization {
   requires transitive org.eclipse.jdt.annotation;
   requires transitive java.xml;
   requires java.xml.soap;
+  requires jdk.jfr;
 
   exports com.hubick.xml_stream_serialization.introspection;
   exports com.hubick.xml_stream_serialization.xml;
@@ -9,11 +9,14 @@
 package com.hubick.xml_stream_serialization.introspection;
 
 import java.net.*;
+import java.nio.file.*;
+import java.time.*;
 import java.util.*;
 
 import org.eclipse.jdt.annotation.*;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +47,24 @@ public class IntrospectableTest {
     return;
   }
 
+  @Test
+  public void testFlightRecorderEvent(final @TempDir Path tempDir) throws Exception {
+    final House house = new House(new StreetAddress("Doe St", 1024, "R6H 2C5"), "TD", 5);
+    final Path dump = tempDir.resolve("write.jfr");
+    try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+      recording.enable("com.hubick.xml_stream_serialization.InfoWrite").withThreshold(Duration.ZERO);
+      recording.start();
+      house.toXMLString();
+      recording.stop();
+      recording.dump(dump);
+    }
+    final List<jdk.jfr.consumer.RecordedEvent> events = jdk.jfr.consumer.RecordingFile.readAllEvents(dump);
+    assertEquals(1, events.size()); // Only the outermost object is recorded.
+    assertEquals(House.class.getName(), events.get(0).getClass("type").getName());
+    assertEquals(2, events.get(0).getLong("elementCount"));
+    return;
+  }
+
   public static final class StreetAddress implements Introspectable {
     protected final String street;
     protected final int number;
@@ -0,0 +1,371 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * <p>
+ * An {@link InputStream} which transparently decompresses the data read from another, detecting the
+ * {@linkplain Format format} from it's leading "magic" bytes, and passing uncompressed data straight through.
+ * </p>
+ *
+ * <p>
+ * Compressed data is decompressed ahead of the reader, on a separate thread, into a bounded ring of pooled buffers, so
+ * that decompression overlaps with whatever is consuming this stream (such as a parser), rather than running serially
+ * on the same thread. If the data is a sequence of gzip members which each declare their compressed size in their
+ * header (as done by the "BGZF" block format produced by <code>bgzip</code>), then those members are decompressed in
+ * parallel using the supplied {@link Executor}. Otherwise the members are decompressed one after the other (in the
+ * background). The JDK doesn't provide a Zstandard decoder, so {@linkplain Format#ZSTD zstd} data can only be read
+ * if a {@link Decoder} is supplied for it.
+ * </p>
+ *
+ * @see XMLStreamParser#parse(java.nio.file.Path)
+ */
+@NonNullByDefault
+public class DecompressingInputStream extends InputStream {
+  /**
+   * The default number of decompressed buffers which may be queued ahead of the reader.
+   */
+  public static final int DEFAULT_RING_SIZE = 8;
+  private static final int BUFFER_SIZE = 64 * 1024; // The maximum uncompressed size of a BGZF block.
+  private static final int GZIP_FEXTRA = 4;
+  private static final int GZIP_FNAME = 8;
+  private static final int GZIP_FCOMMENT = 16;
+  private static final int GZIP_FHCRC = 2;
+  private static final Chunk END = new Chunk(new byte[0], 0);
+  protected final Format format;
+  private final InputStream in;
+  private final @Nullable BlockingQueue<Future<Chunk>> ring;
+  private final Queue<byte[]> bufferPool = new ConcurrentLinkedQueue<>();
+  private final @Nullable Thread producer;
+  private @Nullable Chunk chunk = null;
+  private int chunkPosition = 0;
+  private volatile boolean closed = false;
+
+  /**
+   * The compression formats which can be detected.
+   */
+  public static enum Format {
+    /**
+     * The data isn't compressed (or not in a format we recognize), and is passed through as is.
+     */
+    NONE,
+    /**
+     * The data is compressed using gzip (RFC 1952).
+     */
+    GZIP,
+    /**
+     * The data is compressed using Zstandard (RFC 8478).
+     */
+    ZSTD
+  } // Format
+
+  /**
+   * A function creating a decompressing {@link InputStream} for compressed data.
+   */
+  @FunctionalInterface
+  public static interface Decoder {
+
+    /**
+     * Create an {@link InputStream} decompressing the data read from the supplied one.
+     *
+     * @param in The {@link InputStream} to read compressed data from.
+     * @return An {@link InputStream} providing the decompressed data.
+     * @throws IOException If there was a problem reading the compressed data.
+     */
+    public InputStream decode(InputStream in) throws IOException;
+
+  } // Decoder
+
+  /**
+   * A buffer of decompressed data.
+   */
+  private static final class Chunk {
+    public final byte[] buffer;
+    public final int length;
+
+    public Chunk(final byte[] buffer, final int length) {
+      this.buffer = buffer;
+      this.length = length;
+      return;
+    }
+
+  } // Chunk
+
+  /**
+   * Construct a new {@link DecompressingInputStream}.
+   *
+   * @param in The {@link InputStream} to read (possibly compressed) data from.
+   * @param ringSize The maximum number of decompressed buffers which may be queued ahead of the reader.
+   * @param executor The {@link Executor} used to decompress gzip members in parallel.
+   * @param zstdDecoder The {@link Decoder} to use for {@linkplain Format#ZSTD Zstandard} data, or <code>null</code> for
+   * none.
+   * @throws IOException If there was a problem reading the data, or it's in a format for which no {@link Decoder} is
+   * available.
+   * @throws IllegalArgumentException If the <code>ringSize</code> isn't positive.
+   */
+  public DecompressingInputStream(final InputStream in, final int ringSize, final Executor executor, final @Nullable Decoder zstdDecoder) throws IOException, IllegalArgumentException {
+    if (ringSize < 1) throw new IllegalArgumentException("ringSize not positive");
+    Objects.requireNonNull(executor, "null executor");
+    this.in = new BufferedInputStream(Objects.requireNonNull(in, "null in"), BUFFER_SIZE);
+    format = detect(this.in);
+    if (format == Format.NONE) {
+      ring = null;
+      producer = null;
+      return;
+    }
+    if ((format == Format.ZSTD) && (zstdDecoder == null)) throw new IOException("No decoder available for Zstandard compressed data");
+    final BlockingQueue<Future<Chunk>> ring = new ArrayBlockingQueue<>(ringSize);
+    this.ring = ring;
+    producer = new Thread(() -> {
+      try {
+        if (format == Format.GZIP) {
+          produceGZIP(ring, executor);
+        } else {
+          produceSequential(ring, Objects.requireNonNull(zstdDecoder).decode(this.in));
+        }
+        ring.put(CompletableFuture.completedFuture(END));
+      } catch (InterruptedException ie) {
+        return; // We've been closed.
+      } catch (IOException | RuntimeException e) {
+        try {
+          if (!closed) ring.put(CompletableFuture.failedFuture(e)); // The reader will see this after any chunks already queued.
+        } catch (InterruptedException ie) {}
+      }
+      return;
+    }, getClass().getSimpleName());
+    producer.setDaemon(true);
+    producer.start();
+    return;
+  }
+
+  /**
+   * Construct a new {@link DecompressingInputStream} using the {@linkplain #DEFAULT_RING_SIZE default ring size}, the
+   * {@linkplain ForkJoinPool#commonPool() common pool}, and no {@linkplain Format#ZSTD Zstandard} {@link Decoder}.
+   *
+   * @param in The {@link InputStream} to read (possibly compressed) data from.
+   * @throws IOException If there was a problem reading the data, or it's in a format for which no {@link Decoder} is
+   * available.
+   */
+  public DecompressingInputStream(final InputStream in) throws IOException {
+    this(in, DEFAULT_RING_SIZE, ForkJoinPool.commonPool(), null);
+    return;
+  }
+
+  /**
+   * Detect the {@link Format} of the data in the supplied stream, without consuming any of it.
+   *
+   * @param in An {@link InputStream} {@linkplain InputStream#markSupported() supporting} mark and reset.
+   * @return The {@link Format} of the data.
+   * @throws IOException If there was a problem reading the data.
+   * @throws IllegalArgumentException If the supplied stream doesn't support mark and reset.
+   */
+  public static Format detect(final InputStream in) throws IOException, IllegalArgumentException {
+    if (!in.markSupported()) throw new IllegalArgumentException("mark not supported");
+    in.mark(4);
+    final byte[] magic;
+    try {
+      magic = in.readNBytes(4);
+    } finally {
+      in.reset();
+    }
+    if ((magic.length >= 2) && ((magic[0] & 0xFF) == 0x1F) && ((magic[1] & 0xFF) == 0x8B)) return Format.GZIP;
+    if ((magic.length == 4) && ((magic[0] & 0xFF) == 0x28) && ((magic[1] & 0xFF) == 0xB5) && ((magic[2] & 0xFF) == 0x2F) && ((magic[3] & 0xFF) == 0xFD)) return Format.ZSTD;
+    return Format.NONE;
+  }
+
+  /**
+   * Get the {@link Format} detected for the data.
+   *
+   * @return The {@link Format} of the data.
+   */
+  public Format getFormat() {
+    return format;
+  }
+
+  private byte[] acquireBuffer() {
+    final byte @Nullable [] buffer = bufferPool.poll();
+    return (buffer != null) ? buffer : new byte[BUFFER_SIZE]; // The ring bounds how many can be outstanding.
+  }
+
+  private void releaseBuffer(final byte[] buffer) {
+    if (buffer.length == BUFFER_SIZE) bufferPool.offer(buffer);
+    return;
+  }
+
+  /**
+   * Decompress everything from the supplied stream, one buffer at a time.
+   */
+  private void produceSequential(final BlockingQueue<Future<Chunk>> ring, final InputStream decoded) throws IOException, InterruptedException {
+    while (!closed) {
+      final byte[] buffer = acquireBuffer();
+      final int length = decoded.readNBytes(buffer, 0, buffer.length);
+      if (length == 0) {
+        releaseBuffer(buffer);
+        return;
+      }
+      ring.put(CompletableFuture.completedFuture(new Chunk(buffer, length)));
+    }
+    return;
+  }
+
+  /**
+   * Read each gzip member, handing those whose size is known off to the <code>executor</code> to decompress, or falling
+   * back to decompressing the remainder sequentially once one is found which doesn't declare it's size.
+   */
+  private void produceGZIP(final BlockingQueue<Future<Chunk>> ring, final Executor executor) throws IOException, InterruptedException {
+    while (!closed) {
+      final ByteArrayOutputStream header = new ByteArrayOutputStream(32);
+      final byte[] fixed = in.readNBytes(10);
+      header.writeBytes(fixed);
+      if (fixed.length == 0) return; // No more members.
+      if ((fixed.length < 10) || ((fixed[0] & 0xFF) != 0x1F) || ((fixed[1] & 0xFF) != 0x8B) || (fixed[2] != 8)) throw new ZipException("Not in GZIP format");
+      int blockSize = -1;
+      if ((fixed[3] & GZIP_FEXTRA) != 0) {
+        final byte[] xlen = in.readNBytes(2);
+        header.writeBytes(xlen);
+        if (xlen.length < 2) throw new EOFException();
+        final byte[] extra = in.readNBytes((xlen[0] & 0xFF) | ((xlen[1] & 0xFF) << 8));
+        header.writeBytes(extra);
+        for (int i = 0; i + 4 <= extra.length;) {
+          final int subfieldLength = (extra[i + 2] & 0xFF) | ((extra[i + 3] & 0xFF) << 8);
+          if ((extra[i] == 'B') && (extra[i + 1] == 'C') && (subfieldLength == 2) && (i + 6 <= extra.length)) blockSize = ((extra[i + 4] & 0xFF) | ((extra[i + 5] & 0xFF) << 8)) + 1;
+          i += 4 + subfieldLength;
+        }
+      }
+      if (blockSize < 0) { // We can't find the end of this member without decompressing it.
+        produceSequential(ring, new GZIPInputStream(new SequenceInputStream(new ByteArrayInputStream(header.toByteArray()), in), BUFFER_SIZE));
+        return;
+      }
+      final byte[] block = Arrays.copyOf(header.toByteArray(), blockSize);
+      if (in.readNBytes(block, header.size(), blockSize - header.size()) < blockSize - header.size()) throw new EOFException();
+      ring.put(CompletableFuture.supplyAsync(() -> {
+        try {
+          return inflateMember(block);
+        } catch (IOException ioe) {
+          throw new CompletionException(ioe);
+        }
+      }, executor));
+    }
+    return;
+  }
+
+  /**
+   * Decompress a single, complete, gzip member.
+   */
+  private Chunk inflateMember(final byte[] member) throws IOException {
+    int offset = 10;
+    final int flags = member[3];
+    if ((flags & GZIP_FEXTRA) != 0) offset += 2 + ((member[10] & 0xFF) | ((member[11] & 0xFF) << 8));
+    if ((flags & GZIP_FNAME) != 0) while (member[offset++] != 0) {}
+    if ((flags & GZIP_FCOMMENT) != 0) while (member[offset++] != 0) {}
+    if ((flags & GZIP_FHCRC) != 0) offset += 2;
+    final int trailer = member.length - 8;
+    final long expectedCRC = (member[trailer] & 0xFFL) | ((member[trailer + 1] & 0xFFL) << 8) | ((member[trailer + 2] & 0xFFL) << 16) | ((member[trailer + 3] & 0xFFL) << 24);
+    final int size = (member[trailer + 4] & 0xFF) | ((member[trailer + 5] & 0xFF) << 8) | ((member[trailer + 6] & 0xFF) << 16) | ((member[trailer + 7] & 0xFF) << 24);
+    if ((size < 0) || (offset > trailer)) throw new ZipException("Invalid GZIP member");
+    if (size > BUFFER_SIZE) throw new ZipException("GZIP member size " + size + " exceeds the maximum BGZF block size"); // Don't trust the trailer enough to allocate whatever it declares.
+    final byte[] buffer = acquireBuffer();
+    final Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(member, offset, trailer - offset);
+      int length = 0;
+      while ((length < size) && (!inflater.finished())) {
+        final int inflated = inflater.inflate(buffer, length, size - length);
+        if ((inflated == 0) && ((inflater.needsInput()) || (inflater.needsDictionary()))) break;
+        length += inflated;
+      }
+      final CRC32 crc = new CRC32();
+      crc.update(buffer, 0, length);
+      if ((length != size) || (crc.getValue() != expectedCRC)) throw new ZipException("Corrupt GZIP member");
+      return new Chunk(buffer, length);
+    } catch (DataFormatException dfe) {
+      throw new ZipException(dfe.getMessage());
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Get the current chunk, waiting for the next one if the current one has been consumed.
+   *
+   * @return The current chunk, or <code>null</code> at the end of the stream.
+   */
+  private @Nullable Chunk chunk() throws IOException {
+    if (closed) return null;
+    Chunk current = chunk;
+    while ((current == null) || (chunkPosition >= current.length)) {
+      if (current == END) return null;
+      if (current != null) releaseBuffer(current.buffer);
+      try {
+        final Future<Chunk> next = Objects.requireNonNull(ring).take();
+        if (closed) throw new IOException("stream closed");
+        current = next.get();
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      } catch (ExecutionException ee) {
+        final Throwable cause = (ee.getCause() instanceof CompletionException) ? ee.getCause().getCause() : ee.getCause();
+        if (cause instanceof IOException) throw (IOException)cause;
+        throw new IOException(cause);
+      }
+      chunk = current;
+      chunkPosition = 0;
+    }
+    return current;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (ring == null) return in.read(b, off, len);
+    if (len == 0) return 0;
+    final @Nullable Chunk current = chunk();
+    if (current == null) return -1;
+    final int count = Math.min(len, current.length - chunkPosition);
+    System.arraycopy(current.buffer, chunkPosition, b, off, count);
+    chunkPosition += count;
+    return count;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (ring == null) return in.read();
+    final @Nullable Chunk current = chunk();
+    return (current != null) ? (current.buffer[chunkPosition++] & 0xFF) : -1;
+  }
+
+  @Override
+  public int available() throws IOException {
+    if (ring == null) return in.available();
+    final @Nullable Chunk current = chunk;
+    return ((current != null) && (!closed)) ? current.length - chunkPosition : 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    if (ring != null) {
+      while (!ring.offer(CompletableFuture.completedFuture(END))) { // Release a reader waiting for a chunk.
+        ring.clear();
+      }
+    }
+    if (producer != null) producer.interrupt();
+    in.close();
+    return;
+  }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.time.*;
+import java.util.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * <p>
+ * An {@link InputStream} which "follows" a file that is being continuously appended to, in the manner of
+ * "<code>tail -f</code>".
+ * </p>
+ *
+ * <p>
+ * Rather than signalling the end of the stream when it reaches the end of the file, this stream will wait for more data
+ * to be appended, polling the file with an exponential backoff between the supplied minimum and maximum intervals. The
+ * stream only ends once the file has been {@linkplain EndReason#ROTATED rotated} (replaced by, or moved away from, a
+ * different file at the same path), in which case any data remaining in the original file is read first, or
+ * {@linkplain EndReason#TRUNCATED truncated}, or the stream has been {@linkplain EndReason#CLOSED closed}, which can be
+ * done from another thread in order to stop a blocked reader.
+ * </p>
+ *
+ * @see XMLStreamParser#follow(Path, Duration)
+ */
+@NonNullByDefault
+public class FollowingInputStream extends InputStream {
+  /**
+   * The default initial interval to wait before polling the file for more data.
+   */
+  public static final Duration DEFAULT_MIN_POLL_INTERVAL = Duration.ofMillis(10);
+  /**
+   * The default maximum interval to wait before polling the file for more data.
+   */
+  public static final Duration DEFAULT_MAX_POLL_INTERVAL = Duration.ofSeconds(1);
+  protected final Path file;
+  protected final Duration minPollInterval;
+  protected final Duration maxPollInterval;
+  private final SeekableByteChannel channel;
+  private final @Nullable Object fileKey;
+  private long position = 0;
+  private volatile @Nullable EndReason endReason = null;
+
+  /**
+   * The reason a {@link FollowingInputStream} ended.
+   */
+  public static enum EndReason {
+    /**
+     * The file was replaced by, or moved away from, a different file at the same path.
+     */
+    ROTATED,
+    /**
+     * The file was truncated to a size smaller than the amount of data already read.
+     */
+    TRUNCATED,
+    /**
+     * The stream was closed.
+     */
+    CLOSED
+  } // EndReason
+
+  /**
+   * Construct a new {@link FollowingInputStream}, starting from the beginning of the file.
+   *
+   * @param file The file to follow.
+   * @param minPollInterval The initial interval to wait before polling the file for more data.
+   * @param maxPollInterval The maximum interval to wait before polling the file for more data.
+   * @throws IOException If there was a problem opening the file.
+   * @throws IllegalArgumentException If the <code>minPollInterval</code> isn't positive, or is greater than the
+   * <code>maxPollInterval</code>.
+   */
+  public FollowingInputStream(final Path file, final Duration minPollInterval, final Duration maxPollInterval) throws IOException, IllegalArgumentException {
+    this.file = Objects.requireNonNull(file, "null file");
+    this.minPollInterval = Objects.requireNonNull(minPollInterval, "null minPollInterval");
+    this.maxPollInterval = Objects.requireNonNull(maxPollInterval, "null maxPollInterval");
+    if ((minPollInterval.isNegative()) || (minPollInterval.isZero())) throw new IllegalArgumentException("minPollInterval not positive");
+    if (minPollInterval.compareTo(maxPollInterval) > 0) throw new IllegalArgumentException("minPollInterval > maxPollInterval");
+    channel = Files.newByteChannel(file, StandardOpenOption.READ);
+    fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+    return;
+  }
+
+  /**
+   * Construct a new {@link FollowingInputStream}, starting from the beginning of the file, using the
+   * {@linkplain #DEFAULT_MIN_POLL_INTERVAL default minimum poll interval}.
+   *
+   * @param file The file to follow.
+   * @param maxPollInterval The maximum interval to wait before polling the file for more data.
+   * @throws IOException If there was a problem opening the file.
+   */
+  public FollowingInputStream(final Path file, final Duration maxPollInterval) throws IOException {
+    this(file, (DEFAULT_MIN_POLL_INTERVAL.compareTo(maxPollInterval) < 0) ? DEFAULT_MIN_POLL_INTERVAL : maxPollInterval, maxPollInterval);
+    return;
+  }
+
+  /**
+   * Get the file being followed.
+   *
+   * @return The file being followed.
+   */
+  public Path getFile() {
+    return file;
+  }
+
+  /**
+   * Get the number of bytes read from the file so far.
+   *
+   * @return The current position within the file.
+   */
+  public long getPosition() {
+    return position;
+  }
+
+  /**
+   * Get the reason this stream ended.
+   *
+   * @return The {@link EndReason}, if this stream has ended.
+   */
+  public Optional<EndReason> getEndReason() {
+    return Optional.ofNullable(endReason);
+  }
+
+  /**
+   * Check if the file at our path is still the one we're reading.
+   */
+  private @Nullable EndReason checkFile() throws IOException {
+    if (channel.size() < position) return EndReason.TRUNCATED;
+    final BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (NoSuchFileException nsfe) {
+      return EndReason.ROTATED; // Moved away, and the replacement not yet created.
+    }
+    if ((fileKey != null) && (!fileKey.equals(attributes.fileKey()))) return EndReason.ROTATED;
+    if ((fileKey == null) && (attributes.size() < position)) return EndReason.ROTATED; // Without file keys, a new smaller file is our only clue.
+    return null;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) return 0;
+    long pollInterval = minPollInterval.toMillis();
+    while (true) {
+      if (endReason == EndReason.CLOSED) return -1;
+      final int count;
+      try {
+        count = channel.read(ByteBuffer.wrap(b, off, len));
+      } catch (ClosedChannelException cce) {
+        if (endReason == EndReason.CLOSED) return -1; // Closed by another thread while we were reading.
+        throw cce;
+      }
+      if (count > 0) {
+        position += count;
+        return count;
+      }
+      if (endReason != null) return -1;
+      final @Nullable EndReason reason = checkFile();
+      if (reason != null) {
+        endReason = reason;
+        continue; // Make one last attempt to drain anything appended to the original file before it was replaced.
+      }
+      try {
+        Thread.sleep(pollInterval);
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      pollInterval = Math.min(pollInterval * 2, maxPollInterval.toMillis());
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    final byte[] b = new byte[1];
+    return (read(b, 0, 1) > 0) ? (b[0] & 0xFF) : -1;
+  }
+
+  @Override
+  public int available() throws IOException {
+    if (endReason == EndReason.CLOSED) return 0;
+    return (int)Math.max(0, Math.min(Integer.MAX_VALUE, channel.size() - position));
+  }
+
+  /**
+   * Read and discard all remaining data, waiting until this stream ends.
+   *
+   * @return The reason this stream ended.
+   * @throws IOException If there was a problem reading.
+   */
+  public EndReason skipToEnd() throws IOException {
+    final byte[] buffer = new byte[8192];
+    while (read(buffer, 0, buffer.length) >= 0) {}
+    return Objects.requireNonNull(endReason);
+  }
+
+  /**
+   * Close this stream. This may be called from another thread in order to stop a blocked reader, which will then
+   * receive the end of the stream at it's next poll.
+   */
+  @Override
+  public void close() throws IOException {
+    endReason = EndReason.CLOSED;
+    channel.close();
+    return;
+  }
+
+}
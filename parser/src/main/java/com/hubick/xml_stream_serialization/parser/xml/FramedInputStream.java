@@ -0,0 +1,243 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.util.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * <p>
+ * An {@link InputStream} over a sequence of documents sent back-to-back on another stream, which only provides the
+ * content of one document ("frame") at a time.
+ * </p>
+ *
+ * <p>
+ * Documents are either {@linkplain #lengthPrefixed(InputStream) length prefixed}, where each is preceded by it's
+ * length in bytes, or {@linkplain #delimited(InputStream, byte[]) delimited}, where each is followed by a delimiter
+ * sequence which mustn't appear within any document (a <code>NUL</code> byte being a natural choice for XML, where it
+ * is never allowed). This stream will signal the end of the stream once the end of the current document is reached,
+ * after which you can {@linkplain #nextDocument() advance} to the next. A single buffer is used for reading the
+ * underlying stream, and reused for every document.
+ * </p>
+ *
+ * @see XMLStreamParser#parseDocuments(FramedInputStream)
+ */
+@NonNullByDefault
+public class FramedInputStream extends InputStream {
+  private static final int BUFFER_SIZE = 8192;
+  private final InputStream in;
+  private final byte @Nullable [] delimiter;
+  private final byte[] buffer;
+  private int position = 0;
+  private int limit = 0;
+  private boolean eof = false;
+  private boolean inDocument = false;
+  private long remaining = 0;
+  private long documentCount = 0;
+
+  protected FramedInputStream(final InputStream in, final byte @Nullable [] delimiter) {
+    this.in = Objects.requireNonNull(in, "null in");
+    this.delimiter = delimiter;
+    buffer = new byte[(delimiter != null) ? Math.max(BUFFER_SIZE, delimiter.length * 2) : BUFFER_SIZE];
+    return;
+  }
+
+  /**
+   * Create a {@link FramedInputStream} for documents which are each preceded by their length in bytes, as a four byte
+   * big-endian unsigned integer.
+   *
+   * @param in The {@link InputStream} to read the documents from.
+   * @return The new {@link FramedInputStream}.
+   */
+  public static FramedInputStream lengthPrefixed(final InputStream in) {
+    return new FramedInputStream(in, null);
+  }
+
+  /**
+   * Create a {@link FramedInputStream} for documents which are each followed by the supplied <code>delimiter</code>.
+   * The delimiter following the final document is optional.
+   *
+   * @param in The {@link InputStream} to read the documents from.
+   * @param delimiter The byte sequence separating each document.
+   * @return The new {@link FramedInputStream}.
+   * @throws IllegalArgumentException If the <code>delimiter</code> is empty.
+   */
+  public static FramedInputStream delimited(final InputStream in, final byte[] delimiter) throws IllegalArgumentException {
+    if (Objects.requireNonNull(delimiter, "null delimiter").length == 0) throw new IllegalArgumentException("empty delimiter");
+    return new FramedInputStream(in, delimiter.clone());
+  }
+
+  /**
+   * Get the number of documents which have been {@linkplain #nextDocument() advanced} to.
+   *
+   * @return The number of documents read so far.
+   */
+  public long getDocumentCount() {
+    return documentCount;
+  }
+
+  /**
+   * Ensure the buffer contains at least <code>required</code> bytes, unless the end of the underlying stream is reached
+   * first.
+   */
+  private boolean fill(final int required) throws IOException {
+    if (limit - position >= required) return true;
+    if (position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, limit - position);
+      limit -= position;
+      position = 0;
+    }
+    while ((limit < required) && (!eof)) {
+      final int count = in.read(buffer, limit, buffer.length - limit);
+      if (count < 0) {
+        eof = true;
+      } else {
+        limit += count;
+      }
+    }
+    return limit - position >= required;
+  }
+
+  /**
+   * Find the delimiter within the buffer.
+   *
+   * @return The index of the delimiter, or -1 if not found.
+   */
+  private int findDelimiter(final byte[] delimiter) {
+    final int last = limit - delimiter.length;
+    for (int i = position; i <= last; i++) {
+      if (buffer[i] != delimiter[0]) continue;
+      int j = 1;
+      while ((j < delimiter.length) && (buffer[i + j] == delimiter[j])) j++;
+      if (j == delimiter.length) return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Skip the remainder of the current document (if any), and advance to the next.
+   *
+   * @return <code>false</code> if there are no more documents.
+   * @throws IOException If there was a problem reading.
+   */
+  public boolean nextDocument() throws IOException {
+    if (inDocument) skip(Long.MAX_VALUE);
+    while (true) {
+      final byte @Nullable [] delimiter = this.delimiter;
+      if (delimiter == null) {
+        if (!fill(4)) {
+          if (limit > position) throw new EOFException("Truncated document length");
+          return false;
+        }
+        remaining = ((buffer[position] & 0xFFL) << 24) | ((buffer[position + 1] & 0xFFL) << 16) | ((buffer[position + 2] & 0xFFL) << 8) | (buffer[position + 3] & 0xFFL);
+        position += 4;
+        if (remaining == 0) continue;
+      } else {
+        if (!fill(1)) return false;
+        if ((fill(delimiter.length)) && (findDelimiter(delimiter) == position)) { // Skip empty documents.
+          position += delimiter.length;
+          continue;
+        }
+      }
+      inDocument = true;
+      documentCount++;
+      return true;
+    }
+  }
+
+  /**
+   * Determine how many of the buffered bytes belong to the current document, reading more if none are buffered.
+   *
+   * @return The number of bytes available, or -1 if the document has ended.
+   */
+  private int available(final int max) throws IOException {
+    if (!inDocument) return -1;
+    final byte @Nullable [] delimiter = this.delimiter;
+    if (delimiter == null) {
+      if (remaining == 0) {
+        inDocument = false;
+        return -1;
+      }
+      if (!fill(1)) throw new EOFException("Truncated document");
+      return (int)Math.min(Math.min(max, remaining), limit - position);
+    }
+    while (true) {
+      final int found = findDelimiter(delimiter);
+      if (found == position) {
+        position += delimiter.length;
+        inDocument = false;
+        return -1;
+      } else if (found > position) {
+        return Math.min(max, found - position);
+      }
+      final int safe = eof ? limit - position : limit - position - (delimiter.length - 1); // The tail could be the start of a delimiter.
+      if (safe > 0) return Math.min(max, safe);
+      if ((eof) || (!fill(limit - position + 1))) {
+        if (limit == position) { // The final delimiter is optional.
+          inDocument = false;
+          return -1;
+        }
+      }
+    }
+  }
+
+  private void consumed(final int count) {
+    position += count;
+    if (delimiter == null) remaining -= count;
+    return;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) return 0;
+    final int count = available(len);
+    if (count < 0) return -1;
+    System.arraycopy(buffer, position, b, off, count);
+    consumed(count);
+    return count;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (available(1) < 0) return -1;
+    final int b = buffer[position] & 0xFF;
+    consumed(1);
+    return b;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    long skipped = 0;
+    while (skipped < n) {
+      final int count = available((int)Math.min(Integer.MAX_VALUE, n - skipped));
+      if (count < 0) break;
+      consumed(count);
+      skipped += count;
+    }
+    return skipped;
+  }
+
+  @Override
+  public int available() throws IOException {
+    if (!inDocument) return 0;
+    return (delimiter == null) ? (int)Math.min(remaining, limit - position) : Math.max(0, limit - position - delimiter.length);
+  }
+
+  @Override
+  public void close() throws IOException {
+    inDocument = false;
+    in.close();
+    return;
+  }
+
+}
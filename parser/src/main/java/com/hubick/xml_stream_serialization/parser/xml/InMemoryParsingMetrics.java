@@ -0,0 +1,362 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+import javax.management.*;
+import javax.xml.namespace.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * <p>
+ * A {@link ParsingMetrics} implementation accumulating totals in memory, from which a {@link Snapshot} can be taken at
+ * any time. These totals can also be {@linkplain #registerMBean(String) exposed} through JMX, as a
+ * {@link ParsingMetricsMXBean}, for viewing from a tool such as JConsole.
+ * </p>
+ *
+ * <p>
+ * A single instance can be shared by any number of parsers and threads.
+ * </p>
+ */
+@NonNullByDefault
+public class InMemoryParsingMetrics implements ParsingMetrics, ParsingMetricsMXBean {
+  /**
+   * The JMX domain {@linkplain #registerMBean(String) registered} beans are named within.
+   */
+  public static final String JMX_DOMAIN = "com.hubick.xml_stream_serialization";
+  private final ConcurrentMap<QName,ElementCounters> elements = new ConcurrentHashMap<>();
+  private final LongAdder bytesRead = new LongAdder();
+  private final LongAdder eventsRead = new LongAdder();
+  private final AtomicLong peakDepth = new AtomicLong();
+  private final AtomicLong peakBufferedChildren = new AtomicLong();
+
+  private static final class ElementCounters {
+    public final LongAdder parsed = new LongAdder();
+    public final LongAdder skipped = new LongAdder();
+    public final LongAdder saved = new LongAdder();
+    public final LongAdder valueNanos = new LongAdder();
+    public final LongAdder injected = new LongAdder();
+    public final LongAdder injectionNanos = new LongAdder();
+  } // ElementCounters
+
+  /**
+   * The totals recorded for a single element.
+   */
+  public static final class ElementMetrics {
+    protected final long parsedCount;
+    protected final long skippedCount;
+    protected final long savedCount;
+    protected final long valueNanos;
+    protected final long injectedCount;
+    protected final long injectionNanos;
+
+    private ElementMetrics(final ElementCounters counters) {
+      parsedCount = counters.parsed.sum();
+      skippedCount = counters.skipped.sum();
+      savedCount = counters.saved.sum();
+      valueNanos = counters.valueNanos.sum();
+      injectedCount = counters.injected.sum();
+      injectionNanos = counters.injectionNanos.sum();
+      return;
+    }
+
+    /**
+     * Get the number of times the element was parsed into a value.
+     *
+     * @return The number of elements parsed.
+     */
+    public long getParsedCount() {
+      return parsedCount;
+    }
+
+    /**
+     * Get the number of times the element was skipped.
+     *
+     * @return The number of elements skipped.
+     */
+    public long getSkippedCount() {
+      return skippedCount;
+    }
+
+    /**
+     * Get the number of values parsed from the element which were saved.
+     *
+     * @return The number of values saved.
+     */
+    public long getSavedCount() {
+      return savedCount;
+    }
+
+    /**
+     * Get the cumulative time spent in the element's target value function, including any injection.
+     *
+     * @return The time spent, in nanoseconds.
+     */
+    public long getValueNanos() {
+      return valueNanos;
+    }
+
+    /**
+     * Get the number of values injected for the element.
+     *
+     * @return The number of values injected.
+     */
+    public long getInjectedCount() {
+      return injectedCount;
+    }
+
+    /**
+     * Get the cumulative time spent injecting values for the element.
+     *
+     * @return The time spent, in nanoseconds.
+     */
+    public long getInjectionNanos() {
+      return injectionNanos;
+    }
+
+    @Override
+    public String toString() {
+      return "ElementMetrics[parsedCount=" + parsedCount + ", skippedCount=" + skippedCount + ", savedCount=" + savedCount + ", valueNanos=" + valueNanos + ", injectedCount=" + injectedCount + ", injectionNanos=" + injectionNanos + ']';
+    }
+
+  } // ElementMetrics
+
+  /**
+   * A point in time copy of the recorded totals.
+   */
+  public static final class Snapshot {
+    protected final long bytesRead;
+    protected final long eventsRead;
+    protected final long peakDepth;
+    protected final long peakBufferedChildren;
+    protected final Map<QName,ElementMetrics> elements;
+
+    private Snapshot(final InMemoryParsingMetrics metrics) {
+      bytesRead = metrics.bytesRead.sum();
+      eventsRead = metrics.eventsRead.sum();
+      peakDepth = metrics.peakDepth.get();
+      peakBufferedChildren = metrics.peakBufferedChildren.get();
+      final List<Map.Entry<QName,ElementMetrics>> entries = new ArrayList<>(metrics.elements.size());
+      for (Map.Entry<QName,ElementCounters> entry : metrics.elements.entrySet()) {
+        entries.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), new ElementMetrics(entry.getValue())));
+      }
+      entries.sort(Comparator.comparingLong((Map.Entry<QName,ElementMetrics> entry) -> entry.getValue().valueNanos).reversed());
+      final Map<QName,ElementMetrics> elements = new LinkedHashMap<>();
+      for (Map.Entry<QName,ElementMetrics> entry : entries) {
+        elements.put(entry.getKey(), entry.getValue());
+      }
+      this.elements = Collections.unmodifiableMap(elements);
+      return;
+    }
+
+    /**
+     * Get the total number of bytes read.
+     *
+     * @return The number of bytes read.
+     */
+    public long getBytesRead() {
+      return bytesRead;
+    }
+
+    /**
+     * Get the total number of events read.
+     *
+     * @return The number of events read.
+     */
+    public long getEventsRead() {
+      return eventsRead;
+    }
+
+    /**
+     * Get the deepest nesting depth of any element parsed.
+     *
+     * @return The peak depth.
+     */
+    public long getPeakDepth() {
+      return peakDepth;
+    }
+
+    /**
+     * Get the largest number of child values buffered for any element parsed.
+     *
+     * @return The peak number of buffered children.
+     */
+    public long getPeakBufferedChildren() {
+      return peakBufferedChildren;
+    }
+
+    /**
+     * Get the totals for each element, ordered by the time spent in their target value functions, descending, so the
+     * elements which dominate parsing time come first.
+     *
+     * @return A {@link Map} of element names to their totals.
+     */
+    public Map<QName,ElementMetrics> getElements() {
+      return elements;
+    }
+
+    @Override
+    public String toString() {
+      return "Snapshot[bytesRead=" + bytesRead + ", eventsRead=" + eventsRead + ", peakDepth=" + peakDepth + ", peakBufferedChildren=" + peakBufferedChildren + ", elements=" + elements + ']';
+    }
+
+  } // Snapshot
+
+  /**
+   * Construct a new {@link InMemoryParsingMetrics}.
+   */
+  public InMemoryParsingMetrics() {
+    return;
+  }
+
+  private ElementCounters counters(final QName elementName) {
+    final @Nullable ElementCounters existing = elements.get(elementName);
+    return (existing != null) ? existing : elements.computeIfAbsent(elementName, (name) -> new ElementCounters());
+  }
+
+  @Override
+  public void bytesRead(final long count) {
+    bytesRead.add(count);
+    return;
+  }
+
+  @Override
+  public void eventsRead(final long count) {
+    eventsRead.add(count);
+    return;
+  }
+
+  @Override
+  public void elementParsed(final QName elementName, final int depth, final int bufferedChildren, final long valueNanos) {
+    final ElementCounters counters = counters(elementName);
+    counters.parsed.increment();
+    counters.valueNanos.add(valueNanos);
+    if (depth > peakDepth.get()) peakDepth.accumulateAndGet(depth, Math::max);
+    if (bufferedChildren > peakBufferedChildren.get()) peakBufferedChildren.accumulateAndGet(bufferedChildren, Math::max);
+    return;
+  }
+
+  @Override
+  public void elementSkipped(final QName elementName) {
+    counters(elementName).skipped.increment();
+    return;
+  }
+
+  @Override
+  public void valueSaved(final QName elementName) {
+    counters(elementName).saved.increment();
+    return;
+  }
+
+  @Override
+  public void valueInjected(final QName elementName, final Class<?> injectedValueClass, final long nanos) {
+    final ElementCounters counters = counters(elementName);
+    counters.injected.increment();
+    counters.injectionNanos.add(nanos);
+    return;
+  }
+
+  /**
+   * Take a {@link Snapshot} of the totals recorded so far.
+   *
+   * @return The new {@link Snapshot}.
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(this);
+  }
+
+  /**
+   * Discard all the totals recorded so far.
+   */
+  @Override
+  public void reset() {
+    elements.clear();
+    bytesRead.reset();
+    eventsRead.reset();
+    peakDepth.set(0);
+    peakBufferedChildren.set(0);
+    return;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return bytesRead.sum();
+  }
+
+  @Override
+  public long getEventsRead() {
+    return eventsRead.sum();
+  }
+
+  @Override
+  public long getPeakDepth() {
+    return peakDepth.get();
+  }
+
+  @Override
+  public long getPeakBufferedChildren() {
+    return peakBufferedChildren.get();
+  }
+
+  private Map<String,Long> getTotals(final ToLongFunction<ElementCounters> total) {
+    final Map<String,Long> totals = new TreeMap<>();
+    for (Map.Entry<QName,ElementCounters> entry : elements.entrySet()) {
+      totals.put(entry.getKey().toString(), total.applyAsLong(entry.getValue()));
+    }
+    return totals;
+  }
+
+  @Override
+  public Map<String,Long> getParsedCounts() {
+    return getTotals((counters) -> counters.parsed.sum());
+  }
+
+  @Override
+  public Map<String,Long> getSkippedCounts() {
+    return getTotals((counters) -> counters.skipped.sum());
+  }
+
+  @Override
+  public Map<String,Long> getSavedCounts() {
+    return getTotals((counters) -> counters.saved.sum());
+  }
+
+  @Override
+  public Map<String,Long> getValueNanos() {
+    return getTotals((counters) -> counters.valueNanos.sum());
+  }
+
+  @Override
+  public Map<String,Long> getInjectionNanos() {
+    return getTotals((counters) -> counters.injectionNanos.sum());
+  }
+
+  /**
+   * Register these metrics with the {@linkplain ManagementFactory#getPlatformMBeanServer() platform MBean server}, as
+   * a {@link ParsingMetricsMXBean} named
+   * "<code>com.hubick.xml_stream_serialization:type=ParsingMetrics,name=</code><i>name</i>".
+   *
+   * @param name The name to distinguish these metrics from those of any other parsers.
+   * @return The {@link ObjectName} the bean was registered under, which can be used to unregister it.
+   * @throws JMException If the bean couldn't be registered, such as when the name is already in use.
+   */
+  public ObjectName registerMBean(final String name) throws JMException {
+    final ObjectName objectName = new ObjectName(JMX_DOMAIN, new Hashtable<>(Map.of("type", "ParsingMetrics", "name", ObjectName.quote(Objects.requireNonNull(name, "null name")))));
+    ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(this, ParsingMetricsMXBean.class, true), objectName);
+    return objectName;
+  }
+
+}
@@ -0,0 +1,619 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+import javax.xml.*;
+import javax.xml.namespace.*;
+import javax.xml.stream.*;
+import javax.xml.stream.events.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import com.hubick.xml_stream_serialization.introspection.*;
+import com.hubick.xml_stream_serialization.introspection.Introspectable.Info;
+
+
+/**
+ * <p>
+ * A parser schema derived from the shape of an {@link Introspectable} type's {@link Info}, capable of reading the
+ * XML produced by {@link Info#writeXML(XMLStreamWriter, URI)} back into {@link Info} snapshots, or (through a
+ * supplied factory) into objects.
+ * </p>
+ *
+ * <p>
+ * The writer only generates a "grouping" element for a {@linkplain Info.Child child} property when it's values can't
+ * be distinguished otherwise, a decision which depends on the names and value types of <em>all</em> the properties
+ * present in an {@link Info}, and not just the property being written. This class mirrors that decision, which
+ * requires knowing the full set of properties for a type up front, so a schema is derived from either a
+ * {@linkplain #of(Info) sample} {@link Info}, or by {@linkplain #of(Class) introspecting} a new instance of the type.
+ * The shape of every type is assumed to be the same for all instances of it, and the derived schema for each type is
+ * cached, so that subsequent lookups, and the parsing of each document, require no further reflection or
+ * introspection. Any complex values present in a sample will have schemas derived for their own types as well, which
+ * is the only way the schemas for the various extensions of a value type allowing
+ * {@linkplain Info.Property#getValueTypeExtensions() extensions} can become known.
+ * </p>
+ *
+ * <p>
+ * Some details are lost by the writer, and can't be reconstructed. Attributes with their
+ * {@linkplain Info.Attr#isDefaultValue() default value} aren't written, so the default for each attribute is taken
+ * from the sample, and only known if the sample had it. Empty values for children are written identically to
+ * <code>null</code> ones, and are read back as <code>null</code>, while <code>null</code> values within a complex
+ * collection aren't written at all. Reconstructed {@link Info} snapshots are never
+ * {@linkplain Info.Builder#Builder(Class, URI, boolean) late bound}.
+ * </p>
+ *
+ * @param <I> The type of {@link Introspectable} object this schema is for.
+ */
+@NonNullByDefault
+public final class IntrospectionSchema<I extends Introspectable> implements Serializable {
+  private static final long serialVersionUID = 1L;
+  private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+  private static final ConcurrentMap<Class<?>,IntrospectionSchema<?>> SCHEMAS_BY_TYPE = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<QName,IntrospectionSchema<?>> SCHEMAS_BY_ELEMENT = new ConcurrentHashMap<>();
+  private final Class<I> type;
+  private final @Nullable URI namespace;
+  private final QName elementName;
+  private final List<PropertyShape> properties;
+  private final Map<String,ChildShape> childrenByElementName;
+  private final InfoElementParser<I> elementParser;
+  private final ConcurrentMap<QName,XMLStreamParser.CompiledSchema> compiledSchemas = new ConcurrentHashMap<>();
+
+  private IntrospectionSchema(final Info<I> sample) throws IllegalArgumentException {
+    type = sample.getType();
+    namespace = sample.getNamespace();
+    elementName = new QName(Optional.ofNullable(namespace).map(URI::toString).orElse(XMLConstants.NULL_NS_URI), type.getSimpleName());
+
+    final List<PropertyShape> properties = new ArrayList<>();
+    final Map<String,ChildShape> childrenByElementName = new HashMap<>();
+    for (Map.Entry<String,Info.Property<?,?>> prop : sample.entrySet()) {
+      if (prop.getValue() instanceof Info.Attr) {
+        properties.add(new AttrShape(prop.getKey(), (Info.Attr<?>)prop.getValue()));
+        continue;
+      }
+      final ChildShape child = new ChildShape(sample, prop.getKey(), (Info.Child<?,?>)prop.getValue());
+      if (childrenByElementName.putIfAbsent(child.elementName, child) != null) throw new IllegalArgumentException("Introspection of type '" + type.getName() + "' results in XML which can't be parsed unambiguously, as more than one property is written using '" + child.elementName + "' elements");
+      properties.add(child);
+    }
+    this.properties = Collections.unmodifiableList(properties);
+    this.childrenByElementName = Collections.unmodifiableMap(childrenByElementName);
+    elementParser = new InfoElementParser<I>(this);
+    return;
+  }
+
+  /**
+   * Get the schema for the {@link Info} type of the supplied <code>sample</code>, deriving it from the sample if one
+   * isn't already cached for that type. Schemas are also derived for the types of any complex values the sample
+   * contains, even when the sample's own type is already cached, so that every extension type a sample carries is
+   * discovered.
+   *
+   * @param <I> The type of {@link Introspectable} object the schema is for.
+   * @param sample A sample {@link Info}, containing every property the type exposes.
+   * @return The schema for the type of the supplied sample.
+   * @throws IllegalArgumentException If the XML for the sample's type couldn't be parsed unambiguously.
+   */
+  @SuppressWarnings("unchecked")
+  public static <I extends Introspectable> IntrospectionSchema<I> of(final Info<I> sample) throws IllegalArgumentException {
+    final @Nullable IntrospectionSchema<?> cached = SCHEMAS_BY_TYPE.get(Objects.requireNonNull(sample, "null sample").getType());
+    final IntrospectionSchema<I> schema = (cached != null) ? (IntrospectionSchema<I>)cached : new IntrospectionSchema<I>(sample).register();
+    for (Info.Property<?,?> prop : sample.values()) { // Derive the schemas for any complex values we have a sample of.
+      if ((!(prop instanceof Info.ComplexCollection)) && (!(prop instanceof Info.ComplexMap))) continue;
+      for (Object value : ((Info.Child<?,?>)prop).get()) {
+        final @Nullable Object info = (value instanceof Map.Entry) ? ((Map.Entry<?,?>)value).getValue() : value;
+        if (info instanceof Info) of((Info<?>)info);
+      }
+    }
+    return schema;
+  }
+
+  /**
+   * Get the schema for the supplied <code>type</code>, deriving it from the {@linkplain Introspectable#introspect()
+   * introspection} of a new instance if one isn't already cached for that type.
+   *
+   * @param <I> The type of {@link Introspectable} object the schema is for.
+   * @param type The type of {@link Introspectable} object the schema is for.
+   * @return The schema for the supplied <code>type</code>.
+   * @throws IllegalArgumentException If the supplied <code>type</code> couldn't be instantiated using a no-argument
+   * constructor, or it's XML couldn't be parsed unambiguously.
+   */
+  @SuppressWarnings("unchecked")
+  public static <I extends Introspectable> IntrospectionSchema<I> of(final Class<I> type) throws IllegalArgumentException {
+    final @Nullable IntrospectionSchema<?> cached = SCHEMAS_BY_TYPE.get(Objects.requireNonNull(type, "null type"));
+    if (cached != null) return (IntrospectionSchema<I>)cached;
+    final I instance;
+    try {
+      instance = type.getConstructor().newInstance();
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      throw new IllegalArgumentException("Can't derive a schema for type '" + type.getName() + "' without a sample, as it couldn't be instantiated", e);
+    }
+    return of(Introspectable.introspect(type, instance));
+  }
+
+  @SuppressWarnings("unchecked")
+  private IntrospectionSchema<I> register() {
+    final IntrospectionSchema<I> registered = (IntrospectionSchema<I>)SCHEMAS_BY_TYPE.computeIfAbsent(type, (t) -> this);
+    SCHEMAS_BY_ELEMENT.putIfAbsent(registered.elementName, registered);
+    return registered;
+  }
+
+  /**
+   * Find the schema for the type of value written using the named element.
+   */
+  private static IntrospectionSchema<?> forElement(final QName elementName, final Class<?> valueType) throws IllegalStateException {
+    final @Nullable IntrospectionSchema<?> schema = SCHEMAS_BY_ELEMENT.get(elementName);
+    if ((schema != null) && (valueType.isAssignableFrom(schema.type))) return schema;
+    @SuppressWarnings("unchecked")
+    final Class<? extends Introspectable> introspectableType = (Class<? extends Introspectable>)valueType;
+    if (introspectableType.getSimpleName().equals(elementName.getLocalPart())) return of(introspectableType); // Either not cached yet, or cached for an unrelated type with the same name.
+    throw new IllegalStateException("No schema known for '" + elementName + "' element extending '" + valueType.getName() + "' (derive one from a sample first)");
+  }
+
+  /**
+   * Get the type of {@link Introspectable} object this schema is for.
+   *
+   * @return The type of {@link Introspectable} object this schema is for.
+   */
+  public Class<I> getType() {
+    return type;
+  }
+
+  /**
+   * Get the name of the element written for this schema's {@linkplain #getType() type}.
+   *
+   * @return The {@link QName} of the element written for this schema's {@linkplain #getType() type}.
+   */
+  public QName getElementName() {
+    return elementName;
+  }
+
+  /**
+   * Get a parser for this schema's {@linkplain #getElementName() element}, suitable for use with
+   * {@link XMLStreamParser.SchemaBuilder#defineGeneratedElement(XMLStreamParser.GeneratedElementParser)}.
+   *
+   * @return A parser reconstructing an {@link Info} snapshot from this schema's element.
+   */
+  public XMLStreamParser.GeneratedElementParser<Info<I>> getElementParser() {
+    return elementParser;
+  }
+
+  /**
+   * Get a parser for this schema's {@linkplain #getElementName() element}, suitable for use with
+   * {@link XMLStreamParser.SchemaBuilder#defineGeneratedElement(XMLStreamParser.GeneratedElementParser)}, which
+   * reconstructs an object from each {@link Info} snapshot using the supplied <code>factory</code>.
+   *
+   * @param <T> The type of target value created by the <code>factory</code>.
+   * @param targetValueClass The {@link Class} of target value created by the <code>factory</code>.
+   * @param factory The {@link XMLStreamParser.SerializableFunction SerializableFunction} used to create a target
+   * value from each {@link Info} snapshot.
+   * @return A parser reconstructing an object from this schema's element.
+   */
+  public <@NonNull T> XMLStreamParser.GeneratedElementParser<T> getElementParser(final Class<T> targetValueClass, final XMLStreamParser.SerializableFunction<? super Info<I>,? extends T> factory) {
+    return new FactoryElementParser<I,T>(this, targetValueClass, factory);
+  }
+
+  /**
+   * Get a {@link XMLStreamParser.CompiledSchema CompiledSchema} for documents consisting of a container element
+   * holding a sequence of this schema's {@linkplain #getElementName() elements}. The compiled schema is cached with this
+   * one.
+   *
+   * @param containerElementName The name of the document's container element.
+   * @return The compiled schema for the container.
+   */
+  public XMLStreamParser.CompiledSchema compile(final QName containerElementName) {
+    return compiledSchemas.computeIfAbsent(Objects.requireNonNull(containerElementName, "null containerElementName"), (name) -> compile(name, elementParser));
+  }
+
+  private XMLStreamParser.CompiledSchema compile(final QName containerElementName, final XMLStreamParser.GeneratedElementParser<?> valueElementParser) {
+    final @Nullable URI containerNamespace = XMLConstants.NULL_NS_URI.equals(containerElementName.getNamespaceURI()) ? null : URI.create(containerElementName.getNamespaceURI());
+    return XMLStreamParser.buildSchema(containerNamespace)
+        .defineGeneratedElement(valueElementParser)
+        .defineContainerElementWithChildBuilder(containerElementName.getLocalPart()).addChildValueElement(elementName).completeDefinition()
+        .compile();
+  }
+
+  /**
+   * Create a parser streaming an {@link Info} snapshot for each of this schema's {@linkplain #getElementName()
+   * elements} found within the document's container element.
+   *
+   * @param containerElementName The name of the document's container element.
+   * @return The new {@link XMLStreamParser}.
+   */
+  @SuppressWarnings("unchecked")
+  public XMLStreamParser<Info<I>> createXMLParser(final QName containerElementName) {
+    return compile(containerElementName).createXMLParser((Class<Info<I>>)(Object)Info.class, Collections.singleton(containerElementName), containerElementName, elementName);
+  }
+
+  /**
+   * Create a parser streaming an object, reconstructed from the {@link Info} snapshot by the supplied
+   * <code>factory</code>, for each of this schema's {@linkplain #getElementName() elements} found within the
+   * document's container element.
+   *
+   * @param <T> The type of target value created by the <code>factory</code>.
+   * @param containerElementName The name of the document's container element.
+   * @param targetValueClass The {@link Class} of target value created by the <code>factory</code>.
+   * @param factory The {@link XMLStreamParser.SerializableFunction SerializableFunction} used to create a target
+   * value from each {@link Info} snapshot.
+   * @return The new {@link XMLStreamParser}.
+   */
+  public <@NonNull T> XMLStreamParser<T> createXMLParser(final QName containerElementName, final Class<T> targetValueClass, final XMLStreamParser.SerializableFunction<? super Info<I>,? extends T> factory) {
+    return compile(containerElementName, getElementParser(targetValueClass, factory)).createXMLParser(targetValueClass, Collections.singleton(containerElementName), containerElementName, elementName);
+  }
+
+  /**
+   * Read a document consisting solely of a single one of this schema's {@linkplain #getElementName() elements}, such as
+   * the output of {@link Info#toXMLString()}.
+   *
+   * @param inputStream The {@link InputStream} to read the document from.
+   * @return The {@link Info} snapshot for the document.
+   * @throws XMLStreamParser.ParsingException If there was a problem parsing the document.
+   */
+  public Info<I> parseDocument(final InputStream inputStream) throws XMLStreamParser.ParsingException {
+    try {
+      final XMLEventReader reader = XML_INPUT_FACTORY.createXMLEventReader(Objects.requireNonNull(inputStream, "null inputStream"));
+      try {
+        while (reader.hasNext()) {
+          final XMLEvent event = reader.nextEvent();
+          if (!event.isStartElement()) continue;
+          if (!elementName.equals(event.asStartElement().getName())) throw new XMLStreamException("Found '" + event.asStartElement().getName() + "' document element, expecting '" + elementName + "'", event.getLocation());
+          return read(event.asStartElement(), reader);
+        }
+        throw new XMLStreamException("No document element found");
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException xmlse) {
+      throw new XMLStreamParser.XMLStreamParsingException(xmlse);
+    }
+  }
+
+  /**
+   * Read this schema's element, up to and including it's end element.
+   */
+  private Info<I> read(final StartElement startElement, final XMLEventReader reader) throws XMLStreamException, IllegalStateException {
+    final Map<ChildShape,List<Object>> childValues = new HashMap<>();
+    while (true) {
+      final XMLEvent event = reader.nextEvent();
+      if (event.isEndElement()) break;
+      if (!event.isStartElement()) continue;
+      final StartElement childStartElement = event.asStartElement();
+      final @Nullable ChildShape child = childrenByElementName.get(childStartElement.getName().getLocalPart());
+      if (child == null) throw new XMLStreamException("Unexpected '" + childStartElement.getName().getLocalPart() + "' element within '" + elementName.getLocalPart() + "' element", childStartElement.getLocation());
+      final List<Object> values = childValues.computeIfAbsent(child, (c) -> new ArrayList<>());
+      if (child.grouped) {
+        while (true) {
+          final XMLEvent groupedEvent = reader.nextEvent();
+          if (groupedEvent.isEndElement()) break;
+          if (groupedEvent.isStartElement()) values.add(child.readValue(groupedEvent.asStartElement(), reader));
+        }
+      } else {
+        values.add(child.readValue(childStartElement, reader));
+      }
+    }
+
+    Info.Builder<?> builder = new Info.Builder<I>(type, namespace, false);
+    for (PropertyShape property : properties) {
+      builder = builder.type(property.declaringClass); // Properties inherited from a superclass are declared by it.
+      if (property instanceof AttrShape) {
+        ((AttrShape)property).build(builder, startElement);
+      } else {
+        ((ChildShape)property).build(builder, childValues.getOrDefault(property, Collections.emptyList()));
+      }
+    }
+    return builder.type(type).build();
+  }
+
+  /**
+   * Read the text content of a value element, up to and including it's end element.
+   */
+  private static @Nullable String readText(final StartElement startElement, final XMLEventReader reader) throws XMLStreamException {
+    final StringBuilder text = new StringBuilder();
+    while (true) {
+      final XMLEvent event = reader.nextEvent();
+      if (event.isEndElement()) break;
+      if (event.isStartElement()) throw new XMLStreamException("Unexpected '" + event.asStartElement().getName().getLocalPart() + "' element within '" + startElement.getName().getLocalPart() + "' value element", event.getLocation());
+      if (event.isCharacters()) text.append(event.asCharacters().getData());
+    }
+    return (text.length() > 0) ? text.toString() : null;
+  }
+
+  private static @Nullable String getAttributeValue(final StartElement startElement, final String name) {
+    final @Nullable Attribute attribute = startElement.getAttributeByName(new QName(name));
+    return (attribute != null) ? attribute.getValue() : null;
+  }
+
+  /**
+   * Get the schema an {@link InfoElementParser} or {@link FactoryElementParser} was created by.
+   */
+  static @Nullable IntrospectionSchema<?> forParser(final XMLStreamParser.ElementParser<?> elementParser) {
+    if (elementParser instanceof InfoElementParser) return ((InfoElementParser<?>)elementParser).schema;
+    if (elementParser instanceof FactoryElementParser) return ((FactoryElementParser<?,?>)elementParser).schema;
+    return null;
+  }
+
+  /**
+   * Find the schema for a complex value type, deriving it if the type can be instantiated.
+   */
+  private static IntrospectionSchema<?> forValueType(final Class<?> valueType) throws IllegalStateException {
+    final @Nullable IntrospectionSchema<?> schema = SCHEMAS_BY_TYPE.get(valueType);
+    if (schema != null) return schema;
+    try {
+      return of(valueType.asSubclass(Introspectable.class));
+    } catch (IllegalArgumentException iae) {
+      throw new IllegalStateException("No schema known for '" + valueType.getName() + "' values (derive one from a sample first)", iae);
+    }
+  }
+
+  /**
+   * Get a snapshot of every schema derived so far, in a consistent order.
+   */
+  static List<IntrospectionSchema<?>> getSchemas() {
+    return Collections.unmodifiableList(SCHEMAS_BY_TYPE.values().stream().sorted(Comparator.comparing((schema) -> schema.type.getName())).collect(Collectors.toList()));
+  }
+
+  /**
+   * Find the schemas for every type of value extending the supplied one, out of those in a {@link #getSchemas()}
+   * snapshot.
+   */
+  private static List<IntrospectionSchema<?>> forValueTypeExtensions(final Class<?> valueType, final List<IntrospectionSchema<?>> knownSchemas) throws IllegalStateException {
+    final List<IntrospectionSchema<?>> schemas = knownSchemas.stream().filter((schema) -> valueType.isAssignableFrom(schema.type)).collect(Collectors.toList());
+    if (schemas.isEmpty()) throw new IllegalStateException("No schema known for any type extending '" + valueType.getName() + "' (derive one from a sample first)");
+    return schemas;
+  }
+
+  /**
+   * Write a synthetic element matching this schema, as {@link Info#writeXML(XMLStreamWriter, URI)} would.
+   */
+  void generate(final SyntheticDocumentGenerator.Generation generation, final int depth) throws XMLStreamException {
+    generation.startElement(elementName, true);
+    for (PropertyShape property : properties) {
+      if (property instanceof AttrShape) generation.attribute(property.propName, generation.value(property.valueType));
+    }
+    for (PropertyShape property : properties) {
+      if (property instanceof ChildShape) ((ChildShape)property).generate(generation, new QName(elementName.getNamespaceURI(), ((ChildShape)property).elementName), depth);
+    }
+    generation.endElement();
+    return;
+  }
+
+  /**
+   * Canonicalize a deserialized schema with any cached for the same type.
+   */
+  private Object readResolve() throws ObjectStreamException {
+    return register();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + '[' + type.getName() + ']';
+  }
+
+  /**
+   * The shape of a single {@link Info.Property}.
+   */
+  private static abstract class PropertyShape implements Serializable {
+    private static final long serialVersionUID = 1L;
+    protected final Class<? extends Introspectable> declaringClass;
+    protected final String propName;
+    protected final Class<?> valueType;
+    protected final boolean valueTypeExtensions;
+
+    @SuppressWarnings("unchecked")
+    protected PropertyShape(final String propName, final Info.Property<?,?> prop) {
+      this.declaringClass = (Class<? extends Introspectable>)prop.getDeclaringClass();
+      this.propName = propName;
+      this.valueType = prop.getValueType();
+      this.valueTypeExtensions = prop.getValueTypeExtensions();
+      return;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final Class<Object> getValueType() {
+      return (Class<Object>)valueType;
+    }
+
+  } // PropertyShape
+
+  /**
+   * The shape of an {@link Info.Attr}.
+   */
+  private static final class AttrShape extends PropertyShape {
+    private static final long serialVersionUID = 1L;
+    private final @Nullable String defaultValue;
+
+    public AttrShape(final String propName, final Info.Attr<?> attr) {
+      super(propName, attr);
+      defaultValue = attr.isDefaultValue() ? attr.get().orElse(null) : null;
+      return;
+    }
+
+    public void build(final Info.Builder<?> builder, final StartElement startElement) {
+      final @Nullable String value = getAttributeValue(startElement, propName);
+      builder.attr(getValueType(), valueTypeExtensions, propName, defaultValue, (value != null) ? value : defaultValue, Object::toString);
+      return;
+    }
+
+  } // AttrShape
+
+  /**
+   * The shape of an {@link Info.Child}, and how {@link Info#writeXML(XMLStreamWriter, URI)} writes it.
+   */
+  private static final class ChildShape extends PropertyShape {
+    private static final long serialVersionUID = 1L;
+    private final Class<?> childClass;
+    private final String valueName;
+    private final @Nullable Class<?> keyType;
+    private final boolean keyTypeExtensions;
+    private final @Nullable String keyName;
+    private final boolean grouped;
+    private final String elementName;
+
+    public ChildShape(final Info<?> info, final String propName, final Info.Child<?,?> child) {
+      super(propName, child);
+      childClass = child.getClass();
+      valueName = child.getValueName();
+      final Info.@Nullable MapChild<?,?,?> mapChild = Info.MapChild.castMap(child).orElse(null);
+      keyType = (mapChild != null) ? mapChild.getKeyType() : null;
+      keyTypeExtensions = (mapChild != null) && (mapChild.getKeyTypeExtensions());
+      keyName = (mapChild != null) ? mapChild.getKeyName() : null;
+
+      if (valueTypeExtensions) { // These next rules mirror the writer.
+        grouped = true;
+      } else if (propName.equals(getGroupingValueName(child))) {
+        grouped = false;
+      } else {
+        grouped = info.values().stream().filter(Info.Child.class::isInstance).<Info.Child<?,?>> map((p) -> (Info.Child<?,?>)p)
+            .filter((otherChild) -> otherChild != child)
+            .filter((otherChild) -> !otherChild.getValueTypeExtensions())
+            .anyMatch((otherChild) -> getGroupingValueName(otherChild).equals(getGroupingValueName(child)));
+      }
+
+      if (grouped) {
+        elementName = propName;
+      } else if (child instanceof Info.ComplexCollection) {
+        elementName = valueType.getSimpleName(); // The name of the value's own element.
+      } else {
+        elementName = valueName;
+      }
+      return;
+    }
+
+    private static String getGroupingValueName(final Info.Child<?,?> child) {
+      return ((child instanceof Info.ComplexCollection) || (child instanceof Info.ComplexMap)) ? child.getValueType().getSimpleName() : child.getValueName();
+    }
+
+    private Info<?> readInfo(final StartElement startElement, final XMLEventReader reader) throws XMLStreamException, IllegalStateException {
+      return forElement(startElement.getName(), valueType).read(startElement, reader);
+    }
+
+    public Object readValue(final StartElement startElement, final XMLEventReader reader) throws XMLStreamException, IllegalStateException {
+      if (childClass == Info.ComplexCollection.class) return readInfo(startElement, reader);
+      if (!valueName.equals(startElement.getName().getLocalPart())) throw new XMLStreamException("Unexpected '" + startElement.getName().getLocalPart() + "' element, expecting '" + valueName + "'", startElement.getLocation());
+      if (childClass == Info.PrimitiveCollection.class) return Optional.ofNullable(readText(startElement, reader));
+      final @Nullable String key = getAttributeValue(startElement, Objects.requireNonNull(keyName));
+      if (childClass == Info.PrimitiveMap.class) return new AbstractMap.SimpleImmutableEntry<@Nullable Object,@Nullable Object>(key, readText(startElement, reader));
+      @Nullable Info<?> value = null;
+      while (true) {
+        final XMLEvent event = reader.nextEvent();
+        if (event.isEndElement()) break;
+        if (!event.isStartElement()) continue;
+        if (value != null) throw new XMLStreamException("Unexpected '" + event.asStartElement().getName().getLocalPart() + "' element, following '" + valueName + "' value", event.getLocation());
+        value = readInfo(event.asStartElement(), reader);
+      }
+      return new AbstractMap.SimpleImmutableEntry<@Nullable Object,@Nullable Introspectable>(key, (value != null) ? new Snapshot(value) : null);
+    }
+
+    public void generate(final SyntheticDocumentGenerator.Generation generation, final QName groupingElementName, final int depth) throws XMLStreamException {
+      final boolean complex = (childClass == Info.ComplexCollection.class) || (childClass == Info.ComplexMap.class);
+      if ((complex) && (depth >= generation.getMaxDepth())) return;
+      final QName valueElementName = new QName(groupingElementName.getNamespaceURI(), valueName);
+      final List<IntrospectionSchema<?>> schemas = (!complex) ? Collections.emptyList() : (valueTypeExtensions) ? forValueTypeExtensions(valueType, generation.getIntrospectionSchemas()) : Collections.singletonList(forValueType(valueType));
+      if (grouped) generation.startElement(groupingElementName, true);
+      for (int i = 0; i < generation.getFanOut(); i++) {
+        if (childClass == Info.ComplexCollection.class) {
+          schemas.get(generation.nextInt(schemas.size())).generate(generation, depth + 1);
+          continue;
+        }
+        generation.startElement(valueElementName, true);
+        if (keyName != null) generation.attribute(keyName, generation.value(Objects.requireNonNull(keyType)));
+        if (complex) {
+          schemas.get(generation.nextInt(schemas.size())).generate(generation, depth + 1);
+        } else {
+          generation.characters(generation.value(valueType));
+        }
+        generation.endElement();
+      }
+      if (grouped) generation.endElement();
+      return;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void build(final Info.Builder<?> builder, final List<Object> values) {
+      if (childClass == Info.PrimitiveCollection.class) {
+        final List<@Nullable Object> primitiveValues = new ArrayList<>(values.size());
+        for (Object value : values) {
+          primitiveValues.add(((Optional<?>)value).orElse(null));
+        }
+        builder.primitiveChild(getValueType(), valueTypeExtensions, propName, valueName, primitiveValues, Object::toString);
+      } else if (childClass == Info.ComplexCollection.class) {
+        final List<Introspectable> complexValues = new ArrayList<>(values.size());
+        for (Object value : values) {
+          complexValues.add(new Snapshot((Info<?>)value));
+        }
+        builder.complexChild((Class<Introspectable>)valueType, valueTypeExtensions, propName, valueName, complexValues);
+      } else if (childClass == Info.PrimitiveMap.class) {
+        builder.primitiveChild(Objects.requireNonNull((Class<Object>)keyType), keyTypeExtensions, Objects.requireNonNull(keyName), getValueType(), valueTypeExtensions, propName, valueName, (List<Map.Entry<Object,Object>>)(Object)values, Object::toString, Object::toString);
+      } else {
+        builder.complexChild(Objects.requireNonNull((Class<Object>)keyType), keyTypeExtensions, Objects.requireNonNull(keyName), (Class<Introspectable>)valueType, valueTypeExtensions, propName, valueName, (List<Map.Entry<Object,Introspectable>>)(Object)values, Object::toString);
+      }
+      return;
+    }
+
+  } // ChildShape
+
+  /**
+   * Allows a previously read {@link Info} to be added to a {@link Info.Builder} as a complex value.
+   */
+  private static final class Snapshot implements Introspectable {
+    private final Info<?> info;
+
+    public Snapshot(final Info<?> info) {
+      this.info = info;
+      return;
+    }
+
+    @Override
+    public Info<?> introspect() {
+      return info;
+    }
+
+  } // Snapshot
+
+  private static final class InfoElementParser<I extends Introspectable> extends XMLStreamParser.GeneratedElementParser<Info<I>> {
+    private static final long serialVersionUID = 1L;
+    private final IntrospectionSchema<I> schema;
+
+    @SuppressWarnings("unchecked")
+    public InfoElementParser(final IntrospectionSchema<I> schema) {
+      super((Class<Info<I>>)(Object)Info.class, schema.elementName, false);
+      this.schema = schema;
+      return;
+    }
+
+    @Override
+    protected Info<I> read(final StartElement startElement, final XMLEventReader reader) throws XMLStreamException, RuntimeException {
+      return schema.read(startElement, reader);
+    }
+
+  } // InfoElementParser
+
+  private static final class FactoryElementParser<I extends Introspectable,@NonNull T> extends XMLStreamParser.GeneratedElementParser<T> {
+    private static final long serialVersionUID = 1L;
+    private final IntrospectionSchema<I> schema;
+    private final XMLStreamParser.SerializableFunction<? super Info<I>,? extends T> factory;
+
+    public FactoryElementParser(final IntrospectionSchema<I> schema, final Class<T> targetValueClass, final XMLStreamParser.SerializableFunction<? super Info<I>,? extends T> factory) {
+      super(targetValueClass, schema.elementName, false);
+      this.schema = schema;
+      this.factory = Objects.requireNonNull(factory, "null factory");
+      return;
+    }
+
+    @Override
+    protected T read(final StartElement startElement, final XMLEventReader reader) throws XMLStreamException, RuntimeException {
+      return factory.apply(schema.read(startElement, reader));
+    }
+
+  } // FactoryElementParser
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import javax.xml.namespace.*;
+import javax.xml.stream.*;
+import javax.xml.stream.events.*;
+import javax.xml.stream.util.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import jdk.jfr.*;
+
+
+/**
+ * <p>
+ * The JDK Flight Recorder events emitted by an {@link XMLStreamParser}, so that slow documents and elements can be
+ * correlated with the GC, I/O, and other activity recorded alongside them.
+ * </p>
+ *
+ * <p>
+ * Each event has a default threshold, so that only slow documents or elements are recorded, which can be overridden
+ * in the recording settings using the event's name (ie, <code>com.hubick.xml_stream_serialization.DocumentParse</code>).
+ * </p>
+ */
+@NonNullByDefault
+final class ParsingEvents {
+  /**
+   * The {@link Category} all these events are recorded under.
+   */
+  public static final String CATEGORY = "XML Stream Serialization";
+
+  private ParsingEvents() {
+    return;
+  }
+
+  /**
+   * Wrap the supplied <code>reader</code> so that the document it's reading will be recorded as a
+   * {@link DocumentParseEvent}, if that event is enabled.
+   *
+   * @param reader The {@link XMLEventReader} for the document.
+   * @return The wrapped reader, or the supplied one if the event isn't enabled.
+   */
+  static XMLEventReader recordDocument(final XMLEventReader reader) {
+    final DocumentParseEvent event = new DocumentParseEvent();
+    return event.isEnabled() ? new RecordingEventReader(reader, event) : reader;
+  }
+
+  /**
+   * Commit the {@link DocumentParseEvent} for a document whose parse failed, if the supplied <code>reader</code> is
+   * {@linkplain #recordDocument(XMLEventReader) recording} one, since a failed document may never be read to the end,
+   * or have it's reader closed.
+   *
+   * @param reader The {@link XMLEventReader} for the document, which may wrap the recording one.
+   */
+  static void documentFailed(final XMLEventReader reader) {
+    for (XMLEventReader delegate = reader; delegate instanceof EventReaderDelegate; delegate = ((EventReaderDelegate)delegate).getParent()) {
+      if (delegate instanceof RecordingEventReader) {
+        ((RecordingEventReader)delegate).end();
+        return;
+      }
+    }
+    return;
+  }
+
+  /**
+   * Record an {@linkplain SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class) exception element}
+   * as having been encountered.
+   *
+   * @param elementName The name of the element.
+   * @param exception The {@link Exception} parsed from the element.
+   */
+  static void exceptionElement(final QName elementName, final Exception exception) {
+    final ExceptionElementEvent event = new ExceptionElementEvent();
+    if (!event.shouldCommit()) return;
+    event.elementName = elementName.toString();
+    event.exceptionClass = exception.getClass();
+    event.message = exception.getMessage();
+    event.commit();
+    return;
+  }
+
+  @Name("com.hubick.xml_stream_serialization.DocumentParse")
+  @Label("Document Parse")
+  @Description("The parsing of an XML document, from the time it's reader was created until it was closed.")
+  @Category({ CATEGORY, "Parsing" })
+  @Threshold("100 ms")
+  @StackTrace(false)
+  static final class DocumentParseEvent extends Event {
+    @Label("Document Element")
+    @Description("The name of the document element.")
+    @Nullable
+    String documentElement;
+    @Label("Event Count")
+    @Description("The number of XML events read from the document.")
+    long eventCount;
+  } // DocumentParseEvent
+
+  @Name("com.hubick.xml_stream_serialization.TargetValue")
+  @Label("Target Value")
+  @Description("The parsing of an element into a target value.")
+  @Category({ CATEGORY, "Parsing" })
+  @Threshold("10 ms")
+  @StackTrace(false)
+  static final class TargetValueEvent extends Event {
+    @Label("Element Name")
+    @Nullable
+    String elementName;
+    @Label("Value Class")
+    @Description("The class of the target value produced.")
+    @Nullable
+    Class<?> valueClass;
+  } // TargetValueEvent
+
+  @Name("com.hubick.xml_stream_serialization.ElementSkipped")
+  @Label("Element Skipped")
+  @Description("The skipping of an element which the schema didn't define as a child of it's parent.")
+  @Category({ CATEGORY, "Parsing" })
+  @Threshold("10 ms")
+  @StackTrace(false)
+  static final class ElementSkippedEvent extends Event {
+    @Label("Element Name")
+    @Nullable
+    String elementName;
+  } // ElementSkippedEvent
+
+  @Name("com.hubick.xml_stream_serialization.ExceptionElement")
+  @Label("Exception Element")
+  @Description("An element which was parsed into an exception, ending the parsing of it's parent.")
+  @Category({ CATEGORY, "Parsing" })
+  static final class ExceptionElementEvent extends Event {
+    @Label("Element Name")
+    @Nullable
+    String elementName;
+    @Label("Exception Class")
+    @Nullable
+    Class<?> exceptionClass;
+    @Label("Message")
+    @Nullable
+    String message;
+  } // ExceptionElementEvent
+
+  /**
+   * An {@link XMLEventReader} recording the document it reads as a {@link DocumentParseEvent}, which is committed once
+   * the end of the document is reached, the reader is closed, or the {@linkplain #documentFailed(XMLEventReader) parse
+   * fails}.
+   */
+  private static final class RecordingEventReader extends EventReaderDelegate {
+    private final DocumentParseEvent event;
+    private boolean ended = false;
+
+    public RecordingEventReader(final XMLEventReader reader, final DocumentParseEvent event) {
+      super(reader);
+      this.event = event;
+      event.begin();
+      return;
+    }
+
+    private XMLEvent count(final XMLEvent event) {
+      this.event.eventCount++;
+      if ((this.event.documentElement == null) && (event.isStartElement())) this.event.documentElement = event.asStartElement().getName().toString();
+      if (event.isEndDocument()) end();
+      return event;
+    }
+
+    private void end() {
+      if (ended) return;
+      ended = true;
+      event.end();
+      if (event.shouldCommit()) event.commit();
+      return;
+    }
+
+    @Override
+    public XMLEvent nextEvent() throws XMLStreamException {
+      return count(super.nextEvent());
+    }
+
+    @Override
+    public Object next() {
+      return count((XMLEvent)super.next());
+    }
+
+    @Override
+    public XMLEvent nextTag() throws XMLStreamException {
+      return count(super.nextTag());
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+      final StringBuilder text = new StringBuilder();
+      while (true) { // Read the events ourselves, so they're counted.
+        final XMLEvent event = nextEvent();
+        if (event.isEndElement()) return text.toString();
+        if (event.isCharacters()) {
+          text.append(event.asCharacters().getData());
+        } else if ((event.isStartElement()) || (event.isEndDocument())) {
+          throw new XMLStreamException("Expected element text, found " + event, event.getLocation());
+        } // Comments and processing instructions are skipped.
+      }
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+      end();
+      super.close();
+      return;
+    }
+
+  } // RecordingEventReader
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import javax.xml.namespace.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * <p>
+ * A receiver for measurements of the work performed by an {@link XMLStreamParser}, which can be used to find the
+ * elements where parsing time is being spent.
+ * </p>
+ *
+ * <p>
+ * Measurement is enabled by supplying an implementation to
+ * {@link XMLStreamParser.SchemaBuilder#setParsingMetrics(ParsingMetrics)}. It's methods are invoked synchronously by
+ * the parsing thread (possibly from many parses at once), so implementations must be thread-safe and should be quick.
+ * </p>
+ *
+ * @see InMemoryParsingMetrics
+ */
+@NonNullByDefault
+public interface ParsingMetrics {
+
+  /**
+   * Record that bytes were read from a document.
+   *
+   * @param count The number of bytes read.
+   */
+  public void bytesRead(long count);
+
+  /**
+   * Record that events were read from a document.
+   *
+   * @param count The number of events read.
+   */
+  public void eventsRead(long count);
+
+  /**
+   * Record that an element was parsed into a value.
+   *
+   * @param elementName The name of the element.
+   * @param depth The nesting depth of the element, where the document element is at depth zero.
+   * @param bufferedChildren The number of child values which were buffered for the element.
+   * @param valueNanos The time spent in the element's target value function (including any
+   * {@linkplain #valueInjected(QName, Class, long) injection}), or reading the content of a captured, binary or
+   * generated element, in nanoseconds.
+   */
+  public void elementParsed(QName elementName, int depth, int bufferedChildren, long valueNanos);
+
+  /**
+   * Record that an element was skipped, because the schema didn't define it as a child of it's parent.
+   *
+   * @param elementName The name of the element.
+   */
+  public void elementSkipped(QName elementName);
+
+  /**
+   * Record that the value parsed from an element was saved.
+   *
+   * @param elementName The name of the element.
+   */
+  public void valueSaved(QName elementName);
+
+  /**
+   * Record that a value was {@linkplain XMLStreamParser.ElementParsingContext#getInjectedValue(Class, java.util.Map)
+   * injected}.
+   *
+   * @param elementName The name of the element the value was injected for.
+   * @param injectedValueClass The {@link Class} of object which was injected.
+   * @param nanos The time spent injecting the value, in nanoseconds.
+   */
+  public void valueInjected(QName elementName, Class<?> injectedValueClass, long nanos);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.util.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * The attributes and operations of {@link InMemoryParsingMetrics} which are
+ * {@linkplain InMemoryParsingMetrics#registerMBean(String) exposed} through JMX. Per-element totals are keyed by the
+ * {@linkplain javax.xml.namespace.QName#toString() string form} of each element's name.
+ */
+@NonNullByDefault
+public interface ParsingMetricsMXBean {
+
+  public long getBytesRead();
+
+  public long getEventsRead();
+
+  public long getPeakDepth();
+
+  public long getPeakBufferedChildren();
+
+  public Map<String,Long> getParsedCounts();
+
+  public Map<String,Long> getSkippedCounts();
+
+  public Map<String,Long> getSavedCounts();
+
+  public Map<String,Long> getValueNanos();
+
+  public Map<String,Long> getInjectionNanos();
+
+  public void reset();
+
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * <p>
+ * An {@link InputStream} which reads ahead of it's consumer, on a separate thread, so that waiting on a slow source
+ * (such as a network filesystem) overlaps with whatever is consuming this stream (such as a parser), rather than
+ * stalling it on every refill.
+ * </p>
+ *
+ * <p>
+ * Data is read into a bounded queue of pooled direct {@link ByteBuffer}s, allowing a {@link FileChannel} source to be
+ * read without an intermediate copy. Both the depth of the queue and the size of each buffer are configurable, and
+ * the time spent waiting on either side is recorded, so that you can tell whether the source or the consumer is the
+ * bottleneck: if the {@linkplain #getStallNanos() consumer stalls} are significant then the source isn't keeping up,
+ * whereas {@linkplain #getProducerStallNanos() producer stalls} indicate the queue is full and the consumer is the
+ * limiting factor.
+ * </p>
+ *
+ * @see XMLStreamParser#parse(Path, int, int)
+ */
+@NonNullByDefault
+public class ReadAheadInputStream extends InputStream {
+  /**
+   * The default number of filled buffers which may be queued ahead of the reader.
+   */
+  public static final int DEFAULT_QUEUE_DEPTH = 4;
+  /**
+   * The default size of each buffer.
+   */
+  public static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+  private static final ByteBuffer END = ByteBuffer.allocate(0);
+  private final ReadableByteChannel channel;
+  private final int bufferSize;
+  private final int maxBuffers;
+  private final BlockingQueue<ByteBuffer> filled;
+  private final BlockingQueue<ByteBuffer> free;
+  private final AtomicInteger allocatedBuffers = new AtomicInteger();
+  private final Thread producer;
+  private final AtomicLong stallNanos = new AtomicLong();
+  private final AtomicLong stallCount = new AtomicLong();
+  private final AtomicLong producerStallNanos = new AtomicLong();
+  private final AtomicLong bytesRead = new AtomicLong();
+  private volatile @Nullable IOException failure = null;
+  private volatile boolean closed = false;
+  private @Nullable ByteBuffer buffer = null;
+
+  /**
+   * Construct a new {@link ReadAheadInputStream}.
+   *
+   * @param channel The {@link ReadableByteChannel} to read data from.
+   * @param queueDepth The maximum number of filled buffers which may be queued ahead of the reader.
+   * @param bufferSize The size of each buffer.
+   * @param threadFactory The {@link ThreadFactory} used to create the thread reading ahead, or <code>null</code> to
+   * create a daemon thread.
+   * @throws IllegalArgumentException If the <code>queueDepth</code> or <code>bufferSize</code> aren't positive.
+   */
+  public ReadAheadInputStream(final ReadableByteChannel channel, final int queueDepth, final int bufferSize, final @Nullable ThreadFactory threadFactory) throws IllegalArgumentException {
+    if (queueDepth < 1) throw new IllegalArgumentException("queueDepth not positive");
+    if (bufferSize < 1) throw new IllegalArgumentException("bufferSize not positive");
+    this.channel = Objects.requireNonNull(channel, "null channel");
+    this.bufferSize = bufferSize;
+    maxBuffers = queueDepth + 1; // One more than the queue, for the buffer being read.
+    filled = new ArrayBlockingQueue<>(maxBuffers + 1); // Leaving room for the end marker.
+    free = new ArrayBlockingQueue<>(maxBuffers);
+    final Runnable task = this::produce;
+    if (threadFactory != null) {
+      producer = threadFactory.newThread(task);
+    } else {
+      producer = new Thread(task, getClass().getSimpleName());
+      producer.setDaemon(true);
+    }
+    producer.start();
+    return;
+  }
+
+  /**
+   * Construct a new {@link ReadAheadInputStream}.
+   *
+   * @param in The {@link InputStream} to read data from.
+   * @param queueDepth The maximum number of filled buffers which may be queued ahead of the reader.
+   * @param bufferSize The size of each buffer.
+   * @throws IllegalArgumentException If the <code>queueDepth</code> or <code>bufferSize</code> aren't positive.
+   */
+  public ReadAheadInputStream(final InputStream in, final int queueDepth, final int bufferSize) throws IllegalArgumentException {
+    this(Channels.newChannel(Objects.requireNonNull(in, "null in")), queueDepth, bufferSize, null);
+    return;
+  }
+
+  /**
+   * Construct a new {@link ReadAheadInputStream} using the {@linkplain #DEFAULT_QUEUE_DEPTH default queue depth} and
+   * {@linkplain #DEFAULT_BUFFER_SIZE buffer size}.
+   *
+   * @param in The {@link InputStream} to read data from.
+   */
+  public ReadAheadInputStream(final InputStream in) {
+    this(in, DEFAULT_QUEUE_DEPTH, DEFAULT_BUFFER_SIZE);
+    return;
+  }
+
+  /**
+   * Open a {@link ReadAheadInputStream} over the contents of a file.
+   *
+   * @param file The file to read.
+   * @param queueDepth The maximum number of filled buffers which may be queued ahead of the reader.
+   * @param bufferSize The size of each buffer.
+   * @return The new {@link ReadAheadInputStream}.
+   * @throws IOException If there was a problem opening the file.
+   * @throws IllegalArgumentException If the <code>queueDepth</code> or <code>bufferSize</code> aren't positive.
+   */
+  public static ReadAheadInputStream open(final Path file, final int queueDepth, final int bufferSize) throws IOException, IllegalArgumentException {
+    final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return new ReadAheadInputStream(channel, queueDepth, bufferSize, null);
+    } catch (RuntimeException re) {
+      channel.close();
+      throw re;
+    }
+  }
+
+  /**
+   * Get the total time the reader has spent waiting for data which hadn't been read ahead yet.
+   *
+   * @return The time spent waiting, in nanoseconds.
+   */
+  public long getStallNanos() {
+    return stallNanos.get();
+  }
+
+  /**
+   * Get the number of times the reader has had to wait for data which hadn't been read ahead yet.
+   *
+   * @return The number of stalls.
+   */
+  public long getStallCount() {
+    return stallCount.get();
+  }
+
+  /**
+   * Get the total time the thread reading ahead has spent waiting for a free buffer, because the queue was full.
+   *
+   * @return The time spent waiting, in nanoseconds.
+   */
+  public long getProducerStallNanos() {
+    return producerStallNanos.get();
+  }
+
+  /**
+   * Get the number of bytes which have been read from the source so far, including those still queued.
+   *
+   * @return The number of bytes read ahead.
+   */
+  public long getBytesRead() {
+    return bytesRead.get();
+  }
+
+  private ByteBuffer acquireBuffer() throws InterruptedException {
+    final @Nullable ByteBuffer pooled = free.poll();
+    if (pooled != null) return pooled;
+    if (allocatedBuffers.getAndIncrement() < maxBuffers) return ByteBuffer.allocateDirect(bufferSize);
+    allocatedBuffers.decrementAndGet();
+    final long start = System.nanoTime();
+    try {
+      return free.take();
+    } finally {
+      producerStallNanos.addAndGet(System.nanoTime() - start);
+    }
+  }
+
+  private void produce() {
+    try {
+      while (!closed) {
+        final ByteBuffer buffer = acquireBuffer();
+        buffer.clear();
+        final int count = channel.read(buffer);
+        if (count < 0) break;
+        bytesRead.addAndGet(count);
+        buffer.flip();
+        if (buffer.hasRemaining()) {
+          filled.put(buffer);
+        } else {
+          free.offer(buffer);
+        }
+      }
+    } catch (InterruptedException | ClosedByInterruptException ie) {
+      if (!closed) failure = new InterruptedIOException();
+    } catch (IOException | RuntimeException e) {
+      if (!closed) failure = (e instanceof IOException) ? (IOException)e : new IOException(e);
+    } finally {
+      filled.offer(END); // Even once closed, in case the reader is waiting.
+    }
+    return;
+  }
+
+  /**
+   * Get the current buffer, waiting for the next one if the current one has been consumed.
+   *
+   * @return The current buffer, or <code>null</code> at the end of the stream.
+   */
+  private @Nullable ByteBuffer buffer() throws IOException {
+    if (closed) return null;
+    ByteBuffer current = buffer;
+    while ((current == null) || (!current.hasRemaining())) {
+      if (current == END) {
+        final @Nullable IOException failure = this.failure;
+        if (failure != null) throw failure;
+        return null;
+      }
+      if (current != null) free.offer(current);
+      current = filled.poll();
+      if (current == null) {
+        final long start = System.nanoTime();
+        try {
+          current = filled.take();
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException();
+        } finally {
+          stallNanos.addAndGet(System.nanoTime() - start);
+          stallCount.incrementAndGet();
+        }
+        if (closed) throw new IOException("stream closed");
+      }
+      buffer = current;
+    }
+    return current;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    Objects.checkFromIndexSize(off, len, b.length);
+    if (len == 0) return 0;
+    final @Nullable ByteBuffer current = buffer();
+    if (current == null) return -1;
+    final int count = Math.min(len, current.remaining());
+    current.get(b, off, count);
+    return count;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final @Nullable ByteBuffer current = buffer();
+    return (current != null) ? (current.get() & 0xFF) : -1;
+  }
+
+  @Override
+  public int available() throws IOException {
+    final @Nullable ByteBuffer current = buffer;
+    return ((current != null) && (!closed)) ? current.remaining() : 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    closed = true;
+    filled.clear();
+    filled.offer(END); // Release a reader waiting for data.
+    producer.interrupt();
+    channel.close();
+    return;
+  }
+
+}
@@ -0,0 +1,767 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.math.*;
+import java.nio.channels.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+import javax.xml.*;
+import javax.xml.namespace.*;
+import javax.xml.stream.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import com.hubick.xml_stream_serialization.introspection.*;
+import com.hubick.xml_stream_serialization.parser.xml.XMLStreamParser.*;
+import com.hubick.xml_stream_serialization.parser.xml.soap.*;
+
+
+/**
+ * <p>
+ * Generates synthetic documents matching the schema of an {@link XMLStreamParser}, for use as reproducible input to
+ * benchmarks and load tests.
+ * </p>
+ *
+ * <p>
+ * A document is generated by walking the parser's schema from it's document element down to the
+ * {@linkplain XMLStreamParser#getTargetContainerElementName() target container}, writing every element along the way
+ * once, and then writing the configured {@linkplain #withTargetCount(long) number} of target value elements into the
+ * container (optionally stopping once a {@linkplain #withMaxBytes(long) size} is reached). Each target value element
+ * is written with it's child elements repeated according to the {@linkplain #withFanOut(int) fan-out}, recursive
+ * elements nested down to the {@linkplain #withMaxDepth(int) maximum depth}, a number of
+ * {@linkplain #withAttributeCount(int) extra attributes}, and text of a {@linkplain #withTextLength(int, int)
+ * configurable length}. Elements the parser will {@linkplain #IGNORED_ELEMENT_NAME ignore} can be
+ * {@linkplain #withIgnoredRatio(double) interspersed} throughout, and the container's
+ * {@linkplain XMLStreamParser.SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName) exception
+ * elements} (such as a SOAP <code>Fault</code>) can be {@linkplain #withFaultFrequency(double) substituted} for some
+ * of the target values.
+ * </p>
+ *
+ * <p>
+ * Documents are written to a stream as they're generated, holding nothing but the current path through the schema,
+ * so generating an arbitrarily large document requires constant memory. All choices are made using a {@link Random}
+ * created from the supplied seed, so the same generator always produces the same document.
+ * </p>
+ *
+ * <p>
+ * A schema doesn't describe the attributes or text an element's target value function expects. Text is generated for
+ * the {@linkplain XMLStreamParser.SchemaBuilder#defineSimpleElement(String, Class, Function) simple elements} of
+ * common value types (numbers, dates and times, enums, etc), and for the JAX-WS fault details, but elements of any
+ * other type, or requiring attributes, must be configured using {@link #withText(QName, Function)} and
+ * {@link #withAttribute(QName, String, Function)}. The children of an {@link Introspectable} type's
+ * {@linkplain IntrospectionSchema#getElementParser() element} are generated from it's {@link IntrospectionSchema}
+ * (with the values of a property allowing extensions drawn from the schemas which had been derived for those
+ * extensions when the generator was created),
+ * while other {@linkplain XMLStreamParser.GeneratedElementParser generated} elements are written empty.
+ * </p>
+ */
+@NonNullByDefault
+public final class SyntheticDocumentGenerator {
+  /**
+   * The name of the elements {@linkplain #withIgnoredRatio(double) interspersed} with those from the schema, which a
+   * parser will ignore.
+   */
+  public static final QName IGNORED_ELEMENT_NAME = new QName("urn:x-synthetic-document-generator", "ignored", "ignored");
+  /**
+   * The number of target values generated unless {@linkplain #withTargetCount(long) configured} otherwise.
+   */
+  public static final long DEFAULT_TARGET_COUNT = 1000;
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+  private static final char[] TEXT_CHARS = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789".toCharArray();
+  private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+  private static final long MAX_EPOCH_SECOND = 4102444800L; // 2100-01-01
+  private static final Map<Class<?>,Function<Random,String>> DEFAULT_VALUES;
+  static {
+    final Map<Class<?>,Function<Random,String>> values = new HashMap<>();
+    values.put(Boolean.class, (random) -> Boolean.toString(random.nextBoolean()));
+    values.put(Byte.class, (random) -> Integer.toString(random.nextInt(Byte.MAX_VALUE)));
+    values.put(Short.class, (random) -> Integer.toString(random.nextInt(Short.MAX_VALUE)));
+    values.put(Integer.class, (random) -> Integer.toString(random.nextInt(1000000)));
+    values.put(Long.class, (random) -> Long.toString(random.nextInt(Integer.MAX_VALUE)));
+    values.put(Float.class, (random) -> Float.toString(random.nextFloat() * 1000));
+    values.put(Double.class, (random) -> Double.toString(random.nextDouble() * 1000));
+    values.put(BigInteger.class, (random) -> Long.toString(random.nextInt(Integer.MAX_VALUE)));
+    values.put(BigDecimal.class, (random) -> BigDecimal.valueOf(random.nextInt(10000000), 2).toPlainString());
+    values.put(Year.class, (random) -> Year.of(1970 + random.nextInt(130)).toString());
+    values.put(YearMonth.class, (random) -> YearMonth.of(1970 + random.nextInt(130), 1 + random.nextInt(12)).toString());
+    values.put(MonthDay.class, (random) -> MonthDay.of(1 + random.nextInt(12), 1 + random.nextInt(28)).toString());
+    values.put(LocalDate.class, (random) -> LocalDate.ofEpochDay(random.nextInt((int)(MAX_EPOCH_SECOND / 86400))).toString());
+    values.put(LocalTime.class, (random) -> LocalTime.ofSecondOfDay(random.nextInt(86400)).toString());
+    values.put(LocalDateTime.class, (random) -> LocalDateTime.ofEpochSecond((long)(random.nextDouble() * MAX_EPOCH_SECOND), 0, ZoneOffset.UTC).toString());
+    values.put(Instant.class, (random) -> Instant.ofEpochSecond((long)(random.nextDouble() * MAX_EPOCH_SECOND)).toString());
+    values.put(Duration.class, (random) -> Duration.ofSeconds(random.nextInt(86400)).toString());
+    values.put(UUID.class, (random) -> new UUID(random.nextLong(), random.nextLong()).toString());
+    values.put(java.net.URI.class, (random) -> "https://example.com/" + Integer.toHexString(random.nextInt()));
+    values.put(java.net.URL.class, (random) -> "https://example.com/" + Integer.toHexString(random.nextInt()));
+    values.put(QName.class, (random) -> "env:Receiver"); // The only QName valued element we know of is a SOAP fault code.
+    DEFAULT_VALUES = Collections.unmodifiableMap(values);
+  }
+  private static final Map<QName,Map<String,Function<Random,String>>> DEFAULT_ATTRIBUTES;
+  static {
+    final Map<QName,Map<String,Function<Random,String>>> attributes = new HashMap<>();
+    final Map<String,Function<Random,String>> exceptionAttributes = Collections.singletonMap("class", (random) -> "java.lang.IllegalStateException");
+    attributes.put(SOAPStreamParser.JAX_WS_EXCEPTION_QNAME, exceptionAttributes);
+    attributes.put(SOAPStreamParser.JAX_WS_CAUSE_QNAME, exceptionAttributes);
+    final Map<String,Function<Random,String>> frameAttributes = new LinkedHashMap<>();
+    frameAttributes.put("class", (random) -> "java.lang.Thread");
+    frameAttributes.put("method", (random) -> "run");
+    frameAttributes.put("file", (random) -> "Thread.java");
+    frameAttributes.put("line", (random) -> Integer.toString(1 + random.nextInt(2000)));
+    attributes.put(SOAPStreamParser.JAX_WS_FRAME_QNAME, Collections.unmodifiableMap(frameAttributes));
+    DEFAULT_ATTRIBUTES = Collections.unmodifiableMap(attributes);
+  }
+  private final List<ElementParser<?>> documentPath;
+  private final List<ElementParser<?>> targetValueParsers;
+  private final List<ElementParser<?>> faultParsers;
+  private final long seed;
+  private final long targetCount;
+  private final long maxBytes;
+  private final int fanOut;
+  private final int maxDepth;
+  private final int attributeCount;
+  private final int minTextLength;
+  private final int maxTextLength;
+  private final double ignoredRatio;
+  private final double faultFrequency;
+  private final Map<QName,Function<Random,String>> texts;
+  private final Map<QName,Map<String,Function<Random,String>>> attributes;
+  private final List<IntrospectionSchema<?>> introspectionSchemas;
+
+  /**
+   * Construct a new {@link SyntheticDocumentGenerator}, which will generate {@link #DEFAULT_TARGET_COUNT} target
+   * values, a fan-out of one, a maximum depth of four, no extra attributes, text between 8 and 32 characters long, no
+   * ignored content and no faults, until configured otherwise. The {@link IntrospectionSchema}s known for any extension
+   * types are captured now, so samples of those must be derived before the generator is created.
+   *
+   * @param parser The {@link XMLStreamParser} whose schema documents will be generated for.
+   * @param seed The seed for the {@link Random} making every choice.
+   * @throws IllegalArgumentException If none of the parser's document elements contain it's target container element.
+   */
+  public SyntheticDocumentGenerator(final XMLStreamParser<?> parser, final long seed) throws IllegalArgumentException {
+    this(findDocumentPath(Objects.requireNonNull(parser, "null parser")), new ArrayList<>(parser.getTargetValueParsers()), new ArrayList<>(parser.getTargetContainerElementParser().getChildExceptionParsers()), seed, DEFAULT_TARGET_COUNT, Long.MAX_VALUE, 1, 4, 0, 8, 32, 0, 0, Collections.emptyMap(), DEFAULT_ATTRIBUTES, IntrospectionSchema.getSchemas());
+    return;
+  }
+
+  private SyntheticDocumentGenerator(final List<ElementParser<?>> documentPath, final List<ElementParser<?>> targetValueParsers, final List<ElementParser<?>> faultParsers, final long seed, final long targetCount, final long maxBytes, final int fanOut, final int maxDepth, final int attributeCount, final int minTextLength, final int maxTextLength, final double ignoredRatio, final double faultFrequency, final Map<QName,Function<Random,String>> texts, final Map<QName,Map<String,Function<Random,String>>> attributes, final List<IntrospectionSchema<?>> introspectionSchemas) {
+    this.documentPath = documentPath;
+    this.targetValueParsers = targetValueParsers;
+    this.faultParsers = faultParsers;
+    this.seed = seed;
+    this.targetCount = targetCount;
+    this.maxBytes = maxBytes;
+    this.fanOut = fanOut;
+    this.maxDepth = maxDepth;
+    this.attributeCount = attributeCount;
+    this.minTextLength = minTextLength;
+    this.maxTextLength = maxTextLength;
+    this.ignoredRatio = ignoredRatio;
+    this.faultFrequency = faultFrequency;
+    this.texts = texts;
+    this.attributes = attributes;
+    this.introspectionSchemas = introspectionSchemas;
+    return;
+  }
+
+  /**
+   * Create a generator for documents consisting of a container element holding a sequence of the supplied
+   * {@link Introspectable} <code>type</code>'s elements, as {@linkplain IntrospectionSchema#createXMLParser(QName)
+   * parsed} using it's {@link IntrospectionSchema}.
+   *
+   * @param type The type of {@link Introspectable} object to generate the elements for.
+   * @param containerElementName The name of the document's container element.
+   * @param seed The seed for the {@link Random} making every choice.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If a schema couldn't be derived for the supplied <code>type</code>.
+   * @see IntrospectionSchema#of(Class)
+   */
+  public static SyntheticDocumentGenerator forType(final Class<? extends Introspectable> type, final QName containerElementName, final long seed) throws IllegalArgumentException {
+    return new SyntheticDocumentGenerator(IntrospectionSchema.of(type).createXMLParser(containerElementName), seed);
+  }
+
+  /**
+   * Find the path of elements from a document element down to the target container.
+   */
+  private static List<ElementParser<?>> findDocumentPath(final XMLStreamParser<?> parser) throws IllegalArgumentException {
+    final ContainerElementParser targetContainerElementParser = parser.getTargetContainerElementParser();
+    final Map<ElementParser<?>,@Nullable ElementParser<?>> parents = new HashMap<>();
+    final Deque<ElementParser<?>> queue = new ArrayDeque<>();
+    for (ElementParser<?> documentParser : parser.getDocumentParsers()) {
+      parents.put(documentParser, null);
+      queue.add(documentParser);
+    }
+    while (!queue.isEmpty()) {
+      final ElementParser<?> elementParser = queue.remove();
+      if (elementParser == targetContainerElementParser) {
+        final LinkedList<ElementParser<?>> path = new LinkedList<>();
+        for (@Nullable ElementParser<?> pathParser = elementParser; pathParser != null; pathParser = parents.get(pathParser)) {
+          path.addFirst(pathParser);
+        }
+        return Collections.unmodifiableList(path);
+      }
+      for (ContentParser<?,?> child : elementParser.getChildValueParsers()) {
+        if ((!(child instanceof ElementParser)) || (parents.containsKey(child))) continue;
+        parents.put((ElementParser<?>)child, elementParser);
+        queue.add((ElementParser<?>)child);
+      }
+    }
+    throw new IllegalArgumentException("No document element contains the '" + targetContainerElementParser.getElementName() + "' target container element");
+  }
+
+  /**
+   * Get the seed for the {@link Random} making every choice.
+   *
+   * @return The seed.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Create a copy of this generator using the supplied seed.
+   *
+   * @param seed The seed for the {@link Random} making every choice.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   */
+  public SyntheticDocumentGenerator withSeed(final long seed) {
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Get the number of target values (including any faults substituted for them) which will be generated.
+   *
+   * @return The number of target values.
+   */
+  public long getTargetCount() {
+    return targetCount;
+  }
+
+  /**
+   * Create a copy of this generator which generates the supplied number of target values.
+   *
+   * @param targetCount The number of target values (including any faults substituted for them) to generate, or
+   * {@link Long#MAX_VALUE} to keep generating until the {@linkplain #withMaxBytes(long) maximum size} is reached.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If <code>targetCount</code> is negative.
+   */
+  public SyntheticDocumentGenerator withTargetCount(final long targetCount) throws IllegalArgumentException {
+    if (targetCount < 0) throw new IllegalArgumentException("targetCount < 0");
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Get the size, in bytes, at which no further target values will be generated.
+   *
+   * @return The maximum size.
+   */
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Create a copy of this generator which stops generating target values once the document reaches the supplied size.
+   * The size is checked after each target value, so the document will exceed it by up to one target value, plus the
+   * elements closing the document.
+   *
+   * @param maxBytes The size, in bytes, at which no further target values will be generated.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If <code>maxBytes</code> is less than one.
+   */
+  public SyntheticDocumentGenerator withMaxBytes(final long maxBytes) throws IllegalArgumentException {
+    if (maxBytes < 1) throw new IllegalArgumentException("maxBytes < 1");
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Get the number of times each child element is repeated within a target value.
+   *
+   * @return The fan-out.
+   */
+  public int getFanOut() {
+    return fanOut;
+  }
+
+  /**
+   * Create a copy of this generator which repeats each child element within a target value the supplied number of
+   * times. Recursive elements aren't repeated (being nested instead), nor are the children of a
+   * {@linkplain XMLStreamParser.SchemaBuilder#defineWrapperElement(String, Class, String...) wrapper}, but each value of
+   * an {@link Introspectable} collection or map is.
+   *
+   * @param fanOut The number of times each child element is repeated.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If <code>fanOut</code> is less than one.
+   */
+  public SyntheticDocumentGenerator withFanOut(final int fanOut) throws IllegalArgumentException {
+    if (fanOut < 1) throw new IllegalArgumentException("fanOut < 1");
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Get the maximum depth to which recursive elements are nested.
+   *
+   * @return The maximum depth.
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Create a copy of this generator which nests recursive elements (and the complex values of an {@link Introspectable})
+   * down to the supplied depth, where the target value element is at depth zero.
+   *
+   * @param maxDepth The maximum depth to nest recursive elements to.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If <code>maxDepth</code> is negative.
+   */
+  public SyntheticDocumentGenerator withMaxDepth(final int maxDepth) throws IllegalArgumentException {
+    if (maxDepth < 0) throw new IllegalArgumentException("maxDepth < 0");
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Get the number of extra attributes written on every element within a target value.
+   *
+   * @return The number of extra attributes.
+   */
+  public int getAttributeCount() {
+    return attributeCount;
+  }
+
+  /**
+   * Create a copy of this generator which writes the supplied number of extra attributes (<code>a0</code>,
+   * <code>a1</code>, etc), which the parser will ignore, on every element within a target value.
+   *
+   * @param attributeCount The number of extra attributes to write.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If <code>attributeCount</code> is negative.
+   */
+  public SyntheticDocumentGenerator withAttributeCount(final int attributeCount) throws IllegalArgumentException {
+    if (attributeCount < 0) throw new IllegalArgumentException("attributeCount < 0");
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Create a copy of this generator which generates text (and attribute) content of random characters whose length is
+   * between the supplied bounds, inclusive. The length of binary content, in bytes, is chosen the same way.
+   *
+   * @param minTextLength The minimum length of generated text.
+   * @param maxTextLength The maximum length of generated text.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If <code>minTextLength</code> is negative, or greater than
+   * <code>maxTextLength</code>.
+   */
+  public SyntheticDocumentGenerator withTextLength(final int minTextLength, final int maxTextLength) throws IllegalArgumentException {
+    if (minTextLength < 0) throw new IllegalArgumentException("minTextLength < 0");
+    if (maxTextLength < minTextLength) throw new IllegalArgumentException("maxTextLength < minTextLength");
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Get the probability of an {@linkplain #IGNORED_ELEMENT_NAME ignored} element preceding each element.
+   *
+   * @return The ignored content ratio.
+   */
+  public double getIgnoredRatio() {
+    return ignoredRatio;
+  }
+
+  /**
+   * Create a copy of this generator which writes an {@linkplain #IGNORED_ELEMENT_NAME ignored} element (with an
+   * attribute and a child element of it's own) before each element within the target container and it's target values
+   * with the supplied probability. Ignored elements aren't written within simple, binary or generated elements.
+   *
+   * @param ignoredRatio The probability, from zero to one, of an ignored element preceding each element.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If <code>ignoredRatio</code> isn't between zero and one.
+   */
+  public SyntheticDocumentGenerator withIgnoredRatio(final double ignoredRatio) throws IllegalArgumentException {
+    if ((ignoredRatio < 0) || (ignoredRatio > 1)) throw new IllegalArgumentException("ignoredRatio not between 0 and 1");
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Get the probability of a fault being substituted for each target value.
+   *
+   * @return The fault frequency.
+   */
+  public double getFaultFrequency() {
+    return faultFrequency;
+  }
+
+  /**
+   * Create a copy of this generator which substitutes one of the target container's
+   * {@linkplain XMLStreamParser.SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName) exception
+   * elements} for each target value with the supplied probability, each of which will be thrown by the parser as a
+   * {@link XMLStreamParser.RecoverableExceptionElementException RecoverableExceptionElementException}. If the container
+   * has no exception elements then no faults are generated.
+   *
+   * @param faultFrequency The probability, from zero to one, of a fault being substituted for each target value.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   * @throws IllegalArgumentException If <code>faultFrequency</code> isn't between zero and one.
+   */
+  public SyntheticDocumentGenerator withFaultFrequency(final double faultFrequency) throws IllegalArgumentException {
+    if ((faultFrequency < 0) || (faultFrequency > 1)) throw new IllegalArgumentException("faultFrequency not between 0 and 1");
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, attributes, introspectionSchemas);
+  }
+
+  /**
+   * Create a copy of this generator which uses the supplied function to generate the text content of the named element,
+   * instead of text based on it's target value type.
+   *
+   * @param elementName The name of the element.
+   * @param text The function generating the element's text content.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   */
+  public SyntheticDocumentGenerator withText(final QName elementName, final Function<Random,String> text) {
+    final Map<QName,Function<Random,String>> texts = new HashMap<>(this.texts);
+    texts.put(Objects.requireNonNull(elementName, "null elementName"), Objects.requireNonNull(text, "null text"));
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, Collections.unmodifiableMap(texts), attributes, introspectionSchemas);
+  }
+
+  /**
+   * Create a copy of this generator which writes an attribute, generated using the supplied function, on every
+   * occurrence of the named element.
+   *
+   * @param elementName The name of the element.
+   * @param attributeName The (local) name of the attribute.
+   * @param value The function generating the attribute's value.
+   * @return The new {@link SyntheticDocumentGenerator}.
+   */
+  public SyntheticDocumentGenerator withAttribute(final QName elementName, final String attributeName, final Function<Random,String> value) {
+    final Map<QName,Map<String,Function<Random,String>>> attributes = new HashMap<>(this.attributes);
+    final Map<String,Function<Random,String>> elementAttributes = new LinkedHashMap<>(attributes.getOrDefault(Objects.requireNonNull(elementName, "null elementName"), Collections.emptyMap()));
+    elementAttributes.put(Objects.requireNonNull(attributeName, "null attributeName"), Objects.requireNonNull(value, "null value"));
+    attributes.put(elementName, Collections.unmodifiableMap(elementAttributes));
+    return new SyntheticDocumentGenerator(documentPath, targetValueParsers, faultParsers, seed, targetCount, maxBytes, fanOut, maxDepth, attributeCount, minTextLength, maxTextLength, ignoredRatio, faultFrequency, texts, Collections.unmodifiableMap(attributes), introspectionSchemas);
+  }
+
+  /**
+   * Generate the document, writing it to the supplied {@link OutputStream} (which is flushed, but not closed).
+   *
+   * @param outputStream The {@link OutputStream} to write the document to.
+   * @return The number of bytes written.
+   * @throws IOException If there was a problem writing the document.
+   */
+  public long writeTo(final OutputStream outputStream) throws IOException {
+    final BufferedOutputStream bufferedStream = new BufferedOutputStream(Objects.requireNonNull(outputStream, "null outputStream"), 64 * 1024);
+    final CountingOutputStream countingStream = new CountingOutputStream(bufferedStream);
+    try {
+      final XMLStreamWriter streamWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(countingStream, "UTF-8");
+      streamWriter.writeStartDocument("UTF-8", "1.0");
+      new Generation(streamWriter).writePath(0, countingStream);
+      streamWriter.writeEndDocument();
+      streamWriter.flush();
+      streamWriter.close();
+    } catch (XMLStreamException xmlse) {
+      throw new IOException(xmlse);
+    }
+    bufferedStream.flush();
+    return countingStream.count;
+  }
+
+  /**
+   * Generate the document on a new daemon thread, returning an {@link InputStream} to read it from as it's generated.
+   * Closing the returned stream stops the generation.
+   *
+   * @return An {@link InputStream} to read the document from.
+   * @throws IOException If there was a problem creating the stream.
+   */
+  public InputStream openStream() throws IOException {
+    final Pipe pipe = Pipe.open();
+    final GeneratedInputStream inputStream = new GeneratedInputStream(Channels.newInputStream(pipe.source()));
+    final Thread producer = new Thread(() -> {
+      try {
+        writeTo(Channels.newOutputStream(pipe.sink()));
+      } catch (IOException | RuntimeException e) {
+        if (!inputStream.closed) inputStream.failure = e;
+      } finally {
+        try {
+          pipe.sink().close();
+        } catch (IOException ioe) {}
+      }
+      return;
+    }, getClass().getSimpleName());
+    producer.setDaemon(true);
+    producer.start();
+    return inputStream;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + '[' + documentPath.get(documentPath.size() - 1).getElementName() + ']';
+  }
+
+  /**
+   * The state of generating a single document.
+   */
+  final class Generation {
+    private final XMLStreamWriter streamWriter;
+    private final Random random = new Random(seed);
+    private final Deque<String> namespaces = new ArrayDeque<>();
+    private final Deque<ElementParser<?>> ancestors = new ArrayDeque<>();
+
+    Generation(final XMLStreamWriter streamWriter) {
+      this.streamWriter = streamWriter;
+      namespaces.push(XMLConstants.NULL_NS_URI);
+      return;
+    }
+
+    int getFanOut() {
+      return fanOut;
+    }
+
+    int getMaxDepth() {
+      return maxDepth;
+    }
+
+    List<IntrospectionSchema<?>> getIntrospectionSchemas() {
+      return introspectionSchemas;
+    }
+
+    int nextInt(final int bound) {
+      return (bound > 1) ? random.nextInt(bound) : 0;
+    }
+
+    String text(final int minLength, final int maxLength) {
+      final char[] text = new char[minLength + random.nextInt(maxLength - minLength + 1)];
+      for (int i = 0; i < text.length; i++) {
+        text[i] = TEXT_CHARS[random.nextInt(TEXT_CHARS.length)];
+      }
+      return new String(text);
+    }
+
+    String value(final Class<?> valueType) {
+      final @Nullable Function<Random,String> defaultValue = DEFAULT_VALUES.get(valueType);
+      if (defaultValue != null) return defaultValue.apply(random);
+      if (valueType.isEnum()) {
+        final Object[] constants = valueType.getEnumConstants();
+        return ((Enum<?>)constants[random.nextInt(constants.length)]).name();
+      }
+      return text(minTextLength, maxTextLength);
+    }
+
+    void startElement(final QName elementName, final boolean target) throws XMLStreamException {
+      streamWriter.writeStartElement(XMLConstants.DEFAULT_NS_PREFIX, elementName.getLocalPart(), elementName.getNamespaceURI());
+      if (!elementName.getNamespaceURI().equals(namespaces.peek())) streamWriter.writeDefaultNamespace(elementName.getNamespaceURI());
+      namespaces.push(elementName.getNamespaceURI());
+      for (Map.Entry<String,Function<Random,String>> attribute : attributes.getOrDefault(elementName, Collections.emptyMap()).entrySet()) {
+        streamWriter.writeAttribute(attribute.getKey(), attribute.getValue().apply(random));
+      }
+      if (!target) return;
+      for (int i = 0; i < attributeCount; i++) {
+        streamWriter.writeAttribute("a" + i, text(minTextLength, maxTextLength));
+      }
+      return;
+    }
+
+    void attribute(final String name, final String value) throws XMLStreamException {
+      streamWriter.writeAttribute(name, value);
+      return;
+    }
+
+    void characters(final String text) throws XMLStreamException {
+      streamWriter.writeCharacters(text);
+      return;
+    }
+
+    void endElement() throws XMLStreamException {
+      streamWriter.writeEndElement();
+      namespaces.pop();
+      return;
+    }
+
+    private void writeIgnored() throws XMLStreamException {
+      if ((ignoredRatio == 0) || (random.nextDouble() >= ignoredRatio)) return;
+      streamWriter.writeStartElement(IGNORED_ELEMENT_NAME.getPrefix(), IGNORED_ELEMENT_NAME.getLocalPart(), IGNORED_ELEMENT_NAME.getNamespaceURI());
+      streamWriter.writeNamespace(IGNORED_ELEMENT_NAME.getPrefix(), IGNORED_ELEMENT_NAME.getNamespaceURI());
+      streamWriter.writeAttribute("a", text(minTextLength, maxTextLength));
+      streamWriter.writeStartElement(IGNORED_ELEMENT_NAME.getPrefix(), IGNORED_ELEMENT_NAME.getLocalPart(), IGNORED_ELEMENT_NAME.getNamespaceURI());
+      streamWriter.writeCharacters(text(minTextLength, maxTextLength));
+      streamWriter.writeEndElement();
+      streamWriter.writeEndElement();
+      return;
+    }
+
+    /**
+     * Write the element at the supplied index of the document path, it's siblings (once each), and, once the target
+     * container is reached, the target values.
+     */
+    void writePath(final int index, final CountingOutputStream countingStream) throws XMLStreamException {
+      final ElementParser<?> elementParser = documentPath.get(index);
+      startElement(elementParser.getElementName(), false);
+      if (index < documentPath.size() - 1) {
+        final ElementParser<?> next = documentPath.get(index + 1);
+        for (ContentParser<?,?> child : elementParser.getChildValueParsers()) {
+          if (child == next) {
+            writePath(index + 1, countingStream);
+          } else if (child instanceof ElementParser) {
+            writeElement((ElementParser<?>)child, 0, false);
+          }
+        }
+        endElement();
+        return;
+      }
+      for (long i = 0; (i < targetCount) && (countingStream.count < maxBytes); i++) {
+        writeIgnored();
+        if ((!faultParsers.isEmpty()) && (faultFrequency > 0) && (random.nextDouble() < faultFrequency)) {
+          writeElement(faultParsers.get(nextInt(faultParsers.size())), 0, true);
+        } else {
+          writeElement(targetValueParsers.get(nextInt(targetValueParsers.size())), 0, true);
+        }
+        if (maxBytes != Long.MAX_VALUE) streamWriter.flush();
+      }
+      writeIgnored();
+      endElement();
+      return;
+    }
+
+    private void writeElement(final ElementParser<?> elementParser, final int depth, final boolean target) throws XMLStreamException {
+      if (elementParser instanceof GeneratedElementParser) {
+        final @Nullable IntrospectionSchema<?> schema = IntrospectionSchema.forParser(elementParser);
+        if (schema != null) {
+          schema.generate(this, depth);
+        } else {
+          startElement(elementParser.getElementName(), target);
+          endElement();
+        }
+        return;
+      }
+      startElement(elementParser.getElementName(), target);
+      final @Nullable Function<Random,String> text = texts.get(elementParser.getElementName());
+      if (text != null) {
+        characters(text.apply(random));
+      } else if (elementParser instanceof SimpleElementParser) {
+        characters(value(elementParser.getTargetValueClass()));
+      } else if (elementParser instanceof BinaryElementParser) {
+        characters(binary(((BinaryElementParser)elementParser).encoding));
+      } else if (elementParser instanceof BinaryFileElementParser) {
+        characters(binary(((BinaryFileElementParser)elementParser).encoding));
+      } else if (elementParser instanceof CapturedElementParser) {
+        characters(text(minTextLength, maxTextLength));
+      } else {
+        writeChildren(elementParser, depth, target);
+      }
+      endElement();
+      return;
+    }
+
+    private void writeChildren(final ElementParser<?> elementParser, final int depth, final boolean target) throws XMLStreamException {
+      final boolean wrapper = elementParser instanceof WrapperElementParser;
+      ancestors.push(elementParser);
+      for (ContentParser<?,?> child : elementParser.getChildValueParsers()) {
+        if (target) writeIgnored();
+        if (child instanceof CharactersParser) {
+          characters(text(minTextLength, maxTextLength));
+          continue;
+        }
+        if (!(child instanceof ElementParser)) continue;
+        final ElementParser<?> childParser = (ElementParser<?>)child;
+        final int count = ancestors.contains(childParser) ? ((depth < maxDepth) ? 1 : 0) : ((wrapper) || (!target)) ? 1 : fanOut;
+        for (int i = 0; i < count; i++) {
+          writeElement(childParser, depth + 1, target);
+        }
+        if (wrapper) break;
+      }
+      if (target) writeIgnored();
+      ancestors.pop();
+      return;
+    }
+
+    private String binary(final BinaryEncoding encoding) {
+      final byte[] bytes = new byte[minTextLength + random.nextInt(maxTextLength - minTextLength + 1)];
+      random.nextBytes(bytes);
+      if (encoding == BinaryEncoding.BASE64) return Base64.getEncoder().encodeToString(bytes);
+      final char[] hex = new char[bytes.length * 2];
+      for (int i = 0; i < bytes.length; i++) {
+        hex[i * 2] = HEX_CHARS[(bytes[i] >> 4) & 0xF];
+        hex[(i * 2) + 1] = HEX_CHARS[bytes[i] & 0xF];
+      }
+      return new String(hex);
+    }
+
+  } // Generation
+
+  /**
+   * Counts the bytes written, without passing on the flushes used to make that count current.
+   */
+  private static final class CountingOutputStream extends FilterOutputStream {
+    protected long count = 0;
+
+    public CountingOutputStream(final OutputStream out) {
+      super(out);
+      return;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+      count++;
+      return;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+      return;
+    }
+
+    @Override
+    public void flush() {
+      return;
+    }
+
+    @Override
+    public void close() {
+      return;
+    }
+
+  } // CountingOutputStream
+
+  /**
+   * Reads the output of the generating thread, rethrowing any failure it encountered once the output is exhausted.
+   */
+  private static final class GeneratedInputStream extends FilterInputStream {
+    protected volatile @Nullable Exception failure = null;
+    protected volatile boolean closed = false;
+
+    public GeneratedInputStream(final InputStream in) {
+      super(in);
+      return;
+    }
+
+    private int checkFailure(final int result) throws IOException {
+      final @Nullable Exception failure = this.failure;
+      if ((result < 0) && (failure != null)) throw new IOException("Document generation failed", failure);
+      return result;
+    }
+
+    @Override
+    public int read() throws IOException {
+      return checkFailure(in.read());
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      return checkFailure(in.read(b, off, len));
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      in.close();
+      return;
+    }
+
+  } // GeneratedInputStream
+
+}
@@ -10,8 +10,11 @@ package com.hubick.xml_stream_serialization.parser.xml;
 
 import java.io.*;
 import java.net.*;
+import java.nio.file.*;
+import java.time.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.function.*;
 import java.util.stream.*;
 
@@ -19,6 +22,7 @@ import javax.xml.*;
 import javax.xml.namespace.*;
 import javax.xml.stream.*;
 import javax.xml.stream.events.*;
+import javax.xml.stream.util.*;
 
 import org.eclipse.jdt.annotation.*;
 
@@ -26,6 +30,8 @@ import org.jooq.*;
 import org.jooq.exception.*;
 import org.jooq.impl.*;
 
+import com.hubick.xml_stream_serialization.xml.*;
+
 
 /**
  * A class allowing you to {@linkplain #parse(InputStream) parse} XML by iterating over a stream of target value objects
@@ -36,13 +42,38 @@ import org.jooq.impl.*;
 @NonNullByDefault
 public class XMLStreamParser<@NonNull T> {
   private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+  /**
+   * The {@link DSLContext} used to {@linkplain ElementParsingContext#getInjectedValue(Class, Map) inject} target
+   * values, which reuses the {@link RecordMapper} for each combination of injected class and fields, instead of
+   * reflecting on the class again for every element parsed.
+   */
+  private static final DSLContext INJECTION_DSL_CONTEXT = DSL.using(new DefaultConfiguration().set(SQLDialect.DEFAULT).set(new CachingRecordMapperProvider()));
+  private static final Map<String,Field<Object>> INJECTION_FIELDS = new ConcurrentHashMap<>();
   protected final Class<T> targetValueClass;
   private final Set<? extends ElementParser<?>> documentParsers;
   private final ContainerElementParser targetContainerElementParser;
   private final Set<? extends ElementParser<? extends T>> targetValueParsers;
+  protected final ParsingLimits parsingLimits;
+  protected final ChildValueSpill childValueSpill;
+  protected final @Nullable ParsingMetrics metrics;
 
   @SafeVarargs
   protected XMLStreamParser(final Class<T> targetValueClass, final Set<? extends ElementParser<?>> documentParsers, final ContainerElementParser targetContainerElementParser, final @NonNull ElementParser<? extends T>... targetValueParsers) {
+    this(targetValueClass, documentParsers, targetContainerElementParser, ParsingLimits.NONE, targetValueParsers);
+    return;
+  }
+
+  @SafeVarargs
+  protected XMLStreamParser(final Class<T> targetValueClass, final Set<? extends ElementParser<?>> documentParsers, final ContainerElementParser targetContainerElementParser, final ParsingLimits parsingLimits, final @NonNull ElementParser<? extends T>... targetValueParsers) {
+    this(targetValueClass, documentParsers, targetContainerElementParser, parsingLimits, ChildValueSpill.NONE, null, targetValueParsers);
+    return;
+  }
+
+  @SafeVarargs
+  protected XMLStreamParser(final Class<T> targetValueClass, final Set<? extends ElementParser<?>> documentParsers, final ContainerElementParser targetContainerElementParser, final ParsingLimits parsingLimits, final ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics, final @NonNull ElementParser<? extends T>... targetValueParsers) {
+    this.parsingLimits = Objects.requireNonNull(parsingLimits, "null parsingLimits");
+    this.childValueSpill = Objects.requireNonNull(childValueSpill, "null childValueSpill");
+    this.metrics = metrics;
     this.targetValueClass = Objects.requireNonNull(targetValueClass, "null targetValueClass");
     this.documentParsers = Collections.unmodifiableSet(new CopyOnWriteArraySet<>(Objects.requireNonNull(documentParsers, "null documentParsers")));
     this.targetContainerElementParser = Objects.requireNonNull(targetContainerElementParser, "null targetContainerElementParser");
@@ -60,1295 +91,4714 @@ public class XMLStreamParser<@NonNull T> {
     return targetValueClass;
   }
 
+  /**
+   * Get the {@link ParsingLimits} this parser enforces.
+   * 
+   * @return The {@link ParsingLimits} for this parser.
+   * @see SchemaBuilder#setParsingLimits(ParsingLimits)
+   */
+  public ParsingLimits getParsingLimits() {
+    return parsingLimits;
+  }
+
+  /**
+   * Get the {@link ChildValueSpill} policy this parser uses to buffer child values.
+   * 
+   * @return The {@link ChildValueSpill} for this parser.
+   * @see SchemaBuilder#setChildValueSpill(ChildValueSpill)
+   */
+  public ChildValueSpill getChildValueSpill() {
+    return childValueSpill;
+  }
+
+  /**
+   * Get the {@link ParsingMetrics} this parser reports to.
+   * 
+   * @return The {@link ParsingMetrics} for this parser, or {@linkplain Optional#empty() empty} if parsing isn't being
+   * measured.
+   * @see SchemaBuilder#setParsingMetrics(ParsingMetrics)
+   */
+  public Optional<ParsingMetrics> getParsingMetrics() {
+    return Optional.ofNullable(metrics);
+  }
+
+  /**
+   * Get the name of the container element whose children this parser returns as target values.
+   * 
+   * @return The {@linkplain QName qualified name} of the target container element.
+   */
+  public QName getTargetContainerElementName() {
+    return targetContainerElementParser.getElementName();
+  }
+
+  /**
+   * Get the names of the elements this parser returns as target values.
+   * 
+   * @return The {@linkplain QName qualified names} of the target value elements.
+   */
+  public Set<QName> getTargetValueElementNames() {
+    return targetValueParsers.stream().map(ElementParser::getElementName).collect(Collectors.toUnmodifiableSet());
+  }
+
+  final Set<? extends ElementParser<?>> getDocumentParsers() {
+    return documentParsers;
+  }
+
+  final ContainerElementParser getTargetContainerElementParser() {
+    return targetContainerElementParser;
+  }
+
+  final Set<? extends ElementParser<? extends T>> getTargetValueParsers() {
+    return targetValueParsers;
+  }
+
   /**
    * Parse the XML provided by the supplied {@link InputStream}, providing an {@link Iterator} over target value objects
    * dynamically constructed from the contents.
    * 
    * @param inputStream The {@link InputStream} to read XML from.
-   * @return An {@link Iterator} to retrieve the target values, as defined by your {@linkplain #buildSchema(URI)
-   * schema}. The returned Iterator provides an additional guarantee that any
+   * @return A {@link TargetValueIterator} to retrieve the target values, as defined by your
+   * {@linkplain #buildSchema(URI) schema}. The returned Iterator provides an additional guarantee that any
    * {@link RecoverableExceptionElementException} thrown by the {@link Iterator#next()} method (due to parsing an
    * {@linkplain SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class) exception element}) will
    * be recoverable from, meaning that, after such an exception is thrown, you can then continue iterating over any
    * subsequent target values.
    * @throws ParsingException If a problem was encountered while parsing.
+   * @see #parse(InputStream, TargetValueHandler)
+   * @see #parse(InputStream, CancellationToken)
    */
-  public final Iterator<T> parse(final InputStream inputStream) throws ParsingException {
-    final XMLEventReader reader;
-    try {
-      reader = XML_INPUT_FACTORY.createXMLEventReader(inputStream);
-    } catch (XMLStreamException xse) {
-      throw new XMLStreamParsingException(xse);
-    }
-
-    ElementParser<?>.ParsingContextImpl targetParentContext = null;
-    try {
-      final XMLEvent documentEvent = nextTag(reader, inputStream);
-      final Optional<? extends ElementParser<?>> documentParser = documentParsers.stream().filter((parser) -> parser.isParserFor(documentEvent)).findFirst();
-      if (!documentParser.isPresent()) return Collections.emptyIterator();
-      documentParser.get().parse(null, documentEvent, reader, inputStream, targetContainerElementParser); // Read in events up until an element using the targetParser is encountered.
-    } catch (TargetContainerElementFoundException tpe) {
-      targetParentContext = tpe.getParsingContextImpl();
-    }
-
-    return (targetParentContext != null) ? new TargetValueIterator(targetParentContext, reader, inputStream) : Collections.emptyIterator();
+  public final TargetValueIterator<T> parse(final InputStream inputStream) throws ParsingException {
+    return parse(inputStream, (CancellationToken)null);
   }
 
-  private static final @Nullable XMLEvent peek(final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
+  /**
+   * Parse the XML contained in the supplied file, providing an {@link Iterator} over target value objects dynamically
+   * constructed from the contents. The file may be compressed, in which case it's read using a
+   * {@link DecompressingInputStream}, decompressing it on a separate thread as it's parsed.
+   *
+   * @param file The (possibly compressed) file to read XML from.
+   * @return A {@link TargetValueIterator} to retrieve the target values, with the same guarantees as
+   * {@linkplain #parse(InputStream) regular iteration}.
+   * @throws java.io.IOException If there was a problem opening the file, or it's compressed in a format for which no
+   * {@linkplain DecompressingInputStream.Decoder decoder} is available.
+   * @throws ParsingException If a problem was encountered while parsing.
+   * @see DecompressingInputStream
+   */
+  public final TargetValueIterator<T> parse(final Path file) throws java.io.IOException, ParsingException {
+    final InputStream inputStream = Files.newInputStream(file);
     try {
-      return reader.peek();
-    } catch (XMLStreamException xmlse) {
-      close(reader, closer);
-      throw new XMLStreamParsingException(xmlse);
+      return parse(new DecompressingInputStream(inputStream));
+    } catch (java.io.IOException | RuntimeException e) {
+      inputStream.close();
+      throw e;
     }
   }
 
-  private static final XMLEvent nextTag(final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
+  /**
+   * Parse the XML contained in the supplied file, as per {@link #parse(Path)}, but reading the file ahead of the parser
+   * using a {@link ReadAheadInputStream}, so that waiting on a slow filesystem overlaps with parsing.
+   *
+   * @param file The (possibly compressed) file to read XML from.
+   * @param readAheadDepth The maximum number of filled buffers which may be queued ahead of the parser.
+   * @param bufferSize The size of each buffer.
+   * @return A {@link TargetValueIterator} to retrieve the target values, with the same guarantees as
+   * {@linkplain #parse(InputStream) regular iteration}.
+   * @throws java.io.IOException If there was a problem opening the file, or it's compressed in a format for which no
+   * {@linkplain DecompressingInputStream.Decoder decoder} is available.
+   * @throws IllegalArgumentException If the <code>readAheadDepth</code> or <code>bufferSize</code> aren't positive.
+   * @throws ParsingException If a problem was encountered while parsing.
+   * @see ReadAheadInputStream
+   */
+  public final TargetValueIterator<T> parse(final Path file, final int readAheadDepth, final int bufferSize) throws java.io.IOException, IllegalArgumentException, ParsingException {
+    final InputStream inputStream = ReadAheadInputStream.open(file, readAheadDepth, bufferSize);
     try {
-      return reader.nextTag();
-    } catch (XMLStreamException xmlse) {
-      close(reader, closer);
-      throw new XMLStreamParsingException(xmlse);
+      return parse(new DecompressingInputStream(inputStream));
+    } catch (java.io.IOException | RuntimeException e) {
+      inputStream.close();
+      throw e;
     }
   }
 
-  private static final XMLEvent nextEvent(final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
-    try {
-      return reader.nextEvent();
-    } catch (XMLStreamException xmlse) {
-      close(reader, closer);
-      throw new XMLStreamParsingException(xmlse);
-    }
+  /**
+   * Parse the XML provided by the supplied {@link InputStream}, providing an {@link Iterator} over target value objects
+   * dynamically constructed from the contents, which will stop once the supplied {@link CancellationToken} is
+   * {@linkplain CancellationToken#cancel() cancelled}, or it's {@linkplain CancellationToken#getDeadline() deadline}
+   * passes.
+   * 
+   * @param inputStream The {@link InputStream} to read XML from.
+   * @param cancellationToken The {@link CancellationToken} which will be checked before every event read, or
+   * <code>null</code> for none.
+   * @return A {@link TargetValueIterator} to retrieve the target values, with the same guarantees as
+   * {@linkplain #parse(InputStream) regular iteration}.
+   * @throws ParsingCancelledException If the <code>cancellationToken</code> was triggered, after which the
+   * <code>inputStream</code> will have been closed.
+   * @throws ParsingException If a problem was encountered while parsing.
+   * @see #parse(InputStream)
+   */
+  public final TargetValueIterator<T> parse(final InputStream inputStream, final @Nullable CancellationToken cancellationToken) throws ParsingCancelledException, ParsingException {
+    final XMLEventReader reader = createXMLEventReader(inputStream, cancellationToken, parsingLimits, metrics);
+    final ElementParser<?>.@Nullable ParsingContextImpl targetParentContext = findTargetParentContext(reader, inputStream);
+    return (targetParentContext != null) ? new TargetValueIteratorImpl(targetParentContext, reader, inputStream) : emptyTargetValueIterator();
   }
 
-  private static final void close(final XMLEventReader reader, final AutoCloseable closer) {
-    try {
-      reader.close();
-    } catch (XMLStreamException xmlse) {}
-    try {
-      closer.close();
-    } catch (Exception e) {}
-    return;
+  /**
+   * <p>
+   * Parse the XML provided by the supplied {@link InputStream}, pushing each target value object dynamically
+   * constructed from the contents to the supplied {@link TargetValueHandler}.
+   * </p>
+   * 
+   * <p>
+   * This is the push-based equivalent of {@linkplain #parse(InputStream) iterating} over the target values, with the
+   * parser driving a single loop over the content of the target container element, rather than requiring a call to
+   * both {@link Iterator#hasNext()} and {@link Iterator#next()} for each value. Parsing continues until either the end
+   * of the target container element is reached, or the handler signals it should stop, after which this method will
+   * close the supplied {@link InputStream} and return.
+   * </p>
+   * 
+   * @param inputStream The {@link InputStream} to read XML from.
+   * @param handler The {@link TargetValueHandler} each target value will be pushed to.
+   * @return <code>true</code> if parsing ran to the end of the target container element, or <code>false</code> if the
+   * handler stopped it early.
+   * @throws ParsingException If a problem was encountered while parsing, or a {@link RecoverableExceptionElementException}
+   * was rethrown by the {@linkplain TargetValueHandler#handleException(RecoverableExceptionElementException) handler}.
+   * @see #parse(InputStream)
+   * @see #parse(InputStream, TargetValueHandler, CancellationToken)
+   */
+  public final boolean parse(final InputStream inputStream, final TargetValueHandler<? super T> handler) throws ParsingException {
+    return parse(inputStream, handler, null);
   }
 
   /**
-   * Read in and discard all subsequent events for the given start element, up to and including it's end element.
+   * Parse the XML provided by the supplied {@link InputStream}, pushing each target value object dynamically
+   * constructed from the contents to the supplied {@link TargetValueHandler}, until the supplied
+   * {@link CancellationToken} is {@linkplain CancellationToken#cancel() cancelled}, or it's
+   * {@linkplain CancellationToken#getDeadline() deadline} passes.
    * 
-   * @param element The element to skip over.
-   * @param reader The source of events.
-   * @throws XMLStreamParsingException If there was a problem skipping this element.
+   * @param inputStream The {@link InputStream} to read XML from.
+   * @param handler The {@link TargetValueHandler} each target value will be pushed to.
+   * @param cancellationToken The {@link CancellationToken} which will be checked before every event read, or
+   * <code>null</code> for none.
+   * @return <code>true</code> if parsing ran to the end of the target container element, or <code>false</code> if the
+   * handler stopped it early.
+   * @throws ParsingCancelledException If the <code>cancellationToken</code> was triggered, after which the
+   * <code>inputStream</code> will have been closed.
+   * @throws ParsingException If a problem was encountered while parsing.
+   * @see #parse(InputStream, TargetValueHandler)
    */
-  private static final void skip(final StartElement element, final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
-    int depth = 1;
-    XMLEvent e = nextEvent(reader, closer);
-    while (depth > 0) {
-      if (e.isStartElement()) {
-        depth++;
-      } else if (e.isEndElement()) {
-        depth--;
+  public final boolean parse(final InputStream inputStream, final TargetValueHandler<? super T> handler, final @Nullable CancellationToken cancellationToken) throws ParsingCancelledException, ParsingException {
+    Objects.requireNonNull(handler, "null handler");
+    final XMLEventReader reader = createXMLEventReader(inputStream, cancellationToken, parsingLimits, metrics);
+    try {
+      final ElementParser<?>.@Nullable ParsingContextImpl parentContext = findTargetParentContext(reader, inputStream);
+      if (parentContext == null) return true;
+      XMLEvent event = nextEvent(reader, inputStream);
+      while ((!event.isEndElement()) && (!event.isEndDocument())) {
+        final @Nullable ContentParser<?,?> childParser = parentContext.getParser().findChildParserOrNull(event);
+        if (childParser == null) {
+          ignoreEvent(parentContext, event, reader, inputStream); // They didn't supply a parser for whatever this is.
+        } else if ((targetValueParsers.contains(childParser)) || (targetContainerElementParser.getChildExceptionParsers().contains(childParser))) {
+          final boolean proceed;
+          try {
+            proceed = handler.handle(parseTargetValue(parentContext, childParser, event, reader, inputStream));
+          } catch (RecoverableExceptionElementException reee) {
+            if (!handler.handleException(reee)) return false;
+            event = nextEvent(reader, inputStream);
+            continue;
+          }
+          if (!proceed) return false;
+        } else { // If they supplied a parser for this, use it, as it could save values in the parsing context, etc.
+          childParser.parse(parentContext, event, reader, inputStream, null);
+        }
+        event = nextEvent(reader, inputStream);
       }
-      if (depth > 0) e = nextEvent(reader, closer);
+      return true;
+    } finally {
+      close(reader, inputStream);
     }
-    return;
-  }
-
-  private static final void ignoreEvent(final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
-    if (event.isStartElement()) { // OK, swallow all the content for this...
-      skip(event.asStartElement(), reader, closer);
-    } // Other element types don't have children, so we don't have to do anything else to ignore them in their entirety.
-    return;
   }
 
   /**
-   * Create a {@link SchemaBuilder SchemaBuilder} which can then be used to define the elements used within the XML
-   * documents you wish to {@link SchemaBuilder#createXMLParser(Class, Set, QName, QName[]) create a parser} for.
-   * 
-   * @param namespace The (optional) namespace used by your XML.
-   * @return A new {@link SchemaBuilder}.
-   * @see SchemaBuilder
+   * Get the (shared) {@link Field} used to {@linkplain ElementParsingContext#getInjectedValue(Class, Map) inject} a
+   * value with the given name.
    */
-  @SuppressWarnings("unchecked")
-  public static SchemaBuilder<@NonNull ? extends SchemaBuilder<@NonNull ?>> buildSchema(final @Nullable URI namespace) {
-    return new SchemaBuilder<>((Class<SchemaBuilder<?>>)(Object)SchemaBuilder.class, namespace, null, null, false);
+  private static final Field<Object> getInjectionField(final String fieldName) {
+    final Field<Object> cached = INJECTION_FIELDS.get(fieldName);
+    if (cached != null) return cached;
+    final Field<Object> field = DSL.field(DSL.name(fieldName));
+    if (INJECTION_FIELDS.size() < 4096) INJECTION_FIELDS.putIfAbsent(fieldName, field);
+    return field;
   }
 
-  @SuppressWarnings("unchecked")
-  protected static final <@NonNull T> ElementParser<T>.ParsingContextImpl cast(final ElementParsingContext ctx) {
-    return (ElementParser<T>.ParsingContextImpl)(Object)ctx;
+  private static final XMLEventReader createXMLEventReader(final InputStream inputStream) throws XMLStreamParsingException {
+    try {
+      return XML_INPUT_FACTORY.createXMLEventReader(inputStream);
+    } catch (XMLStreamException xse) {
+      throw new XMLStreamParsingException(xse);
+    }
+  }
+
+  private static final XMLEventReader createXMLEventReader(final InputStream inputStream, final @Nullable CancellationToken cancellationToken, final ParsingLimits parsingLimits, final @Nullable ParsingMetrics metrics) throws XMLStreamParsingException {
+    final InputStream meteredInputStream = (metrics != null) ? new MeteredInputStream(inputStream, metrics) : inputStream;
+    final @Nullable LimitedInputStream limitedInputStream = (parsingLimits.getMaxDocumentBytes() < Long.MAX_VALUE) ? new LimitedInputStream(meteredInputStream, parsingLimits.getMaxDocumentBytes()) : null;
+    XMLEventReader reader;
+    try {
+      reader = createXMLEventReader((limitedInputStream != null) ? limitedInputStream : meteredInputStream);
+    } catch (XMLStreamParsingException xspe) {
+      if ((limitedInputStream != null) && (limitedInputStream.isExceeded())) throw new ParsingLimitException(ParsingLimits.Limit.DOCUMENT_BYTES, limitedInputStream.maxBytes);
+      throw xspe;
+    }
+    if (metrics != null) reader = new MeteredEventReader(reader, metrics);
+    reader = ParsingEvents.recordDocument(reader);
+    final boolean checkElements = (parsingLimits.getMaxDepth() < Integer.MAX_VALUE) || (parsingLimits.getMaxAttributes() < Integer.MAX_VALUE);
+    return ((cancellationToken != null) || (limitedInputStream != null) || (checkElements)) ? new CheckingEventReader(reader, inputStream, cancellationToken, limitedInputStream, parsingLimits) : reader;
   }
 
   /**
-   * <p>
-   * An interface providing information about the {@linkplain #getStartElement() element} currently being parsed,
-   * including it's {@linkplain #getElementName() name}, {@linkplain #getTargetValueClass() target value type},
-   * {@linkplain #getElementContext() context}, {@linkplain #getAttrs() attributes}, {@linkplain #getChildValues()
-   * children}, etc. Generally, when the parser needs to calculate the {@linkplain #getTargetValueClass() target value}
-   * for a newly parsed element, an implementation of this interface will be provided to a target value calculation
-   * {@link Function}, which is generally supplied by the user when an element is
-   * {@linkplain XMLStreamParser.SchemaBuilder#defineElement(String, Class, Function) defined}.
-   * </p>
-   * 
-   * <p>
-   * In addition to information about the element currently being parsed, this interface also provides access to a
-   * global store of {@linkplain #getSavedValues(QName, Class) saved element values}, the ability to construct objects
-   * through {@linkplain #getInjectedValue(Class, Map) injection}, and the ability to
-   * {@linkplain #createElementValueException(Exception) create exceptions}.
-   * </p>
+   * An {@link InputStream} reporting the number of bytes read from it to a {@link ParsingMetrics}.
    */
-  public interface ElementParsingContext {
+  private static final class MeteredInputStream extends FilterInputStream {
+    private final ParsingMetrics metrics;
 
-    /**
-     * Get the {@link Class} of target value produced by the element currently being parsed.
-     * 
-     * @return The {@link Class} of target value produced by the element currently being parsed.
-     */
-    public Class<?> getTargetValueClass();
+    public MeteredInputStream(final InputStream in, final ParsingMetrics metrics) {
+      super(in);
+      this.metrics = metrics;
+      return;
+    }
 
-    /**
-     * Get the {@linkplain QName qualified name} of the element currently being parsed.
-     * 
-     * @return The {@linkplain QName qualified name} of the element currently being parsed.
-     */
-    public QName getElementName();
+    @Override
+    public int read() throws java.io.IOException {
+      final int b = super.read();
+      if (b >= 0) metrics.bytesRead(1);
+      return b;
+    }
 
-    /**
-     * Get the {@linkplain QName#getNamespaceURI() namespace URI} of the element currently being parsed.
-     * 
-     * @return The {@linkplain QName#getNamespaceURI() namespace URI} of the element currently being parsed.
-     */
-    public default String getNamespaceURI() {
-      return getElementName().getNamespaceURI();
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws java.io.IOException {
+      final int count = super.read(b, off, len);
+      if (count > 0) metrics.bytesRead(count);
+      return count;
     }
 
-    /**
-     * Get the {@link StartElement} currently being parsed.
-     * 
-     * @return The {@link StartElement} currently being parsed.
-     */
-    public StartElement getStartElement();
+    @Override
+    public long skip(final long n) throws java.io.IOException {
+      final long count = super.skip(n);
+      if (count > 0) metrics.bytesRead(count);
+      return count;
+    }
 
-    /**
-     * Get the stack of {@link StartElement}'s from the element currently being parsed up to the document root.
-     * 
-     * @return A {@link Deque} containing the stack of {@link StartElement}'s from the element currently being parsed up
-     * to the document root.
-     */
-    public Deque<StartElement> getElementContext();
+  } // MeteredInputStream
 
-    /**
-     * Get the {@link StartElement#getAttributes() attributes} from the element currently being parsed.
-     * 
-     * @return A {@link Map} containing the {@link StartElement#getAttributes() attributes} on the element currently
-     * being parsed.
-     */
-    public default Map<QName,String> getAttrs() {
-      return Collections.unmodifiableMap(StreamSupport.stream(Spliterators.spliteratorUnknownSize((Iterator<Attribute>)getStartElement().getAttributes(), Spliterator.NONNULL | Spliterator.DISTINCT | Spliterator.IMMUTABLE), false)
-          .map((attr) -> new AbstractMap.SimpleImmutableEntry<>(attr.getName(), attr.getValue()))
-          .collect(Collectors.<Map.Entry<QName,String>,QName,String> toMap(Map.Entry::getKey, Map.Entry::getValue)));
+  /**
+   * An {@link XMLEventReader} reporting the number of events read from it to a {@link ParsingMetrics}, in batches.
+   */
+  private static final class MeteredEventReader extends EventReaderDelegate {
+    private static final int BATCH_SIZE = 256;
+    private final ParsingMetrics metrics;
+    private int count = 0;
+
+    public MeteredEventReader(final XMLEventReader reader, final ParsingMetrics metrics) {
+      super(reader);
+      this.metrics = metrics;
+      return;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param attrName The name of the attribute value to retrieve.
-     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
-     */
-    public default @Nullable String getAttrOrNull(final QName attrName) {
-      final @Nullable Attribute attr = getStartElement().getAttributeByName(attrName);
-      return (attr != null) ? attr.getValue() : null;
+    private void count() {
+      if (++count < BATCH_SIZE) return;
+      metrics.eventsRead(count);
+      count = 0;
+      return;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
-     * @param attrName The name of the attribute value to retrieve.
-     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
-     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
-     */
-    public default <AT> @Nullable AT getAttrOrNull(final QName attrName, final Function<? super String,? extends AT> attrValueFunction) {
-      final @Nullable String attr = getAttrOrNull(attrName);
-      return (attr != null) ? attrValueFunction.apply(attr) : null;
+    private void flush() {
+      if (count > 0) metrics.eventsRead(count);
+      count = 0;
+      return;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
-     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
-     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
-     */
-    public default @Nullable String getAttrOrNull(final String attrLocalName) {
-      return getAttrOrNull(new QName(XMLConstants.NULL_NS_URI, attrLocalName));
+    @Override
+    public XMLEvent nextEvent() throws XMLStreamException {
+      final XMLEvent event = super.nextEvent();
+      count();
+      if (event.isEndDocument()) flush();
+      return event;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
-     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
-     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
-     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
-     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
-     */
-    public default <AT> @Nullable AT getAttrOrNull(final String attrLocalName, final Function<? super String,? extends AT> attrValueFunction) {
-      final @Nullable String attr = getAttrOrNull(attrLocalName);
-      return (attr != null) ? attrValueFunction.apply(attr) : null;
+    @Override
+    public XMLEvent nextTag() throws XMLStreamException {
+      final XMLEvent event = super.nextTag();
+      count();
+      return event;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param attrName The name of the attribute value to retrieve.
-     * @return An {@link Optional} containing the value of the attribute, which will be {@linkplain Optional#empty()
-     * empty} if there is no such attribute.
-     */
-    public default Optional<String> getOptionalAttr(final QName attrName) {
-      return Optional.ofNullable(getStartElement().getAttributeByName(attrName)).map(Attribute::getValue);
+    @Override
+    public void close() throws XMLStreamException {
+      flush();
+      super.close();
+      return;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
-     * @param attrName The name of the attribute value to retrieve.
-     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
-     * @return An {@link Optional} containing the value of the attribute, which will be {@linkplain Optional#empty()
-     * empty} if there is no such attribute.
-     */
-    public default <AT> Optional<AT> getOptionalAttr(final QName attrName, final Function<? super String,? extends AT> attrValueFunction) {
-      return getOptionalAttr(attrName).map(attrValueFunction);
+  } // MeteredEventReader
+
+  /**
+   * An {@link InputStream} which fails once more than a maximum number of bytes have been read from it.
+   */
+  private static final class LimitedInputStream extends FilterInputStream {
+    private final long maxBytes;
+    private long count = 0;
+
+    public LimitedInputStream(final InputStream in, final long maxBytes) {
+      super(in);
+      this.maxBytes = maxBytes;
+      return;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
-     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
-     * @return An {@link Optional} containing the value of the attribute, which will be {@linkplain Optional#empty()
-     * empty} if there is no such attribute.
-     */
-    public default Optional<String> getOptionalAttr(final String attrLocalName) {
-      return getOptionalAttr(new QName(XMLConstants.NULL_NS_URI, attrLocalName));
+    public boolean isExceeded() {
+      return count > maxBytes;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
-     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
-     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
-     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
-     * @return An {@link Optional} containing the value of the attribute, which will be {@linkplain Optional#empty()
-     * empty} if there is no such attribute.
-     */
-    public default <AT> Optional<AT> getOptionalAttr(final String attrLocalName, final Function<? super String,? extends AT> attrValueFunction) {
-      return getOptionalAttr(attrLocalName).map(attrValueFunction);
+    private int count(final int n) throws java.io.IOException {
+      if (n > 0) count += n;
+      if (isExceeded()) throw new java.io.IOException("Document exceeds " + maxBytes + " bytes");
+      return n;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param attrName The name of the attribute value to retrieve.
-     * @return The value of the attribute (never <code>null</code>).
-     * @throws NoSuchElementException If there is no such attribute.
-     */
-    public default String getRequiredAttr(final QName attrName) throws NoSuchElementException {
-      return getOptionalAttr(attrName).orElseThrow(() -> new NoSuchElementException("Element '" + getElementName().getLocalPart() + "' has no '" + attrName.getLocalPart() + "' attribute"));
+    @Override
+    public int read() throws java.io.IOException {
+      final int b = super.read();
+      if (b >= 0) count(1);
+      return b;
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
-     * @param attrName The name of the attribute value to retrieve.
-     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
-     * @return The value of the attribute (never <code>null</code>).
-     * @throws NoSuchElementException If there is no such attribute.
-     */
-    public default <AT> AT getRequiredAttr(final QName attrName, final Function<? super String,? extends AT> attrValueFunction) throws NoSuchElementException {
-      return attrValueFunction.apply(getRequiredAttr(attrName));
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws java.io.IOException {
+      return count(super.read(b, off, len));
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
-     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
-     * @return The value of the attribute (never <code>null</code>).
-     * @throws NoSuchElementException If there is no such attribute.
-     */
-    public default String getRequiredAttr(final String attrLocalName) throws NoSuchElementException {
-      return getRequiredAttr(new QName(XMLConstants.NULL_NS_URI, attrLocalName));
+    @Override
+    public long skip(final long n) throws java.io.IOException {
+      return count((int)super.skip(Math.min(n, Integer.MAX_VALUE)));
     }
 
-    /**
-     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
-     * attribute} from the element currently being parsed.
-     * 
-     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
-     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
-     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
-     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
-     * @return The value of the attribute (never <code>null</code>).
-     * @throws NoSuchElementException If there is no such attribute.
-     */
-    public default <AT> AT getRequiredAttr(final String attrLocalName, final Function<? super String,? extends AT> attrValueFunction) throws NoSuchElementException {
-      return attrValueFunction.apply(getRequiredAttr(attrLocalName));
+    @Override
+    public boolean markSupported() {
+      return false;
     }
 
-    /**
-     * Get target values saved by a previously parsed element. The element must have been defined as having it's target
-     * values saved.
-     * 
-     * @param <ST> The target value type of the saved values.
-     * @param savedElementName The name of the element for which saved values are desired. If <code>null</code>, the
-     * returned values can come from any element having the specified <code>targetValueClass</code>.
-     * @param savedElementTargetValueClass The target value class of the desired saved values.
-     * @return A {@link Stream} of values (never <code>null</code>).
-     */
-    public <@NonNull ST> Stream<ST> getSavedValues(final @Nullable QName savedElementName, final Class<ST> savedElementTargetValueClass);
+  } // LimitedInputStream
 
-    /**
-     * Get target values saved by a previously parsed element. The element must have been defined as having it's target
-     * values saved.
-     * 
-     * @param <ST> The target value type of the saved value.
-     * @param savedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which saved
-     * values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
-     * <code>null</code>, the returned values can come from any element having the specified
-     * <code>targetValueClass</code>.
-     * @param savedElementTargetValueClass The target value class of the desired saved values.
-     * @return A {@link Stream} of values (never <code>null</code>).
-     */
-    public default <@NonNull ST> Stream<ST> getSavedValues(final @Nullable String savedElementLocalName, final Class<ST> savedElementTargetValueClass) {
-      return getSavedValues((savedElementLocalName != null) ? new QName(getNamespaceURI(), savedElementLocalName) : null, savedElementTargetValueClass);
-    }
+  /**
+   * An {@link XMLEventReader} which checks the state of the current parse before every event is read, and the depth
+   * and attributes of every element read, whether or not the schema defines it.
+   */
+  private static final class CheckingEventReader extends EventReaderDelegate {
+    private final AutoCloseable closer;
+    private final @Nullable CancellationToken cancellationToken;
+    private final @Nullable LimitedInputStream limitedInputStream;
+    private final ParsingLimits limits;
+    private int depth = -1; // The document element is at depth zero.
 
-    /**
-     * Get the first target value saved by a previously parsed element. The element must have been defined as having
-     * it's target values saved.
-     * 
-     * @param <ST> The target value type of the saved value.
-     * @param savedElementName The name of the element for which the saved value is desired. If <code>null</code>, the
-     * returned value can come from any element having the specified <code>targetValueClass</code>.
-     * @param savedElementTargetValueClass The target value class of the desired saved values.
-     * @return An {@link Optional} containing the first saved value, which will be {@linkplain Optional#empty() empty}
-     * if there are none.
-     */
-    public default <@NonNull ST> Optional<ST> getOptionalSavedValue(final @Nullable QName savedElementName, final Class<ST> savedElementTargetValueClass) {
-      return getSavedValues(savedElementName, savedElementTargetValueClass).findFirst();
+    public CheckingEventReader(final XMLEventReader reader, final AutoCloseable closer, final @Nullable CancellationToken cancellationToken, final @Nullable LimitedInputStream limitedInputStream, final ParsingLimits limits) {
+      super(reader);
+      this.closer = closer;
+      this.cancellationToken = cancellationToken;
+      this.limitedInputStream = limitedInputStream;
+      this.limits = limits;
+      if (cancellationToken != null) cancellationToken.register(closer);
+      return;
     }
 
-    /**
-     * Get the first target value saved by a previously parsed element. The element must have been defined as having
-     * it's target values saved.
-     * 
-     * @param <ST> The target value type of the saved value.
-     * @param savedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which saved
-     * values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>targetValueClass</code>.
-     * @param savedElementTargetValueClass The target value class of the desired saved value.
-     * @return An {@link Optional} containing the first saved value, which will be {@linkplain Optional#empty() empty}
-     * if there are none.
-     */
-    public default <@NonNull ST> Optional<ST> getOptionalSavedValue(final @Nullable String savedElementLocalName, final Class<ST> savedElementTargetValueClass) {
-      return getOptionalSavedValue((savedElementLocalName != null) ? new QName(getNamespaceURI(), savedElementLocalName) : null, savedElementTargetValueClass);
+    private boolean isCancelled() {
+      final @Nullable CancellationToken token = cancellationToken;
+      return (token != null) && (token.isCancelled());
     }
 
-    /**
-     * Get the first target value saved by a previously parsed element. The element must have been defined as having
-     * it's target values saved.
-     * 
-     * @param <ST> The target value type of the saved value.
-     * @param savedElementName The name of the element for which the saved value is desired. If <code>null</code>, the
-     * returned value can come from any element having the specified <code>targetValueClass</code>.
-     * @param savedElementTargetValueClass The target value class of the desired saved values.
-     * @return The first saved value, or <code>null</code> if there are none.
-     */
-    public default <@NonNull ST> @Nullable ST getSavedValueOrNull(final @Nullable QName savedElementName, final Class<ST> savedElementTargetValueClass) {
-      final Optional<ST> saved = getOptionalSavedValue(savedElementName, savedElementTargetValueClass);
-      return saved.isPresent() ? saved.get() : null;
+    private boolean isExceeded() {
+      final @Nullable LimitedInputStream lis = limitedInputStream;
+      return (lis != null) && (lis.isExceeded());
     }
 
-    /**
-     * Get the first target value saved by a previously parsed element. The element must have been defined as having
-     * it's target values saved.
-     * 
-     * @param <ST> The target value type of the saved value.
-     * @param savedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which saved
-     * values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>targetValueClass</code>.
-     * @param savedElementTargetValueClass The target value class of the desired saved value.
-     * @return The first saved value, or <code>null</code> if there are none.
-     */
-    public default <@NonNull ST> @Nullable ST getSavedValueOrNull(final @Nullable String savedElementLocalName, final Class<ST> savedElementTargetValueClass) {
-      final Optional<ST> saved = getOptionalSavedValue(savedElementLocalName, savedElementTargetValueClass);
-      return saved.isPresent() ? saved.get() : null;
+    private ParsingException stopped(final @Nullable Exception cause) {
+      XMLStreamParser.close(getParent(), closer);
+      final @Nullable CancellationToken token = cancellationToken;
+      if (token != null) token.unregister(closer);
+      if (isExceeded()) return new ParsingLimitException(ParsingLimits.Limit.DOCUMENT_BYTES, Objects.requireNonNull(limitedInputStream).maxBytes);
+      return new ParsingCancelledException(Objects.requireNonNull(token).isDeadlineExceeded(), cause);
     }
 
-    /**
-     * Get the first target value saved by a previously parsed element. The element must have been defined as having
-     * it's target values saved.
-     * 
-     * @param <ST> The target value type of the saved value.
-     * @param savedElementName The name of the element for which the saved value is desired. If <code>null</code>, the
-     * returned value can come from any element having the specified <code>targetValueClass</code>.
-     * @param savedElementTargetValueClass The target value class of the desired saved values.
-     * @return The first saved value (never <code>null</code>).
-     * @throws NoSuchElementException If there is no matching saved value.
-     */
-    public default <@NonNull ST> ST getRequiredSavedValue(final @Nullable QName savedElementName, final Class<ST> savedElementTargetValueClass) throws NoSuchElementException {
-      return getOptionalSavedValue(savedElementName, savedElementTargetValueClass)
-          .orElseThrow(() -> new NoSuchElementException("No " + ((savedElementName != null) ? "'" + savedElementName.getLocalPart() + "' " : "") + " saved element with '" + savedElementTargetValueClass.getSimpleName() + "' target value class found"));
+    private void check() throws ParsingException {
+      if ((isCancelled()) || (isExceeded())) throw stopped(null);
+      return;
     }
 
-    /**
-     * Get the first target value saved by a previously parsed element. The element must have been defined as having
-     * it's target values saved.
-     * 
-     * @param <ST> The target value type of the saved value.
-     * @param savedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which saved
-     * values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>targetValueClass</code>.
-     * @param savedElementTargetValueClass The target value class of the desired saved value.
-     * @return The first saved value (never <code>null</code>).
-     * @throws NoSuchElementException If there is no matching saved value.
-     */
-    public default <@NonNull ST> ST getRequiredSavedValue(final @Nullable String savedElementLocalName, final Class<ST> savedElementTargetValueClass) throws NoSuchElementException {
-      return getRequiredSavedValue((savedElementLocalName != null) ? new QName(getNamespaceURI(), savedElementLocalName) : null, savedElementTargetValueClass);
+    private <E extends XMLEvent> E checked(final E event) throws ParsingLimitException {
+      if (event.isStartElement()) {
+        if (++depth > limits.getMaxDepth()) throw limitExceeded(new ParsingLimitException(ParsingLimits.Limit.DEPTH, limits.getMaxDepth()));
+        try {
+          limits.checkAttributes(event.asStartElement());
+        } catch (ParsingLimitException ple) {
+          throw limitExceeded(ple);
+        }
+      } else if (event.isEndElement()) {
+        depth--;
+      }
+      return event;
     }
 
-    /**
-     * Get target values from children of the element currently being parsed.
-     * 
-     * @return A {@link Stream} of child element values of the form
-     * <code>{@link java.util.Map.Entry Map.Entry}&lt;{@link java.util.Map.Entry Map.Entry}&lt;ChildElementName,TargetValueClass&gt;,{@link List}&lt;TargetValue&gt;&gt;</code>.
-     */
-    public Stream<Map.Entry<Map.Entry<QName,Class<?>>,List<?>>> getChildValues();
+    private ParsingLimitException limitExceeded(final ParsingLimitException ple) {
+      XMLStreamParser.close(getParent(), closer);
+      final @Nullable CancellationToken token = cancellationToken;
+      if (token != null) token.unregister(closer);
+      return ple;
+    }
 
-    /**
-     * Get target values from a child of the element currently being parsed.
-     * 
-     * @param <CT> The target value type of the child values.
-     * @param childElementName The name of the element for which child target values are desired. If <code>null</code>,
-     * the returned values can come from any element having the specified <code>targetValueClass</code>.
-     * @param childElementTargetValueClass The target value class of the desired child values.
-     * @return A {@link Stream} of values (never <code>null</code>).
-     */
-    public default <@NonNull CT> Stream<CT> getChildValues(final @Nullable QName childElementName, final Class<CT> childElementTargetValueClass) {
-      return getChildValues()
-          .filter((entry) -> (childElementName == null) || (childElementName.equals(entry.getKey().getKey())))
-          .filter((entry) -> childElementTargetValueClass.isAssignableFrom(entry.getKey().getValue()))
-          .<List<?>> map(Map.Entry::getValue)
-          .flatMap(List::stream)
-          .map((value) -> Objects.requireNonNull(childElementTargetValueClass.cast(value)));
+    @Override
+    public XMLEvent nextEvent() throws XMLStreamException, ParsingException {
+      check();
+      try {
+        return checked(super.nextEvent());
+      } catch (XMLStreamException | RuntimeException e) {
+        if ((isCancelled()) || (isExceeded())) throw stopped(e); // Probably caused by the stream being closed.
+        throw e;
+      }
     }
 
-    /**
-     * Get target values from a child of the element currently being parsed.
+    @Override
+    public Object next() throws ParsingException {
+      check();
+      try {
+        return checked((XMLEvent)super.next());
+      } catch (RuntimeException re) {
+        if ((isCancelled()) || (isExceeded())) throw stopped(re);
+        throw re;
+      }
+    }
+
+    @Override
+    public boolean hasNext() throws ParsingException {
+      check();
+      try {
+        return super.hasNext();
+      } catch (RuntimeException re) {
+        if ((isCancelled()) || (isExceeded())) throw stopped(re);
+        throw re;
+      }
+    }
+
+    @Override
+    public XMLEvent peek() throws XMLStreamException, ParsingException {
+      check();
+      try {
+        return super.peek();
+      } catch (XMLStreamException | RuntimeException e) {
+        if ((isCancelled()) || (isExceeded())) throw stopped(e);
+        throw e;
+      }
+    }
+
+    @Override
+    public XMLEvent nextTag() throws XMLStreamException, ParsingException {
+      check();
+      try {
+        return checked(super.nextTag());
+      } catch (XMLStreamException | RuntimeException e) {
+        if ((isCancelled()) || (isExceeded())) throw stopped(e);
+        throw e;
+      }
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException, ParsingException {
+      check();
+      try {
+        final String text = super.getElementText();
+        depth--; // It's consumed the end element.
+        return text;
+      } catch (XMLStreamException | RuntimeException e) {
+        if ((isCancelled()) || (isExceeded())) throw stopped(e);
+        throw e;
+      }
+    }
+
+    @Override
+    public void close() throws XMLStreamException {
+      final @Nullable CancellationToken token = cancellationToken;
+      if (token != null) token.unregister(closer);
+      super.close();
+      return;
+    }
+
+  } // CheckingEventReader
+
+  /**
+   * A {@link RecordMapperProvider} which remembers the {@link DefaultRecordMapper} provided for each combination of
+   * target type and field names, since constructing one requires reflecting on the target type.
+   */
+  private static final class CachingRecordMapperProvider implements RecordMapperProvider {
+    private static final int MAX_CACHED_MAPPERS = 1024;
+    private final Map<List<Object>,RecordMapper<?,?>> mappers = new ConcurrentHashMap<>();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <R extends org.jooq.Record,E> RecordMapper<R,E> provide(final RecordType<R> recordType, final Class<? extends E> type) {
+      final Field<?>[] fields = recordType.fields();
+      final List<Object> key = new ArrayList<>(fields.length + 1);
+      key.add(type);
+      for (Field<?> field : fields) {
+        key.add(field.getName());
+      }
+      final RecordMapper<?,?> cached = mappers.get(key);
+      if (cached != null) return (RecordMapper<R,E>)cached;
+      final RecordMapper<R,E> mapper = new DefaultRecordMapper<>(recordType, type);
+      if (mappers.size() < MAX_CACHED_MAPPERS) mappers.putIfAbsent(key, mapper);
+      return mapper;
+    }
+
+  } // CachingRecordMapperProvider
+
+  /**
+   * Read in events up until an element using the {@link #targetContainerElementParser} is encountered.
+   * 
+   * @return The context for the target container element, or <code>null</code> if the document isn't one this parser
+   * recognizes, in which case the reader will have been closed.
+   */
+  private final ElementParser<?>.@Nullable ParsingContextImpl findTargetParentContext(final XMLEventReader reader, final AutoCloseable closer) throws ParsingException {
+    try {
+      final XMLEvent documentEvent = nextTag(reader, closer);
+      @Nullable ElementParser<?> documentParser = null;
+      for (ElementParser<?> parser : documentParsers) {
+        if (!parser.isParserFor(documentEvent)) continue;
+        documentParser = parser;
+        break;
+      }
+      if (documentParser == null) {
+        close(reader, closer);
+        return null;
+      }
+      parseDocument(documentParser, new DocumentState(null, parsingLimits, childValueSpill, metrics), documentEvent.asStartElement(), reader, closer, targetContainerElementParser);
+    } catch (TargetContainerElementFoundException tpe) {
+      return tpe.getParsingContextImpl();
+    } catch (ParsingException pe) {
+      ParsingEvents.documentFailed(reader);
+      throw pe;
+    }
+    close(reader, closer);
+    return null;
+  }
+
+  private static final <@NonNull DT> DT parseDocument(final ElementParser<DT> documentParser, final DocumentState documentState, final StartElement documentElement, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+    return documentParser.parseImpl(documentParser.new ParsingContextImpl(documentState, documentElement), reader, closer, targetContainerElementParser);
+  }
+
+  /**
+   * Parse the target value (or throw the exception) for the supplied <code>event</code>, which has already been read,
+   * and for which the <code>childParser</code> is known to be either a target value or exception parser.
+   */
+  private final T parseTargetValue(final ElementParser<?>.ParsingContextImpl parentContext, final ContentParser<?,?> childParser, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer) throws ParsingException {
+    if (targetValueParsers.contains(childParser)) {
+      @SuppressWarnings("unchecked")
+      final ElementParser<? extends T> targetValueParser = (ElementParser<? extends T>)childParser;
+      final ParsingEvents.TargetValueEvent targetValueEvent = new ParsingEvents.TargetValueEvent();
+      targetValueEvent.begin();
+      final T targetValue = targetValueParser.parse(parentContext, event, reader, closer, null);
+      targetValueEvent.end();
+      if (targetValueEvent.shouldCommit()) {
+        targetValueEvent.elementName = event.asStartElement().getName().toString();
+        targetValueEvent.valueClass = targetValue.getClass();
+        targetValueEvent.commit();
+      }
+      return targetValue;
+    }
+    throw parseExceptionElement(parentContext, childParser, event, reader, closer);
+  }
+
+  private static final RecoverableExceptionElementException parseExceptionElement(final ElementParser<?>.ParsingContextImpl parentContext, final ContentParser<?,?> childParser, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer) throws ParsingException {
+    @SuppressWarnings("unchecked")
+    final ElementParser<? extends Exception> exceptionParser = (ElementParser<? extends Exception>)childParser;
+    final Exception exception = exceptionParser.parse(parentContext, event, reader, closer, null);
+    ParsingEvents.exceptionElement(event.asStartElement().getName(), exception);
+    return new RecoverableExceptionElementException(exception, exceptionParser.new ParsingContextImpl(parentContext, Objects.requireNonNull(exceptionParser.getEventClass().cast(event))));
+  }
+
+  /**
+   * <p>
+   * Parse the XML provided by the supplied {@link InputStream}, providing an {@link Iterator} over
+   * {@linkplain LazyTargetValue lazy} target values.
+   * </p>
+   * 
+   * <p>
+   * Rather than constructing each target value as it's encountered, the returned iterator simply captures the events
+   * making up each target element, without running any of the parsers for it's content, and returns a handle providing
+   * immediate access to the element's {@linkplain LazyTargetValue#getStartElement() start element} and
+   * {@linkplain LazyTargetValue#getAttrs() attributes}. The target value itself is only constructed when it's first
+   * {@linkplain LazyTargetValue#get() requested}, allowing you to inexpensively filter or route target elements,
+   * paying the cost of fully parsing only those you actually use.
+   * </p>
+   * 
+   * <p>
+   * Note that, since the target value is constructed later, any {@linkplain ElementParsingContext#getSavedValues(QName,
+   * Class) saved values} it uses will reflect the document as it had been read at that time, which may include values
+   * saved <em>after</em> the target element.
+   * </p>
+   * 
+   * @param inputStream The {@link InputStream} to read XML from.
+   * @return A {@link TargetValueIterator} to retrieve the lazy target values. As with {@linkplain #parse(InputStream)
+   * regular iteration}, any {@link RecoverableExceptionElementException} thrown by the {@link Iterator#next()} method
+   * will be recoverable from.
+   * @throws ParsingException If a problem was encountered while parsing.
+   * @see #parse(InputStream)
+   */
+  public final TargetValueIterator<LazyTargetValue<T>> parseLazily(final InputStream inputStream) throws ParsingException {
+    final XMLEventReader reader = createXMLEventReader(inputStream, null, parsingLimits, metrics);
+    final ElementParser<?>.@Nullable ParsingContextImpl targetParentContext = findTargetParentContext(reader, inputStream);
+    return (targetParentContext != null) ? new LazyTargetValueIterator(targetParentContext, reader, inputStream) : new TargetValueIterator<LazyTargetValue<T>>() {
+
+      @Override
+      public boolean hasNext() {
+        return false;
+      }
+
+      @Override
+      public LazyTargetValue<T> next() throws NoSuchElementException {
+        throw new NoSuchElementException();
+      }
+
+    };
+  }
+
+  /**
+   * Read in the remaining events for the supplied start element, up to and including it's end element.
+   */
+  private static final List<XMLEvent> capture(final StartElement element, final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
+    final List<XMLEvent> events = new ArrayList<>();
+    int depth = 1;
+    while (depth > 0) {
+      final XMLEvent e = nextEvent(reader, closer);
+      if (e.isStartElement()) {
+        depth++;
+      } else if (e.isEndElement()) {
+        depth--;
+      }
+      events.add(e);
+    }
+    return events;
+  }
+
+  private static final @Nullable XMLEvent peek(final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
+    try {
+      return reader.peek();
+    } catch (XMLStreamException xmlse) {
+      close(reader, closer);
+      throw new XMLStreamParsingException(xmlse);
+    }
+  }
+
+  private static final XMLEvent nextTag(final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
+    try {
+      return reader.nextTag();
+    } catch (XMLStreamException xmlse) {
+      close(reader, closer);
+      throw new XMLStreamParsingException(xmlse);
+    }
+  }
+
+  private static final XMLEvent nextEvent(final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
+    try {
+      return reader.nextEvent();
+    } catch (XMLStreamException xmlse) {
+      close(reader, closer);
+      throw new XMLStreamParsingException(xmlse);
+    }
+  }
+
+  private static final void close(final XMLEventReader reader, final AutoCloseable closer) {
+    try {
+      reader.close();
+    } catch (XMLStreamException xmlse) {}
+    try {
+      closer.close();
+    } catch (Exception e) {}
+    return;
+  }
+
+  /**
+   * Read in and discard all subsequent events for the given start element, up to and including it's end element.
+   * 
+   * @param element The element to skip over.
+   * @param reader The source of events.
+   * @throws XMLStreamParsingException If there was a problem skipping this element.
+   */
+  private static final void skip(final StartElement element, final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
+    int depth = 1;
+    XMLEvent e = nextEvent(reader, closer);
+    while (depth > 0) {
+      if (e.isStartElement()) {
+        depth++;
+      } else if (e.isEndElement()) {
+        depth--;
+      }
+      if (depth > 0) e = nextEvent(reader, closer);
+    }
+    return;
+  }
+
+  private static final void ignoreEvent(final ElementParser<?>.ParsingContextImpl parentContext, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer) throws XMLStreamParsingException {
+    if (event.isStartElement()) { // OK, swallow all the content for this...
+      final @Nullable ParsingMetrics metrics = parentContext.documentState.metrics;
+      if (metrics != null) metrics.elementSkipped(event.asStartElement().getName());
+      final ParsingEvents.ElementSkippedEvent skippedEvent = new ParsingEvents.ElementSkippedEvent();
+      skippedEvent.begin();
+      skip(event.asStartElement(), reader, closer);
+      skippedEvent.end();
+      if (skippedEvent.shouldCommit()) {
+        skippedEvent.elementName = event.asStartElement().getName().toString();
+        skippedEvent.commit();
+      }
+    } // Other element types don't have children, so we don't have to do anything else to ignore them in their entirety.
+    return;
+  }
+
+  /**
+   * Write the supplied event to the <code>streamWriter</code>, declaring any namespaces used by a start element which
+   * aren't already bound by the writer.
+   */
+  protected static final void writeEvent(final XMLEvent event, final XMLStreamWriter streamWriter) throws XMLStreamException {
+    switch (event.getEventType()) {
+      case XMLStreamConstants.START_ELEMENT:
+        writeStartElement(event.asStartElement(), streamWriter);
+        break;
+      case XMLStreamConstants.END_ELEMENT:
+        streamWriter.writeEndElement();
+        break;
+      case XMLStreamConstants.CHARACTERS:
+      case XMLStreamConstants.SPACE:
+      case XMLStreamConstants.CDATA:
+        final Characters characters = event.asCharacters();
+        if (characters.isCData()) {
+          streamWriter.writeCData(characters.getData());
+        } else {
+          streamWriter.writeCharacters(characters.getData());
+        }
+        break;
+      case XMLStreamConstants.COMMENT:
+        streamWriter.writeComment(((javax.xml.stream.events.Comment)event).getText());
+        break;
+      case XMLStreamConstants.PROCESSING_INSTRUCTION:
+        final ProcessingInstruction pi = (ProcessingInstruction)event;
+        if (pi.getData() != null) {
+          streamWriter.writeProcessingInstruction(pi.getTarget(), pi.getData());
+        } else {
+          streamWriter.writeProcessingInstruction(pi.getTarget());
+        }
+        break;
+      case XMLStreamConstants.ENTITY_REFERENCE:
+        streamWriter.writeEntityRef(((EntityReference)event).getName());
+        break;
+      case XMLStreamConstants.DTD:
+        streamWriter.writeDTD(((DTD)event).getDocumentTypeDeclaration());
+        break;
+      case XMLStreamConstants.START_DOCUMENT:
+        final StartDocument startDocument = (StartDocument)event;
+        if (startDocument.encodingSet()) {
+          streamWriter.writeStartDocument(startDocument.getCharacterEncodingScheme(), startDocument.getVersion());
+        } else {
+          streamWriter.writeStartDocument(startDocument.getVersion());
+        }
+        break;
+      case XMLStreamConstants.END_DOCUMENT:
+        streamWriter.writeEndDocument();
+        break;
+    } // Stand-alone attribute and namespace events are written as part of their start element.
+    return;
+  }
+
+  private static final void writeStartElement(final StartElement startElement, final XMLStreamWriter streamWriter) throws XMLStreamException {
+    final Map<String,String> declarations = new LinkedHashMap<>(); // Prefix to URI, for each namespace needing to be declared on this element.
+    @SuppressWarnings("unchecked")
+    final Iterator<Namespace> namespaces = startElement.getNamespaces();
+    while (namespaces.hasNext()) {
+      final Namespace namespace = namespaces.next();
+      declarations.put(namespace.getPrefix(), namespace.getNamespaceURI());
+    }
+    final QName name = startElement.getName();
+    requireNamespace(declarations, name.getPrefix(), name.getNamespaceURI(), streamWriter);
+    final List<Attribute> attrs = new ArrayList<>();
+    @SuppressWarnings("unchecked")
+    final Iterator<Attribute> attributes = startElement.getAttributes();
+    while (attributes.hasNext()) {
+      final Attribute attr = attributes.next();
+      if (!attr.getName().getPrefix().isEmpty()) requireNamespace(declarations, attr.getName().getPrefix(), attr.getName().getNamespaceURI(), streamWriter);
+      attrs.add(attr);
+    }
+
+    streamWriter.writeStartElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+    for (Map.Entry<String,String> declaration : declarations.entrySet()) {
+      if (declaration.getKey().isEmpty()) {
+        streamWriter.setDefaultNamespace(declaration.getValue());
+        streamWriter.writeDefaultNamespace(declaration.getValue());
+      } else {
+        streamWriter.setPrefix(declaration.getKey(), declaration.getValue());
+        streamWriter.writeNamespace(declaration.getKey(), declaration.getValue());
+      }
+    }
+    for (Attribute attr : attrs) {
+      if (attr.getName().getNamespaceURI().isEmpty()) {
+        streamWriter.writeAttribute(attr.getName().getLocalPart(), attr.getValue());
+      } else {
+        streamWriter.writeAttribute(attr.getName().getPrefix(), attr.getName().getNamespaceURI(), attr.getName().getLocalPart(), attr.getValue());
+      }
+    }
+    return;
+  }
+
+  private static final void requireNamespace(final Map<String,String> declarations, final String prefix, final String namespaceURI, final XMLStreamWriter streamWriter) {
+    if (declarations.containsKey(prefix)) return;
+    final @Nullable String boundURI = streamWriter.getNamespaceContext().getNamespaceURI(prefix);
+    if (namespaceURI.equals((boundURI != null) ? boundURI : XMLConstants.NULL_NS_URI)) return;
+    declarations.put(prefix, namespaceURI);
+    return;
+  }
+
+  /**
+   * Create a {@link SchemaBuilder SchemaBuilder} which can then be used to define the elements used within the XML
+   * documents you wish to {@link SchemaBuilder#createXMLParser(Class, Set, QName, QName[]) create a parser} for.
+   * 
+   * @param namespace The (optional) namespace used by your XML.
+   * @return A new {@link SchemaBuilder}.
+   * @see SchemaBuilder
+   */
+  @SuppressWarnings("unchecked")
+  public static SchemaBuilder<@NonNull ? extends SchemaBuilder<@NonNull ?>> buildSchema(final @Nullable URI namespace) {
+    return new SchemaBuilder<>((Class<SchemaBuilder<?>>)(Object)SchemaBuilder.class, namespace, null, null, false);
+  }
+
+  @SuppressWarnings("unchecked")
+  protected static final <@NonNull T> ElementParser<T>.ParsingContextImpl cast(final ElementParsingContext ctx) {
+    return (ElementParser<T>.ParsingContextImpl)(Object)ctx;
+  }
+
+  /**
+   * A {@link Function} which is also {@link Serializable}. Supplying target value functions of this type when defining
+   * a schema allows that schema to be {@linkplain CompiledSchema#writeSnapshot(OutputStream, SnapshotRegistry)
+   * snapshotted} without {@linkplain SnapshotRegistry registering} them.
+   *
+   * @param <T> The type of the input to the function.
+   * @param <R> The type of the result of the function.
+   */
+  @FunctionalInterface
+  public static interface SerializableFunction<T,R> extends Function<T,R>, Serializable {
+  } // SerializableFunction
+
+  /**
+   * A {@link BiFunction} which is also {@link Serializable}. Supplying target value functions of this type when
+   * defining a schema allows that schema to be {@linkplain CompiledSchema#writeSnapshot(OutputStream, SnapshotRegistry)
+   * snapshotted} without {@linkplain SnapshotRegistry registering} them.
+   *
+   * @param <T> The type of the first input to the function.
+   * @param <U> The type of the second input to the function.
+   * @param <R> The type of the result of the function.
+   */
+  @FunctionalInterface
+  public static interface SerializableBiFunction<T,U,R> extends BiFunction<T,U,R>, Serializable {
+  } // SerializableBiFunction
+
+  protected static final <T,R> Function<T,R> serializable(final SerializableFunction<T,R> function) {
+    return function;
+  }
+
+  protected static final <T,U,R> BiFunction<T,U,R> serializable(final SerializableBiFunction<T,U,R> function) {
+    return function;
+  }
+
+  /**
+   * <p>
+   * An interface providing information about the {@linkplain #getStartElement() element} currently being parsed,
+   * including it's {@linkplain #getElementName() name}, {@linkplain #getTargetValueClass() target value type},
+   * {@linkplain #getElementContext() context}, {@linkplain #getAttrs() attributes}, {@linkplain #getChildValues()
+   * children}, etc. Generally, when the parser needs to calculate the {@linkplain #getTargetValueClass() target value}
+   * for a newly parsed element, an implementation of this interface will be provided to a target value calculation
+   * {@link Function}, which is generally supplied by the user when an element is
+   * {@linkplain XMLStreamParser.SchemaBuilder#defineElement(String, Class, Function) defined}.
+   * </p>
+   * 
+   * <p>
+   * In addition to information about the element currently being parsed, this interface also provides access to a
+   * global store of {@linkplain #getSavedValues(QName, Class) saved element values}, the ability to construct objects
+   * through {@linkplain #getInjectedValue(Class, Map) injection}, and the ability to
+   * {@linkplain #createElementValueException(Exception) create exceptions}.
+   * </p>
+   */
+  public interface ElementParsingContext {
+
+    /**
+     * Get the {@link Class} of target value produced by the element currently being parsed.
+     * 
+     * @return The {@link Class} of target value produced by the element currently being parsed.
+     */
+    public Class<?> getTargetValueClass();
+
+    /**
+     * Get the {@linkplain QName qualified name} of the element currently being parsed.
+     * 
+     * @return The {@linkplain QName qualified name} of the element currently being parsed.
+     */
+    public QName getElementName();
+
+    /**
+     * Get the {@linkplain QName#getNamespaceURI() namespace URI} of the element currently being parsed.
+     * 
+     * @return The {@linkplain QName#getNamespaceURI() namespace URI} of the element currently being parsed.
+     */
+    public default String getNamespaceURI() {
+      return getElementName().getNamespaceURI();
+    }
+
+    /**
+     * Get the {@link StartElement} currently being parsed.
+     * 
+     * @return The {@link StartElement} currently being parsed.
+     */
+    public StartElement getStartElement();
+
+    /**
+     * Get the stack of {@link StartElement}'s from the element currently being parsed up to the document root.
+     * 
+     * @return A {@link Deque} containing the stack of {@link StartElement}'s from the element currently being parsed up
+     * to the document root.
+     */
+    public Deque<StartElement> getElementContext();
+
+    /**
+     * Get the {@link StartElement#getAttributes() attributes} from the element currently being parsed.
+     * 
+     * @return A {@link Map} containing the {@link StartElement#getAttributes() attributes} on the element currently
+     * being parsed.
+     */
+    public default Map<QName,String> getAttrs() {
+      final Iterator<Attribute> attributes = getStartElement().getAttributes();
+      if (!attributes.hasNext()) return Collections.emptyMap();
+      final Map<QName,String> attrs = new HashMap<>();
+      while (attributes.hasNext()) {
+        final Attribute attr = attributes.next();
+        attrs.put(attr.getName(), attr.getValue());
+      }
+      return Collections.unmodifiableMap(attrs);
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param attrName The name of the attribute value to retrieve.
+     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
+     */
+    public default @Nullable String getAttrOrNull(final QName attrName) {
+      final @Nullable Attribute attr = getStartElement().getAttributeByName(attrName);
+      return (attr != null) ? attr.getValue() : null;
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
+     * @param attrName The name of the attribute value to retrieve.
+     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
+     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
+     */
+    public default <AT> @Nullable AT getAttrOrNull(final QName attrName, final Function<? super String,? extends AT> attrValueFunction) {
+      final @Nullable String attr = getAttrOrNull(attrName);
+      return (attr != null) ? attrValueFunction.apply(attr) : null;
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
+     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
+     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
+     */
+    public default @Nullable String getAttrOrNull(final String attrLocalName) {
+      return getAttrOrNull(new QName(XMLConstants.NULL_NS_URI, attrLocalName));
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
+     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
+     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
+     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
+     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
+     */
+    public default <AT> @Nullable AT getAttrOrNull(final String attrLocalName, final Function<? super String,? extends AT> attrValueFunction) {
+      final @Nullable String attr = getAttrOrNull(attrLocalName);
+      return (attr != null) ? attrValueFunction.apply(attr) : null;
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param attrName The name of the attribute value to retrieve.
+     * @return An {@link Optional} containing the value of the attribute, which will be {@linkplain Optional#empty()
+     * empty} if there is no such attribute.
+     */
+    public default Optional<String> getOptionalAttr(final QName attrName) {
+      return Optional.ofNullable(getStartElement().getAttributeByName(attrName)).map(Attribute::getValue);
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
+     * @param attrName The name of the attribute value to retrieve.
+     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
+     * @return An {@link Optional} containing the value of the attribute, which will be {@linkplain Optional#empty()
+     * empty} if there is no such attribute.
+     */
+    public default <AT> Optional<AT> getOptionalAttr(final QName attrName, final Function<? super String,? extends AT> attrValueFunction) {
+      return getOptionalAttr(attrName).map(attrValueFunction);
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
+     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
+     * @return An {@link Optional} containing the value of the attribute, which will be {@linkplain Optional#empty()
+     * empty} if there is no such attribute.
+     */
+    public default Optional<String> getOptionalAttr(final String attrLocalName) {
+      return getOptionalAttr(new QName(XMLConstants.NULL_NS_URI, attrLocalName));
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
+     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
+     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
+     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
+     * @return An {@link Optional} containing the value of the attribute, which will be {@linkplain Optional#empty()
+     * empty} if there is no such attribute.
+     */
+    public default <AT> Optional<AT> getOptionalAttr(final String attrLocalName, final Function<? super String,? extends AT> attrValueFunction) {
+      return getOptionalAttr(attrLocalName).map(attrValueFunction);
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param attrName The name of the attribute value to retrieve.
+     * @return The value of the attribute (never <code>null</code>).
+     * @throws NoSuchElementException If there is no such attribute.
+     */
+    public default String getRequiredAttr(final QName attrName) throws NoSuchElementException {
+      return getOptionalAttr(attrName).orElseThrow(() -> new NoSuchElementException("Element '" + getElementName().getLocalPart() + "' has no '" + attrName.getLocalPart() + "' attribute"));
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
+     * @param attrName The name of the attribute value to retrieve.
+     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
+     * @return The value of the attribute (never <code>null</code>).
+     * @throws NoSuchElementException If there is no such attribute.
+     */
+    public default <AT> AT getRequiredAttr(final QName attrName, final Function<? super String,? extends AT> attrValueFunction) throws NoSuchElementException {
+      return attrValueFunction.apply(getRequiredAttr(attrName));
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
+     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
+     * @return The value of the attribute (never <code>null</code>).
+     * @throws NoSuchElementException If there is no such attribute.
+     */
+    public default String getRequiredAttr(final String attrLocalName) throws NoSuchElementException {
+      return getRequiredAttr(new QName(XMLConstants.NULL_NS_URI, attrLocalName));
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the element currently being parsed.
+     * 
+     * @param <AT> The type of value produced by the supplied <code>attrValueFunction</code>.
+     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve
+     * ({@linkplain XMLConstants#NULL_NS_URI no namespace} will be used).
+     * @param attrValueFunction A {@link Function} which should be applied to the attribute value before it's returned.
+     * @return The value of the attribute (never <code>null</code>).
+     * @throws NoSuchElementException If there is no such attribute.
+     */
+    public default <AT> AT getRequiredAttr(final String attrLocalName, final Function<? super String,? extends AT> attrValueFunction) throws NoSuchElementException {
+      return attrValueFunction.apply(getRequiredAttr(attrLocalName));
+    }
+
+    /**
+     * Get target values saved by a previously parsed element. The element must have been defined as having it's target
+     * values saved.
+     * 
+     * @param <ST> The target value type of the saved values.
+     * @param savedElementName The name of the element for which saved values are desired. If <code>null</code>, the
+     * returned values can come from any element having the specified <code>targetValueClass</code>.
+     * @param savedElementTargetValueClass The target value class of the desired saved values.
+     * @return A {@link Stream} of values (never <code>null</code>).
+     */
+    public <@NonNull ST> Stream<ST> getSavedValues(final @Nullable QName savedElementName, final Class<ST> savedElementTargetValueClass);
+
+    /**
+     * Get target values saved by a previously parsed element. The element must have been defined as having it's target
+     * values saved.
+     * 
+     * @param <ST> The target value type of the saved value.
+     * @param savedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which saved
+     * values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
+     * <code>null</code>, the returned values can come from any element having the specified
+     * <code>targetValueClass</code>.
+     * @param savedElementTargetValueClass The target value class of the desired saved values.
+     * @return A {@link Stream} of values (never <code>null</code>).
+     */
+    public default <@NonNull ST> Stream<ST> getSavedValues(final @Nullable String savedElementLocalName, final Class<ST> savedElementTargetValueClass) {
+      return getSavedValues((savedElementLocalName != null) ? new QName(getNamespaceURI(), savedElementLocalName) : null, savedElementTargetValueClass);
+    }
+
+    /**
+     * Get the first target value saved by a previously parsed element. The element must have been defined as having
+     * it's target values saved.
+     * 
+     * @param <ST> The target value type of the saved value.
+     * @param savedElementName The name of the element for which the saved value is desired. If <code>null</code>, the
+     * returned value can come from any element having the specified <code>targetValueClass</code>.
+     * @param savedElementTargetValueClass The target value class of the desired saved values.
+     * @return An {@link Optional} containing the first saved value, which will be {@linkplain Optional#empty() empty}
+     * if there are none.
+     */
+    public default <@NonNull ST> Optional<ST> getOptionalSavedValue(final @Nullable QName savedElementName, final Class<ST> savedElementTargetValueClass) {
+      return getSavedValues(savedElementName, savedElementTargetValueClass).findFirst();
+    }
+
+    /**
+     * Get the first target value saved by a previously parsed element. The element must have been defined as having
+     * it's target values saved.
+     * 
+     * @param <ST> The target value type of the saved value.
+     * @param savedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which saved
+     * values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>targetValueClass</code>.
+     * @param savedElementTargetValueClass The target value class of the desired saved value.
+     * @return An {@link Optional} containing the first saved value, which will be {@linkplain Optional#empty() empty}
+     * if there are none.
+     */
+    public default <@NonNull ST> Optional<ST> getOptionalSavedValue(final @Nullable String savedElementLocalName, final Class<ST> savedElementTargetValueClass) {
+      return getOptionalSavedValue((savedElementLocalName != null) ? new QName(getNamespaceURI(), savedElementLocalName) : null, savedElementTargetValueClass);
+    }
+
+    /**
+     * Get the first target value saved by a previously parsed element. The element must have been defined as having
+     * it's target values saved.
+     * 
+     * @param <ST> The target value type of the saved value.
+     * @param savedElementName The name of the element for which the saved value is desired. If <code>null</code>, the
+     * returned value can come from any element having the specified <code>targetValueClass</code>.
+     * @param savedElementTargetValueClass The target value class of the desired saved values.
+     * @return The first saved value, or <code>null</code> if there are none.
+     */
+    public default <@NonNull ST> @Nullable ST getSavedValueOrNull(final @Nullable QName savedElementName, final Class<ST> savedElementTargetValueClass) {
+      final Optional<ST> saved = getOptionalSavedValue(savedElementName, savedElementTargetValueClass);
+      return saved.isPresent() ? saved.get() : null;
+    }
+
+    /**
+     * Get the first target value saved by a previously parsed element. The element must have been defined as having
+     * it's target values saved.
+     * 
+     * @param <ST> The target value type of the saved value.
+     * @param savedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which saved
+     * values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>targetValueClass</code>.
+     * @param savedElementTargetValueClass The target value class of the desired saved value.
+     * @return The first saved value, or <code>null</code> if there are none.
+     */
+    public default <@NonNull ST> @Nullable ST getSavedValueOrNull(final @Nullable String savedElementLocalName, final Class<ST> savedElementTargetValueClass) {
+      final Optional<ST> saved = getOptionalSavedValue(savedElementLocalName, savedElementTargetValueClass);
+      return saved.isPresent() ? saved.get() : null;
+    }
+
+    /**
+     * Get the first target value saved by a previously parsed element. The element must have been defined as having
+     * it's target values saved.
+     * 
+     * @param <ST> The target value type of the saved value.
+     * @param savedElementName The name of the element for which the saved value is desired. If <code>null</code>, the
+     * returned value can come from any element having the specified <code>targetValueClass</code>.
+     * @param savedElementTargetValueClass The target value class of the desired saved values.
+     * @return The first saved value (never <code>null</code>).
+     * @throws NoSuchElementException If there is no matching saved value.
+     */
+    public default <@NonNull ST> ST getRequiredSavedValue(final @Nullable QName savedElementName, final Class<ST> savedElementTargetValueClass) throws NoSuchElementException {
+      return getOptionalSavedValue(savedElementName, savedElementTargetValueClass)
+          .orElseThrow(() -> new NoSuchElementException("No " + ((savedElementName != null) ? "'" + savedElementName.getLocalPart() + "' " : "") + " saved element with '" + savedElementTargetValueClass.getSimpleName() + "' target value class found"));
+    }
+
+    /**
+     * Get the first target value saved by a previously parsed element. The element must have been defined as having
+     * it's target values saved.
+     * 
+     * @param <ST> The target value type of the saved value.
+     * @param savedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which saved
+     * values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>targetValueClass</code>.
+     * @param savedElementTargetValueClass The target value class of the desired saved value.
+     * @return The first saved value (never <code>null</code>).
+     * @throws NoSuchElementException If there is no matching saved value.
+     */
+    public default <@NonNull ST> ST getRequiredSavedValue(final @Nullable String savedElementLocalName, final Class<ST> savedElementTargetValueClass) throws NoSuchElementException {
+      return getRequiredSavedValue((savedElementLocalName != null) ? new QName(getNamespaceURI(), savedElementLocalName) : null, savedElementTargetValueClass);
+    }
+
+    /**
+     * Get target values from children of the element currently being parsed.
+     * 
+     * @return A {@link Stream} of child element values of the form
+     * <code>{@link java.util.Map.Entry Map.Entry}&lt;{@link java.util.Map.Entry Map.Entry}&lt;ChildElementName,TargetValueClass&gt;,{@link List}&lt;TargetValue&gt;&gt;</code>.
+     */
+    public Stream<Map.Entry<Map.Entry<QName,Class<?>>,List<?>>> getChildValues();
+
+    /**
+     * Get target values from a child of the element currently being parsed.
+     * 
+     * @param <CT> The target value type of the child values.
+     * @param childElementName The name of the element for which child target values are desired. If <code>null</code>,
+     * the returned values can come from any element having the specified <code>targetValueClass</code>.
+     * @param childElementTargetValueClass The target value class of the desired child values.
+     * @return A {@link Stream} of values (never <code>null</code>).
+     */
+    public default <@NonNull CT> Stream<CT> getChildValues(final @Nullable QName childElementName, final Class<CT> childElementTargetValueClass) {
+      return getChildValues()
+          .filter((entry) -> (childElementName == null) || (childElementName.equals(entry.getKey().getKey())))
+          .filter((entry) -> childElementTargetValueClass.isAssignableFrom(entry.getKey().getValue()))
+          .<List<?>> map(Map.Entry::getValue)
+          .flatMap(List::stream)
+          .map((value) -> Objects.requireNonNull(childElementTargetValueClass.cast(value)));
+    }
+
+    /**
+     * Get target values from a child of the element currently being parsed.
+     * 
+     * @param <CT> The target value type of the child values.
+     * @param childElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which child
+     * target values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
+     * <code>null</code>, the returned values can come from any element having the specified
+     * <code>childElementTargetValueClass</code>.
+     * @param childElementTargetValueClass The target value class of the desired child values.
+     * @return A {@link Stream} of values (never <code>null</code>).
+     */
+    public default <@NonNull CT> Stream<CT> getChildValues(final @Nullable String childElementLocalName, final Class<CT> childElementTargetValueClass) {
+      return getChildValues((childElementLocalName != null) ? new QName(getNamespaceURI(), childElementLocalName) : null, childElementTargetValueClass);
+    }
+
+    /**
+     * Get the first target value from a child of the element currently being parsed.
+     * 
+     * @param <CT> The target value type of the child value.
+     * @param childElementName The name of the element for which the child target value is desired. If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>childElementTargetValueClass</code>.
+     * @param childElementTargetValueClass The target value class of the desired child value.
+     * @return An {@link Optional} containing the first child value, which will be {@linkplain Optional#empty() empty}
+     * if there are none.
+     */
+    public default <@NonNull CT> Optional<CT> getOptionalChildValue(final @Nullable QName childElementName, final Class<CT> childElementTargetValueClass) {
+      return getChildValues(childElementName, childElementTargetValueClass).findFirst();
+    }
+
+    /**
+     * Get the first target value from a child of the element currently being parsed.
+     * 
+     * @param <CT> The target value type of the child value.
+     * @param childElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which the child
+     * target value is desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>childElementTargetValueClass</code>.
+     * @param childElementTargetValueClass The target value class of the desired child value.
+     * @return An {@link Optional} containing the first child value, which will be {@linkplain Optional#empty() empty}
+     * if there are none.
+     */
+    public default <@NonNull CT> Optional<CT> getOptionalChildValue(final @Nullable String childElementLocalName, final Class<CT> childElementTargetValueClass) {
+      return getOptionalChildValue((childElementLocalName != null) ? new QName(getNamespaceURI(), childElementLocalName) : null, childElementTargetValueClass);
+    }
+
+    /**
+     * Get the first target value from a child of the element currently being parsed.
+     * 
+     * @param <CT> The target value type of the child value.
+     * @param childElementName The name of the element for which the child target value is desired. If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>childElementTargetValueClass</code>.
+     * @param childElementTargetValueClass The target value class of the desired child value.
+     * @return The first child value, or <code>null</code> if there are none.
+     */
+    public default <@NonNull CT> @Nullable CT getChildValueOrNull(final @Nullable QName childElementName, final Class<CT> childElementTargetValueClass) {
+      final Optional<CT> child = getOptionalChildValue(childElementName, childElementTargetValueClass);
+      return child.isPresent() ? child.get() : null;
+    }
+
+    /**
+     * Get the first target value from a child of the element currently being parsed.
+     * 
+     * @param <CT> The target value type of the child value.
+     * @param childElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which the child
+     * target value is desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>childElementTargetValueClass</code>.
+     * @param childElementTargetValueClass The target value class of the desired child value.
+     * @return The first child value, or <code>null</code> if there are none.
+     */
+    public default <@NonNull CT> @Nullable CT getChildValueOrNull(final @Nullable String childElementLocalName, final Class<CT> childElementTargetValueClass) {
+      final Optional<CT> child = getOptionalChildValue(childElementLocalName, childElementTargetValueClass);
+      return child.isPresent() ? child.get() : null;
+    }
+
+    /**
+     * Get the first target value from a child of the element currently being parsed.
+     * 
+     * @param <CT> The target value type of the child value.
+     * @param childElementName The name of the element for which the child target value is desired. If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>childElementTargetValueClass</code>.
+     * @param childElementTargetValueClass The target value class of the desired child value.
+     * @return The first child value (never <code>null</code>).
+     * @throws NoSuchElementException If there is no matching child value.
+     */
+    public default <@NonNull CT> CT getRequiredChildValue(final @Nullable QName childElementName, final Class<CT> childElementTargetValueClass) throws NoSuchElementException {
+      return getOptionalChildValue(childElementName, childElementTargetValueClass)
+          .orElseThrow(() -> new NoSuchElementException("No " + ((childElementName != null) ? "'" + childElementName.getLocalPart() + "' " : "") + " child element with '" + childElementTargetValueClass.getSimpleName() + "' target class found"));
+    }
+
+    /**
+     * Get the first target value from a child of the element currently being parsed.
+     * 
+     * @param <CT> The target value type of the child value.
+     * @param childElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which the child
+     * target value is desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
+     * <code>null</code>, the returned value can come from any element having the specified
+     * <code>childElementTargetValueClass</code>.
+     * @param childElementTargetValueClass The target value class of the desired child value.
+     * @return The first child value (never <code>null</code>).
+     * @throws NoSuchElementException If there is no matching child value.
+     */
+    public default <@NonNull CT> CT getRequiredChildValue(final @Nullable String childElementLocalName, final Class<CT> childElementTargetValueClass) throws NoSuchElementException {
+      return getRequiredChildValue((childElementLocalName != null) ? new QName(getNamespaceURI(), childElementLocalName) : null, childElementTargetValueClass);
+    }
+
+    /**
+     * <p>
+     * Construct a new instance of the specified <code>injectedValueClass</code> by creating a {@link org.jooq.Record
+     * Record} containing the data from the element currently being parsed and {@linkplain org.jooq.Record#into(Class)
+     * injecting} it into the target.
+     * </p>
+     * 
+     * <p>
+     * The {@link org.jooq.Record Record} created to perform the injection will automatically be populated with a
+     * {@link Field} for each of the {@linkplain #getAttrs() attributes} and {@linkplain #getChildValues() child values}
+     * from this parsing context (using the {@linkplain QName#getLocalPart() local name} as the injected
+     * {@linkplain Field#getName() field name} for each). Child values will be injected as an
+     * {@link java.lang.reflect.Array Array} in order to provide strong typing information for use by the
+     * {@link DefaultRecordMapper} in performing data type conversions. You can provide <code>injectionSpecs</code> to
+     * override this default behaviour.
+     * </p>
+     * 
+     * @param <IT> The type of object being injected.
+     * @param injectedValueClass The {@link Class} of object being injected.
+     * @param injectionSpecs This is an optional set of mappings from an injected field name to a {@link Function} for
+     * retrieving a value to be injected into that field based on the current
+     * {@link XMLStreamParser.ElementParsingContext ElementParsingContext}. These mappings can be used to either alter
+     * the default values being injected or to supplement them with additional ones.
+     * @return The injected target value.
+     * @throws ElementValueException If a {@link MappingException} exception occurred while injecting the object.
+     * @see DefaultRecordMapper
+     * @see #getInjectedValue(Class)
+     */
+    public default <@NonNull IT> IT getInjectedValue(final Class<IT> injectedValueClass, final @Nullable Map<String,Function<ElementParsingContext,@Nullable Object>> injectionSpecs) throws ElementValueException {
+      final Map<QName,String> attrs = getAttrs();
+      final Map<String,Field<Object>> fields = new HashMap<>();
+      for (QName attrName : attrs.keySet()) {
+        fields.put(attrName.getLocalPart(), getInjectionField(attrName.getLocalPart()));
+      }
+      getChildValues().forEach((entry) -> fields.put(entry.getKey().getKey().getLocalPart(), getInjectionField(entry.getKey().getKey().getLocalPart())));
+      if (injectionSpecs != null) {
+        for (String fieldName : injectionSpecs.keySet()) {
+          fields.put(fieldName, getInjectionField(fieldName));
+        }
+      }
+
+      final org.jooq.Record record = INJECTION_DSL_CONTEXT.newRecord(fields.values().toArray(new Field<?>[fields.size()]));
+
+      for (Map.Entry<QName,String> entry : attrs.entrySet()) {
+        record.<Object> set(Objects.requireNonNull(fields.get(entry.getKey().getLocalPart())), entry.getValue());
+      }
+      getChildValues().forEach((entry) -> new AbstractMap.SimpleImmutableEntry<String,Object>(entry.getKey().getKey().getLocalPart(), entry.getValue().toArray((Object[])java.lang.reflect.Array.newInstance(entry.getKey().getValue(), entry.getValue().size()))));
+      if (injectionSpecs != null) {
+        for (Map.Entry<String,Function<ElementParsingContext,@Nullable Object>> entry : injectionSpecs.entrySet()) {
+          record.<Object> set(Objects.requireNonNull(fields.get(entry.getKey())), entry.getValue().apply(this));
+        }
+      }
+
+      final @Nullable ParsingMetrics metrics = (this instanceof ElementParser.ParsingContextImpl) ? ((ElementParser<?>.ParsingContextImpl)this).documentState.metrics : null;
+      final long start = (metrics != null) ? System.nanoTime() : 0;
+      try {
+        return record.into(injectedValueClass);
+      } catch (MappingException me) {
+        throw createElementValueException(me);
+      } finally {
+        if (metrics != null) metrics.valueInjected(getElementName(), injectedValueClass, System.nanoTime() - start);
+      }
+    }
+
+    /**
+     * <p>
+     * Construct a new instance of the specified <code>injectedValueClass</code> by creating a {@link org.jooq.Record
+     * Record} containing the data from the element currently being parsed and {@linkplain org.jooq.Record#into(Class)
+     * injecting} it into the target.
+     * </p>
+     * 
+     * <p>
+     * The {@link org.jooq.Record Record} created to perform the injection will automatically be populated with a
+     * {@link Field} for each of the {@linkplain #getAttrs() attributes} and {@linkplain #getChildValues() child values}
+     * from this parsing context (using the {@linkplain QName#getLocalPart() local name} as the injected
+     * {@linkplain Field#getName() field name} for each). Child values will be injected as an
+     * {@link java.lang.reflect.Array Array} in order to provide strong typing information for use by the
+     * {@link DefaultRecordMapper} in performing data type conversions. You can provide <code>injectionSpecs</code> to
+     * override this default behaviour.
+     * </p>
+     * 
+     * @param <IT> The type of object being injected.
+     * @param injectedValueClass The {@link Class} of object being injected.
+     * @return The injected target value.
+     * @throws ElementValueException If a {@link MappingException} exception occurred while injecting the object.
+     * @see DefaultRecordMapper
+     * @see #getInjectedValue(Class, Map)
+     */
+    public default <@NonNull IT> IT getInjectedValue(final Class<IT> injectedValueClass) throws ElementValueException {
+      return getInjectedValue(injectedValueClass, null);
+    }
+
+    /**
+     * <p>
+     * Create an {@link ElementValueException} from the supplied {@link Exception}.
+     * </p>
+     * 
+     * <p>
+     * If calculation of the {@linkplain XMLStreamParser#getTargetValueClass() target value} for your element generates
+     * a checked {@link Exception}, the {@link Function} you supply while
+     * {@linkplain XMLStreamParser.SchemaBuilder#defineElement(String, Class, java.util.function.Function) defining that
+     * element} can utilize this method for converting that into an {@link ElementValueException}
+     * ({@link RuntimeException}).
+     * </p>
+     * 
+     * @param cause The {@linkplain ElementValueException#getCause() cause}.
+     * @return The created {@link ElementValueException}.
+     */
+    public ElementValueException createElementValueException(final Exception cause);
+
+  } // ElementParsingContext
+
+  /**
+   * <p>
+   * A handler target values can be pushed to while {@linkplain XMLStreamParser#parse(InputStream, TargetValueHandler)
+   * parsing}.
+   * </p>
+   * 
+   * <p>
+   * Unlike a plain {@link Consumer}, a handler can signal that it has seen all the values it needs, allowing the parser
+   * to stop reading the document early.
+   * </p>
+   * 
+   * @param <T> The type of target values handled.
+   * @see XMLStreamParser#parse(InputStream, TargetValueHandler)
+   */
+  @FunctionalInterface
+  public interface TargetValueHandler<@NonNull T> {
+
+    /**
+     * Handle a target value.
+     * 
+     * @param targetValue The target value which was parsed.
+     * @return <code>true</code> if parsing should continue, or <code>false</code> if it should stop.
+     */
+    public boolean handle(final T targetValue);
+
+    /**
+     * <p>
+     * Handle an {@linkplain SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class) exception
+     * element} encountered amongst the target values.
+     * </p>
+     * 
+     * <p>
+     * The default implementation rethrows the supplied exception, which will end parsing, but as with
+     * {@linkplain XMLStreamParser#parse(InputStream) iteration}, such exceptions are recoverable, so an implementation
+     * may instead choose to continue.
+     * </p>
+     * 
+     * @param exception The exception which was parsed.
+     * @return <code>true</code> if parsing should continue, or <code>false</code> if it should stop.
+     * @throws RecoverableExceptionElementException If the exception should end parsing.
+     */
+    public default boolean handleException(final RecoverableExceptionElementException exception) throws RecoverableExceptionElementException {
+      throw exception;
+    }
+
+  } // TargetValueHandler
+
+  /**
+   * An {@link Iterator} over the target values from a {@linkplain XMLStreamParser#parse(InputStream) parsed} document,
+   * which can additionally retrieve those values in {@linkplain #nextBatch(Collection, int) batches}.
+   * 
+   * @param <T> The type of target values being iterated.
+   * @see XMLStreamParser#parse(InputStream)
+   */
+  public interface TargetValueIterator<@NonNull T> extends Iterator<T> {
+
+    /**
+     * <p>
+     * Retrieve up to <code>max</code> subsequent target values, adding them to the supplied <code>batch</code>.
+     * </p>
+     * 
+     * <p>
+     * This is equivalent to repeatedly calling {@link #next()}, but allows the caller to amortize the cost of each call
+     * over the batch, and to reuse a single collection (which this method does <em>not</em> clear) for every batch. If
+     * an {@linkplain SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class) exception element} is
+     * encountered after some values have already been added, the batch will end early, and the
+     * {@link RecoverableExceptionElementException} will then be thrown by the following call instead, so that no values
+     * are lost.
+     * </p>
+     * 
+     * @param batch The {@link Collection} to add the retrieved values to.
+     * @param max The maximum number of values to retrieve.
+     * @return The number of values added to the batch, which will be zero only once there are no more values.
+     * @throws IllegalArgumentException If <code>max</code> is less than one.
+     * @throws ParsingException If a problem was encountered while parsing.
+     * @see #nextBatch(int)
+     */
+    public default int nextBatch(final Collection<? super T> batch, final int max) throws IllegalArgumentException, ParsingException {
+      if (max < 1) throw new IllegalArgumentException("max < 1");
+      int count = 0;
+      while ((count < max) && (hasNext())) {
+        batch.add(next());
+        count++;
+      }
+      return count;
+    }
+
+    /**
+     * Retrieve up to <code>max</code> subsequent target values.
+     * 
+     * @param max The maximum number of values to retrieve.
+     * @return A new {@link List} containing the retrieved values, which will be empty only once there are no more
+     * values.
+     * @throws IllegalArgumentException If <code>max</code> is less than one.
+     * @throws ParsingException If a problem was encountered while parsing.
+     * @see #nextBatch(Collection, int)
+     */
+    public default List<T> nextBatch(final int max) throws IllegalArgumentException, ParsingException {
+      final List<T> batch = new ArrayList<>(Math.min(Math.max(max, 0), 1024));
+      nextBatch(batch, max);
+      return batch;
+    }
+
+    /**
+     * Get a {@link Stream} over the remaining target values, in {@linkplain #nextBatch(int) batches} of up to
+     * <code>batchSize</code>.
+     * 
+     * @param batchSize The maximum number of values to include in each batch.
+     * @return A sequential {@link Stream} of batches.
+     * @throws IllegalArgumentException If <code>batchSize</code> is less than one.
+     */
+    public default Stream<List<T>> batches(final int batchSize) throws IllegalArgumentException {
+      if (batchSize < 1) throw new IllegalArgumentException("batchSize < 1");
+      return StreamSupport.stream(new Spliterators.AbstractSpliterator<List<T>>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+        @Override
+        public boolean tryAdvance(final Consumer<? super List<T>> action) {
+          final List<T> batch = nextBatch(batchSize);
+          if (batch.isEmpty()) return false;
+          action.accept(batch);
+          return true;
+        }
+
+      }, false);
+    }
+
+  } // TargetValueIterator
+
+  /**
+   * <p>
+   * Follow a file which is being continuously appended to, providing an {@link Iterator} over the target values from
+   * each document written to it, as they become available.
+   * </p>
+   * 
+   * <p>
+   * The file is read using a {@link FollowingInputStream}, so rather than failing once it reaches the end of the
+   * available data, the parser will wait for more to be appended, allowing target values to be consumed from a document
+   * whose target container element hasn't yet been closed. Once the file is rotated or truncated, any values remaining
+   * in the original file are returned, and parsing then continues from the start of the new file (a document left
+   * incomplete by rotation simply ends). The {@link Iterator#hasNext()} method will block until another value becomes
+   * available, or the iterator is {@linkplain FollowingTargetValueIterator#close() closed}, which can be done from
+   * another thread.
+   * </p>
+   * 
+   * @param file The file to follow.
+   * @param maxPollInterval The maximum interval to wait before polling the file for more data.
+   * @return A {@link FollowingTargetValueIterator} to retrieve the target values.
+   * @see FollowingInputStream
+   */
+  public final FollowingTargetValueIterator follow(final Path file, final Duration maxPollInterval) {
+    return new FollowingTargetValueIterator(file, maxPollInterval);
+  }
+
+  /**
+   * A {@link TargetValueIterator} {@linkplain XMLStreamParser#follow(Path, Duration) following} the documents written to
+   * a file.
+   */
+  public final class FollowingTargetValueIterator implements TargetValueIterator<T>, AutoCloseable {
+    private final Path file;
+    private final Duration maxPollInterval;
+    private volatile boolean closed = false;
+    private volatile @Nullable FollowingInputStream inputStream = null;
+    private @Nullable TargetValueIterator<T> values = null;
+
+    protected FollowingTargetValueIterator(final Path file, final Duration maxPollInterval) {
+      this.file = Objects.requireNonNull(file, "null file");
+      this.maxPollInterval = Objects.requireNonNull(maxPollInterval, "null maxPollInterval");
+      return;
+    }
+
+    private @Nullable FollowingInputStream open() throws UncheckedIOException {
+      long pollInterval = FollowingInputStream.DEFAULT_MIN_POLL_INTERVAL.toMillis();
+      while (!closed) {
+        try {
+          final FollowingInputStream is = new FollowingInputStream(file, maxPollInterval);
+          inputStream = is;
+          if (closed) is.close(); // Closed while we were opening.
+          return is;
+        } catch (NoSuchFileException nsfe) { // Wait for the replacement file to be created.
+          try {
+            Thread.sleep(pollInterval);
+          } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return null;
+          }
+          pollInterval = Math.min(pollInterval * 2, Math.max(1, maxPollInterval.toMillis()));
+        } catch (java.io.IOException ioe) {
+          throw new UncheckedIOException(ioe);
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public boolean hasNext() throws ParsingException, UncheckedIOException {
+      while (!closed) {
+        final @Nullable FollowingInputStream is = (values != null) ? inputStream : open();
+        if (is == null) return false;
+        try {
+          if (values == null) {
+            values = parse(new FilterInputStream(is) {
+
+              @Override
+              public void close() {
+                return; // We'll close the underlying stream once it's ended.
+              }
+
+            });
+          }
+          if (Objects.requireNonNull(values).hasNext()) return true;
+        } catch (ParsingException pe) {
+          if ((!closed) && (!is.getEndReason().isPresent())) throw pe; // Only a document cut off by rotation is expected.
+        }
+        values = null;
+        try {
+          is.skipToEnd(); // Wait for the file to be rotated before reading the next document.
+          is.close();
+        } catch (java.io.IOException ioe) {
+          if (!closed) throw new UncheckedIOException(ioe);
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public T next() throws NoSuchElementException, ParsingException, UncheckedIOException {
+      if (!hasNext()) throw new NoSuchElementException();
+      return Objects.requireNonNull(values).next();
+    }
+
+    /**
+     * Stop following the file. This may be called from another thread in order to unblock a waiting
+     * {@link #hasNext()}, which will then return <code>false</code>.
+     */
+    @Override
+    public void close() {
+      closed = true;
+      final @Nullable FollowingInputStream is = inputStream;
+      if (is != null) {
+        try {
+          is.close();
+        } catch (java.io.IOException ioe) {}
+      }
+      return;
+    }
+
+  } // FollowingTargetValueIterator
+
+  /**
+   * <p>
+   * Parse a sequence of XML documents sent back-to-back on a single stream, providing an {@link Iterator} over the
+   * target values from all of them, in order.
+   * </p>
+   *
+   * <p>
+   * Each document is read from the supplied {@link FramedInputStream} in turn, reusing it's buffer, and the same view of
+   * it, for every document, and the underlying stream is only closed once the iterator is
+   * {@linkplain DocumentsTargetValueIterator#close() closed}. Documents which aren't recognized by this parser simply
+   * contribute no values. If a {@link ParsingException} is thrown while parsing one document, the remainder of that
+   * document is skipped, and iteration can continue with the next.
+   * </p>
+   *
+   * @param inputStream The {@link FramedInputStream} to read the documents from.
+   * @return A {@link DocumentsTargetValueIterator} to retrieve the target values.
+   * @see FramedInputStream#lengthPrefixed(InputStream)
+   * @see FramedInputStream#delimited(InputStream, byte[])
+   */
+  public final DocumentsTargetValueIterator parseDocuments(final FramedInputStream inputStream) {
+    return new DocumentsTargetValueIterator(inputStream);
+  }
+
+  /**
+   * A {@link TargetValueIterator} over the target values from a {@linkplain XMLStreamParser#parseDocuments(FramedInputStream)
+   * sequence of documents}.
+   */
+  public final class DocumentsTargetValueIterator implements TargetValueIterator<T>, AutoCloseable {
+    private final FramedInputStream inputStream;
+    private final InputStream documentInputStream;
+    private @Nullable TargetValueIterator<T> values = null;
+    private boolean ended = false;
+
+    protected DocumentsTargetValueIterator(final FramedInputStream inputStream) {
+      this.inputStream = Objects.requireNonNull(inputStream, "null inputStream");
+      documentInputStream = new FilterInputStream(inputStream) {
+
+        @Override
+        public void close() {
+          return; // We'll close the underlying stream once all the documents have been read.
+        }
+
+      };
+      return;
+    }
+
+    /**
+     * Get the number of documents which have been started so far.
+     *
+     * @return The number of documents started.
+     */
+    public long getDocumentCount() {
+      return inputStream.getDocumentCount();
+    }
+
+    @Override
+    public boolean hasNext() throws ParsingException, UncheckedIOException {
+      while (!ended) {
+        try {
+          if (values == null) {
+            if (!inputStream.nextDocument()) {
+              close();
+              return false;
+            }
+            values = parse(documentInputStream);
+          }
+          if (Objects.requireNonNull(values).hasNext()) return true;
+        } catch (ParsingException pe) {
+          throw failed(pe);
+        } catch (java.io.IOException ioe) {
+          close();
+          throw new UncheckedIOException(ioe);
+        }
+        values = null;
+      }
+      return false;
+    }
+
+    @Override
+    public T next() throws NoSuchElementException, ParsingException, UncheckedIOException {
+      if (!hasNext()) throw new NoSuchElementException();
+      try {
+        return Objects.requireNonNull(values).next();
+      } catch (ParsingException pe) {
+        throw failed(pe);
+      }
+    }
+
+    /**
+     * Abandon the current document, unless the supplied exception is recoverable, in which case iteration can continue
+     * with the remaining values from the same document.
+     */
+    private ParsingException failed(final ParsingException pe) {
+      if (!(pe instanceof RecoverableExceptionElementException)) values = null; // Continue with the next document.
+      return pe;
+    }
+
+    /**
+     * Stop parsing, and close the underlying stream.
+     */
+    @Override
+    public void close() {
+      ended = true;
+      values = null;
+      try {
+        inputStream.close();
+      } catch (java.io.IOException ioe) {}
+      return;
+    }
+
+  } // DocumentsTargetValueIterator
+
+  private final TargetValueIterator<T> emptyTargetValueIterator() {
+    return new TargetValueIterator<T>() {
+
+      @Override
+      public boolean hasNext() {
+        return false;
+      }
+
+      @Override
+      public T next() throws NoSuchElementException {
+        throw new NoSuchElementException();
+      }
+
+    };
+  }
+
+  private abstract class AbstractTargetValueIterator<@NonNull R> implements TargetValueIterator<R> {
+    protected final ElementParser<?>.ParsingContextImpl parentContext;
+    protected final XMLEventReader reader;
+    protected final AutoCloseable closer;
+    private @Nullable ContentParser<?,?> nextParser = null; // The parser for the next target, as found by hasNext().
+
+    protected AbstractTargetValueIterator(final ElementParser<?>.ParsingContextImpl parentContext, final XMLEventReader reader, final AutoCloseable closer) throws IllegalArgumentException {
+      this.parentContext = parentContext;
+      this.reader = reader;
+      this.closer = closer;
+      return;
+    }
+
+    /**
+     * Produce the value for the supplied <code>event</code>, which has already been read, and for which the
+     * <code>childParser</code> is known to be either a target value or exception parser.
+     */
+    protected abstract R nextValue(final ContentParser<?,?> childParser, final XMLEvent event) throws ParsingException;
+
+    /**
+     * Record the document as having failed, unless the supplied exception is recoverable, since the reader won't be
+     * read to the end, or necessarily closed.
+     */
+    protected final ParsingException failed(final ParsingException pe) {
+      if (!(pe instanceof RecoverableExceptionElementException)) ParsingEvents.documentFailed(reader);
+      return pe;
+    }
+
+    @Override
+    public boolean hasNext() throws ParsingException {
+      if (nextParser != null) return true;
+      try {
+        while (reader.hasNext()) {
+          final @Nullable XMLEvent event = peek(reader, closer);
+
+          if ((event == null) || (event.isEndElement()) || (event.isEndDocument())) { // If this isn't the start of something new, and is the end of the parent element hosting our targetParser's elements, then we're done!
+            close(reader, closer); // Clean up after ourselves.
+            return false;
+          }
+
+          // There could be some other content before the next applicable target event.
+          final @Nullable ContentParser<?,?> childParser = parentContext.getParser().findChildParserOrNull(event);
+          if (childParser != null) {
+            if ((targetValueParsers.contains(childParser)) || (targetContainerElementParser.getChildExceptionParsers().contains(childParser))) {
+              nextParser = childParser;
+              return true;
+            } else { // If they supplied a parser for this, use it, as it could save values in the parsing context, etc.
+              childParser.parse(parentContext, nextEvent(reader, closer), reader, closer, null);
+            }
+          } else {
+            ignoreEvent(parentContext, nextEvent(reader, closer), reader, closer); // They didn't supply a parser for whatever this is. This would be the X in XML.
+          }
+
+        }
+      } catch (ParsingException pe) {
+        throw failed(pe);
+      }
+      close(reader, closer);
+      return false;
+    }
+
+    @Override
+    public R next() throws ParsingException {
+      if (!hasNext()) throw new NoSuchElementException();
+      final ContentParser<?,?> childParser = Objects.requireNonNull(nextParser); // Since hasNext() returned true, we know there is a child parser for this event which is either a target value parser or an exception parser...
+      nextParser = null;
+      try {
+        return nextValue(childParser, nextEvent(reader, closer));
+      } catch (ParsingException pe) {
+        throw failed(pe);
+      }
+    }
+
+    @Override
+    public int nextBatch(final Collection<? super R> batch, final int max) throws IllegalArgumentException, ParsingException {
+      if (max < 1) throw new IllegalArgumentException("max < 1");
+      int count = 0;
+      while ((count < max) && (hasNext())) {
+        final ContentParser<?,?> childParser = Objects.requireNonNull(nextParser);
+        if ((count > 0) && (!targetValueParsers.contains(childParser))) break; // Deliver what we have before throwing for an exception element.
+        nextParser = null;
+        try {
+          batch.add(nextValue(childParser, nextEvent(reader, closer)));
+        } catch (ParsingException pe) {
+          throw failed(pe);
+        }
+        count++;
+      }
+      return count;
+    }
+
+  } // AbstractTargetValueIterator
+
+  private final class TargetValueIteratorImpl extends AbstractTargetValueIterator<T> {
+
+    public TargetValueIteratorImpl(final ElementParser<?>.ParsingContextImpl parentContext, final XMLEventReader reader, final AutoCloseable closer) throws IllegalArgumentException {
+      super(parentContext, reader, closer);
+      return;
+    }
+
+    @Override
+    protected T nextValue(final ContentParser<?,?> childParser, final XMLEvent event) throws ParsingException {
+      return parseTargetValue(parentContext, childParser, event, reader, closer);
+    }
+
+  } // TargetValueIteratorImpl
+
+  private final class LazyTargetValueIterator extends AbstractTargetValueIterator<LazyTargetValue<T>> {
+
+    public LazyTargetValueIterator(final ElementParser<?>.ParsingContextImpl parentContext, final XMLEventReader reader, final AutoCloseable closer) throws IllegalArgumentException {
+      super(parentContext, reader, closer);
+      return;
+    }
+
+    @Override
+    protected LazyTargetValue<T> nextValue(final ContentParser<?,?> childParser, final XMLEvent event) throws ParsingException {
+      if (!targetValueParsers.contains(childParser)) throw parseExceptionElement(parentContext, childParser, event, reader, closer); // Exceptions are always thrown eagerly.
+      @SuppressWarnings("unchecked")
+      final ElementParser<? extends T> targetValueParser = (ElementParser<? extends T>)childParser;
+      final StartElement startElement = event.asStartElement();
+      return new LazyTargetValue<T>(targetValueParser, parentContext, startElement, capture(startElement, reader, closer));
+    }
+
+  } // LazyTargetValueIterator
+
+  /**
+   * A handle to a {@linkplain XMLStreamParser#parseLazily(InputStream) lazily parsed} target value, providing immediate
+   * access to the {@linkplain #getStartElement() start element} for the target, while deferring construction of the
+   * {@linkplain #get() value} itself until it's first requested.
+   * 
+   * @param <T> The type of target value.
+   * @see XMLStreamParser#parseLazily(InputStream)
+   */
+  public static final class LazyTargetValue<@NonNull T> implements Supplier<T> {
+    private final ElementParser<? extends T> targetValueParser;
+    private final ElementParser<?>.ParsingContextImpl parentContext;
+    private final StartElement startElement;
+    private @Nullable List<XMLEvent> events; // Released once the value has been parsed.
+    private @Nullable T value = null;
+    private @Nullable ParsingException exception = null;
+
+    protected LazyTargetValue(final ElementParser<? extends T> targetValueParser, final ElementParser<?>.ParsingContextImpl parentContext, final StartElement startElement, final List<XMLEvent> events) {
+      this.targetValueParser = targetValueParser;
+      this.parentContext = parentContext;
+      this.startElement = startElement;
+      this.events = events;
+      return;
+    }
+
+    /**
+     * Get the {@linkplain QName qualified name} of the target element.
+     * 
+     * @return The {@linkplain QName qualified name} of the target element.
+     */
+    public QName getElementName() {
+      return startElement.getName();
+    }
+
+    /**
+     * Get the {@link StartElement} for the target element.
+     * 
+     * @return The {@link StartElement} for the target element.
+     */
+    public StartElement getStartElement() {
+      return startElement;
+    }
+
+    /**
+     * Get the {@link StartElement#getAttributes() attributes} of the target element.
+     * 
+     * @return A {@link Map} containing the {@link StartElement#getAttributes() attributes} of the target element.
+     */
+    public Map<QName,String> getAttrs() {
+      final Map<QName,String> attrs = new HashMap<>();
+      @SuppressWarnings("unchecked")
+      final Iterator<Attribute> it = startElement.getAttributes();
+      while (it.hasNext()) {
+        final Attribute attr = it.next();
+        attrs.put(attr.getName(), attr.getValue());
+      }
+      return Collections.unmodifiableMap(attrs);
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the target element.
+     * 
+     * @param attrName The name of the attribute value to retrieve.
+     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
+     */
+    public @Nullable String getAttrOrNull(final QName attrName) {
+      final @Nullable Attribute attr = startElement.getAttributeByName(attrName);
+      return (attr != null) ? attr.getValue() : null;
+    }
+
+    /**
+     * Get the {@linkplain Attribute#getValue() value} of an {@linkplain StartElement#getAttributeByName(QName)
+     * attribute} from the target element.
+     * 
+     * @param attrLocalName The {@linkplain QName#getLocalPart() local name} of the attribute value to retrieve (the
+     * attribute must not be in a namespace).
+     * @return The value of the attribute, or <code>null</code> if there is no such attribute.
+     */
+    public @Nullable String getAttrOrNull(final String attrLocalName) {
+      return getAttrOrNull(new QName(XMLConstants.NULL_NS_URI, attrLocalName));
+    }
+
+    /**
+     * Has the target value been parsed yet?
+     * 
+     * @return <code>true</code> if the target value has been parsed.
+     */
+    public synchronized boolean isParsed() {
+      return events == null;
+    }
+
+    /**
+     * Get the target value, parsing it from the captured content of the target element if this is the first request.
+     * 
+     * @return The target value.
+     * @throws ParsingException If a problem was encountered while parsing the target value. Subsequent requests will
+     * throw the same exception.
+     */
+    @Override
+    public synchronized T get() throws ParsingException {
+      final @Nullable List<XMLEvent> capturedEvents = events;
+      if (capturedEvents != null) {
+        try {
+          value = targetValueParser.parse(parentContext, startElement, new BufferedEventReader(capturedEvents), () -> {}, null);
+        } catch (ParsingException pe) {
+          exception = pe;
+        }
+        events = null;
+      }
+      final @Nullable ParsingException e = exception;
+      if (e != null) throw e;
+      return Objects.requireNonNull(value);
+    }
+
+    @Override
+    public String toString() {
+      return '<' + startElement.getName().toString() + '>';
+    }
+
+  } // LazyTargetValue
+
+  /**
+   * An {@link XMLEventReader} replaying a previously captured list of events.
+   */
+  private static final class BufferedEventReader implements XMLEventReader {
+    private final List<XMLEvent> events;
+    private int index = 0;
+
+    public BufferedEventReader(final List<XMLEvent> events) {
+      this.events = events;
+      return;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < events.size();
+    }
+
+    @Override
+    public XMLEvent nextEvent() throws XMLStreamException {
+      if (index >= events.size()) throw new XMLStreamException("No more captured events");
+      return events.get(index++);
+    }
+
+    @Override
+    public Object next() {
+      if (index >= events.size()) throw new NoSuchElementException();
+      return events.get(index++);
+    }
+
+    @Override
+    public @Nullable XMLEvent peek() {
+      return (index < events.size()) ? events.get(index) : null;
+    }
+
+    @Override
+    public String getElementText() throws XMLStreamException {
+      final StringBuilder text = new StringBuilder();
+      XMLEvent event = nextEvent();
+      while (!event.isEndElement()) {
+        if (event.isCharacters()) {
+          text.append(event.asCharacters().getData());
+        } else if (event.isStartElement()) {
+          throw new XMLStreamException("Element text can't contain elements", event.getLocation());
+        }
+        event = nextEvent();
+      }
+      return text.toString();
+    }
+
+    @Override
+    public XMLEvent nextTag() throws XMLStreamException {
+      XMLEvent event = nextEvent();
+      while (((event.isCharacters()) && (event.asCharacters().isWhiteSpace())) || (event.getEventType() == XMLStreamConstants.COMMENT) || (event.getEventType() == XMLStreamConstants.PROCESSING_INSTRUCTION)) {
+        event = nextEvent();
+      }
+      if ((!event.isStartElement()) && (!event.isEndElement())) throw new XMLStreamException("Expected a start or end element", event.getLocation());
+      return event;
+    }
+
+    @Override
+    public Object getProperty(final String name) throws IllegalArgumentException {
+      throw new IllegalArgumentException("Unsupported property: " + name);
+    }
+
+    @Override
+    public void close() {
+      index = events.size();
+      return;
+    }
+
+  } // BufferedEventReader
+
+  /**
+   * <p>
+   * A single-pass alternative to an {@link XMLStreamParser}. Where a parser iterates over the target values found
+   * within a single container element, a router reads the <em>entire</em> document, handing the value of each
+   * {@linkplain SchemaBuilder.XMLStreamRouterBuilder#addRoute(QName, Class, Consumer) routed} element to the
+   * {@link Consumer} registered for it, wherever that element occurs within the document tree. This allows you to
+   * extract several kinds of records, possibly from several different container elements, while only reading the
+   * document once.
+   * </p>
+   *
+   * <p>
+   * Routes are keyed by element definition, so if the same definition is used at several places within the document,
+   * values from every one of those places will be delivered to it's consumer. Routed values are handed to their
+   * consumer as soon as each element has been parsed, and are <em>not</em> retained as child values of their parent
+   * element, meaning the target value function for the parent element won't see them, but also meaning a routed
+   * element can occur any number of times without the parser accumulating it's values in memory.
+   * </p>
+   *
+   * @see SchemaBuilder#buildXMLRouter(Set)
+   */
+  public static class XMLStreamRouter {
+    private final Set<? extends ElementParser<?>> documentParsers;
+    private final Map<ElementParser<?>,Consumer<Object>> routes;
+    private final ParsingLimits parsingLimits;
+    private final ChildValueSpill childValueSpill;
+    private final @Nullable ParsingMetrics metrics;
+
+    protected XMLStreamRouter(final Set<? extends ElementParser<?>> documentParsers, final Map<? extends ElementParser<?>,? extends Consumer<Object>> routes, final ParsingLimits parsingLimits, final ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics) {
+      this.documentParsers = Collections.unmodifiableSet(new CopyOnWriteArraySet<>(Objects.requireNonNull(documentParsers, "null documentParsers")));
+      this.routes = Collections.unmodifiableMap(new ConcurrentHashMap<>(Objects.requireNonNull(routes, "null routes")));
+      this.parsingLimits = Objects.requireNonNull(parsingLimits, "null parsingLimits");
+      this.childValueSpill = Objects.requireNonNull(childValueSpill, "null childValueSpill");
+      this.metrics = metrics;
+      return;
+    }
+
+    /**
+     * Parse the XML document provided by the supplied {@link InputStream}, handing the value of each routed element to
+     * it's {@link Consumer} as it's encountered. This method doesn't return until the entire document has been read.
+     *
+     * @param inputStream The {@link InputStream} to read XML from. It will be closed once parsing is complete.
+     * @throws ParsingException If a problem was encountered while parsing, including an {@link ExceptionElementException}
+     * if an {@linkplain SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class) exception element}
+     * is encountered, which will end parsing of the document.
+     */
+    public final void parse(final InputStream inputStream) throws ParsingException {
+      final XMLEventReader reader = createXMLEventReader(inputStream, null, parsingLimits, metrics);
+      try {
+        final XMLEvent documentEvent = nextTag(reader, inputStream);
+        final Optional<? extends ElementParser<?>> documentParser = documentParsers.stream().filter((parser) -> parser.isParserFor(documentEvent)).findFirst();
+        if (documentParser.isPresent()) parseDocument(documentParser.get(), documentEvent.asStartElement(), reader, inputStream);
+      } finally {
+        close(reader, inputStream);
+      }
+      return;
+    }
+
+    private final <@NonNull DT> void parseDocument(final ElementParser<DT> documentParser, final StartElement documentElement, final XMLEventReader reader, final AutoCloseable closer) throws ParsingException {
+      final DT documentValue = documentParser.parseImpl(documentParser.new ParsingContextImpl(new DocumentState(routes, parsingLimits, childValueSpill, metrics), documentElement), reader, closer, null);
+      final @Nullable Consumer<Object> route = routes.get(documentParser);
+      if (route != null) route.accept(documentValue);
+      return;
+    }
+
+  } // XMLStreamRouter
+
+  /**
+   * <p>
+   * A single-pass parse, modify, and re-serialize pipeline. A transformer copies the document read from an
+   * {@link InputStream} through to an {@link XMLStreamWriter}, event by event, except for any
+   * {@linkplain SchemaBuilder.XMLStreamTransformerBuilder#addTransform(QName, Class, Function) transformed} element,
+   * which is parsed into it's target value, handed to it's transform function, and replaced in the output by the
+   * {@link XMLSerializable} that function returns (or removed, if it returns <code>null</code>).
+   * </p>
+   *
+   * <p>
+   * Only transformed elements are ever parsed into objects, so memory use is bounded by the size of the largest
+   * transformed element, regardless of the size of the document. Transforms are keyed by element name, and will be
+   * applied wherever that element occurs within the document tree (but not within another transformed element).
+   * </p>
+   *
+   * @see SchemaBuilder#buildXMLTransformer()
+   */
+  public static class XMLStreamTransformer {
+    private final Map<QName,Transform<?>> transforms;
+    private final ParsingLimits parsingLimits;
+    private final ChildValueSpill childValueSpill;
+    private final @Nullable ParsingMetrics metrics;
+
+    protected XMLStreamTransformer(final Map<QName,Transform<?>> transforms, final ParsingLimits parsingLimits, final ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics) {
+      this.transforms = Collections.unmodifiableMap(new ConcurrentHashMap<>(Objects.requireNonNull(transforms, "null transforms")));
+      this.parsingLimits = Objects.requireNonNull(parsingLimits, "null parsingLimits");
+      this.childValueSpill = Objects.requireNonNull(childValueSpill, "null childValueSpill");
+      this.metrics = metrics;
+      return;
+    }
+
+    /**
+     * Transform the XML document provided by the supplied {@link InputStream}, writing the result to the supplied
+     * {@link XMLStreamWriter}. This method doesn't return until the entire document has been written.
+     *
+     * @param inputStream The {@link InputStream} to read XML from. It will be closed once the transform is complete.
+     * @param streamWriter The {@link XMLStreamWriter} to write XML to. It will be flushed, but not closed.
+     * @throws ParsingException If a problem was encountered while parsing or writing.
+     */
+    public final void transform(final InputStream inputStream, final XMLStreamWriter streamWriter) throws ParsingException {
+      Objects.requireNonNull(streamWriter, "null streamWriter");
+      final XMLEventReader reader = createXMLEventReader(inputStream, null, parsingLimits, metrics);
+      try {
+        final DocumentState documentState = new DocumentState(null, parsingLimits, childValueSpill, metrics);
+        while (reader.hasNext()) {
+          final XMLEvent event = nextEvent(reader, inputStream);
+          final @Nullable Transform<?> transform = event.isStartElement() ? transforms.get(event.asStartElement().getName()) : null;
+          if (transform != null) {
+            final @Nullable XMLSerializable output = transform.apply(documentState, event.asStartElement(), reader, inputStream);
+            if (output != null) {
+              final @Nullable String defaultNamespace = streamWriter.getNamespaceContext().getNamespaceURI(XMLConstants.DEFAULT_NS_PREFIX);
+              output.writeXML(streamWriter, ((defaultNamespace != null) && (!defaultNamespace.isEmpty())) ? URI.create(defaultNamespace) : null);
+            }
+          } else {
+            writeEvent(event, streamWriter);
+          }
+        }
+        streamWriter.flush();
+      } catch (XMLStreamException xse) {
+        throw new XMLStreamParsingException(xse);
+      } finally {
+        close(reader, inputStream);
+      }
+      return;
+    }
+
+    protected static final class Transform<@NonNull TT> {
+      private final ElementParser<TT> parser;
+      private final Function<? super TT,? extends @Nullable XMLSerializable> function;
+
+      protected Transform(final ElementParser<TT> parser, final Function<? super TT,? extends @Nullable XMLSerializable> function) {
+        this.parser = Objects.requireNonNull(parser, "null parser");
+        this.function = Objects.requireNonNull(function, "null function");
+        return;
+      }
+
+      protected @Nullable XMLSerializable apply(final DocumentState documentState, final StartElement startElement, final XMLEventReader reader, final AutoCloseable closer) throws ParsingException {
+        final ElementParser<TT>.ParsingContextImpl context = parser.new ParsingContextImpl(documentState, startElement);
+        final TT value = parser.parseImpl(context, reader, closer, null);
+        try {
+          return function.apply(value);
+        } catch (ElementValueException eve) {
+          throw eve;
+        } catch (RuntimeException re) {
+          throw new ElementValueException(re, context);
+        }
+      }
+
+    } // XMLStreamTransformer.Transform
+
+  } // XMLStreamTransformer
+
+  /**
+   * A codec used to {@linkplain ChildValueSpill spill} child values to, and read them back from, a temporary file.
+   */
+  public static interface ChildValueCodec extends Serializable {
+
+    /**
+     * Determine if this codec is able to encode every value of the supplied type. Child values are only ever spilled
+     * for elements whose {@linkplain ElementParser#getTargetValueClass() target value type} this returns
+     * <code>true</code> for, values of any other type are always buffered on the heap.
+     * 
+     * @param valueType The declared type of the values to be encoded.
+     * @return <code>true</code> if values of the supplied type can be encoded.
+     */
+    public default boolean canEncode(final Class<?> valueType) {
+      return true;
+    }
+
+    /**
+     * Create a {@link ValueOutput} which will encode a sequence of values to the supplied {@link OutputStream}.
+     * 
+     * @param outputStream The {@link OutputStream} to write values to.
+     * @return The new {@link ValueOutput}.
+     * @throws java.io.IOException If there was a problem creating the output.
+     */
+    public ValueOutput createOutput(OutputStream outputStream) throws java.io.IOException;
+
+    /**
+     * Create a {@link ValueInput} which will decode a sequence of values, previously written by a {@link ValueOutput}
+     * from this codec, from the supplied {@link InputStream}.
+     * 
+     * @param inputStream The {@link InputStream} to read values from.
+     * @return The new {@link ValueInput}.
+     * @throws java.io.IOException If there was a problem creating the input.
+     */
+    public ValueInput createInput(InputStream inputStream) throws java.io.IOException;
+
+    /**
+     * A destination for encoded values.
+     */
+    public static interface ValueOutput extends Closeable, Flushable {
+
+      /**
+       * Encode the supplied value.
+       * 
+       * @param value The value to write.
+       * @throws java.io.IOException If there was a problem writing the value.
+       */
+      public void write(Object value) throws java.io.IOException;
+
+    } // ChildValueCodec.ValueOutput
+
+    /**
+     * A source of decoded values.
+     */
+    public static interface ValueInput extends Closeable {
+
+      /**
+       * Decode the next value.
+       * 
+       * @return The value read.
+       * @throws java.io.IOException If there was a problem reading the value.
+       */
+      public Object read() throws java.io.IOException;
+
+    } // ChildValueCodec.ValueInput
+
+  } // ChildValueCodec
+
+  /**
+   * A {@link ChildValueCodec} using standard Java {@linkplain ObjectOutputStream serialization}, which requires that
+   * spilled values be {@link Serializable}.
+   */
+  public static final class JavaSerializationCodec implements ChildValueCodec {
+    private static final long serialVersionUID = 1L;
+    /**
+     * The singleton {@link JavaSerializationCodec} instance.
+     */
+    public static final JavaSerializationCodec INSTANCE = new JavaSerializationCodec();
+    private static final int RESET_INTERVAL = 1024; // Stop the stream's back-reference table growing without bound.
+
+    private JavaSerializationCodec() {
+      return;
+    }
+
+    @Override
+    public boolean canEncode(final Class<?> valueType) {
+      return (valueType.isPrimitive()) || (Serializable.class.isAssignableFrom(valueType));
+    }
+
+    @Override
+    public ValueOutput createOutput(final OutputStream outputStream) throws java.io.IOException {
+      final ObjectOutputStream out = new ObjectOutputStream(outputStream);
+      return new ValueOutput() {
+        private int count = 0;
+
+        @Override
+        public void write(final Object value) throws java.io.IOException {
+          out.writeObject(value);
+          if (++count % RESET_INTERVAL == 0) out.reset();
+          return;
+        }
+
+        @Override
+        public void flush() throws java.io.IOException {
+          out.flush();
+          return;
+        }
+
+        @Override
+        public void close() throws java.io.IOException {
+          out.close();
+          return;
+        }
+
+      };
+    }
+
+    @Override
+    public ValueInput createInput(final InputStream inputStream) throws java.io.IOException {
+      final ObjectInputStream in = new ObjectInputStream(inputStream);
+      return new ValueInput() {
+
+        @Override
+        public Object read() throws java.io.IOException {
+          try {
+            return in.readObject();
+          } catch (ClassNotFoundException cnfe) {
+            throw new java.io.IOException(cnfe);
+          }
+        }
+
+        @Override
+        public void close() throws java.io.IOException {
+          in.close();
+          return;
+        }
+
+      };
+    }
+
+    private Object readResolve() {
+      return INSTANCE;
+    }
+
+  } // JavaSerializationCodec
+
+  /**
+   * A sequential list of child values which, once it grows beyond a threshold, spills all it's values to a temporary
+   * file, from which they are read back on each iteration.
+   */
+  private static final class SpillableValueList extends AbstractSequentialList<Object> {
+    private final int threshold;
+    private final ChildValueCodec codec;
+    private final @Nullable Path directory;
+    private final List<Object> values = new ArrayList<>();
+    private final Set<ChildValueCodec.ValueInput> inputs = ConcurrentHashMap.newKeySet();
+    private @Nullable Path file = null;
+    private ChildValueCodec.@Nullable ValueOutput output = null;
+    private int size = 0;
+
+    public SpillableValueList(final int threshold, final ChildValueCodec codec, final @Nullable Path directory) {
+      this.threshold = threshold;
+      this.codec = codec;
+      this.directory = directory;
+      return;
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public boolean add(final Object value) throws UncheckedIOException {
+      try {
+        ChildValueCodec.@Nullable ValueOutput out = output;
+        if ((out == null) && (values.size() >= threshold)) {
+          final Path spillFile = (directory != null) ? Files.createTempFile(directory, XMLStreamParser.class.getSimpleName(), ".spill") : Files.createTempFile(XMLStreamParser.class.getSimpleName(), ".spill");
+          file = spillFile;
+          out = codec.createOutput(new BufferedOutputStream(Files.newOutputStream(spillFile)));
+          output = out;
+          for (Object existing : values) {
+            out.write(existing);
+          }
+          values.clear();
+        }
+        if (out != null) {
+          out.write(value);
+        } else {
+          values.add(value);
+        }
+      } catch (java.io.IOException ioe) {
+        throw new UncheckedIOException(ioe);
+      }
+      size++;
+      return true;
+    }
+
+    @Override
+    public ListIterator<Object> listIterator(final int index) throws UncheckedIOException {
+      final @Nullable Path spillFile = file;
+      final ChildValueCodec.@Nullable ValueOutput out = output;
+      if ((spillFile == null) || (out == null)) return values.listIterator(index);
+      final int count = size;
+      final ChildValueCodec.ValueInput input;
+      try {
+        out.flush();
+        input = codec.createInput(new BufferedInputStream(Files.newInputStream(spillFile)));
+      } catch (java.io.IOException ioe) {
+        throw new UncheckedIOException(ioe);
+      }
+      inputs.add(input);
+      final ListIterator<Object> iterator = new ListIterator<Object>() {
+        private int nextIndex = 0;
+
+        @Override
+        public boolean hasNext() {
+          return nextIndex < count;
+        }
+
+        @Override
+        public Object next() throws NoSuchElementException, UncheckedIOException {
+          if (!hasNext()) throw new NoSuchElementException();
+          try {
+            final Object value = input.read();
+            if (++nextIndex >= count) {
+              inputs.remove(input);
+              input.close();
+            }
+            return value;
+          } catch (java.io.IOException ioe) {
+            throw new UncheckedIOException(ioe);
+          }
+        }
+
+        @Override
+        public int nextIndex() {
+          return nextIndex;
+        }
+
+        @Override
+        public boolean hasPrevious() {
+          return false;
+        }
+
+        @Override
+        public Object previous() throws UnsupportedOperationException {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int previousIndex() {
+          return nextIndex - 1;
+        }
+
+        @Override
+        public void remove() throws UnsupportedOperationException {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(final Object value) throws UnsupportedOperationException {
+          throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(final Object value) throws UnsupportedOperationException {
+          throw new UnsupportedOperationException();
+        }
+
+      };
+      for (int i = 0; i < index; i++) {
+        iterator.next();
+      }
+      return iterator;
+    }
+
+    /**
+     * Delete the spill file, if there is one. The list will be empty afterwards.
+     */
+    public void release() {
+      for (ChildValueCodec.ValueInput input : inputs) {
+        try {
+          input.close();
+        } catch (java.io.IOException ioe) {}
+      }
+      inputs.clear();
+      final ChildValueCodec.@Nullable ValueOutput out = output;
+      if (out != null) {
+        try {
+          out.close();
+        } catch (java.io.IOException ioe) {}
+      }
+      final @Nullable Path spillFile = file;
+      if (spillFile != null) {
+        try {
+          Files.deleteIfExists(spillFile);
+        } catch (java.io.IOException ioe) {}
+      }
+      output = null;
+      file = null;
+      values.clear();
+      size = 0;
+      return;
+    }
+
+  } // SpillableValueList
+
+  /**
+   * <p>
+   * An immutable policy for spilling the child values buffered by a parser from the heap to temporary files.
+   * </p>
+   * 
+   * <p>
+   * Rather than holding every child value for an element on the heap until that element's target value function is
+   * run, once more than the {@linkplain #getThreshold() threshold} number of values for the same child element are
+   * buffered, they will be encoded to a temporary file using the {@linkplain #getCodec() codec}, and subsequently read
+   * back sequentially when {@linkplain ElementParsingContext#getChildValues(QName, Class) requested}. The temporary file
+   * is deleted once the target value function returns, so any {@link Stream} of child values must be consumed within
+   * that function. Only child elements whose {@linkplain ElementParser#getTargetValueClass() target value type} the
+   * codec {@linkplain ChildValueCodec#canEncode(Class) can encode} are ever spilled, values of any other type are always
+   * buffered on the heap (subject to the {@linkplain ParsingLimits#getMaxChildren() children} limit).
+   * </p>
+   * 
+   * @see SchemaBuilder#setChildValueSpill(ChildValueSpill)
+   */
+  public static final class ChildValueSpill implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /**
+     * Never spill child values, buffering them all on the heap.
+     */
+    public static final ChildValueSpill NONE = new ChildValueSpill(Integer.MAX_VALUE, JavaSerializationCodec.INSTANCE, null);
+    private final int threshold;
+    private final ChildValueCodec codec;
+    private final @Nullable String directory; // A String, rather than a Path, so that this class can be serialized.
+
+    private ChildValueSpill(final int threshold, final ChildValueCodec codec, final @Nullable String directory) {
+      this.threshold = threshold;
+      this.codec = codec;
+      this.directory = directory;
+      return;
+    }
+
+    /**
+     * Create a policy which will spill child values using the supplied {@link ChildValueCodec}, once the supplied
+     * threshold is crossed.
+     * 
+     * @param threshold The number of values for a single child element which will be buffered on the heap before they
+     * are spilled.
+     * @param codec The {@link ChildValueCodec} to spill values with.
+     * @return The new {@link ChildValueSpill}.
+     * @throws IllegalArgumentException If <code>threshold</code> is negative.
+     */
+    public static ChildValueSpill of(final int threshold, final ChildValueCodec codec) throws IllegalArgumentException {
+      if (threshold < 0) throw new IllegalArgumentException("threshold < 0");
+      return new ChildValueSpill(threshold, Objects.requireNonNull(codec, "null codec"), null);
+    }
+
+    /**
+     * Create a policy which will spill child values using {@linkplain JavaSerializationCodec Java serialization}, once
+     * the supplied threshold is crossed.
+     * 
+     * @param threshold The number of values for a single child element which will be buffered on the heap before they
+     * are spilled.
+     * @return The new {@link ChildValueSpill}.
+     * @throws IllegalArgumentException If <code>threshold</code> is negative.
+     * @see #of(int, ChildValueCodec)
+     */
+    public static ChildValueSpill of(final int threshold) throws IllegalArgumentException {
+      return of(threshold, JavaSerializationCodec.INSTANCE);
+    }
+
+    /**
+     * Get the number of values for a single child element which will be buffered on the heap before they are spilled
+     * to a temporary file.
+     * 
+     * @return The spill threshold.
+     */
+    public int getThreshold() {
+      return threshold;
+    }
+
+    /**
+     * Get the {@link ChildValueCodec} used to spill child values.
+     * 
+     * @return The {@link ChildValueCodec}.
+     */
+    public ChildValueCodec getCodec() {
+      return codec;
+    }
+
+    /**
+     * Get the directory temporary files will be created in.
+     * 
+     * @return The spill directory, or {@linkplain Optional#empty() empty} if the default temporary-file directory is
+     * used.
+     */
+    public Optional<Path> getDirectory() {
+      return Optional.ofNullable(directory).map(Paths::get);
+    }
+
+    /**
+     * Create a copy of this policy which will create it's temporary files in the supplied directory.
+     * 
+     * @param directory The directory to spill values to, or <code>null</code> to use the default temporary-file
+     * directory.
+     * @return The new {@link ChildValueSpill}.
+     */
+    public ChildValueSpill withDirectory(final @Nullable Path directory) {
+      return new ChildValueSpill(threshold, codec, (directory != null) ? directory.toString() : null);
+    }
+
+    protected List<Object> createChildValueList(final ContentParser<?,?> childParser) {
+      if ((threshold == Integer.MAX_VALUE) || (!codec.canEncode(childParser.getTargetValueClass()))) return new ArrayList<>();
+      return new SpillableValueList(threshold, codec, getDirectory().orElse(null));
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object other) {
+      if (this == other) return true;
+      if (!(other instanceof ChildValueSpill)) return false;
+      final ChildValueSpill spill = (ChildValueSpill)other;
+      return (threshold == spill.threshold) && (codec.equals(spill.codec)) && (Objects.equals(directory, spill.directory));
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(threshold, codec, directory);
+    }
+
+    @Override
+    public String toString() {
+      return "ChildValueSpill[threshold=" + threshold + ", codec=" + codec.getClass().getSimpleName() + ", directory=" + directory + ']';
+    }
+
+  } // ChildValueSpill
+
+  /**
+   * <p>
+   * An immutable set of resource limits enforced by a parser, allowing you to place a predictable ceiling on the memory
+   * used to parse any single document, regardless of it's content.
+   * </p>
+   * 
+   * <p>
+   * Each limit is checked incrementally as the document is read, and a {@link ParsingLimitException} is thrown as soon
+   * as any is exceeded. Limits are unbounded unless {@linkplain #withMaxDepth(int) set}, so start from {@link #NONE}.
+   * The depth and attribute limits apply to every element in the document, including those the schema doesn't define,
+   * which are otherwise skipped or captured unexamined.
+   * </p>
+   * 
+   * @see SchemaBuilder#setParsingLimits(ParsingLimits)
+   */
+  public static final class ParsingLimits implements Serializable {
+    private static final long serialVersionUID = 1L;
+    /**
+     * No limits.
+     */
+    public static final ParsingLimits NONE = new ParsingLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+    private final int maxDepth;
+    private final int maxChildren;
+    private final long maxCharacters;
+    private final int maxAttributes;
+    private final long maxDocumentBytes;
+
+    /**
+     * The individual limits.
+     */
+    public static enum Limit {
+      /**
+       * The maximum nesting depth of elements.
+       */
+      DEPTH,
+      /**
+       * The maximum number of child values buffered for a single element.
+       */
+      CHILDREN,
+      /**
+       * The maximum number of characters of text content buffered for a single element.
+       */
+      CHARACTERS,
+      /**
+       * The maximum number of attributes on a single element.
+       */
+      ATTRIBUTES,
+      /**
+       * The maximum size of the document, in bytes.
+       */
+      DOCUMENT_BYTES
+    } // ParsingLimits.Limit
+
+    private ParsingLimits(final int maxDepth, final int maxChildren, final long maxCharacters, final int maxAttributes, final long maxDocumentBytes) {
+      this.maxDepth = maxDepth;
+      this.maxChildren = maxChildren;
+      this.maxCharacters = maxCharacters;
+      this.maxAttributes = maxAttributes;
+      this.maxDocumentBytes = maxDocumentBytes;
+      return;
+    }
+
+    private static final long requirePositive(final long value, final String name) throws IllegalArgumentException {
+      if (value < 1) throw new IllegalArgumentException(name + " < 1");
+      return value;
+    }
+
+    /**
+     * Get the maximum nesting depth of elements, where the document element is at depth zero.
+     * 
+     * @return The maximum depth.
+     */
+    public int getMaxDepth() {
+      return maxDepth;
+    }
+
+    /**
+     * Create a copy of these limits with the supplied maximum nesting depth.
+     * 
+     * @param maxDepth The maximum nesting depth of elements, where the document element is at depth zero.
+     * @return The new {@link ParsingLimits}.
+     * @throws IllegalArgumentException If <code>maxDepth</code> is negative.
+     */
+    public ParsingLimits withMaxDepth(final int maxDepth) throws IllegalArgumentException {
+      if (maxDepth < 0) throw new IllegalArgumentException("maxDepth < 0");
+      return new ParsingLimits(maxDepth, maxChildren, maxCharacters, maxAttributes, maxDocumentBytes);
+    }
+
+    /**
+     * Get the maximum number of child values which will be buffered for a single element. Values which are returned as
+     * target values, or routed, aren't buffered, and so don't count towards this limit.
      * 
-     * @param <CT> The target value type of the child values.
-     * @param childElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which child
-     * target values are desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
-     * <code>null</code>, the returned values can come from any element having the specified
-     * <code>childElementTargetValueClass</code>.
-     * @param childElementTargetValueClass The target value class of the desired child values.
-     * @return A {@link Stream} of values (never <code>null</code>).
+     * @return The maximum number of children.
      */
-    public default <@NonNull CT> Stream<CT> getChildValues(final @Nullable String childElementLocalName, final Class<CT> childElementTargetValueClass) {
-      return getChildValues((childElementLocalName != null) ? new QName(getNamespaceURI(), childElementLocalName) : null, childElementTargetValueClass);
+    public int getMaxChildren() {
+      return maxChildren;
+    }
+
+    /**
+     * Create a copy of these limits with the supplied maximum number of buffered child values.
+     * 
+     * @param maxChildren The maximum number of child values which will be buffered for a single element.
+     * @return The new {@link ParsingLimits}.
+     * @throws IllegalArgumentException If <code>maxChildren</code> is less than one.
+     */
+    public ParsingLimits withMaxChildren(final int maxChildren) throws IllegalArgumentException {
+      return new ParsingLimits(maxDepth, (int)requirePositive(maxChildren, "maxChildren"), maxCharacters, maxAttributes, maxDocumentBytes);
+    }
+
+    /**
+     * Get the maximum number of characters of text content which will be buffered for a single element.
+     * 
+     * @return The maximum number of characters.
+     */
+    public long getMaxCharacters() {
+      return maxCharacters;
+    }
+
+    /**
+     * Create a copy of these limits with the supplied maximum number of buffered characters.
+     * 
+     * @param maxCharacters The maximum number of characters of text content which will be buffered for a single
+     * element.
+     * @return The new {@link ParsingLimits}.
+     * @throws IllegalArgumentException If <code>maxCharacters</code> is less than one.
+     */
+    public ParsingLimits withMaxCharacters(final long maxCharacters) throws IllegalArgumentException {
+      return new ParsingLimits(maxDepth, maxChildren, requirePositive(maxCharacters, "maxCharacters"), maxAttributes, maxDocumentBytes);
+    }
+
+    /**
+     * Get the maximum number of attributes on a single element.
+     * 
+     * @return The maximum number of attributes.
+     */
+    public int getMaxAttributes() {
+      return maxAttributes;
+    }
+
+    /**
+     * Create a copy of these limits with the supplied maximum number of attributes.
+     * 
+     * @param maxAttributes The maximum number of attributes on a single element.
+     * @return The new {@link ParsingLimits}.
+     * @throws IllegalArgumentException If <code>maxAttributes</code> is negative.
+     */
+    public ParsingLimits withMaxAttributes(final int maxAttributes) throws IllegalArgumentException {
+      if (maxAttributes < 0) throw new IllegalArgumentException("maxAttributes < 0");
+      return new ParsingLimits(maxDepth, maxChildren, maxCharacters, maxAttributes, maxDocumentBytes);
+    }
+
+    /**
+     * Get the maximum size of a document, in bytes.
+     * 
+     * @return The maximum number of bytes.
+     */
+    public long getMaxDocumentBytes() {
+      return maxDocumentBytes;
+    }
+
+    /**
+     * Create a copy of these limits with the supplied maximum document size.
+     * 
+     * @param maxDocumentBytes The maximum size of a document, in bytes.
+     * @return The new {@link ParsingLimits}.
+     * @throws IllegalArgumentException If <code>maxDocumentBytes</code> is less than one.
+     */
+    public ParsingLimits withMaxDocumentBytes(final long maxDocumentBytes) throws IllegalArgumentException {
+      return new ParsingLimits(maxDepth, maxChildren, maxCharacters, maxAttributes, requirePositive(maxDocumentBytes, "maxDocumentBytes"));
+    }
+
+    protected void checkAttributes(final StartElement startElement) throws ParsingLimitException {
+      if (maxAttributes == Integer.MAX_VALUE) return;
+      int count = 0;
+      final Iterator<?> attributes = startElement.getAttributes();
+      while (attributes.hasNext()) {
+        attributes.next();
+        if (++count > maxAttributes) throw new ParsingLimitException(Limit.ATTRIBUTES, maxAttributes);
+      }
+      return;
+    }
+
+    @Override
+    public boolean equals(final @Nullable Object other) {
+      if (this == other) return true;
+      if (!(other instanceof ParsingLimits)) return false;
+      final ParsingLimits limits = (ParsingLimits)other;
+      return (maxDepth == limits.maxDepth) && (maxChildren == limits.maxChildren) && (maxCharacters == limits.maxCharacters) && (maxAttributes == limits.maxAttributes) && (maxDocumentBytes == limits.maxDocumentBytes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(maxDepth, maxChildren, maxCharacters, maxAttributes, maxDocumentBytes);
+    }
+
+    @Override
+    public String toString() {
+      return "ParsingLimits[maxDepth=" + maxDepth + ", maxChildren=" + maxChildren + ", maxCharacters=" + maxCharacters + ", maxAttributes=" + maxAttributes + ", maxDocumentBytes=" + maxDocumentBytes + ']';
+    }
+
+  } // ParsingLimits
+
+  /**
+   * <p>
+   * A token which can be used to {@linkplain #cancel() cancel} a {@linkplain #parse(InputStream, CancellationToken)
+   * parse}, from any thread, either explicitly, or once an optional {@linkplain #getDeadline() deadline} passes.
+   * </p>
+   * 
+   * <p>
+   * The token is checked before every event is read, including while skipping over ignored content, and, once
+   * triggered, any {@link InputStream} being parsed with it is closed immediately, so that a parse blocked reading a
+   * slow stream will also stop promptly. The parse will then throw a {@link ParsingCancelledException}. A single token
+   * can be shared by several parses, such as all those performed on behalf of a single request.
+   * </p>
+   */
+  public static final class CancellationToken {
+    private static final ScheduledThreadPoolExecutor DEADLINE_SCHEDULER;
+    static {
+      DEADLINE_SCHEDULER = new ScheduledThreadPoolExecutor(1, (runnable) -> {
+        final Thread thread = new Thread(runnable, CancellationToken.class.getName());
+        thread.setDaemon(true);
+        return thread;
+      });
+      DEADLINE_SCHEDULER.setRemoveOnCancelPolicy(true);
+    }
+    private final @Nullable Instant deadline;
+    private final long deadlineNanos;
+    private final @Nullable ScheduledFuture<?> deadlineFuture;
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final Queue<AutoCloseable> closers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Construct a new {@link CancellationToken}, without a deadline.
+     */
+    public CancellationToken() {
+      deadline = null;
+      deadlineNanos = 0;
+      deadlineFuture = null;
+      return;
+    }
+
+    /**
+     * Construct a new {@link CancellationToken} which will be triggered automatically once the supplied
+     * <code>timeout</code> has elapsed.
+     * 
+     * @param timeout The amount of time, from now, until the deadline.
+     */
+    public CancellationToken(final Duration timeout) {
+      deadline = Instant.now().plus(Objects.requireNonNull(timeout, "null timeout"));
+      deadlineNanos = System.nanoTime() + timeout.toNanos();
+      deadlineFuture = DEADLINE_SCHEDULER.schedule(this::cancel, Math.max(0, timeout.toNanos()), TimeUnit.NANOSECONDS);
+      return;
+    }
+
+    /**
+     * Get the deadline for this token.
+     * 
+     * @return The deadline, if this token has one.
+     */
+    public Optional<Instant> getDeadline() {
+      return Optional.ofNullable(deadline);
+    }
+
+    /**
+     * Has this token's {@linkplain #getDeadline() deadline} passed?
+     * 
+     * @return <code>true</code> if this token has a deadline, and it has passed.
+     */
+    public boolean isDeadlineExceeded() {
+      return (deadline != null) && (System.nanoTime() - deadlineNanos >= 0);
+    }
+
+    /**
+     * Has this token been triggered?
+     * 
+     * @return <code>true</code> if this token has been {@linkplain #cancel() cancelled}, or it's
+     * {@linkplain #getDeadline() deadline} has passed.
+     */
+    public boolean isCancelled() {
+      return (cancelled.get()) || (isDeadlineExceeded());
+    }
+
+    /**
+     * Cancel any parse using this token, closing it's {@link InputStream}. This method may be called from any thread,
+     * and any number of times.
+     */
+    public void cancel() {
+      if (!cancelled.compareAndSet(false, true)) return;
+      if (deadlineFuture != null) deadlineFuture.cancel(false);
+      for (@Nullable AutoCloseable closer = closers.poll(); closer != null; closer = closers.poll()) {
+        close(closer);
+      }
+      return;
+    }
+
+    private static void close(final AutoCloseable closer) {
+      try {
+        closer.close();
+      } catch (Exception e) {}
+      return;
+    }
+
+    protected void register(final AutoCloseable closer) {
+      closers.add(closer);
+      if ((cancelled.get()) && (closers.remove(closer))) close(closer); // We were cancelled before, or while, adding it.
+      return;
+    }
+
+    protected void unregister(final AutoCloseable closer) {
+      closers.remove(closer);
+      return;
+    }
+
+  } // CancellationToken
+
+  /**
+   * The base class for an {@link Exception} indicating some problem was encountered during
+   * {@linkplain XMLStreamParser#parse(InputStream) parsing}. Clients could receive subclasses including
+   * {@link XMLStreamParsingException}, {@link ElementValueException}, {@link ExceptionElementException}, or
+   * {@link RecoverableExceptionElementException}.
+   */
+  public abstract static class ParsingException extends RuntimeException {
+
+    protected ParsingException() {
+      super();
+      return;
+    }
+
+    protected ParsingException(final Throwable cause) {
+      super(cause);
+      return;
+    }
+
+    protected ParsingException(final String message, final Throwable cause) {
+      super(message, cause);
+      return;
+    }
+
+  } // ParsingException
+
+  /**
+   * A {@link ParsingException ParsingException} which indicates an {@link XMLStreamException} was encountered during
+   * {@linkplain XMLStreamParser#parse(InputStream) parsing}.
+   */
+  public static class XMLStreamParsingException extends ParsingException {
+
+    protected XMLStreamParsingException(final XMLStreamException xse) {
+      super(Objects.requireNonNull(xse, "null cause"));
+      return;
+    }
+
+    @Override
+    public XMLStreamException getCause() {
+      return Objects.requireNonNull(XMLStreamException.class.cast(super.getCause()));
+    }
+
+  } // XMLStreamParsingException
+
+  /**
+   * A {@link ParsingException ParsingException} indicating the document exceeded one of the parser's
+   * {@link XMLStreamParser.ParsingLimits ParsingLimits}.
+   */
+  public static class ParsingLimitException extends ParsingException {
+    private final ParsingLimits.Limit limit;
+    private final long maximum;
+
+    protected ParsingLimitException(final ParsingLimits.Limit limit, final long maximum) {
+      super();
+      this.limit = Objects.requireNonNull(limit, "null limit");
+      this.maximum = maximum;
+      return;
+    }
+
+    /**
+     * Get the limit which was exceeded.
+     * 
+     * @return The {@link ParsingLimits.Limit Limit} which was exceeded.
+     */
+    public ParsingLimits.Limit getLimit() {
+      return limit;
+    }
+
+    /**
+     * Get the maximum permitted by the limit which was exceeded.
+     * 
+     * @return The maximum value for the limit.
+     */
+    public long getMaximum() {
+      return maximum;
+    }
+
+    @Override
+    public String getMessage() {
+      return limit + " limit of " + maximum + " exceeded";
+    }
+
+  } // ParsingLimitException
+
+  /**
+   * A {@link ParsingException ParsingException} indicating parsing was stopped by it's
+   * {@link XMLStreamParser.CancellationToken CancellationToken}.
+   */
+  public static class ParsingCancelledException extends ParsingException {
+    private final boolean deadlineExceeded;
+
+    protected ParsingCancelledException(final boolean deadlineExceeded, final @Nullable Throwable cause) {
+      super(deadlineExceeded ? "Parsing deadline exceeded" : "Parsing cancelled", cause);
+      this.deadlineExceeded = deadlineExceeded;
+      return;
+    }
+
+    /**
+     * Was parsing cancelled because the token's {@linkplain CancellationToken#getDeadline() deadline} passed?
+     * 
+     * @return <code>true</code> if the deadline passed, or <code>false</code> if the token was explicitly
+     * {@linkplain CancellationToken#cancel() cancelled}.
+     */
+    public boolean isDeadlineExceeded() {
+      return deadlineExceeded;
+    }
+
+  } // ParsingCancelledException
+
+  /**
+   * A {@link ParsingException ParsingException} associated with an {@link #getElementParsingContext()
+   * ElementParsingContext}.
+   */
+  public abstract static class ElementParsingContextException extends ParsingException {
+    protected final ElementParser<?>.ParsingContextImpl context;
+
+    protected ElementParsingContextException(final ElementParser<?>.ParsingContextImpl context) {
+      super();
+      this.context = context;
+      return;
+    }
+
+    protected ElementParsingContextException(final Throwable cause, final ElementParser<?>.ParsingContextImpl context) {
+      super(cause);
+      this.context = context;
+      return;
+    }
+
+    protected ElementParsingContextException(final String message, final Throwable cause, final ElementParser<?>.ParsingContextImpl context) {
+      super(message, cause);
+      this.context = context;
+      return;
+    }
+
+    /**
+     * Get the {@link XMLStreamParser.ElementParsingContext ElementParsingContext} when this exception occurred.
+     * 
+     * @return The {@link XMLStreamParser.ElementParsingContext ElementParsingContext} when this exception occurred.
+     */
+    public ElementParsingContext getElementParsingContext() {
+      return context;
     }
 
+  } // ElementParsingContextException
+
+  /**
+   * A {@link ParsingException ParsingException} which indicates an exception occurred while calculating the
+   * {@linkplain XMLStreamParser#getTargetValueClass() target value} for an
+   * {@linkplain XMLStreamParser.SchemaBuilder#defineElement(String, Class, Function) element} from it's
+   * {@link XMLStreamParser.ElementParsingContext ElementParsingContext}.
+   */
+  public static class ElementValueException extends ElementParsingContextException {
+
+    /**
+     * Construct a new {@link ElementValueException}.
+     * 
+     * @param cause The cause of this exception.
+     * @param context The context this exception occurred in.
+     */
+    protected ElementValueException(final Exception cause, final ElementParser<?>.ParsingContextImpl context) {
+      super(cause.getClass().getName() + " parsing '" + context.getStartElement().getName().getLocalPart() + "' element: " + cause.getMessage(), Objects.requireNonNull(cause, "null cause"), context);
+      return;
+    }
+
+    @Override
+    public Exception getCause() {
+      return Objects.requireNonNull(Exception.class.cast(super.getCause()));
+    }
+
+  } // ElementValueException
+
+  /**
+   * A {@link ParsingException ParsingException} indicating the parser encountered an
+   * {@linkplain SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class) exception element} within
+   * the content which represents an error or problem.
+   * 
+   * @see SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class)
+   */
+  public static class ExceptionElementException extends ElementParsingContextException {
+
     /**
-     * Get the first target value from a child of the element currently being parsed.
+     * Construct a new {@link ExceptionElementException}.
      * 
-     * @param <CT> The target value type of the child value.
-     * @param childElementName The name of the element for which the child target value is desired. If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>childElementTargetValueClass</code>.
-     * @param childElementTargetValueClass The target value class of the desired child value.
-     * @return An {@link Optional} containing the first child value, which will be {@linkplain Optional#empty() empty}
-     * if there are none.
+     * @param exception The target value {@link Exception} generated by the exception element.
+     * @param context The context this exception occurred in.
      */
-    public default <@NonNull CT> Optional<CT> getOptionalChildValue(final @Nullable QName childElementName, final Class<CT> childElementTargetValueClass) {
-      return getChildValues(childElementName, childElementTargetValueClass).findFirst();
+    protected ExceptionElementException(final Exception exception, final ElementParser<?>.ParsingContextImpl context) {
+      super(exception.getClass().getName() + " from '" + context.getStartElement().getName().getLocalPart() + "' element: " + exception.getMessage(), Objects.requireNonNull(exception, "null exception"), context);
+      return;
     }
 
-    /**
-     * Get the first target value from a child of the element currently being parsed.
-     * 
-     * @param <CT> The target value type of the child value.
-     * @param childElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which the child
-     * target value is desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>childElementTargetValueClass</code>.
-     * @param childElementTargetValueClass The target value class of the desired child value.
-     * @return An {@link Optional} containing the first child value, which will be {@linkplain Optional#empty() empty}
-     * if there are none.
-     */
-    public default <@NonNull CT> Optional<CT> getOptionalChildValue(final @Nullable String childElementLocalName, final Class<CT> childElementTargetValueClass) {
-      return getOptionalChildValue((childElementLocalName != null) ? new QName(getNamespaceURI(), childElementLocalName) : null, childElementTargetValueClass);
+    @Override
+    public Exception getCause() {
+      return Objects.requireNonNull(Exception.class.cast(super.getCause()));
     }
 
+  } // ExceptionElementException
+
+  /**
+   * A special case of {@link ExceptionElementException ExceptionElementException}, thrown during
+   * {@linkplain XMLStreamParser#parse(InputStream) parsing} to indicate that, even after it's been thrown, you can
+   * continue iterating over any subsequent target values.
+   * 
+   * @see XMLStreamParser#parse(InputStream)
+   */
+  public static class RecoverableExceptionElementException extends ExceptionElementException {
+
     /**
-     * Get the first target value from a child of the element currently being parsed.
+     * Construct a new {@link RecoverableExceptionElementException}.
      * 
-     * @param <CT> The target value type of the child value.
-     * @param childElementName The name of the element for which the child target value is desired. If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>childElementTargetValueClass</code>.
-     * @param childElementTargetValueClass The target value class of the desired child value.
-     * @return The first child value, or <code>null</code> if there are none.
+     * @param exception The target value {@link Exception} generated by the exception element.
+     * @param context The context this exception occurred in.
      */
-    public default <@NonNull CT> @Nullable CT getChildValueOrNull(final @Nullable QName childElementName, final Class<CT> childElementTargetValueClass) {
-      final Optional<CT> child = getOptionalChildValue(childElementName, childElementTargetValueClass);
-      return child.isPresent() ? child.get() : null;
+    protected RecoverableExceptionElementException(final Exception exception, final ElementParser<?>.ParsingContextImpl context) {
+      super(exception, context);
+      return;
     }
 
-    /**
-     * Get the first target value from a child of the element currently being parsed.
-     * 
-     * @param <CT> The target value type of the child value.
-     * @param childElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which the child
-     * target value is desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>childElementTargetValueClass</code>.
-     * @param childElementTargetValueClass The target value class of the desired child value.
-     * @return The first child value, or <code>null</code> if there are none.
-     */
-    public default <@NonNull CT> @Nullable CT getChildValueOrNull(final @Nullable String childElementLocalName, final Class<CT> childElementTargetValueClass) {
-      final Optional<CT> child = getOptionalChildValue(childElementLocalName, childElementTargetValueClass);
-      return child.isPresent() ? child.get() : null;
+  } // RecoverableExceptionElementException
+
+  /**
+   * This exception is thrown to abort
+   * {@linkplain XMLStreamParser.ContentParser#parse(XMLStreamParser.ElementParser.ParsingContextImpl, XMLEvent, XMLEventReader, AutoCloseable, ContainerElementParser)
+   * parsing} and return the current {@linkplain #getParsingContextImpl() parsing context} when the specified
+   * {@link ContainerElementParser} is encountered, indicating the parser has reached the position in the content where
+   * it should begin to iterate over {@linkplain XMLStreamParser#getTargetValueClass() target values}.
+   */
+  private static class TargetContainerElementFoundException extends ElementParsingContextException {
+
+    protected TargetContainerElementFoundException(final ElementParser<?>.ParsingContextImpl context) {
+      super(context);
+      return;
     }
 
-    /**
-     * Get the first target value from a child of the element currently being parsed.
-     * 
-     * @param <CT> The target value type of the child value.
-     * @param childElementName The name of the element for which the child target value is desired. If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>childElementTargetValueClass</code>.
-     * @param childElementTargetValueClass The target value class of the desired child value.
-     * @return The first child value (never <code>null</code>).
-     * @throws NoSuchElementException If there is no matching child value.
-     */
-    public default <@NonNull CT> CT getRequiredChildValue(final @Nullable QName childElementName, final Class<CT> childElementTargetValueClass) throws NoSuchElementException {
-      return getOptionalChildValue(childElementName, childElementTargetValueClass)
-          .orElseThrow(() -> new NoSuchElementException("No " + ((childElementName != null) ? "'" + childElementName.getLocalPart() + "' " : "") + " child element with '" + childElementTargetValueClass.getSimpleName() + "' target class found"));
+    public ElementParser<?>.ParsingContextImpl getParsingContextImpl() {
+      return context;
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this; // This is only used for flow control, and is thrown for every document parsed.
+    }
+
+  } // TargetContainerElementFoundException
+
+  /**
+   * State shared by every {@linkplain ElementParser.ParsingContextImpl parsing context} within the tree for a single
+   * document.
+   */
+  protected static class DocumentState {
+    protected final Map<ElementParser<?>,List<Object>> savedValues = new ConcurrentHashMap<>();
+    protected final Map<ContentParser<?,?>,Consumer<Object>> routes;
+    protected final ParsingLimits limits;
+    protected final ChildValueSpill spill;
+    protected final @Nullable ParsingMetrics metrics;
+
+    public DocumentState(final @Nullable Map<? extends ContentParser<?,?>,? extends Consumer<Object>> routes, final ParsingLimits limits, final ChildValueSpill spill, final @Nullable ParsingMetrics metrics) {
+      this.routes = ((routes != null) && (!routes.isEmpty())) ? Collections.unmodifiableMap(new HashMap<>(routes)) : Collections.emptyMap();
+      this.limits = Objects.requireNonNull(limits, "null limits");
+      this.spill = Objects.requireNonNull(spill, "null spill");
+      this.metrics = metrics;
+      return;
+    }
+
+    public DocumentState(final @Nullable Map<? extends ContentParser<?,?>,? extends Consumer<Object>> routes, final ParsingLimits limits) {
+      this(routes, limits, ChildValueSpill.NONE, null);
+      return;
+    }
+
+    public DocumentState(final @Nullable Map<? extends ContentParser<?,?>,? extends Consumer<Object>> routes) {
+      this(routes, ParsingLimits.NONE);
+      return;
+    }
+
+    public DocumentState() {
+      this(null);
+      return;
+    }
+
+  } // DocumentState
+
+  protected static abstract class ContentParser<E extends XMLEvent,@NonNull T> implements Serializable {
+    protected final Class<E> eventClass;
+    protected final Class<T> targetValueClass;
+
+    protected ContentParser(final Class<E> eventClass, final Class<T> targetValueClass) {
+      this.eventClass = eventClass;
+      this.targetValueClass = targetValueClass;
+      return;
+    }
+
+    public final Class<E> getEventClass() {
+      return eventClass;
+    }
+
+    public final Class<T> getTargetValueClass() {
+      return targetValueClass;
+    }
+
+    protected boolean isParserFor(final XMLEvent event) {
+      return eventClass.isInstance(event);
     }
 
     /**
-     * Get the first target value from a child of the element currently being parsed.
+     * Process the supplied event, including reading in any and all subsequent events which constitute a part of it's
+     * content (e.g. all child nodes for a given element, up to and including it's end element), but <em>not</em>
+     * consuming any subsequent events for nodes which are peers of the supplied event.
      * 
-     * @param <CT> The target value type of the child value.
-     * @param childElementLocalName The {@linkplain QName#getLocalPart() local name} of the element for which the child
-     * target value is desired (the {@linkplain #getNamespaceURI() namespace for this element} will be used). If
-     * <code>null</code>, the returned value can come from any element having the specified
-     * <code>childElementTargetValueClass</code>.
-     * @param childElementTargetValueClass The target value class of the desired child value.
-     * @return The first child value (never <code>null</code>).
-     * @throws NoSuchElementException If there is no matching child value.
+     * @param parentContext The context associated with parsing of the current document.
+     * @param event The event to be processed.
+     * @param reader The reader to read any content from.
+     * @param terminatingParser Throw a TerminatingParserException if an element using this parser is encountered.
+     * @return The value created from the supplied event and it's content.
+     * @throws ParseException If there was a problem parsing.
      */
-    public default <@NonNull CT> CT getRequiredChildValue(final @Nullable String childElementLocalName, final Class<CT> childElementTargetValueClass) throws NoSuchElementException {
-      return getRequiredChildValue((childElementLocalName != null) ? new QName(getNamespaceURI(), childElementLocalName) : null, childElementTargetValueClass);
+    protected abstract T parse(final ElementParser<?>.@Nullable ParsingContextImpl parentContext, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException;
+
+  } // ContentParser
+
+  protected static class CharactersParser extends ContentParser<Characters,String> {
+    private final boolean includeWhiteSpace;
+    private final boolean includeCData;
+    private final boolean includeIgnorableWhiteSpace;
+
+    public CharactersParser(final boolean includeWhiteSpace, final boolean includeCData, final boolean includeIgnorableWhiteSpace) {
+      super(Characters.class, String.class);
+      this.includeWhiteSpace = includeWhiteSpace;
+      this.includeCData = includeCData;
+      this.includeIgnorableWhiteSpace = includeIgnorableWhiteSpace;
+      return;
+    }
+
+    @Override
+    protected final boolean isParserFor(final XMLEvent event) {
+      if (!super.isParserFor(event)) return false;
+      final Characters characters = event.asCharacters();
+      return ((includeWhiteSpace) || (!characters.isWhiteSpace())) && ((includeCData) || (!characters.isCData())) && ((includeIgnorableWhiteSpace) || (!characters.isIgnorableWhiteSpace()));
+    }
+
+    @Override
+    protected final String parse(final ElementParser<?>.@Nullable ParsingContextImpl parentContext, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+      return event.asCharacters().getData();
+    }
+
+  } // CharactersParser
+
+  protected static class ElementParser<@NonNull T> extends ContentParser<StartElement,T> {
+    @SuppressWarnings("unchecked")
+    public static final Class<ElementParser<@NonNull ?>> WILDCARD_CLASS = (Class<ElementParser<@NonNull ?>>)(Object)ElementParser.class;
+    protected final QName elementName;
+    private final @Nullable Function<ElementParsingContext,T> targetValueFunction;
+    protected final boolean saveTargetValue;
+    private final Set<? extends ElementParser<? extends Exception>> childExceptionParsers;
+    private final Set<? extends ContentParser<?,?>> childValueParsers;
+
+    public ElementParser(final Class<T> targetValueClass, final QName elementName, final Function<ElementParsingContext,T> targetValueFunction, final boolean saveTargetValue, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @Nullable Collection<? extends ContentParser<?,?>> childValueParsers) {
+      super(StartElement.class, targetValueClass);
+      this.elementName = elementName;
+      this.targetValueFunction = targetValueFunction;
+      this.saveTargetValue = saveTargetValue;
+      this.childExceptionParsers = ((childExceptionParsers != null) && (!childExceptionParsers.isEmpty())) ? Collections.unmodifiableSet(new LinkedHashSet<>(childExceptionParsers)) : Collections.emptySet();
+      final Set<ContentParser<?,?>> childValueParsersCopy = (childValueParsers != null) ? new LinkedHashSet<>(childValueParsers) : new LinkedHashSet<>();
+      if (recursive) childValueParsersCopy.add(this);
+      this.childValueParsers = ((childValueParsersCopy != null) && (!childValueParsersCopy.isEmpty())) ? Collections.unmodifiableSet(childValueParsersCopy) : Collections.emptySet();
+      return;
+    }
+
+    public ElementParser(final Class<T> targetValueClass, final QName elementName, final Function<ElementParsingContext,T> targetValueFunction, final boolean saveTargetValue, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @NonNull ContentParser<?,?> @Nullable... childValueParsers) {
+      this(targetValueClass, elementName, targetValueFunction, saveTargetValue, childExceptionParsers, recursive, ((childValueParsers != null) && (childValueParsers.length > 0)) ? Arrays.asList(childValueParsers) : null);
+      return;
+    }
+
+    public ElementParser(final Class<T> targetValueClass, final QName elementName, final Function<ElementParsingContext,T> targetValueFunction, final boolean saveTargetValue) {
+      this(targetValueClass, elementName, targetValueFunction, saveTargetValue, null, false, (@Nullable Collection<? extends ContentParser<?,?>>)null);
+      return;
     }
 
     /**
-     * <p>
-     * Construct a new instance of the specified <code>injectedValueClass</code> by creating a {@link org.jooq.Record
-     * Record} containing the data from the element currently being parsed and {@linkplain org.jooq.Record#into(Class)
-     * injecting} it into the target.
-     * </p>
-     * 
-     * <p>
-     * The {@link org.jooq.Record Record} created to perform the injection will automatically be populated with a
-     * {@link Field} for each of the {@linkplain #getAttrs() attributes} and {@linkplain #getChildValues() child values}
-     * from this parsing context (using the {@linkplain QName#getLocalPart() local name} as the injected
-     * {@linkplain Field#getName() field name} for each). Child values will be injected as an
-     * {@link java.lang.reflect.Array Array} in order to provide strong typing information for use by the
-     * {@link DefaultRecordMapper} in performing data type conversions. You can provide <code>injectionSpecs</code> to
-     * override this default behaviour.
-     * </p>
-     * 
-     * @param <IT> The type of object being injected.
-     * @param injectedValueClass The {@link Class} of object being injected.
-     * @param injectionSpecs This is an optional set of mappings from an injected field name to a {@link Function} for
-     * retrieving a value to be injected into that field based on the current
-     * {@link XMLStreamParser.ElementParsingContext ElementParsingContext}. These mappings can be used to either alter
-     * the default values being injected or to supplement them with additional ones.
-     * @return The injected target value.
-     * @throws ElementValueException If a {@link MappingException} exception occurred while injecting the object.
-     * @see DefaultRecordMapper
-     * @see #getInjectedValue(Class)
+     * Construct an element parser without a target value function, for subclasses which override
+     * {@link #createTargetValue(ParsingContextImpl)}, or which produce their target value directly from the event stream
+     * by overriding {@link #parseImpl(ParsingContextImpl, XMLEventReader, AutoCloseable, ContainerElementParser)}.
      */
-    public default <@NonNull IT> IT getInjectedValue(final Class<IT> injectedValueClass, final @Nullable Map<String,Function<ElementParsingContext,@Nullable Object>> injectionSpecs) throws ElementValueException {
-      final Map<String,Field<Object>> fields = new HashMap<>();
-      final Consumer<String> defineField = (fieldName) -> fields.put(fieldName, DSL.field(DSL.name(fieldName)));
-      getAttrs().keySet().stream().map(QName::getLocalPart).forEach(defineField);
-      getChildValues().map(Map.Entry::getKey).map(Map.Entry::getKey).map(QName::getLocalPart).forEach(defineField);
-      if (injectionSpecs != null) injectionSpecs.keySet().forEach(defineField);
+    protected ElementParser(final Class<T> targetValueClass, final QName elementName, final boolean saveTargetValue) {
+      this(targetValueClass, elementName, (@Nullable Function<ElementParsingContext,T>)null, saveTargetValue, null, false, (@Nullable Collection<? extends ContentParser<?,?>>)null);
+      return;
+    }
 
-      final DSLContext dslContext = DSL.using(SQLDialect.DEFAULT);
-      final org.jooq.Record record = dslContext.newRecord(fields.values().stream().toArray(Field<?>[]::new));
+    public final QName getElementName() {
+      return elementName;
+    }
 
-      getAttrs().entrySet().forEach((entry) -> record.<Object> set(Objects.requireNonNull(fields.get(entry.getKey().getLocalPart())), entry.getValue()));
-      getChildValues().forEach((entry) -> new AbstractMap.SimpleImmutableEntry<String,Object>(entry.getKey().getKey().getLocalPart(), entry.getValue().toArray((Object[])java.lang.reflect.Array.newInstance(entry.getKey().getValue(), entry.getValue().size()))));
-      if (injectionSpecs != null) injectionSpecs.entrySet().forEach((entry) -> record.<Object> set(Objects.requireNonNull(fields.get(entry.getKey())), entry.getValue().apply(this)));
+    public final Set<? extends ElementParser<? extends Exception>> getChildExceptionParsers() {
+      return childExceptionParsers;
+    }
+
+    public final Set<? extends ContentParser<?,?>> getChildValueParsers() {
+      return childValueParsers;
+    }
+
+    @Override
+    protected final boolean isParserFor(final XMLEvent event) {
+      if (!super.isParserFor(event)) return false;
+      return elementName.equals(event.asStartElement().getName());
+    }
+
+    protected final Optional<? extends ContentParser<?,?>> findChildParserFor(final @Nullable XMLEvent event) {
+      return Optional.ofNullable(findChildParserOrNull(event));
+    }
+
+    protected final @Nullable ContentParser<?,?> findChildParserOrNull(final @Nullable XMLEvent event) {
+      if (event == null) return null;
+      for (ContentParser<?,?> parser : childExceptionParsers) {
+        if (parser.isParserFor(event)) return parser;
+      }
+      for (ContentParser<?,?> parser : childValueParsers) {
+        if (parser.isParserFor(event)) return parser;
+      }
+      return null;
+    }
 
+    protected T parseImpl(final ParsingContextImpl context, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+      final T targetValue;
       try {
-        return record.into(injectedValueClass);
-      } catch (MappingException me) {
-        throw createElementValueException(me);
+        context.parseChildren(reader, closer, targetContainerElementParser);
+        final long start = startMetrics(context);
+        try {
+          targetValue = createTargetValue(context);
+        } catch (ElementValueException eve) {
+          throw eve;
+        } catch (RuntimeException re) {
+          throw new ElementValueException(re, context);
+        }
+        reportParsed(context, start);
+      } finally {
+        context.releaseChildValues(); // Clean up any spilled values.
       }
+      if (saveTargetValue) context.saveValue(targetValue);
+      return targetValue;
     }
 
     /**
-     * <p>
-     * Construct a new instance of the specified <code>injectedValueClass</code> by creating a {@link org.jooq.Record
-     * Record} containing the data from the element currently being parsed and {@linkplain org.jooq.Record#into(Class)
-     * injecting} it into the target.
-     * </p>
-     * 
-     * <p>
-     * The {@link org.jooq.Record Record} created to perform the injection will automatically be populated with a
-     * {@link Field} for each of the {@linkplain #getAttrs() attributes} and {@linkplain #getChildValues() child values}
-     * from this parsing context (using the {@linkplain QName#getLocalPart() local name} as the injected
-     * {@linkplain Field#getName() field name} for each). Child values will be injected as an
-     * {@link java.lang.reflect.Array Array} in order to provide strong typing information for use by the
-     * {@link DefaultRecordMapper} in performing data type conversions. You can provide <code>injectionSpecs</code> to
-     * override this default behaviour.
-     * </p>
+     * Get the time at which the work of producing an element's value began, if the document has any
+     * {@link ParsingMetrics} to {@linkplain #reportParsed(ParsingContextImpl, long) report} it to.
      * 
-     * @param <IT> The type of object being injected.
-     * @param injectedValueClass The {@link Class} of object being injected.
-     * @return The injected target value.
-     * @throws ElementValueException If a {@link MappingException} exception occurred while injecting the object.
-     * @see DefaultRecordMapper
-     * @see #getInjectedValue(Class, Map)
+     * @param context The context for the element being parsed.
+     * @return The current {@linkplain System#nanoTime() time}, or zero if there are no metrics.
      */
-    public default <@NonNull IT> IT getInjectedValue(final Class<IT> injectedValueClass) throws ElementValueException {
-      return getInjectedValue(injectedValueClass, null);
+    protected final long startMetrics(final ParsingContextImpl context) {
+      return (context.documentState.metrics != null) ? System.nanoTime() : 0;
     }
 
     /**
-     * <p>
-     * Create an {@link ElementValueException} from the supplied {@link Exception}.
-     * </p>
+     * Report an element parsed into a value to the document's {@link ParsingMetrics}, if it has any. Subclasses
+     * overriding {@link #parseImpl(ParsingContextImpl, XMLEventReader, AutoCloseable, ContainerElementParser)} should
+     * call this once they have their value.
      * 
-     * <p>
-     * If calculation of the {@linkplain XMLStreamParser#getTargetValueClass() target value} for your element generates
-     * a checked {@link Exception}, the {@link Function} you supply while
-     * {@linkplain XMLStreamParser.SchemaBuilder#defineElement(String, Class, java.util.function.Function) defining that
-     * element} can utilize this method for converting that into an {@link ElementValueException}
-     * ({@link RuntimeException}).
-     * </p>
+     * @param context The context for the element which was parsed.
+     * @param start The time returned by {@link #startMetrics(ParsingContextImpl)} when producing the value began.
+     */
+    protected final void reportParsed(final ParsingContextImpl context, final long start) {
+      final @Nullable ParsingMetrics metrics = context.documentState.metrics;
+      if (metrics != null) metrics.elementParsed(elementName, context.depth, context.bufferedChildCount, System.nanoTime() - start);
+      return;
+    }
+
+    /**
+     * Create the target value for an element whose children have all been parsed, by applying the target value
+     * function.
      * 
-     * @param cause The {@linkplain ElementValueException#getCause() cause}.
-     * @return The created {@link ElementValueException}.
+     * @param context The context for the element being parsed.
+     * @return The target value.
+     * @throws IllegalStateException If this parser was constructed without a target value function, and the subclass
+     * doesn't override this method.
      */
-    public ElementValueException createElementValueException(final Exception cause);
+    protected T createTargetValue(final ParsingContextImpl context) throws IllegalStateException {
+      final @Nullable Function<ElementParsingContext,T> targetValueFunction = this.targetValueFunction;
+      if (targetValueFunction == null) throw new IllegalStateException("No target value function for " + this);
+      return targetValueFunction.apply(context);
+    }
 
-  } // ElementParsingContext
+    @Override
+    protected final T parse(final ElementParser<?>.@Nullable ParsingContextImpl parentContext, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+      return parseImpl((parentContext != null) ? new ParsingContextImpl(parentContext, Objects.requireNonNull(eventClass.cast(event))) : new ParsingContextImpl(Objects.requireNonNull(eventClass.cast(event))), reader, closer, targetContainerElementParser);
+    }
 
-  private final class TargetValueIterator implements Iterator<T> {
-    private final ElementParser<?>.ParsingContextImpl parentContext;
-    private final XMLEventReader reader;
-    private final AutoCloseable closer;
+    @Override
+    public String toString() {
+      return '<' + elementName.toString() + '>';
+    }
 
-    public TargetValueIterator(final ElementParser<?>.ParsingContextImpl parentContext, final XMLEventReader reader, final AutoCloseable closer) throws IllegalArgumentException {
-      this.parentContext = parentContext;
-      this.reader = reader;
-      this.closer = closer;
-      return;
+    private static final Stream<Map.Entry<ElementParser<?>,List<Object>>> getElementParserEntries(final Stream<? extends Map.Entry<? extends ContentParser<?,?>,List<Object>>> values) {
+      return values
+          .filter((entry) -> ElementParser.class.isInstance(entry.getKey())).<Map.Entry<ElementParser<?>,List<Object>>> map((entry) -> new AbstractMap.SimpleImmutableEntry<>(Objects.requireNonNull(ElementParser.class.cast(entry.getKey())), entry.getValue()));
     }
 
-    @Override
-    public boolean hasNext() throws ParsingException {
-      while (reader.hasNext()) {
-        final @Nullable XMLEvent event = peek(reader, closer);
+    private static final <@NonNull ET> Stream<ET> getElementValues(final Stream<? extends Map.Entry<? extends ContentParser<?,?>,List<Object>>> values, final @Nullable QName elementName, final Class<ET> targetValueClass) {
+      return getElementParserEntries(values)
+          .filter((entry) -> (elementName == null) || elementName.equals(entry.getKey().getElementName()))
+          .filter((entry) -> targetValueClass.isAssignableFrom(entry.getKey().getTargetValueClass()))
+          .map(Map.Entry::getValue)
+          .flatMap(List::stream)
+          .map((value) -> Objects.requireNonNull(targetValueClass.cast(value)));
+    }
 
-        if ((event == null) || (event.isEndElement()) || (event.isEndDocument())) { // If this isn't the start of something new, and is the end of the parent element hosting our targetParser's elements, then we're done!
-          close(reader, closer); // Clean up after ourselves.
-          return false;
-        }
+    public final class ParsingContextImpl implements ElementParsingContext {
+      private final DocumentState documentState; // This is a reference to a singleton, shared by the entire context tree.
+      private final Map<ElementParser<?>,List<Object>> savedValues;
+      private @Nullable Map<ContentParser<?,?>,List<Object>> childValues = null; // Allocated with the first child, since most (leaf) elements have none.
+      private final ElementParser<?>.@Nullable ParsingContextImpl parentContext;
+      private final StartElement startElement;
+      private final int depth;
+      private int bufferedChildCount = 0;
+      private long characterCount = 0;
+
+      public ParsingContextImpl(final DocumentState documentState, final StartElement startElement) {
+        this.documentState = Objects.requireNonNull(documentState, "null documentState");
+        savedValues = documentState.savedValues;
+        parentContext = null;
+        this.startElement = startElement;
+        depth = 0;
+        return;
+      }
+
+      public ParsingContextImpl(final StartElement startElement) {
+        this(new DocumentState(), startElement);
+        return;
+      }
+
+      public ParsingContextImpl(final ElementParser<?>.ParsingContextImpl parentContext, final StartElement startElement) {
+        documentState = parentContext.documentState;
+        savedValues = parentContext.savedValues;
+        this.parentContext = parentContext;
+        this.startElement = startElement;
+        depth = parentContext.depth + 1;
+        return;
+      }
+
+      public ElementParser<T> getParser() {
+        return ElementParser.this;
+      }
+
+      @Override
+      public Class<T> getTargetValueClass() {
+        return targetValueClass;
+      }
+
+      @Override
+      public final QName getElementName() {
+        return elementName;
+      }
+
+      @Override
+      public StartElement getStartElement() {
+        return startElement;
+      }
 
-        // There could be some other content before the next applicable target event.
-        final Optional<? extends ContentParser<?,?>> childParser = parentContext.getParser().findChildParserFor(event);
-        if (childParser.isPresent()) {
-          if (targetValueParsers.contains(childParser.get())) {
-            return true;
-          } else if (targetContainerElementParser.getChildExceptionParsers().contains(childParser.get())) {
-            return true;
-          } else { // If they supplied a parser for this, use it, as it could save values in the parsing context, etc.
-            childParser.get().parse(parentContext, nextEvent(reader, closer), reader, closer, null);
+      private Deque<StartElement> getElementContextImpl(Deque<StartElement> elementStack) {
+        if (parentContext != null) parentContext.getElementContextImpl(elementStack);
+        elementStack.push(startElement);
+        return elementStack;
+      }
+
+      @Override
+      public Deque<StartElement> getElementContext() {
+        return getElementContextImpl(new ArrayDeque<>(depth + 1));
+      }
+
+      protected void parseChildren(final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+        XMLEvent event = nextEvent(reader, closer);
+        while (!event.isEndElement()) {
+          final @Nullable ContentParser<?,?> childParser = findChildParserOrNull(event);
+          if (childParser != null) {
+            final Object childValue = childParser.parse(this, Objects.requireNonNull(childParser.eventClass.cast(event)), reader, closer, targetContainerElementParser);
+            if (childExceptionParsers.contains(childParser)) {
+              @SuppressWarnings("unchecked")
+              final ElementParser<? extends Exception> exceptionParser = (ElementParser<? extends Exception>)childParser;
+              final Exception exception = Objects.requireNonNull(exceptionParser.getTargetValueClass().cast(childValue));
+              ParsingEvents.exceptionElement(event.asStartElement().getName(), exception);
+              throw new ExceptionElementException(exception, this);
+            }
+            final @Nullable Consumer<Object> route = documentState.routes.get(childParser);
+            if (route != null) { // Routed values are handed off immediately, rather than being retained as children.
+              route.accept(childValue);
+            } else {
+              if (++bufferedChildCount > documentState.limits.getMaxChildren()) throw new ParsingLimitException(ParsingLimits.Limit.CHILDREN, documentState.limits.getMaxChildren());
+              if ((childValue instanceof String) && (childParser instanceof CharactersParser)) {
+                characterCount += ((String)childValue).length();
+                if (characterCount > documentState.limits.getMaxCharacters()) throw new ParsingLimitException(ParsingLimits.Limit.CHARACTERS, documentState.limits.getMaxCharacters());
+              }
+              Map<ContentParser<?,?>,List<Object>> childValues = this.childValues;
+              if (childValues == null) {
+                childValues = new HashMap<>();
+                this.childValues = childValues;
+              }
+              final List<Object> existingValues = childValues.get(childParser);
+              if (existingValues != null) {
+                existingValues.add(childValue);
+              } else {
+                final List<Object> values = documentState.spill.createChildValueList(childParser);
+                values.add(childValue);
+                childValues.put(childParser, values);
+              }
+            }
+          } else { // Ignore any content the user didn't specify a parser for...
+            ignoreEvent(this, event, reader, closer);
           }
+          event = nextEvent(reader, closer);
+        }
+        return;
+      }
+
+      protected void releaseChildValues() {
+        final @Nullable Map<ContentParser<?,?>,List<Object>> childValues = this.childValues;
+        if (childValues == null) return;
+        for (List<Object> values : childValues.values()) {
+          if (values instanceof SpillableValueList) ((SpillableValueList)values).release();
+        }
+        return;
+      }
+
+      public void saveValue(final T value) {
+        final List<Object> existingValues = savedValues.get(ElementParser.this);
+        if (existingValues != null) {
+          existingValues.add(value);
         } else {
-          ignoreEvent(nextEvent(reader, closer), reader, closer); // They didn't supply a parser for whatever this is. This would be the X in XML.
+          savedValues.put(ElementParser.this, new CopyOnWriteArrayList<>(Collections.singleton(value)));
         }
+        final @Nullable ParsingMetrics metrics = documentState.metrics;
+        if (metrics != null) metrics.valueSaved(elementName);
+        return;
+      }
 
+      public <@NonNull S> Stream<S> getSavedValues(final ElementParser<S> savedElementParser) {
+        final List<Object> values = savedValues.get(ElementParser.this);
+        return (values != null) ? values.stream().map((value) -> Objects.requireNonNull(savedElementParser.getTargetValueClass().cast(value))) : Stream.empty();
       }
-      close(reader, closer);
-      return false;
+
+      public <@NonNull S> S getRequiredSavedValue(final ElementParser<S> savedElementParser) throws NoSuchElementException {
+        return getSavedValues(savedElementParser).findFirst().orElseThrow(() -> new NoSuchElementException(ElementParser.this.toString()));
+      }
+
+      @Override
+      public <@NonNull S> Stream<S> getSavedValues(final @Nullable QName savedElementName, final Class<S> targetValueClass) {
+        return getElementValues(savedValues.entrySet().stream(), savedElementName, targetValueClass);
+      }
+
+      public <@NonNull ET> Stream<ET> getChildValues(final ContentParser<?,ET> childParser) {
+        final @Nullable Map<ContentParser<?,?>,List<Object>> childValues = this.childValues;
+        final @Nullable List<Object> values = (childValues != null) ? childValues.get(childParser) : null;
+        return (values != null) ? values.stream().map((v) -> Objects.requireNonNull(childParser.getTargetValueClass().cast(v))) : Stream.empty();
+      }
+
+      public <@NonNull ET> Optional<ET> getOptionalChildValue(final ContentParser<?,ET> childParser) {
+        final @Nullable Map<ContentParser<?,?>,List<Object>> childValues = this.childValues;
+        final @Nullable List<Object> values = (childValues != null) ? childValues.get(childParser) : null;
+        return ((values != null) && (!values.isEmpty())) ? Optional.of(Objects.requireNonNull(childParser.getTargetValueClass().cast(values.get(0)))) : Optional.empty();
+      }
+
+      public <@NonNull ET> ET getRequiredChildValue(final ContentParser<?,ET> childParser) throws NoSuchElementException {
+        return getOptionalChildValue(childParser).orElseThrow(() -> new NoSuchElementException(childParser.toString()));
+      }
+
+      @Override
+      public Stream<Map.Entry<Map.Entry<QName,Class<?>>,List<?>>> getChildValues() {
+        final @Nullable Map<ContentParser<?,?>,List<Object>> childValues = this.childValues;
+        if (childValues == null) return Stream.empty();
+        return getElementParserEntries(childValues.entrySet().stream())
+            .map((entry) -> new AbstractMap.SimpleImmutableEntry<>(new AbstractMap.SimpleImmutableEntry<>(entry.getKey().getElementName(), entry.getKey().getTargetValueClass()), entry.getValue()));
+      }
+
+      @Override
+      public ElementValueException createElementValueException(final Exception cause) {
+        return new ElementValueException(cause, this);
+      }
+
+    } // ElementParser.ParsingContextImpl
+
+  } // ElementParser
+
+  protected static class ContainerElementParser extends ElementParser<StartElement> {
+
+    public ContainerElementParser(final QName elementName, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @NonNull ElementParser<?> @Nullable... childValueParsers) {
+      super(StartElement.class, elementName, serializable((context) -> context.getStartElement()), false, childExceptionParsers, recursive, childValueParsers);
+      return;
     }
 
     @Override
-    public T next() throws ParsingException {
-      if (!hasNext()) throw new NoSuchElementException();
-      final XMLEvent event = nextEvent(reader, closer);
-      final ContentParser<?,?> childParser = parentContext.getParser().findChildParserFor(event).get(); // Since hasNext() returned true, we know there is a child parser for this event which is either a target value parser or an exception parser...
-      if (targetValueParsers.contains(childParser)) {
-        @SuppressWarnings("unchecked")
-        final ElementParser<? extends T> targetValueParser = (ElementParser<? extends T>)childParser;
-        return targetValueParser.parse(parentContext, event, reader, closer, null);
-      } else if (targetContainerElementParser.getChildExceptionParsers().contains(childParser)) {
-        @SuppressWarnings("unchecked")
-        final ElementParser<? extends Exception> exceptionParser = (ElementParser<? extends Exception>)childParser;
-        throw new RecoverableExceptionElementException(exceptionParser.parse(parentContext, event, reader, closer, null), exceptionParser.new ParsingContextImpl(parentContext, Objects.requireNonNull(exceptionParser.getEventClass().cast(event))));
-      }
-      throw new IllegalStateException();
+    protected StartElement parseImpl(final ParsingContextImpl context, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+      if (this == targetContainerElementParser) throw new TargetContainerElementFoundException(context);
+      return super.parseImpl(context, reader, closer, targetContainerElementParser);
     }
 
-  } // TargetValueIterator
+  } // ContainerElementParser
 
-  /**
-   * The base class for an {@link Exception} indicating some problem was encountered during
-   * {@linkplain XMLStreamParser#parse(InputStream) parsing}. Clients could receive subclasses including
-   * {@link XMLStreamParsingException}, {@link ElementValueException}, {@link ExceptionElementException}, or
-   * {@link RecoverableExceptionElementException}.
-   */
-  public abstract static class ParsingException extends RuntimeException {
+  protected static class WrapperElementParser<@NonNull T> extends ElementParser<T> {
+
+    @SafeVarargs
+    public WrapperElementParser(final Class<T> targetValueClass, final QName elementName, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @NonNull ElementParser<? extends T> @Nullable... wrappedElementParsers) {
+      super(targetValueClass, elementName, serializable((ctx) -> ctx.getRequiredChildValue((QName)null, targetValueClass)), false, childExceptionParsers, recursive, wrappedElementParsers);
+      return;
+    }
+
+    public WrapperElementParser(final QName elementName, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final ElementParser<T> wrappedElementParser) {
+      this(wrappedElementParser.getTargetValueClass(), elementName, childExceptionParsers, recursive, wrappedElementParser);
+      return;
+    }
+
+  } // WrapperElementParser
+
+  protected static class SimpleElementParser<@NonNull T> extends ElementParser<T> {
+    private static final CharactersParser CHARACTERS_PARSER = new ContentCharactersParser();
+
+    /**
+     * The target value functions reference the {@link #CHARACTERS_PARSER} directly, so it must remain a singleton when
+     * a schema is deserialized.
+     */
+    private static final class ContentCharactersParser extends CharactersParser {
+      private static final long serialVersionUID = 1L;
+
+      public ContentCharactersParser() {
+        super(true, true, false);
+        return;
+      }
 
-    protected ParsingException() {
-      super();
-      return;
-    }
+      private Object readResolve() {
+        return CHARACTERS_PARSER;
+      }
 
-    protected ParsingException(final Throwable cause) {
-      super(cause);
+    } // SimpleElementParser.ContentCharactersParser
+
+    public SimpleElementParser(final Class<T> targetValueClass, final QName elementName, final BiFunction<ElementParsingContext,? super String,? extends T> targetValueFunction, final boolean saveTargetValue) {
+      super(targetValueClass, elementName, serializable((ctx) -> targetValueFunction.apply(ctx, cast(ctx).getChildValues(CHARACTERS_PARSER).collect(Collectors.joining()))), saveTargetValue, null, false, CHARACTERS_PARSER);
       return;
     }
 
-    protected ParsingException(final String message, final Throwable cause) {
-      super(message, cause);
+    public SimpleElementParser(final Class<T> targetValueClass, final QName elementName, final Function<? super String,? extends T> targetValueFunction, final boolean saveTargetValue) {
+      this(targetValueClass, elementName, serializable((ctx, value) -> targetValueFunction.apply(value)), saveTargetValue);
       return;
     }
 
-  } // ParsingException
+  } // SimpleElementParser
 
-  /**
-   * A {@link ParsingException ParsingException} which indicates an {@link XMLStreamException} was encountered during
-   * {@linkplain XMLStreamParser#parse(InputStream) parsing}.
-   */
-  public static class XMLStreamParsingException extends ParsingException {
+  protected static class StringElementParser extends SimpleElementParser<String> {
 
-    protected XMLStreamParsingException(final XMLStreamException xse) {
-      super(Objects.requireNonNull(xse, "null cause"));
+    public StringElementParser(final QName elementName, final boolean saveTargetValue) {
+      super(String.class, elementName, serializable((value) -> value), saveTargetValue);
       return;
     }
 
-    @Override
-    public XMLStreamException getCause() {
-      return Objects.requireNonNull(XMLStreamException.class.cast(super.getCause()));
-    }
-
-  } // XMLStreamParsingException
+  } // StringElementParser
 
-  /**
-   * A {@link ParsingException ParsingException} associated with an {@link #getElementParsingContext()
-   * ElementParsingContext}.
-   */
-  public abstract static class ElementParsingContextException extends ParsingException {
-    protected final ElementParser<?>.ParsingContextImpl context;
+  protected static class InjectedTargetElementParser<@NonNull T> extends ElementParser<T> {
 
-    protected ElementParsingContextException(final ElementParser<?>.ParsingContextImpl context) {
-      super();
-      this.context = context;
+    public InjectedTargetElementParser(final Class<T> targetValueClass, final Class<? extends T> targetImplClass, final QName elementName, final boolean saveTargetValue, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @Nullable Collection<? extends ElementParser<?>> childValueParsers, final @Nullable Map<String,Function<ElementParsingContext,@Nullable Object>> injectionSpecs) throws IllegalArgumentException {
+      super(targetValueClass, elementName, serializable((ctx) -> ctx.getInjectedValue(targetImplClass, injectionSpecs)), saveTargetValue, childExceptionParsers, recursive, childValueParsers);
       return;
     }
 
-    protected ElementParsingContextException(final Throwable cause, final ElementParser<?>.ParsingContextImpl context) {
-      super(cause);
-      this.context = context;
-      return;
-    }
+  } // InjectedTargetElementParser
 
-    protected ElementParsingContextException(final String message, final Throwable cause, final ElementParser<?>.ParsingContextImpl context) {
-      super(message, cause);
-      this.context = context;
+  protected static class CapturedElementParser extends ElementParser<CapturedElement> {
+
+    public CapturedElementParser(final QName elementName, final boolean saveTargetValue) {
+      super(CapturedElement.class, elementName, saveTargetValue);
       return;
     }
 
-    /**
-     * Get the {@link XMLStreamParser.ElementParsingContext ElementParsingContext} when this exception occurred.
-     * 
-     * @return The {@link XMLStreamParser.ElementParsingContext ElementParsingContext} when this exception occurred.
-     */
-    public ElementParsingContext getElementParsingContext() {
-      return context;
+    @Override
+    protected CapturedElement parseImpl(final ParsingContextImpl context, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+      final long start = startMetrics(context);
+      final List<XMLEvent> events = new ArrayList<>();
+      events.add(context.getStartElement());
+      events.addAll(capture(context.getStartElement(), reader, closer));
+      final CapturedElement targetValue = new CapturedElement(events);
+      reportParsed(context, start);
+      if (saveTargetValue) context.saveValue(targetValue);
+      return targetValue;
     }
 
-  } // ElementParsingContextException
+  } // CapturedElementParser
 
   /**
-   * A {@link ParsingException ParsingException} which indicates an exception occurred while calculating the
-   * {@linkplain XMLStreamParser#getTargetValueClass() target value} for an
-   * {@linkplain XMLStreamParser.SchemaBuilder#defineElement(String, Class, Function) element} from it's
-   * {@link XMLStreamParser.ElementParsingContext ElementParsingContext}.
+   * The encodings supported for {@linkplain SchemaBuilder#defineBinaryElement(String, BinaryEncoding, Function) binary}
+   * element content.
    */
-  public static class ElementValueException extends ElementParsingContextException {
-
+  public static enum BinaryEncoding {
     /**
-     * Construct a new {@link ElementValueException}.
-     * 
-     * @param cause The cause of this exception.
-     * @param context The context this exception occurred in.
+     * The {@linkplain Base64 Base64} encoding (either the standard or URL-safe alphabet is accepted, but not a mixture
+     * of both, and padding is optional, but must be correct if present), as used by the XML Schema
+     * <code>base64Binary</code> type.
      */
-    protected ElementValueException(final Exception cause, final ElementParser<?>.ParsingContextImpl context) {
-      super(cause.getClass().getName() + " parsing '" + context.getStartElement().getName().getLocalPart() + "' element: " + cause.getMessage(), Objects.requireNonNull(cause, "null cause"), context);
+    BASE64,
+    /**
+     * Hexadecimal encoding (in either case), as used by the XML Schema <code>hexBinary</code> type.
+     */
+    HEX
+  } // BinaryEncoding
+
+  /**
+   * Incrementally decodes chunks of encoded binary character data to an {@link OutputStream}.
+   */
+  private static final class BinaryDecoder {
+    private final BinaryEncoding encoding;
+    private final OutputStream outputStream;
+    private int bits = 0;
+    private int bitCount = 0;
+    private int charCount = 0;
+    private int paddingCount = 0;
+    private @Nullable Boolean urlSafe = null; // Unknown until the first character unique to either alphabet is seen.
+    private long byteCount = 0;
+
+    public BinaryDecoder(final BinaryEncoding encoding, final OutputStream outputStream) {
+      this.encoding = encoding;
+      this.outputStream = outputStream;
       return;
     }
 
-    @Override
-    public Exception getCause() {
-      return Objects.requireNonNull(Exception.class.cast(super.getCause()));
+    private final int base64Value(final char c) throws IllegalArgumentException {
+      if ((c >= 'A') && (c <= 'Z')) return c - 'A';
+      if ((c >= 'a') && (c <= 'z')) return c - 'a' + 26;
+      if ((c >= '0') && (c <= '9')) return c - '0' + 52;
+      final boolean urlSafeChar;
+      final int value;
+      if ((c == '+') || (c == '/')) {
+        urlSafeChar = false;
+        value = (c == '+') ? 62 : 63;
+      } else if ((c == '-') || (c == '_')) {
+        urlSafeChar = true;
+        value = (c == '-') ? 62 : 63;
+      } else {
+        throw new IllegalArgumentException("Illegal base64 character '" + c + "'");
+      }
+      final @Nullable Boolean urlSafe = this.urlSafe;
+      if (urlSafe == null) {
+        this.urlSafe = Boolean.valueOf(urlSafeChar);
+      } else if (urlSafe.booleanValue() != urlSafeChar) {
+        throw new IllegalArgumentException("Mixed standard and URL-safe base64 alphabets");
+      }
+      return value;
     }
 
-  } // ElementValueException
-
-  /**
-   * A {@link ParsingException ParsingException} indicating the parser encountered an
-   * {@linkplain SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class) exception element} within
-   * the content which represents an error or problem.
-   * 
-   * @see SchemaBuilder.ChildElementListBuilder#addChildExceptionElement(QName, Class)
-   */
-  public static class ExceptionElementException extends ElementParsingContextException {
-
-    /**
-     * Construct a new {@link ExceptionElementException}.
-     * 
-     * @param exception The target value {@link Exception} generated by the exception element.
-     * @param context The context this exception occurred in.
-     */
-    protected ExceptionElementException(final Exception exception, final ElementParser<?>.ParsingContextImpl context) {
-      super(exception.getClass().getName() + " from '" + context.getStartElement().getName().getLocalPart() + "' element: " + exception.getMessage(), Objects.requireNonNull(exception, "null exception"), context);
+    public void decode(final String chars) throws java.io.IOException, IllegalArgumentException {
+      final int length = chars.length();
+      for (int i = 0; i < length; i++) {
+        final char c = chars.charAt(i);
+        if (c <= ' ') continue; // Whitespace.
+        final int bitsPerChar;
+        if (encoding == BinaryEncoding.HEX) {
+          final int value = Character.digit(c, 16);
+          if (value < 0) throw new IllegalArgumentException("Illegal hex character '" + c + "'");
+          bits = (bits << 4) | value;
+          bitsPerChar = 4;
+        } else {
+          if (c == '=') { // Padding may only complete a final quantum which encoded one or two bytes.
+            if ((charCount % 4 < 2) || (charCount % 4 + ++paddingCount > 4)) throw new IllegalArgumentException("Illegal base64 padding");
+            continue;
+          }
+          if (paddingCount > 0) throw new IllegalArgumentException("Base64 data after padding");
+          bits = (bits << 6) | base64Value(c);
+          charCount++;
+          bitsPerChar = 6;
+        }
+        bitCount += bitsPerChar;
+        if (bitCount >= 8) {
+          bitCount -= 8;
+          outputStream.write((bits >> bitCount) & 0xFF);
+          byteCount++;
+          bits &= (1 << bitCount) - 1;
+        }
+      }
       return;
     }
 
-    @Override
-    public Exception getCause() {
-      return Objects.requireNonNull(Exception.class.cast(super.getCause()));
+    public long finish() throws IllegalArgumentException {
+      if ((encoding == BinaryEncoding.HEX) && (bitCount != 0)) throw new IllegalArgumentException("Odd number of hex digits");
+      if ((encoding == BinaryEncoding.BASE64) && (bitCount >= 6)) throw new IllegalArgumentException("Truncated base64 data");
+      if ((paddingCount > 0) && ((charCount + paddingCount) % 4 != 0)) throw new IllegalArgumentException("Incomplete base64 padding");
+      return byteCount;
     }
 
-  } // ExceptionElementException
+  } // BinaryDecoder
 
   /**
-   * A special case of {@link ExceptionElementException ExceptionElementException}, thrown during
-   * {@linkplain XMLStreamParser#parse(InputStream) parsing} to indicate that, even after it's been thrown, you can
-   * continue iterating over any subsequent target values.
+   * Read the content of the current element, decoding it's character data to the supplied {@link OutputStream}, which
+   * will then be closed.
    * 
-   * @see XMLStreamParser#parse(InputStream)
+   * @return The number of bytes decoded.
    */
-  public static class RecoverableExceptionElementException extends ExceptionElementException {
-
-    /**
-     * Construct a new {@link RecoverableExceptionElementException}.
-     * 
-     * @param exception The target value {@link Exception} generated by the exception element.
-     * @param context The context this exception occurred in.
-     */
-    protected RecoverableExceptionElementException(final Exception exception, final ElementParser<?>.ParsingContextImpl context) {
-      super(exception, context);
-      return;
+  private static final long decodeBinaryContent(final ElementParser<?>.ParsingContextImpl context, final BinaryEncoding encoding, final OutputStream outputStream, final XMLEventReader reader, final AutoCloseable closer) throws ParsingException {
+    try (OutputStream out = new BufferedOutputStream(outputStream, 8192)) {
+      final BinaryDecoder decoder = new BinaryDecoder(encoding, out);
+      XMLEvent event = nextEvent(reader, closer);
+      while (!event.isEndElement()) {
+        if (event.isCharacters()) {
+          decoder.decode(event.asCharacters().getData());
+        } else {
+          ignoreEvent(context, event, reader, closer);
+        }
+        event = nextEvent(reader, closer);
+      }
+      return decoder.finish();
+    } catch (java.io.IOException | IllegalArgumentException e) {
+      throw new ElementValueException(e, context);
     }
+  }
 
-  } // RecoverableExceptionElementException
-
-  /**
-   * This exception is thrown to abort
-   * {@linkplain XMLStreamParser.ContentParser#parse(XMLStreamParser.ElementParser.ParsingContextImpl, XMLEvent, XMLEventReader, AutoCloseable, ContainerElementParser)
-   * parsing} and return the current {@linkplain #getParsingContextImpl() parsing context} when the specified
-   * {@link ContainerElementParser} is encountered, indicating the parser has reached the position in the content where
-   * it should begin to iterate over {@linkplain XMLStreamParser#getTargetValueClass() target values}.
-   */
-  private static class TargetContainerElementFoundException extends ElementParsingContextException {
+  protected static class BinaryElementParser extends ElementParser<Long> {
+    protected final BinaryEncoding encoding;
+    protected final Function<ElementParsingContext,? extends OutputStream> outputFunction;
 
-    protected TargetContainerElementFoundException(final ElementParser<?>.ParsingContextImpl context) {
-      super(context);
+    public BinaryElementParser(final QName elementName, final BinaryEncoding encoding, final Function<ElementParsingContext,? extends OutputStream> outputFunction, final boolean saveTargetValue) {
+      super(Long.class, elementName, saveTargetValue);
+      this.encoding = Objects.requireNonNull(encoding, "null encoding");
+      this.outputFunction = Objects.requireNonNull(outputFunction, "null outputFunction");
       return;
     }
 
-    public ElementParser<?>.ParsingContextImpl getParsingContextImpl() {
-      return context;
+    @Override
+    protected Long parseImpl(final ParsingContextImpl context, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+      final long start = startMetrics(context);
+      final OutputStream outputStream;
+      try {
+        outputStream = Objects.requireNonNull(outputFunction.apply(context), "null outputStream");
+      } catch (ElementValueException eve) {
+        throw eve;
+      } catch (RuntimeException re) {
+        throw new ElementValueException(re, context);
+      }
+      final Long targetValue = Long.valueOf(decodeBinaryContent(context, encoding, outputStream, reader, closer));
+      reportParsed(context, start);
+      if (saveTargetValue) context.saveValue(targetValue);
+      return targetValue;
     }
 
-  } // TargetContainerElementFoundException
+  } // BinaryElementParser
 
-  protected static abstract class ContentParser<E extends XMLEvent,@NonNull T> implements Serializable {
-    protected final Class<E> eventClass;
-    protected final Class<T> targetValueClass;
+  protected static class BinaryFileElementParser extends ElementParser<Path> {
+    protected final BinaryEncoding encoding;
 
-    protected ContentParser(final Class<E> eventClass, final Class<T> targetValueClass) {
-      this.eventClass = eventClass;
-      this.targetValueClass = targetValueClass;
+    public BinaryFileElementParser(final QName elementName, final BinaryEncoding encoding, final boolean saveTargetValue) {
+      super(Path.class, elementName, saveTargetValue);
+      this.encoding = Objects.requireNonNull(encoding, "null encoding");
       return;
     }
 
-    public final Class<E> getEventClass() {
-      return eventClass;
+    @Override
+    protected Path parseImpl(final ParsingContextImpl context, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+      final long start = startMetrics(context);
+      final Path targetValue;
+      final OutputStream outputStream;
+      try {
+        targetValue = Files.createTempFile(elementName.getLocalPart(), ".bin");
+        outputStream = Files.newOutputStream(targetValue);
+      } catch (java.io.IOException ioe) {
+        throw new ElementValueException(ioe, context);
+      }
+      try {
+        decodeBinaryContent(context, encoding, outputStream, reader, closer);
+      } catch (ParsingException pe) {
+        try {
+          Files.deleteIfExists(targetValue);
+        } catch (java.io.IOException ioe) {}
+        throw pe;
+      }
+      reportParsed(context, start);
+      if (saveTargetValue) context.saveValue(targetValue);
+      return targetValue;
     }
 
-    public final Class<T> getTargetValueClass() {
-      return targetValueClass;
-    }
+  } // BinaryFileElementParser
 
-    protected boolean isParserFor(final XMLEvent event) {
-      return eventClass.isInstance(event);
+  /**
+   * <p>
+   * The base class for element definitions whose parsing code is generated at compile time (typically from a class
+   * annotated with {@link com.hubick.xml_stream_serialization.parser.xml.annotation.XMLElement XMLElement}), rather
+   * than being assembled from functions by a {@link SchemaBuilder}.
+   * </p>
+   * 
+   * <p>
+   * A generated parser {@linkplain #read(StartElement, XMLEventReader) reads} the entire content of it's element
+   * directly from the {@link XMLEventReader}, without creating a parsing context for each child, which also means that
+   * the {@linkplain ParsingLimits#getMaxChildren() children} and {@linkplain ParsingLimits#getMaxCharacters()
+   * characters} limits aren't enforced within it's content (the depth, attribute and document size limits, and
+   * {@linkplain CancellationToken cancellation}, still are). Generated definitions can be added to a schema
+   * using {@link SchemaBuilder#defineGeneratedElement(GeneratedElementParser)}.
+   * </p>
+   * 
+   * @param <T> The type of target value produced by the parser.
+   */
+  public static abstract class GeneratedElementParser<@NonNull T> extends ElementParser<T> {
+
+    protected GeneratedElementParser(final Class<T> targetValueClass, final QName elementName, final boolean saveTargetValue) {
+      super(targetValueClass, elementName, saveTargetValue);
+      return;
     }
 
     /**
-     * Process the supplied event, including reading in any and all subsequent events which constitute a part of it's
-     * content (e.g. all child nodes for a given element, up to and including it's end element), but <em>not</em>
-     * consuming any subsequent events for nodes which are peers of the supplied event.
+     * Read the content of the element, up to and including it's end element.
      * 
-     * @param parentContext The context associated with parsing of the current document.
-     * @param event The event to be processed.
-     * @param reader The reader to read any content from.
-     * @param terminatingParser Throw a TerminatingParserException if an element using this parser is encountered.
-     * @return The value created from the supplied event and it's content.
-     * @throws ParseException If there was a problem parsing.
+     * @param startElement The element's start event, which has already been read.
+     * @param reader The reader to read the element's content from.
+     * @return The target value for the element.
+     * @throws XMLStreamException If there was a problem reading.
+     * @throws RuntimeException If there was a problem creating the target value.
      */
-    protected abstract T parse(final ElementParser<?>.@Nullable ParsingContextImpl parentContext, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException;
-
-  } // ContentParser
-
-  protected static class CharactersParser extends ContentParser<Characters,String> {
-    private final boolean includeWhiteSpace;
-    private final boolean includeCData;
-    private final boolean includeIgnorableWhiteSpace;
+    protected abstract T read(final StartElement startElement, final XMLEventReader reader) throws XMLStreamException, RuntimeException;
 
-    public CharactersParser(final boolean includeWhiteSpace, final boolean includeCData, final boolean includeIgnorableWhiteSpace) {
-      super(Characters.class, String.class);
-      this.includeWhiteSpace = includeWhiteSpace;
-      this.includeCData = includeCData;
-      this.includeIgnorableWhiteSpace = includeIgnorableWhiteSpace;
+    /**
+     * Read and discard all subsequent events for the given start element, up to and including it's end element.
+     * 
+     * @param reader The reader to read the content from.
+     * @throws XMLStreamException If there was a problem reading.
+     */
+    public static final void skip(final XMLEventReader reader) throws XMLStreamException {
+      int depth = 1;
+      while (depth > 0) {
+        final XMLEvent event = reader.nextEvent();
+        if (event.isStartElement()) {
+          depth++;
+        } else if (event.isEndElement()) {
+          depth--;
+        }
+      }
       return;
     }
 
-    @Override
-    protected final boolean isParserFor(final XMLEvent event) {
-      if (!super.isParserFor(event)) return false;
-      final Characters characters = event.asCharacters();
-      return ((includeWhiteSpace) || (!characters.isWhiteSpace())) && ((includeCData) || (!characters.isCData())) && ((includeIgnorableWhiteSpace) || (!characters.isIgnorableWhiteSpace()));
+    /**
+     * Parse an XML Schema <code>boolean</code> value.
+     * 
+     * @param value The value to parse.
+     * @return The parsed value.
+     * @throws IllegalArgumentException If the value isn't one of "<code>true</code>", "<code>false</code>",
+     * "<code>1</code>", or "<code>0</code>".
+     */
+    public static final boolean parseBoolean(final String value) throws IllegalArgumentException {
+      switch (value.trim()) {
+        case "true":
+        case "1":
+          return true;
+        case "false":
+        case "0":
+          return false;
+        default:
+          throw new IllegalArgumentException("Invalid boolean value '" + value + "'");
+      }
     }
 
     @Override
-    protected final String parse(final ElementParser<?>.@Nullable ParsingContextImpl parentContext, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
-      return event.asCharacters().getData();
-    }
-
-  } // CharactersParser
-
-  protected static class ElementParser<@NonNull T> extends ContentParser<StartElement,T> {
-    @SuppressWarnings("unchecked")
-    public static final Class<ElementParser<@NonNull ?>> WILDCARD_CLASS = (Class<ElementParser<@NonNull ?>>)(Object)ElementParser.class;
-    protected final QName elementName;
-    private final Function<ElementParsingContext,T> targetValueFunction;
-    protected final boolean saveTargetValue;
-    private final Set<? extends ElementParser<? extends Exception>> childExceptionParsers;
-    private final Set<? extends ContentParser<?,?>> childValueParsers;
-
-    public ElementParser(final Class<T> targetValueClass, final QName elementName, final Function<ElementParsingContext,T> targetValueFunction, final boolean saveTargetValue, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @Nullable Collection<? extends ContentParser<?,?>> childValueParsers) {
-      super(StartElement.class, targetValueClass);
-      this.elementName = elementName;
-      this.targetValueFunction = targetValueFunction;
-      this.saveTargetValue = saveTargetValue;
-      this.childExceptionParsers = ((childExceptionParsers != null) && (!childExceptionParsers.isEmpty())) ? Collections.unmodifiableSet(new CopyOnWriteArraySet<>(childExceptionParsers)) : Collections.emptySet();
-      final CopyOnWriteArraySet<ContentParser<?,?>> childValueParsersCopy = (childValueParsers != null) ? new CopyOnWriteArraySet<>(childValueParsers) : new CopyOnWriteArraySet<>();
-      if (recursive) childValueParsersCopy.add(this);
-      this.childValueParsers = ((childValueParsersCopy != null) && (!childValueParsersCopy.isEmpty())) ? Collections.unmodifiableSet(childValueParsersCopy) : Collections.emptySet();
-      return;
-    }
-
-    public ElementParser(final Class<T> targetValueClass, final QName elementName, final Function<ElementParsingContext,T> targetValueFunction, final boolean saveTargetValue, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @NonNull ContentParser<?,?> @Nullable... childValueParsers) {
-      this(targetValueClass, elementName, targetValueFunction, saveTargetValue, childExceptionParsers, recursive, ((childValueParsers != null) && (childValueParsers.length > 0)) ? Arrays.asList(childValueParsers) : null);
-      return;
+    protected final T parseImpl(final ParsingContextImpl context, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
+      final long start = startMetrics(context);
+      final T targetValue;
+      try {
+        targetValue = Objects.requireNonNull(read(context.getStartElement(), reader), "null targetValue");
+      } catch (XMLStreamException xmlse) {
+        close(reader, closer);
+        throw new XMLStreamParsingException(xmlse);
+      } catch (ParsingException pe) {
+        throw pe;
+      } catch (RuntimeException re) {
+        throw new ElementValueException(re, context);
+      }
+      reportParsed(context, start);
+      if (saveTargetValue) context.saveValue(targetValue);
+      return targetValue;
     }
 
-    public ElementParser(final Class<T> targetValueClass, final QName elementName, final Function<ElementParsingContext,T> targetValueFunction, final boolean saveTargetValue) {
-      this(targetValueClass, elementName, targetValueFunction, saveTargetValue, null, false, (@Nullable Collection<? extends ContentParser<?,?>>)null);
-      return;
-    }
+  } // GeneratedElementParser
 
-    public final QName getElementName() {
-      return elementName;
-    }
+  /**
+   * The target value for a {@linkplain SchemaBuilder#defineCapturedElement(String, boolean) captured} element, which
+   * retains the events for the element's entire subtree exactly as they were read, so that they can be
+   * {@linkplain #createXMLEventReader() replayed}, or {@linkplain #writeXML(XMLStreamWriter, URI) written} back out.
+   * 
+   * @see SchemaBuilder#defineCapturedElement(String, boolean)
+   */
+  public static final class CapturedElement implements XMLSerializable {
+    private final List<XMLEvent> events;
 
-    public final Set<? extends ElementParser<? extends Exception>> getChildExceptionParsers() {
-      return childExceptionParsers;
+    protected CapturedElement(final List<XMLEvent> events) {
+      this.events = Collections.unmodifiableList(events);
+      return;
     }
 
-    public final Set<? extends ContentParser<?,?>> getChildValueParsers() {
-      return childValueParsers;
+    /**
+     * Get the {@linkplain QName qualified name} of the captured element.
+     * 
+     * @return The {@linkplain QName qualified name} of the captured element.
+     */
+    public QName getElementName() {
+      return getStartElement().getName();
     }
 
-    @Override
-    protected final boolean isParserFor(final XMLEvent event) {
-      if (!super.isParserFor(event)) return false;
-      return elementName.equals(event.asStartElement().getName());
+    /**
+     * Get the {@link StartElement} for the captured element.
+     * 
+     * @return The {@link StartElement} for the captured element.
+     */
+    public StartElement getStartElement() {
+      return events.get(0).asStartElement();
     }
 
-    protected final Optional<? extends ContentParser<?,?>> findChildParserFor(final @Nullable XMLEvent event) {
-      return (event != null) ? Stream.concat(childExceptionParsers.stream(), childValueParsers.stream()).filter((parser) -> parser.isParserFor(event)).findFirst() : Optional.empty();
+    /**
+     * Get the captured events.
+     * 
+     * @return An unmodifiable {@link List} of events, from the {@linkplain #getStartElement() start element}, up to and
+     * including it's end element.
+     */
+    public List<XMLEvent> getEvents() {
+      return events;
     }
 
-    protected T parseImpl(final ParsingContextImpl context, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
-      context.parseChildren(reader, closer, targetContainerElementParser);
-      final T targetValue;
-      try {
-        targetValue = targetValueFunction.apply(context);
-      } catch (ElementValueException eve) {
-        throw eve;
-      } catch (RuntimeException re) {
-        throw new ElementValueException(re, context);
-      }
-      if (saveTargetValue) context.saveValue(targetValue);
-      return targetValue;
+    /**
+     * Create an {@link XMLEventReader} which will replay the {@linkplain #getEvents() captured events}.
+     * 
+     * @return A new {@link XMLEventReader}.
+     */
+    public XMLEventReader createXMLEventReader() {
+      return new BufferedEventReader(events);
     }
 
     @Override
-    protected final T parse(final ElementParser<?>.@Nullable ParsingContextImpl parentContext, final XMLEvent event, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
-      return parseImpl((parentContext != null) ? new ParsingContextImpl(parentContext, Objects.requireNonNull(eventClass.cast(event))) : new ParsingContextImpl(Objects.requireNonNull(eventClass.cast(event))), reader, closer, targetContainerElementParser);
+    public void writeXML(final XMLStreamWriter streamWriter, final @Nullable URI parentNamespace) throws XMLStreamException {
+      for (XMLEvent event : events) {
+        writeEvent(event, streamWriter);
+      }
+      return;
     }
 
     @Override
     public String toString() {
-      return '<' + elementName.toString() + '>';
+      return '<' + getElementName().toString() + '>';
     }
 
-    private static final Stream<Map.Entry<ElementParser<?>,List<Object>>> getElementParserEntries(final Stream<? extends Map.Entry<? extends ContentParser<?,?>,List<Object>>> values) {
-      return values
-          .filter((entry) -> ElementParser.class.isInstance(entry.getKey())).<Map.Entry<ElementParser<?>,List<Object>>> map((entry) -> new AbstractMap.SimpleImmutableEntry<>(Objects.requireNonNull(ElementParser.class.cast(entry.getKey())), entry.getValue()));
+  } // CapturedElement
+
+  /**
+   * <p>
+   * A {@link Set} of element definitions, indexed by {@linkplain ElementParser#getElementName() element name}, which
+   * can be {@linkplain #fork(boolean) forked} cheaply.
+   * </p>
+   * 
+   * <p>
+   * Forking shares the index structure between both sets, and whichever is modified first afterwards will copy the
+   * top level of the index (the per-name lists are never modified in place, and so remain shared). Iteration works in
+   * the same way, over a snapshot which is never copied unless the set is modified during iteration.
+   * </p>
+   */
+  protected static final class ElementParserIndex extends AbstractSet<ElementParser<?>> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final boolean unmodifiable;
+    private Map<QName,List<ElementParser<?>>> index;
+    private int size;
+    private boolean shared;
+
+    private ElementParserIndex(final Map<QName,List<ElementParser<?>>> index, final int size, final boolean unmodifiable) {
+      this.index = index;
+      this.size = size;
+      this.shared = true;
+      this.unmodifiable = unmodifiable;
+      return;
     }
 
-    private static final <@NonNull ET> Stream<ET> getElementValues(final Stream<? extends Map.Entry<? extends ContentParser<?,?>,List<Object>>> values, final @Nullable QName elementName, final Class<ET> targetValueClass) {
-      return getElementParserEntries(values)
-          .filter((entry) -> (elementName == null) || elementName.equals(entry.getKey().getElementName()))
-          .filter((entry) -> targetValueClass.isAssignableFrom(entry.getKey().getTargetValueClass()))
-          .map(Map.Entry::getValue)
-          .flatMap(List::stream)
-          .map((value) -> Objects.requireNonNull(targetValueClass.cast(value)));
+    public ElementParserIndex(final @Nullable Collection<? extends ElementParser<?>> elementParsers, final boolean unmodifiable) {
+      index = new LinkedHashMap<>();
+      size = 0;
+      shared = false;
+      if (elementParsers != null) elementParsers.forEach(this::addImpl);
+      this.unmodifiable = unmodifiable;
+      return;
     }
 
-    public final class ParsingContextImpl implements ElementParsingContext {
-      private final Map<ElementParser<?>,List<Object>> savedValues; // This is a reference to a singleton Map of saved values, shared by the entire context tree.
-      private final Map<ContentParser<?,?>,List<Object>> childValues = new ConcurrentHashMap<>();
-      private final ElementParser<?>.@Nullable ParsingContextImpl parentContext;
-      private final StartElement startElement;
+    /**
+     * Create a copy of this set, sharing the current index structure.
+     * 
+     * @param unmodifiable Should the copy be unmodifiable?
+     * @return The new {@link ElementParserIndex}.
+     */
+    public synchronized ElementParserIndex fork(final boolean unmodifiable) {
+      shared = true;
+      return new ElementParserIndex(index, size, unmodifiable);
+    }
 
-      public ParsingContextImpl(final StartElement startElement) {
-        savedValues = new ConcurrentHashMap<>();
-        parentContext = null;
-        this.startElement = startElement;
-        return;
+    private boolean addImpl(final ElementParser<?> elementParser) {
+      final QName elementName = elementParser.getElementName();
+      final List<ElementParser<?>> existing = index.getOrDefault(elementName, Collections.emptyList());
+      if (existing.contains(elementParser)) return false;
+      if (unmodifiable) throw new UnsupportedOperationException();
+      if (shared) {
+        index = new LinkedHashMap<>(index);
+        shared = false;
       }
+      final List<ElementParser<?>> parsers = new ArrayList<>(existing.size() + 1);
+      parsers.addAll(existing);
+      parsers.add(elementParser);
+      index.put(elementName, Collections.unmodifiableList(parsers));
+      size++;
+      return true;
+    }
 
-      public ParsingContextImpl(final ElementParser<?>.ParsingContextImpl parentContext, final StartElement startElement) {
-        savedValues = parentContext.savedValues;
-        this.parentContext = parentContext;
-        this.startElement = startElement;
-        return;
-      }
+    @Override
+    public synchronized boolean add(final ElementParser<?> elementParser) throws UnsupportedOperationException {
+      return addImpl(Objects.requireNonNull(elementParser, "null elementParser"));
+    }
 
-      public ElementParser<T> getParser() {
-        return ElementParser.this;
-      }
+    @Override
+    public synchronized boolean contains(final @Nullable Object object) {
+      return (object instanceof ElementParser) && (index.getOrDefault(((ElementParser<?>)object).getElementName(), Collections.emptyList()).contains(object));
+    }
 
-      @Override
-      public Class<T> getTargetValueClass() {
-        return targetValueClass;
-      }
+    @Override
+    public synchronized int size() {
+      return size;
+    }
 
-      @Override
-      public final QName getElementName() {
-        return elementName;
-      }
+    @Override
+    public synchronized Iterator<ElementParser<?>> iterator() {
+      shared = true;
+      return index.values().stream().<ElementParser<?>> flatMap(List::stream).iterator();
+    }
 
-      @Override
-      public StartElement getStartElement() {
-        return startElement;
-      }
+    /**
+     * Get all the element definitions for the given name.
+     * 
+     * @param elementName The name of the element.
+     * @return An unmodifiable {@link List} of the element definitions.
+     */
+    public synchronized List<ElementParser<?>> get(final QName elementName) {
+      return index.getOrDefault(elementName, Collections.emptyList());
+    }
 
-      private int getElementDepth() {
-        final ElementParser<?>.@Nullable ParsingContextImpl pc = parentContext;
-        if (pc == null) return 0;
-        return pc.getElementDepth() + 1;
+    /**
+     * Get the single element definition for the given name, of the given parser type, producing the given type of target
+     * value.
+     * 
+     * @param <PT> The type of parser.
+     * @param forElementTargetValueClass The {@link Class} the definition's target value must be assignable to, or
+     * <code>null</code> for any.
+     * @param ofParserType The type of parser required.
+     * @param forElementName The name of the element.
+     * @return The matching element definition.
+     * @throws NoSuchElementException If there isn't exactly one matching element definition.
+     */
+    public <@NonNull PT extends ElementParser<?>> PT get(final @Nullable Class<?> forElementTargetValueClass, final Class<? extends PT> ofParserType, final QName forElementName) throws NoSuchElementException {
+      @Nullable PT found = null;
+      for (ElementParser<?> parser : get(forElementName)) {
+        if ((!ofParserType.isInstance(parser)) || ((forElementTargetValueClass != null) && (!forElementTargetValueClass.isAssignableFrom(parser.getTargetValueClass())))) continue;
+        if (found != null) throw new NoSuchElementException("Multiple '" + forElementName.getLocalPart() + "' elements found" + ((forElementTargetValueClass != null) ? " with '" + forElementTargetValueClass + "' target value class" : ""));
+        found = ofParserType.cast(parser);
       }
+      if (found == null) throw new NoSuchElementException("No '" + forElementName.getLocalPart() + "' element found" + ((forElementTargetValueClass != null) ? " with '" + forElementTargetValueClass + "' target value class" : ""));
+      return found;
+    }
 
-      private Deque<StartElement> getElementContextImpl(Deque<StartElement> elementStack) {
-        if (parentContext != null) parentContext.getElementContextImpl(elementStack);
-        elementStack.push(startElement);
-        return elementStack;
-      }
+    private synchronized void writeObject(final ObjectOutputStream out) throws java.io.IOException {
+      out.defaultWriteObject();
+      return;
+    }
 
-      @Override
-      public Deque<StartElement> getElementContext() {
-        return getElementContextImpl(new ArrayDeque<>(getElementDepth() + 1));
-      }
+  } // ElementParserIndex
 
-      protected void parseChildren(final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
-        XMLEvent event = nextEvent(reader, closer);
-        while (!event.isEndElement()) {
-          final Optional<? extends ContentParser<?,?>> childParser = findChildParserFor(event);
-          if (childParser.isPresent()) {
-            final Object childValue = childParser.get().parse(this, Objects.requireNonNull(childParser.get().eventClass.cast(event)), reader, closer, targetContainerElementParser);
-            if (childExceptionParsers.contains(childParser.get())) {
-              @SuppressWarnings("unchecked")
-              final ElementParser<? extends Exception> exceptionParser = (ElementParser<? extends Exception>)childParser.get();
-              throw new ExceptionElementException(Objects.requireNonNull(exceptionParser.getTargetValueClass().cast(childValue)), this);
-            }
-            final List<Object> existingValues = childValues.get(childParser.get());
-            if (existingValues != null) {
-              existingValues.add(childValue);
-            } else {
-              childValues.put(childParser.get(), new CopyOnWriteArrayList<>(Collections.singleton(childValue)));
-            }
-          } else { // Ignore any content the user didn't specify a parser for...
-            ignoreEvent(event, reader, closer);
-          }
-          event = nextEvent(reader, closer);
-        }
-        return;
-      }
+  /**
+   * <p>
+   * A registry of named functions (or any other objects) referenced by a schema, which allows that schema to be
+   * {@linkplain CompiledSchema#writeSnapshot(OutputStream, SnapshotRegistry) snapshotted}, even though the functions
+   * themselves aren't {@link Serializable}.
+   * </p>
+   * 
+   * <p>
+   * When a snapshot is written, every registered object is replaced with a reference to it's name, and when the
+   * snapshot is {@linkplain CompiledSchema#readSnapshot(InputStream, SnapshotRegistry) read} back, each reference is
+   * resolved to the object registered under the same name within the registry supplied at that time. Note that objects
+   * are matched by <em>identity</em>, so you need to register the very same instance you supplied when defining the
+   * schema (a lambda or method reference evaluated twice may produce two different instances), which
+   * {@link #register(String, Object)} makes convenient by returning it's argument.
+   * </p>
+   */
+  public static final class SnapshotRegistry {
+    private final Map<String,Object> objects = new ConcurrentHashMap<>();
+    private final Map<Object,String> names = Collections.synchronizedMap(new IdentityHashMap<>());
 
-      public void saveValue(final T value) {
-        final List<Object> existingValues = savedValues.get(ElementParser.this);
-        if (existingValues != null) {
-          existingValues.add(value);
-        } else {
-          savedValues.put(ElementParser.this, new CopyOnWriteArrayList<>(Collections.singleton(value)));
-        }
-        return;
-      }
+    /**
+     * Register an object.
+     * 
+     * @param <O> The type of object being registered.
+     * @param name The name to register the object under, which must be the same when writing and reading a snapshot.
+     * @param object The object to register.
+     * @return The supplied <code>object</code>.
+     * @throws IllegalArgumentException If a different object has already been registered under the same
+     * <code>name</code>.
+     */
+    public synchronized <@NonNull O> O register(final String name, final O object) throws IllegalArgumentException {
+      final @Nullable Object existing = objects.putIfAbsent(Objects.requireNonNull(name, "null name"), Objects.requireNonNull(object, "null object"));
+      if ((existing != null) && (existing != object)) throw new IllegalArgumentException("Another object is already registered as '" + name + "'");
+      names.put(object, name);
+      return object;
+    }
 
-      public <@NonNull S> Stream<S> getSavedValues(final ElementParser<S> savedElementParser) {
-        final List<Object> values = savedValues.get(ElementParser.this);
-        return (values != null) ? values.stream().map((value) -> Objects.requireNonNull(savedElementParser.getTargetValueClass().cast(value))) : Stream.empty();
-      }
+    /**
+     * Get the name an object was registered under.
+     * 
+     * @param object The object to look up.
+     * @return The name the object was registered under, if it has been.
+     */
+    public Optional<String> getName(final Object object) {
+      return Optional.ofNullable(names.get(object));
+    }
 
-      public <@NonNull S> S getRequiredSavedValue(final ElementParser<S> savedElementParser) throws NoSuchElementException {
-        return getSavedValues(savedElementParser).findFirst().orElseThrow(() -> new NoSuchElementException(ElementParser.this.toString()));
-      }
+    /**
+     * Get the object registered under a name.
+     * 
+     * @param name The name to look up.
+     * @return The object registered under the name, if there is one.
+     */
+    public Optional<Object> getObject(final String name) {
+      return Optional.ofNullable(objects.get(name));
+    }
 
-      @Override
-      public <@NonNull S> Stream<S> getSavedValues(final @Nullable QName savedElementName, final Class<S> targetValueClass) {
-        return getElementValues(savedValues.entrySet().stream(), savedElementName, targetValueClass);
-      }
+  } // SnapshotRegistry
 
-      public <@NonNull ET> Stream<ET> getChildValues(final ContentParser<?,ET> childParser) {
-        return Optional.ofNullable(childValues.get(childParser)).map(List::stream).orElse(Stream.empty()).map((v) -> Objects.requireNonNull(childParser.getTargetValueClass().cast(v)));
-      }
+  /**
+   * The placeholder written to a snapshot in place of an object found in the {@link SnapshotRegistry}.
+   */
+  private static final class RegisteredReference implements Serializable {
+    private static final long serialVersionUID = 1L;
+    protected final String name;
 
-      public <@NonNull ET> Optional<ET> getOptionalChildValue(final ContentParser<?,ET> childParser) {
-        return getChildValues(childParser).findFirst();
-      }
+    public RegisteredReference(final String name) {
+      this.name = name;
+      return;
+    }
 
-      public <@NonNull ET> ET getRequiredChildValue(final ContentParser<?,ET> childParser) throws NoSuchElementException {
-        return getOptionalChildValue(childParser).orElseThrow(() -> new NoSuchElementException(childParser.toString()));
-      }
+  } // RegisteredReference
 
-      @Override
-      public Stream<Map.Entry<Map.Entry<QName,Class<?>>,List<?>>> getChildValues() {
-        return getElementParserEntries(childValues.entrySet().stream())
-            .map((entry) -> new AbstractMap.SimpleImmutableEntry<>(new AbstractMap.SimpleImmutableEntry<>(entry.getKey().getElementName(), entry.getKey().getTargetValueClass()), entry.getValue()));
-      }
+  /**
+   * <p>
+   * An immutable, {@linkplain SchemaBuilder#compile() compiled} form of a schema, with it's element definitions
+   * indexed by name, ready for {@linkplain #createXMLParser(Class, Set, QName, QName[]) creating parsers}.
+   * </p>
+   * 
+   * <p>
+   * A compiled schema can be {@linkplain #writeSnapshot(Path, SnapshotRegistry) written} to a snapshot and
+   * {@linkplain #readSnapshot(Path, SnapshotRegistry) reloaded} later, by a different process, without needing to
+   * build the schema again. All the functions referenced by the schema must either be {@link Serializable} (see
+   * {@link SerializableFunction} and {@link SerializableBiFunction}), or {@linkplain SnapshotRegistry registered} when
+   * writing and reading the snapshot. Snapshots use Java serialization, and should therefore only be read from trusted
+   * locations, and only by the same version of your code which wrote them.
+   * </p>
+   */
+  public static final class CompiledSchema implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final String SNAPSHOT_HEADER = CompiledSchema.class.getName();
+    private static final int SNAPSHOT_VERSION = 1;
+    private final @Nullable URI namespace;
+    private final ParsingLimits parsingLimits;
+    private final ChildValueSpill childValueSpill;
+    private final transient @Nullable ParsingMetrics metrics; // Metrics belong to the running process, and so aren't written to a snapshot.
+    private final ElementParserIndex elementParsers;
+
+    protected CompiledSchema(final @Nullable URI namespace, final ParsingLimits parsingLimits, final ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics, final Collection<? extends ElementParser<?>> elementParsers) {
+      this.namespace = namespace;
+      this.parsingLimits = Objects.requireNonNull(parsingLimits, "null parsingLimits");
+      this.childValueSpill = Objects.requireNonNull(childValueSpill, "null childValueSpill");
+      this.metrics = metrics;
+      this.elementParsers = (elementParsers instanceof ElementParserIndex) ? ((ElementParserIndex)elementParsers).fork(true) : new ElementParserIndex(elementParsers, true);
+      return;
+    }
 
-      @Override
-      public ElementValueException createElementValueException(final Exception cause) {
-        return new ElementValueException(cause, this);
-      }
+    /**
+     * Get the {@linkplain QName#getNamespaceURI() namespace} the schema builder was using when this schema was
+     * compiled, which will be used to resolve local names.
+     * 
+     * @return The namespace of this schema.
+     */
+    public Optional<URI> getNamespace() {
+      return Optional.ofNullable(namespace);
+    }
 
-    } // ElementParser.ParsingContextImpl
+    /**
+     * Get the {@link ParsingLimits} which will be enforced by parsers created from this schema.
+     * 
+     * @return The {@link ParsingLimits} for this schema.
+     */
+    public ParsingLimits getParsingLimits() {
+      return parsingLimits;
+    }
 
-  } // ElementParser
+    /**
+     * Get the {@link ChildValueSpill} policy which will be used by parsers created from this schema.
+     * 
+     * @return The {@link ChildValueSpill} for this schema.
+     */
+    public ChildValueSpill getChildValueSpill() {
+      return childValueSpill;
+    }
 
-  protected static class ContainerElementParser extends ElementParser<StartElement> {
+    /**
+     * Get the {@link ParsingMetrics} which parsers created from this schema will report to. Metrics aren't included in
+     * a {@linkplain #writeSnapshot(OutputStream, SnapshotRegistry) snapshot}, so a schema which has been
+     * {@linkplain #readSnapshot(InputStream, SnapshotRegistry) read} back never has any.
+     * 
+     * @return The {@link ParsingMetrics} for this schema, or {@linkplain Optional#empty() empty} if parsing won't be
+     * measured.
+     */
+    public Optional<ParsingMetrics> getParsingMetrics() {
+      return Optional.ofNullable(metrics);
+    }
 
-    public ContainerElementParser(final QName elementName, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @NonNull ElementParser<?> @Nullable... childValueParsers) {
-      super(StartElement.class, elementName, (context) -> context.getStartElement(), false, childExceptionParsers, recursive, childValueParsers);
-      return;
+    /**
+     * Get the names of all the elements defined in this schema.
+     * 
+     * @return An unmodifiable {@link Set} of element names.
+     */
+    public Set<QName> getElementNames() {
+      return Collections.unmodifiableSet(elementParsers.stream().map(ElementParser::getElementName).collect(Collectors.toSet()));
     }
 
-    @Override
-    protected StartElement parseImpl(final ParsingContextImpl context, final XMLEventReader reader, final AutoCloseable closer, final @Nullable ContainerElementParser targetContainerElementParser) throws ParsingException {
-      if (this == targetContainerElementParser) throw new TargetContainerElementFoundException(context);
-      return super.parseImpl(context, reader, closer, targetContainerElementParser);
+    protected final QName qn(final String localName) {
+      return new QName(Optional.ofNullable(namespace).map(URI::toString).orElse(XMLConstants.NULL_NS_URI), localName);
+    }
+
+    /**
+     * Create an {@link XMLStreamParser} using element definitions from this schema.
+     * 
+     * @param <T> The type of target values to be streamed by the created parser.
+     * @param targetValueClass The {@link Class} object for the type of
+     * {@linkplain XMLStreamParser#getTargetValueClass() target value} which will be streamed by the created parser.
+     * @param documentElementNames The names of the root document elements which will be consumed by the created parser.
+     * @param targetContainerElementName The name of the element which contains the specified target elements.
+     * @param targetValueElementNames The name of the primary content elements whose target values will be streamed by
+     * the created parser.
+     * @return The newly created {@link XMLStreamParser} instance.
+     * @throws NoSuchElementException If the referenced element hasn't been defined in this schema.
+     * @see SchemaBuilder#createXMLParser(Class, Set, QName, QName[])
+     */
+    @SuppressWarnings("unchecked")
+    public <@NonNull T> XMLStreamParser<T> createXMLParser(final Class<T> targetValueClass, final Set<QName> documentElementNames, final QName targetContainerElementName, final @NonNull QName... targetValueElementNames) throws NoSuchElementException {
+      final Set<ElementParser<?>> documentParsers = documentElementNames.stream().map((documentElementName) -> elementParsers.get(null, ElementParser.WILDCARD_CLASS, documentElementName)).collect(Collectors.toSet());
+      final @NonNull ElementParser<T>[] targetValueParsers = Arrays.stream(targetValueElementNames).map((targetValueElementName) -> elementParsers.get(targetValueClass, ElementParser.WILDCARD_CLASS, targetValueElementName)).toArray((n) -> (ElementParser<T>[])java.lang.reflect.Array.newInstance(ElementParser.class, n));
+      return new XMLStreamParser<T>(targetValueClass, documentParsers, elementParsers.get(null, ContainerElementParser.class, targetContainerElementName), parsingLimits, childValueSpill, metrics, targetValueParsers);
     }
 
-  } // ContainerElementParser
-
-  protected static class WrapperElementParser<@NonNull T> extends ElementParser<T> {
-
-    @SafeVarargs
-    public WrapperElementParser(final Class<T> targetValueClass, final QName elementName, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @NonNull ElementParser<? extends T> @Nullable... wrappedElementParsers) {
-      super(targetValueClass, elementName, (ctx) -> ctx.getRequiredChildValue((QName)null, targetValueClass), false, childExceptionParsers, recursive, wrappedElementParsers);
-      return;
+    /**
+     * Create an {@link XMLStreamParser} using element definitions from this schema.
+     * 
+     * @param <T> The type of target values to be streamed by the created parser.
+     * @param targetValueClass The {@link Class} object for the type of
+     * {@linkplain XMLStreamParser#getTargetValueClass() target value} which will be streamed by the created parser.
+     * @param documentElementLocalName The {@linkplain QName#getLocalPart() local name} of the root document element
+     * which will be consumed by the created parser (the {@linkplain #getNamespace() schema namespace} will be used).
+     * @param targetContainerElementLocalName The {@linkplain QName#getLocalPart() local name} of the element which
+     * contains the specified target elements (the {@linkplain #getNamespace() schema namespace} will be used).
+     * @param targetValueElementLocalNames The {@linkplain QName#getLocalPart() local name} of the primary content
+     * elements whose target values will be streamed by the created parser (the {@linkplain #getNamespace() schema
+     * namespace} will be used).
+     * @return The newly created {@link XMLStreamParser} instance.
+     * @throws NoSuchElementException If the referenced element hasn't been defined in this schema.
+     * @see #createXMLParser(Class, Set, QName, QName[])
+     */
+    public <@NonNull T> XMLStreamParser<T> createXMLParser(final Class<T> targetValueClass, final String documentElementLocalName, final String targetContainerElementLocalName, final @NonNull String... targetValueElementLocalNames) throws NoSuchElementException {
+      return createXMLParser(targetValueClass, Collections.singleton(qn(documentElementLocalName)), qn(targetContainerElementLocalName), Arrays.stream(targetValueElementLocalNames).map(this::qn).toArray((n) -> new @NonNull QName[n]));
     }
 
-    public WrapperElementParser(final QName elementName, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final ElementParser<T> wrappedElementParser) {
-      this(wrappedElementParser.getTargetValueClass(), elementName, childExceptionParsers, recursive, wrappedElementParser);
-      return;
+    /**
+     * Create a new {@link SchemaBuilder} populated with all the element definitions from this schema, which you can
+     * then continue to build upon.
+     * 
+     * @return A new, modifiable, {@link SchemaBuilder}.
+     */
+    @SuppressWarnings("unchecked")
+    public SchemaBuilder<@NonNull ? extends SchemaBuilder<@NonNull ?>> buildSchema() {
+      return new SchemaBuilder<>((Class<SchemaBuilder<?>>)(Object)SchemaBuilder.class, namespace, elementParsers, null, parsingLimits, childValueSpill, metrics, false);
     }
 
-  } // WrapperElementParser
+    /**
+     * Write a snapshot of this schema, which can later be {@linkplain #readSnapshot(InputStream, SnapshotRegistry)
+     * read} back.
+     * 
+     * @param outputStream The stream to write the snapshot to, which will <em>not</em> be closed.
+     * @param registry The {@link SnapshotRegistry} containing any non-{@link Serializable} functions referenced by
+     * this schema.
+     * @throws java.io.IOException If there was a problem writing the snapshot.
+     * @throws NotSerializableException If this schema references a function which is neither {@link Serializable}, nor
+     * {@linkplain SnapshotRegistry registered}.
+     * @see #writeSnapshot(Path, SnapshotRegistry)
+     */
+    public void writeSnapshot(final OutputStream outputStream, final @Nullable SnapshotRegistry registry) throws java.io.IOException, NotSerializableException {
+      final ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream) {
+        {
+          enableReplaceObject(true);
+        }
 
-  protected static class SimpleElementParser<@NonNull T> extends ElementParser<T> {
-    private static final CharactersParser CHARACTERS_PARSER = new CharactersParser(true, true, false);
+        @Override
+        protected Object replaceObject(final Object object) throws java.io.IOException {
+          final @Nullable String name = (registry != null) ? registry.getName(object).orElse(null) : null;
+          if (name != null) return new RegisteredReference(name);
+          if ((!(object instanceof Serializable)) && (object.getClass().isSynthetic())) throw new NotSerializableException("Unregistered function " + object.getClass().getName() + " (either make it Serializable, or register it with a SnapshotRegistry)");
+          return object;
+        }
 
-    public SimpleElementParser(final Class<T> targetValueClass, final QName elementName, final BiFunction<ElementParsingContext,? super String,? extends T> targetValueFunction, final boolean saveTargetValue) {
-      super(targetValueClass, elementName, (ctx) -> targetValueFunction.apply(ctx, cast(ctx).getChildValues(CHARACTERS_PARSER).collect(Collectors.joining())), saveTargetValue, null, false, CHARACTERS_PARSER);
+      };
+      objectOutputStream.writeUTF(SNAPSHOT_HEADER);
+      objectOutputStream.writeInt(SNAPSHOT_VERSION);
+      objectOutputStream.writeObject(this);
+      objectOutputStream.flush();
       return;
     }
 
-    public SimpleElementParser(final Class<T> targetValueClass, final QName elementName, final Function<? super String,? extends T> targetValueFunction, final boolean saveTargetValue) {
-      this(targetValueClass, elementName, (ctx, value) -> targetValueFunction.apply(value), saveTargetValue);
+    /**
+     * Write a snapshot of this schema to a file, which can later be {@linkplain #readSnapshot(Path, SnapshotRegistry)
+     * read} back.
+     * 
+     * @param file The file to write the snapshot to, which will be replaced if it already exists.
+     * @param registry The {@link SnapshotRegistry} containing any non-{@link Serializable} functions referenced by
+     * this schema.
+     * @throws java.io.IOException If there was a problem writing the snapshot.
+     * @throws NotSerializableException If this schema references a function which is neither {@link Serializable}, nor
+     * {@linkplain SnapshotRegistry registered}.
+     * @see #writeSnapshot(OutputStream, SnapshotRegistry)
+     */
+    public void writeSnapshot(final Path file, final @Nullable SnapshotRegistry registry) throws java.io.IOException, NotSerializableException {
+      try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+        writeSnapshot(outputStream, registry);
+      }
       return;
     }
 
-  } // SimpleElementParser
+    /**
+     * Read a snapshot {@linkplain #writeSnapshot(OutputStream, SnapshotRegistry) written} from a compiled schema.
+     * 
+     * @param inputStream The stream to read the snapshot from, which will <em>not</em> be closed.
+     * @param registry The {@link SnapshotRegistry} containing any non-{@link Serializable} functions referenced by the
+     * schema, registered under the same names as when the snapshot was written.
+     * @return The {@link CompiledSchema} read from the snapshot.
+     * @throws java.io.IOException If there was a problem reading the snapshot.
+     * @throws InvalidObjectException If the snapshot wasn't written by this class, or references a function which hasn't
+     * been {@linkplain SnapshotRegistry registered}.
+     * @see #readSnapshot(Path, SnapshotRegistry)
+     */
+    public static CompiledSchema readSnapshot(final InputStream inputStream, final @Nullable SnapshotRegistry registry) throws java.io.IOException, InvalidObjectException {
+      final ObjectInputStream objectInputStream = new ObjectInputStream(inputStream) {
+        {
+          enableResolveObject(true);
+        }
 
-  protected static class StringElementParser extends SimpleElementParser<String> {
+        @Override
+        protected Object resolveObject(final Object object) throws java.io.IOException {
+          if (!(object instanceof RegisteredReference)) return object;
+          final String name = ((RegisteredReference)object).name;
+          return Optional.ofNullable(registry).flatMap((r) -> r.getObject(name)).orElseThrow(() -> new InvalidObjectException("No object registered as '" + name + "'"));
+        }
 
-    public StringElementParser(final QName elementName, final boolean saveTargetValue) {
-      super(String.class, elementName, Function.identity(), saveTargetValue);
-      return;
+      };
+      if ((!SNAPSHOT_HEADER.equals(objectInputStream.readUTF())) || (objectInputStream.readInt() != SNAPSHOT_VERSION)) throw new InvalidObjectException("Unsupported snapshot");
+      try {
+        return (CompiledSchema)objectInputStream.readObject();
+      } catch (ClassNotFoundException | ClassCastException e) {
+        throw (InvalidObjectException)new InvalidObjectException("Invalid snapshot").initCause(e);
+      }
     }
 
-  } // StringElementParser
-
-  protected static class InjectedTargetElementParser<@NonNull T> extends ElementParser<T> {
-
-    public InjectedTargetElementParser(final Class<T> targetValueClass, final Class<? extends T> targetImplClass, final QName elementName, final boolean saveTargetValue, final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final boolean recursive, final @Nullable Collection<? extends ElementParser<?>> childValueParsers, final @Nullable Map<String,Function<ElementParsingContext,@Nullable Object>> injectionSpecs) throws IllegalArgumentException {
-      super(targetValueClass, elementName, (ctx) -> ctx.getInjectedValue(targetImplClass, injectionSpecs), saveTargetValue, childExceptionParsers, recursive, childValueParsers);
-      return;
+    /**
+     * Read a snapshot {@linkplain #writeSnapshot(Path, SnapshotRegistry) written} from a compiled schema.
+     * 
+     * @param file The file to read the snapshot from.
+     * @param registry The {@link SnapshotRegistry} containing any non-{@link Serializable} functions referenced by the
+     * schema, registered under the same names as when the snapshot was written.
+     * @return The {@link CompiledSchema} read from the snapshot.
+     * @throws java.io.IOException If there was a problem reading the snapshot.
+     * @throws InvalidObjectException If the snapshot wasn't written by this class, or references a function which hasn't
+     * been {@linkplain SnapshotRegistry registered}.
+     * @see #readSnapshot(InputStream, SnapshotRegistry)
+     */
+    public static CompiledSchema readSnapshot(final Path file, final @Nullable SnapshotRegistry registry) throws java.io.IOException, InvalidObjectException {
+      try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file))) {
+        return readSnapshot(inputStream, registry);
+      }
     }
 
-  } // InjectedTargetElementParser
+  } // CompiledSchema
 
   /**
    * <p>
@@ -1400,21 +4850,35 @@ public class XMLStreamParser<@NonNull T> {
   public static class SchemaBuilder<@NonNull SB extends SchemaBuilder<@NonNull ?>> {
     protected final Class<? extends SB> schemaBuilderType;
     protected final @Nullable URI namespace;
-    protected final Set<ElementParser<?>> elementParsers;
+    protected final ElementParserIndex elementParsers;
     protected final Map<String,Function<ElementParsingContext,@Nullable Object>> globalInjectionSpecs;
+    protected final ParsingLimits parsingLimits;
+    protected final ChildValueSpill childValueSpill;
+    protected final @Nullable ParsingMetrics metrics;
 
     protected SchemaBuilder(final Class<? extends SB> schemaBuilderType, final @Nullable URI namespace, final @Nullable Set<ElementParser<?>> elementParsers, final @Nullable Map<String,Function<ElementParsingContext,@Nullable Object>> globalInjectionSpecs, final boolean unmodifiable) {
+      this(schemaBuilderType, namespace, elementParsers, globalInjectionSpecs, null, null, null, unmodifiable);
+      return;
+    }
+
+    protected SchemaBuilder(final Class<? extends SB> schemaBuilderType, final @Nullable URI namespace, final @Nullable Set<ElementParser<?>> elementParsers, final @Nullable Map<String,Function<ElementParsingContext,@Nullable Object>> globalInjectionSpecs, final @Nullable ParsingLimits parsingLimits, final @Nullable ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics, final boolean unmodifiable) {
       this.schemaBuilderType = Objects.requireNonNull(schemaBuilderType);
       this.namespace = namespace;
-      final Set<ElementParser<?>> elementParsersCopy = (elementParsers != null) ? new CopyOnWriteArraySet<>(elementParsers) : new CopyOnWriteArraySet<>();
-      this.elementParsers = (unmodifiable) ? Collections.unmodifiableSet(elementParsersCopy) : elementParsersCopy;
+      this.parsingLimits = (parsingLimits != null) ? parsingLimits : ParsingLimits.NONE;
+      this.childValueSpill = (childValueSpill != null) ? childValueSpill : ChildValueSpill.NONE;
+      this.metrics = metrics;
+      this.elementParsers = (elementParsers instanceof ElementParserIndex) ? ((ElementParserIndex)elementParsers).fork(unmodifiable) : new ElementParserIndex(elementParsers, unmodifiable);
       final Map<String,Function<ElementParsingContext,@Nullable Object>> globalInjectionSpecsCopy = (globalInjectionSpecs != null) ? new ConcurrentHashMap<>(globalInjectionSpecs) : new ConcurrentHashMap<>();
       this.globalInjectionSpecs = (unmodifiable) ? Collections.unmodifiableMap(globalInjectionSpecsCopy) : globalInjectionSpecsCopy;
       return;
     }
 
-    protected SB forkImpl(final @Nullable URI namespace, final boolean unmodifiable) {
-      return Objects.requireNonNull(schemaBuilderType.cast(new SchemaBuilder<SB>(schemaBuilderType, namespace, elementParsers, globalInjectionSpecs, unmodifiable)));
+    protected SB forkImpl(final @Nullable URI namespace, final ParsingLimits parsingLimits, final ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics, final boolean unmodifiable) {
+      return Objects.requireNonNull(schemaBuilderType.cast(new SchemaBuilder<SB>(schemaBuilderType, namespace, elementParsers, globalInjectionSpecs, parsingLimits, childValueSpill, metrics, unmodifiable)));
+    }
+
+    protected final SB forkImpl(final @Nullable URI namespace, final boolean unmodifiable) {
+      return forkImpl(namespace, parsingLimits, childValueSpill, metrics, unmodifiable);
     }
 
     /**
@@ -1464,6 +4928,83 @@ public class XMLStreamParser<@NonNull T> {
       return forkImpl(namespace, false);
     }
 
+    /**
+     * Get the {@link ParsingLimits} which will be enforced by parsers created from this schema. Note that this property
+     * is <em>immutable</em>.
+     * 
+     * @return The current {@link ParsingLimits}.
+     * @see #setParsingLimits(ParsingLimits)
+     */
+    public final ParsingLimits getParsingLimits() {
+      return parsingLimits;
+    }
+
+    /**
+     * Continue building on this schema, but with parsers created from it enforcing the supplied {@link ParsingLimits}.
+     * 
+     * @param parsingLimits The {@link ParsingLimits} you wish parsers created from the returned builder to enforce.
+     * @return If the supplied limits are the same as the {@linkplain #getParsingLimits() current} ones, this builder
+     * will be returned, otherwise a {@linkplain #fork() forked} copy using the supplied limits will be returned.
+     * @see #getParsingLimits()
+     */
+    public final SB setParsingLimits(final ParsingLimits parsingLimits) {
+      if (this.parsingLimits.equals(Objects.requireNonNull(parsingLimits, "null parsingLimits"))) return Objects.requireNonNull(schemaBuilderType.cast(this));
+      return forkImpl(namespace, parsingLimits, childValueSpill, metrics, false);
+    }
+
+    /**
+     * Get the {@link ChildValueSpill} policy which will be used by parsers created from this schema. Note that this
+     * property is <em>immutable</em>.
+     * 
+     * @return The current {@link ChildValueSpill}.
+     * @see #setChildValueSpill(ChildValueSpill)
+     */
+    public final ChildValueSpill getChildValueSpill() {
+      return childValueSpill;
+    }
+
+    /**
+     * Continue building on this schema, but with parsers created from it buffering child values according to the
+     * supplied {@link ChildValueSpill} policy.
+     * 
+     * @param childValueSpill The {@link ChildValueSpill} you wish parsers created from the returned builder to use.
+     * @return If the supplied policy is the same as the {@linkplain #getChildValueSpill() current} one, this builder
+     * will be returned, otherwise a {@linkplain #fork() forked} copy using the supplied policy will be returned.
+     * @see #getChildValueSpill()
+     */
+    public final SB setChildValueSpill(final ChildValueSpill childValueSpill) {
+      if (this.childValueSpill.equals(Objects.requireNonNull(childValueSpill, "null childValueSpill"))) return Objects.requireNonNull(schemaBuilderType.cast(this));
+      return forkImpl(namespace, parsingLimits, childValueSpill, metrics, false);
+    }
+
+    /**
+     * Get the {@link ParsingMetrics} which parsers created from this schema will report to. Note that this property is
+     * <em>immutable</em>.
+     * 
+     * @return The current {@link ParsingMetrics}, or {@linkplain Optional#empty() empty} if parsing won't be measured.
+     * @see #setParsingMetrics(ParsingMetrics)
+     */
+    public final Optional<ParsingMetrics> getParsingMetrics() {
+      return Optional.ofNullable(metrics);
+    }
+
+    /**
+     * Continue building on this schema, but with parsers created from it reporting on their parsing to the supplied
+     * {@link ParsingMetrics}. Measurement is disabled by default, in which case the only overhead is a
+     * <code>null</code> check per element.
+     * 
+     * @param metrics The {@link ParsingMetrics} you wish parsers created from the returned builder to report to, or
+     * <code>null</code> to disable measurement.
+     * @return If the supplied metrics are the same as the {@linkplain #getParsingMetrics() current} ones, this builder
+     * will be returned, otherwise a {@linkplain #fork() forked} copy using the supplied metrics will be returned.
+     * @see #getParsingMetrics()
+     * @see InMemoryParsingMetrics
+     */
+    public final SB setParsingMetrics(final @Nullable ParsingMetrics metrics) {
+      if (this.metrics == metrics) return Objects.requireNonNull(schemaBuilderType.cast(this));
+      return forkImpl(namespace, parsingLimits, childValueSpill, metrics, false);
+    }
+
     protected final QName qn(final String localName) {
       return new QName(Optional.ofNullable(namespace).map(URI::toString).orElse(XMLConstants.NULL_NS_URI), localName);
     }
@@ -1478,14 +5019,7 @@ public class XMLStreamParser<@NonNull T> {
     }
 
     protected final <@NonNull ET,@NonNull PT extends ElementParser<?>> PT getParserWithTargetTypeAndOfParserType(final Class<? extends ET> forElementTargetValueClass, final Class<? extends PT> ofParserType, final QName forElementName) throws NoSuchElementException {
-      final List<ElementParser<?>> parsers = elementParsers.stream()
-          .filter((parser) -> ofParserType.isAssignableFrom(parser.getClass()))
-          .filter((parser) -> forElementName.equals(parser.getElementName()))
-          .filter((parser) -> forElementTargetValueClass.isAssignableFrom(parser.getTargetValueClass()))
-          .collect(Collectors.toList());
-      if (parsers.isEmpty()) throw new NoSuchElementException("No '" + forElementName.getLocalPart() + "' element found with '" + forElementTargetValueClass + "' target value class");
-      if (parsers.size() > 1) throw new NoSuchElementException("Multiple '" + forElementName.getLocalPart() + "' elements found with '" + forElementTargetValueClass + "' target value class");
-      return Objects.requireNonNull(ofParserType.cast(parsers.get(0)));
+      return elementParsers.get(Objects.requireNonNull(forElementTargetValueClass, "null forElementTargetValueClass"), ofParserType, forElementName);
     }
 
     @SuppressWarnings("unchecked")
@@ -1494,13 +5028,7 @@ public class XMLStreamParser<@NonNull T> {
     }
 
     protected final <@NonNull PT extends ElementParser<@NonNull ?>> PT getParserOfParserType(final Class<? extends PT> ofParserType, final QName forElementName) throws NoSuchElementException {
-      final List<ElementParser<?>> parsers = elementParsers.stream()
-          .filter((parser) -> ofParserType.isAssignableFrom(parser.getClass()))
-          .filter((parser) -> forElementName.equals(parser.getElementName()))
-          .collect(Collectors.toList());
-      if (parsers.isEmpty()) throw new NoSuchElementException("No '" + forElementName.getLocalPart() + "' element found");
-      if (parsers.size() > 1) throw new NoSuchElementException("Multiple '" + forElementName.getLocalPart() + "' elements found");
-      return Objects.requireNonNull(ofParserType.cast(parsers.get(0)));
+      return elementParsers.get(null, ofParserType, forElementName);
     }
 
     protected final ElementParser<@NonNull ?> getParser(final QName forElementName) throws NoSuchElementException {
@@ -1751,6 +5279,166 @@ public class XMLStreamParser<@NonNull T> {
       return defineStringElement(stringElementLocalName, false);
     }
 
+    /**
+     * <p>
+     * Define a "binary" element, whose character data is {@linkplain BinaryEncoding encoded} binary content, which will
+     * be decoded incrementally, as it's read, to the {@link OutputStream} returned by the supplied
+     * <code>outputFunction</code>. Only a small buffer of the content is ever held in memory, regardless of it's size.
+     * </p>
+     * 
+     * <p>
+     * The target value for the element is the number of bytes decoded. The <code>outputFunction</code> will be called
+     * once the start of the element has been read, so the supplied {@link XMLStreamParser.ElementParsingContext
+     * ElementParsingContext} provides access to it's attributes and any saved values, and the returned
+     * {@link OutputStream} will be closed once the end of the element is reached. To decode to a
+     * {@link java.nio.channels.WritableByteChannel WritableByteChannel}, simply return a
+     * {@linkplain java.nio.channels.Channels#newOutputStream(java.nio.channels.WritableByteChannel) stream wrapping} it.
+     * </p>
+     * 
+     * @param binaryElementLocalName The {@linkplain QName#getLocalPart() local name} of the element being defined (the
+     * {@linkplain #getNamespace() current namespace} will be used).
+     * @param encoding The {@link BinaryEncoding} of the element's content.
+     * @param outputFunction A function returning the {@link OutputStream} each element's content should be decoded to.
+     * @param saveTargetValue Should target values calculated for the defined element be saved by the parser and then
+     * made available (via the {@link XMLStreamParser.ElementParsingContext ElementParsingContext}) to the target value
+     * calculation functions of all subsequent elements parsed within the current document?
+     * @return The {@link XMLStreamParser.SchemaBuilder SchemaBuilder} this method was invoked on.
+     * @see #defineBinaryElement(String, BinaryEncoding, Function)
+     * @see #defineBinaryFileElement(String, BinaryEncoding, boolean)
+     */
+    public final SB defineBinaryElement(final String binaryElementLocalName, final BinaryEncoding encoding, final Function<ElementParsingContext,? extends OutputStream> outputFunction, final boolean saveTargetValue) {
+      return addParser(new BinaryElementParser(qn(binaryElementLocalName), encoding, outputFunction, saveTargetValue));
+    }
+
+    /**
+     * <p>
+     * Define a "binary" element, whose character data is {@linkplain BinaryEncoding encoded} binary content, which will
+     * be decoded incrementally, as it's read, to the {@link OutputStream} returned by the supplied
+     * <code>outputFunction</code>. Only a small buffer of the content is ever held in memory, regardless of it's size.
+     * </p>
+     * 
+     * <p>
+     * The target value for the element is the number of bytes decoded. The returned {@link OutputStream} will be
+     * closed once the end of the element is reached.
+     * </p>
+     * 
+     * @param binaryElementLocalName The {@linkplain QName#getLocalPart() local name} of the element being defined (the
+     * {@linkplain #getNamespace() current namespace} will be used).
+     * @param encoding The {@link BinaryEncoding} of the element's content.
+     * @param outputFunction A function returning the {@link OutputStream} each element's content should be decoded to.
+     * @return The {@link XMLStreamParser.SchemaBuilder SchemaBuilder} this method was invoked on.
+     * @see #defineBinaryElement(String, BinaryEncoding, Function, boolean)
+     */
+    public final SB defineBinaryElement(final String binaryElementLocalName, final BinaryEncoding encoding, final Function<ElementParsingContext,? extends OutputStream> outputFunction) {
+      return defineBinaryElement(binaryElementLocalName, encoding, outputFunction, false);
+    }
+
+    /**
+     * <p>
+     * Define a "binary" element, whose character data is {@linkplain BinaryEncoding encoded} binary content, which will
+     * be decoded incrementally, as it's read, to a newly created temporary file.
+     * </p>
+     * 
+     * <p>
+     * The target value for the element is the {@link Path} of the temporary file, which the caller then becomes
+     * responsible for deleting.
+     * </p>
+     * 
+     * @param binaryElementLocalName The {@linkplain QName#getLocalPart() local name} of the element being defined (the
+     * {@linkplain #getNamespace() current namespace} will be used).
+     * @param encoding The {@link BinaryEncoding} of the element's content.
+     * @param saveTargetValue Should target values calculated for the defined element be saved by the parser and then
+     * made available (via the {@link XMLStreamParser.ElementParsingContext ElementParsingContext}) to the target value
+     * calculation functions of all subsequent elements parsed within the current document?
+     * @return The {@link XMLStreamParser.SchemaBuilder SchemaBuilder} this method was invoked on.
+     * @see #defineBinaryFileElement(String, BinaryEncoding)
+     * @see #defineBinaryElement(String, BinaryEncoding, Function, boolean)
+     */
+    public final SB defineBinaryFileElement(final String binaryElementLocalName, final BinaryEncoding encoding, final boolean saveTargetValue) {
+      return addParser(new BinaryFileElementParser(qn(binaryElementLocalName), encoding, saveTargetValue));
+    }
+
+    /**
+     * <p>
+     * Define a "binary" element, whose character data is {@linkplain BinaryEncoding encoded} binary content, which will
+     * be decoded incrementally, as it's read, to a newly created temporary file.
+     * </p>
+     * 
+     * <p>
+     * The target value for the element is the {@link Path} of the temporary file, which the caller then becomes
+     * responsible for deleting.
+     * </p>
+     * 
+     * @param binaryElementLocalName The {@linkplain QName#getLocalPart() local name} of the element being defined (the
+     * {@linkplain #getNamespace() current namespace} will be used).
+     * @param encoding The {@link BinaryEncoding} of the element's content.
+     * @return The {@link XMLStreamParser.SchemaBuilder SchemaBuilder} this method was invoked on.
+     * @see #defineBinaryFileElement(String, BinaryEncoding, boolean)
+     */
+    public final SB defineBinaryFileElement(final String binaryElementLocalName, final BinaryEncoding encoding) {
+      return defineBinaryFileElement(binaryElementLocalName, encoding, false);
+    }
+
+    /**
+     * Define an element using a {@link GeneratedElementParser}, such as one generated at compile time from an
+     * {@linkplain com.hubick.xml_stream_serialization.parser.xml.annotation.XMLElement annotated} class. Note that the
+     * element will be defined using the name and namespace of the supplied parser, rather than the
+     * {@linkplain #getNamespace() current namespace}.
+     * 
+     * @param generatedElementParser The parser for the element being defined.
+     * @return The {@link XMLStreamParser.SchemaBuilder SchemaBuilder} this method was invoked on.
+     */
+    public final SB defineGeneratedElement(final GeneratedElementParser<?> generatedElementParser) {
+      return addParser(Objects.requireNonNull(generatedElementParser, "null generatedElementParser"));
+    }
+
+    /**
+     * <p>
+     * Define a "captured" element, whose target value is a {@link CapturedElement} retaining the events for the
+     * element's entire subtree, exactly as they were read, without interpreting any of it's content.
+     * </p>
+     * 
+     * <p>
+     * Content which isn't defined within your schema is normally discarded by the parser. A captured element allows
+     * you to instead pass such content through unchanged, as the resulting {@link CapturedElement} can be
+     * {@linkplain CapturedElement#writeXML(XMLStreamWriter, URI) written} back out as XML, or
+     * {@linkplain CapturedElement#createXMLEventReader() replayed} through another parser.
+     * </p>
+     * 
+     * @param capturedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element being defined
+     * (the {@linkplain #getNamespace() current namespace} will be used).
+     * @param saveTargetValue Should target values calculated for the defined element be saved by the parser and then
+     * made available (via the {@link XMLStreamParser.ElementParsingContext ElementParsingContext}) to the target value
+     * calculation functions of all subsequent elements parsed within the current document?
+     * @return The {@link XMLStreamParser.SchemaBuilder SchemaBuilder} this method was invoked on.
+     * @see #defineCapturedElement(String)
+     */
+    public final SB defineCapturedElement(final String capturedElementLocalName, final boolean saveTargetValue) {
+      return addParser(new CapturedElementParser(qn(capturedElementLocalName), saveTargetValue));
+    }
+
+    /**
+     * <p>
+     * Define a "captured" element, whose target value is a {@link CapturedElement} retaining the events for the
+     * element's entire subtree, exactly as they were read, without interpreting any of it's content.
+     * </p>
+     * 
+     * <p>
+     * Content which isn't defined within your schema is normally discarded by the parser. A captured element allows
+     * you to instead pass such content through unchanged, as the resulting {@link CapturedElement} can be
+     * {@linkplain CapturedElement#writeXML(XMLStreamWriter, URI) written} back out as XML, or
+     * {@linkplain CapturedElement#createXMLEventReader() replayed} through another parser.
+     * </p>
+     * 
+     * @param capturedElementLocalName The {@linkplain QName#getLocalPart() local name} of the element being defined
+     * (the {@linkplain #getNamespace() current namespace} will be used).
+     * @return The {@link XMLStreamParser.SchemaBuilder SchemaBuilder} this method was invoked on.
+     * @see #defineCapturedElement(String, boolean)
+     */
+    public final SB defineCapturedElement(final String capturedElementLocalName) {
+      return defineCapturedElement(capturedElementLocalName, false);
+    }
+
     /**
      * <p>
      * Define a regular content element, which calculates a target value using the supplied
@@ -2106,6 +5794,16 @@ public class XMLStreamParser<@NonNull T> {
       };
     }
 
+    /**
+     * Compile this schema into an immutable, indexed, {@link CompiledSchema}, which can create parsers more efficiently,
+     * and can be {@linkplain CompiledSchema#writeSnapshot(Path, SnapshotRegistry) snapshotted} for faster startup.
+     * 
+     * @return A {@link CompiledSchema} containing all the element definitions currently in this schema.
+     */
+    public CompiledSchema compile() {
+      return new CompiledSchema(namespace, parsingLimits, childValueSpill, metrics, elementParsers);
+    }
+
     /**
      * Create an {@link XMLStreamParser} using element definitions from this schema.
      * 
@@ -2122,7 +5820,7 @@ public class XMLStreamParser<@NonNull T> {
      * @see #createXMLParser(Class, String, String, String[])
      */
     public <@NonNull T> XMLStreamParser<T> createXMLParser(final Class<T> targetValueClass, final Set<QName> documentElementNames, final QName targetContainerElementName, final @NonNull QName... targetValueElementNames) throws NoSuchElementException {
-      return new XMLStreamParser<T>(targetValueClass, documentElementNames.stream().map((documentElementName) -> getParser(documentElementName)).collect(Collectors.toSet()), getParserOfParserType(ContainerElementParser.class, targetContainerElementName), getParsersWithTargetType(targetValueClass, targetValueElementNames));
+      return new XMLStreamParser<T>(targetValueClass, documentElementNames.stream().map((documentElementName) -> getParser(documentElementName)).collect(Collectors.toSet()), getParserOfParserType(ContainerElementParser.class, targetContainerElementName), parsingLimits, childValueSpill, metrics, getParsersWithTargetType(targetValueClass, targetValueElementNames));
     }
 
     /**
@@ -2147,6 +5845,175 @@ public class XMLStreamParser<@NonNull T> {
       return createXMLParser(targetValueClass, Collections.singleton(qn(documentElementLocalName)), qn(targetContainerElementLocalName), qns(targetValueElementLocalNames));
     }
 
+    /**
+     * Start building an {@link XMLStreamParser.XMLStreamRouter XMLStreamRouter} using element definitions from this
+     * schema.
+     *
+     * @param documentElementNames The names of the root document elements which will be consumed by the created
+     * router.
+     * @return An {@link XMLStreamParser.SchemaBuilder.XMLStreamRouterBuilder XMLStreamRouterBuilder} which you can use
+     * to add routes to the router.
+     * @throws NoSuchElementException If a referenced element hasn't been defined in this schema.
+     * @see #buildXMLRouter(String)
+     */
+    public XMLStreamRouterBuilder buildXMLRouter(final Set<QName> documentElementNames) throws NoSuchElementException {
+      return new XMLStreamRouterBuilder(documentElementNames.stream().map((documentElementName) -> getParser(documentElementName)).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Start building an {@link XMLStreamParser.XMLStreamRouter XMLStreamRouter} using element definitions from this
+     * schema.
+     *
+     * @param documentElementLocalName The {@linkplain QName#getLocalPart() local name} of the root document element
+     * which will be consumed by the created router (the {@linkplain #getNamespace() current namespace} will be used).
+     * @return An {@link XMLStreamParser.SchemaBuilder.XMLStreamRouterBuilder XMLStreamRouterBuilder} which you can use
+     * to add routes to the router.
+     * @throws NoSuchElementException If the referenced element hasn't been defined in this schema.
+     * @see #buildXMLRouter(Set)
+     */
+    public XMLStreamRouterBuilder buildXMLRouter(final String documentElementLocalName) throws NoSuchElementException {
+      return buildXMLRouter(Collections.singleton(qn(documentElementLocalName)));
+    }
+
+    /**
+     * Start building an {@link XMLStreamParser.XMLStreamTransformer XMLStreamTransformer} using element definitions from
+     * this schema.
+     *
+     * @return An {@link XMLStreamParser.SchemaBuilder.XMLStreamTransformerBuilder XMLStreamTransformerBuilder} which you
+     * can use to add transforms to the transformer.
+     */
+    public XMLStreamTransformerBuilder buildXMLTransformer() {
+      return new XMLStreamTransformerBuilder();
+    }
+
+    /**
+     * This class is used to register the function which should transform each element's values when
+     * {@linkplain XMLStreamParser.SchemaBuilder#buildXMLTransformer() building} an
+     * {@link XMLStreamParser.XMLStreamTransformer XMLStreamTransformer}.
+     */
+    public class XMLStreamTransformerBuilder {
+      protected final Map<QName,XMLStreamTransformer.Transform<?>> transforms = new ConcurrentHashMap<>();
+
+      protected XMLStreamTransformerBuilder() {
+        return;
+      }
+
+      /**
+       * Transform the values of the referenced element definition using the supplied function. If the same element is
+       * transformed more than once, the last function added will be used.
+       *
+       * @param <TT> The type of target value produced by the transformed element.
+       * @param elementName The name of the referenced element whose values should be transformed.
+       * @param targetValueClass The target value type produced by the referenced element definition.
+       * @param function The function which will be handed each parsed value, and return the {@link XMLSerializable} to
+       * be written in place of the original element, or <code>null</code> to remove it.
+       * @return The {@link XMLStreamParser.SchemaBuilder.XMLStreamTransformerBuilder XMLStreamTransformerBuilder} this
+       * method was invoked on.
+       * @throws NoSuchElementException If the referenced element hasn't been defined in this schema.
+       * @see #addTransform(String, Class, Function)
+       */
+      public <@NonNull TT> XMLStreamTransformerBuilder addTransform(final QName elementName, final Class<TT> targetValueClass, final Function<? super TT,? extends @Nullable XMLSerializable> function) throws NoSuchElementException {
+        transforms.put(elementName, new XMLStreamTransformer.Transform<TT>(getParserWithTargetType(targetValueClass, elementName), function));
+        return this;
+      }
+
+      /**
+       * Transform the values of the referenced element definition using the supplied function. If the same element is
+       * transformed more than once, the last function added will be used.
+       *
+       * @param <TT> The type of target value produced by the transformed element.
+       * @param elementLocalName The {@linkplain QName#getLocalPart() local name} of the referenced element whose values
+       * should be transformed (the {@linkplain XMLStreamParser.SchemaBuilder#getNamespace() current namespace} will be
+       * used).
+       * @param targetValueClass The target value type produced by the referenced element definition.
+       * @param function The function which will be handed each parsed value, and return the {@link XMLSerializable} to
+       * be written in place of the original element, or <code>null</code> to remove it.
+       * @return The {@link XMLStreamParser.SchemaBuilder.XMLStreamTransformerBuilder XMLStreamTransformerBuilder} this
+       * method was invoked on.
+       * @throws NoSuchElementException If the referenced element hasn't been defined in this schema.
+       * @see #addTransform(QName, Class, Function)
+       */
+      public <@NonNull TT> XMLStreamTransformerBuilder addTransform(final String elementLocalName, final Class<TT> targetValueClass, final Function<? super TT,? extends @Nullable XMLSerializable> function) throws NoSuchElementException {
+        return addTransform(qn(elementLocalName), targetValueClass, function);
+      }
+
+      /**
+       * Create an {@link XMLStreamParser.XMLStreamTransformer XMLStreamTransformer} using the transforms which have
+       * been provided to this builder.
+       *
+       * @return The newly created {@link XMLStreamParser.XMLStreamTransformer XMLStreamTransformer}.
+       */
+      public XMLStreamTransformer createXMLTransformer() {
+        return new XMLStreamTransformer(transforms, parsingLimits, childValueSpill, metrics);
+      }
+
+    } // XMLStreamTransformerBuilder
+
+    /**
+     * This class is used to register the {@link Consumer} each routed element's values should be delivered to when
+     * {@linkplain XMLStreamParser.SchemaBuilder#buildXMLRouter(Set) building} an
+     * {@link XMLStreamParser.XMLStreamRouter XMLStreamRouter}.
+     */
+    public class XMLStreamRouterBuilder {
+      protected final Set<? extends ElementParser<?>> documentParsers;
+      protected final Map<ElementParser<?>,Consumer<Object>> routes = new ConcurrentHashMap<>();
+
+      protected XMLStreamRouterBuilder(final Set<? extends ElementParser<?>> documentParsers) {
+        this.documentParsers = documentParsers;
+        return;
+      }
+
+      /**
+       * Route the values of the referenced element definition to the supplied {@link Consumer}. If the same element is
+       * routed more than once, each consumer will receive it's values, in the order they were added.
+       *
+       * @param <RT> The type of target value produced by the routed element.
+       * @param elementName The name of the referenced element whose values should be routed.
+       * @param targetValueClass The target value type produced by the referenced element definition.
+       * @param consumer The {@link Consumer} each value should be handed to as it's parsed.
+       * @return The {@link XMLStreamParser.SchemaBuilder.XMLStreamRouterBuilder XMLStreamRouterBuilder} this method was
+       * invoked on.
+       * @throws NoSuchElementException If the referenced element hasn't been defined in this schema.
+       * @see #addRoute(String, Class, Consumer)
+       */
+      public <@NonNull RT> XMLStreamRouterBuilder addRoute(final QName elementName, final Class<RT> targetValueClass, final Consumer<? super RT> consumer) throws NoSuchElementException {
+        Objects.requireNonNull(consumer, "null consumer");
+        final ElementParser<RT> parser = getParserWithTargetType(targetValueClass, elementName);
+        routes.merge(parser, (value) -> consumer.accept(Objects.requireNonNull(targetValueClass.cast(value))), Consumer::andThen);
+        return this;
+      }
+
+      /**
+       * Route the values of the referenced element definition to the supplied {@link Consumer}. If the same element is
+       * routed more than once, each consumer will receive it's values, in the order they were added.
+       *
+       * @param <RT> The type of target value produced by the routed element.
+       * @param elementLocalName The {@linkplain QName#getLocalPart() local name} of the referenced element whose values
+       * should be routed (the {@linkplain XMLStreamParser.SchemaBuilder#getNamespace() current namespace} will be
+       * used).
+       * @param targetValueClass The target value type produced by the referenced element definition.
+       * @param consumer The {@link Consumer} each value should be handed to as it's parsed.
+       * @return The {@link XMLStreamParser.SchemaBuilder.XMLStreamRouterBuilder XMLStreamRouterBuilder} this method was
+       * invoked on.
+       * @throws NoSuchElementException If the referenced element hasn't been defined in this schema.
+       * @see #addRoute(QName, Class, Consumer)
+       */
+      public <@NonNull RT> XMLStreamRouterBuilder addRoute(final String elementLocalName, final Class<RT> targetValueClass, final Consumer<? super RT> consumer) throws NoSuchElementException {
+        return addRoute(qn(elementLocalName), targetValueClass, consumer);
+      }
+
+      /**
+       * Create an {@link XMLStreamParser.XMLStreamRouter XMLStreamRouter} using the routes which have been provided to
+       * this builder.
+       *
+       * @return The newly created {@link XMLStreamParser.XMLStreamRouter XMLStreamRouter}.
+       */
+      public XMLStreamRouter createXMLRouter() {
+        return new XMLStreamRouter(documentParsers, routes, parsingLimits, childValueSpill, metrics);
+      }
+
+    } // XMLStreamRouterBuilder
+
     /**
      * This class is used during the definition of a parent element in order to construct a list of definitions for
      * {@linkplain #addChildValueElement(QName, Class) value} and {@linkplain #addChildExceptionElement(QName, Class)
@@ -2164,8 +6031,8 @@ public class XMLStreamParser<@NonNull T> {
        */
       @SuppressWarnings("unchecked")
       public ChildElementListBuilder(final @Nullable Set<? extends ElementParser<? extends Exception>> childExceptionParsers, final @Nullable Set<? extends ElementParser<?>> childValueParsers) {
-        this.childExceptionParsers = (childExceptionParsers != null) ? new CopyOnWriteArraySet<>((Set<ElementParser<Exception>>)childExceptionParsers) : new CopyOnWriteArraySet<>();
-        this.childValueParsers = (childValueParsers != null) ? new CopyOnWriteArraySet<>(childValueParsers) : new CopyOnWriteArraySet<>();
+        this.childExceptionParsers = (childExceptionParsers != null) ? new LinkedHashSet<>((Set<ElementParser<Exception>>)childExceptionParsers) : new LinkedHashSet<>();
+        this.childValueParsers = (childValueParsers != null) ? new LinkedHashSet<>(childValueParsers) : new LinkedHashSet<>();
         return;
       }
 
@@ -2538,10 +6405,10 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public InjectedTargetElementBuilder<ET> injectAttr(final String injectedFieldName, final QName attrName, final Function<? super String,?> attrValueFunction) {
-        injectionSpecs.put(injectedFieldName, (ctx) -> {
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> {
           final @Nullable String attrValue = ctx.getAttrOrNull(attrName);
           return (attrValue != null) ? attrValueFunction.apply(attrValue) : null;
-        });
+        }));
         return this;
       }
 
@@ -2630,7 +6497,7 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public InjectedTargetElementBuilder<ET> injectAttr(final String injectedFieldName, final QName attrName) {
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getAttrOrNull(attrName));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getAttrOrNull(attrName)));
         return this;
       }
 
@@ -2686,10 +6553,10 @@ public class XMLStreamParser<@NonNull T> {
        */
       public <@NonNull CT,@NonNull IT> InjectedTargetElementBuilder<ET> injectChildObject(final String injectedFieldName, final QName childElementName, final Class<CT> childElementTargetValueClass, final Class<IT> injectedValueClass, final Function<? super CT,? extends IT> injectedValueFunction) throws NoSuchElementException {
         childValueParsers.add(getParserWithTargetType(childElementTargetValueClass, childElementName));
-        injectionSpecs.put(injectedFieldName, (ctx) -> {
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> {
           final @Nullable CT childValue = ctx.getChildValueOrNull(childElementName, childElementTargetValueClass);
           return (childValue != null) ? injectedValueFunction.apply(childValue) : null;
-        });
+        }));
         return this;
       }
 
@@ -2718,7 +6585,7 @@ public class XMLStreamParser<@NonNull T> {
       public InjectedTargetElementBuilder<ET> injectChildObject(final String injectedFieldName, final QName childElementName) throws NoSuchElementException {
         final ElementParser<?> childElementParser = getParser(childElementName);
         childValueParsers.add(childElementParser);
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValueOrNull(childElementName, childElementParser.getTargetValueClass()));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValueOrNull(childElementName, childElementParser.getTargetValueClass())));
         return this;
       }
 
@@ -2805,9 +6672,9 @@ public class XMLStreamParser<@NonNull T> {
        */
       public <@NonNull CT,@NonNull IT> InjectedTargetElementBuilder<ET> injectChildArray(final String injectedFieldName, final QName childElementName, final Class<CT> childElementTargetValueClass, final Class<IT> injectedValueClass, final Function<? super CT,? extends IT> injectedValueFunction) throws NoSuchElementException {
         childValueParsers.add(getParserWithTargetType(childElementTargetValueClass, childElementName));
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(childElementName, childElementTargetValueClass)
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(childElementName, childElementTargetValueClass)
             .map(injectedValueFunction)
-            .toArray((n) -> (Object[])java.lang.reflect.Array.newInstance(injectedValueClass, n)));
+            .toArray((n) -> (Object[])java.lang.reflect.Array.newInstance(injectedValueClass, n))));
         return this;
       }
 
@@ -2835,7 +6702,7 @@ public class XMLStreamParser<@NonNull T> {
       public InjectedTargetElementBuilder<ET> injectChildArray(final String injectedFieldName, final QName childElementName) throws NoSuchElementException {
         final ElementParser<?> childElementParser = getParser(childElementName);
         childValueParsers.add(childElementParser);
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(childElementName, childElementParser.getTargetValueClass()).toArray((n) -> (Object[])java.lang.reflect.Array.newInstance(childElementParser.getTargetValueClass(), n)));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(childElementName, childElementParser.getTargetValueClass()).toArray((n) -> (Object[])java.lang.reflect.Array.newInstance(childElementParser.getTargetValueClass(), n))));
         return this;
       }
 
@@ -2895,7 +6762,7 @@ public class XMLStreamParser<@NonNull T> {
        */
       public <@NonNull CT,@NonNull IT> InjectedTargetElementBuilder<ET> injectChildList(final String injectedFieldName, final QName childElementName, final Class<CT> childElementTargetValueClass, final Class<IT> injectedValueClass, final Function<? super CT,? extends IT> injectedValueFunction) throws NoSuchElementException {
         childValueParsers.add(getParserWithTargetType(childElementTargetValueClass, childElementName));
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(childElementName, childElementTargetValueClass).map(injectedValueFunction).collect(Collectors.toList()));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(childElementName, childElementTargetValueClass).map(injectedValueFunction).collect(Collectors.toList())));
         return this;
       }
 
@@ -2923,7 +6790,7 @@ public class XMLStreamParser<@NonNull T> {
       public InjectedTargetElementBuilder<ET> injectChildList(final String injectedFieldName, final QName childElementName) throws NoSuchElementException {
         final ElementParser<?> childElementParser = getParser(childElementName);
         childValueParsers.add(childElementParser);
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(childElementName, childElementParser.getTargetValueClass()).collect(Collectors.toList()));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(childElementName, childElementParser.getTargetValueClass()).collect(Collectors.toList())));
         return this;
       }
 
@@ -2983,7 +6850,7 @@ public class XMLStreamParser<@NonNull T> {
        */
       public <@NonNull CT,@NonNull IT> InjectedTargetElementBuilder<ET> injectChildSet(final String injectedFieldName, final QName childElementName, final Class<CT> childElementTargetValueClass, final Class<IT> injectedValueClass, final Function<? super CT,? extends IT> injectedValueFunction) throws NoSuchElementException {
         childValueParsers.add(getParserWithTargetType(childElementTargetValueClass, childElementName));
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(childElementName, childElementTargetValueClass).map(injectedValueFunction).collect(Collectors.toSet()));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(childElementName, childElementTargetValueClass).map(injectedValueFunction).collect(Collectors.toSet())));
         return this;
       }
 
@@ -3011,7 +6878,7 @@ public class XMLStreamParser<@NonNull T> {
       public InjectedTargetElementBuilder<ET> injectChildSet(final String injectedFieldName, final QName childElementName) throws NoSuchElementException {
         final ElementParser<?> childElementParser = getParser(childElementName);
         childValueParsers.add(childElementParser);
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(childElementName, childElementParser.getTargetValueClass()).collect(Collectors.toSet()));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(childElementName, childElementParser.getTargetValueClass()).collect(Collectors.toSet())));
         return this;
       }
 
@@ -3072,10 +6939,10 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public <@NonNull ST,@NonNull IT> InjectedTargetElementBuilder<ET> injectSavedObject(final String injectedFieldName, final QName savedElementName, final Class<ST> savedElementTargetValueClass, final Class<IT> injectedValueClass, final Function<? super ST,? extends IT> injectedValueFunction) throws NoSuchElementException {
-        injectionSpecs.put(injectedFieldName, (ctx) -> {
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> {
           final @Nullable ST savedValue = ctx.getSavedValueOrNull(savedElementName, savedElementTargetValueClass);
           return (savedValue != null) ? injectedValueFunction.apply(savedValue) : null;
-        });
+        }));
         return this;
       }
 
@@ -3103,7 +6970,8 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public InjectedTargetElementBuilder<ET> injectSavedObject(final String injectedFieldName, final QName savedElementName) throws NoSuchElementException {
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getSavedValueOrNull(savedElementName, getParser(savedElementName).getTargetValueClass()));
+        final Class<?> savedElementTargetValueClass = getParser(savedElementName).getTargetValueClass();
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getSavedValueOrNull(savedElementName, savedElementTargetValueClass)));
         return this;
       }
 
@@ -3165,7 +7033,7 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public <@NonNull ST,@NonNull IT> InjectedTargetElementBuilder<ET> injectSavedArray(final String injectedFieldName, final QName savedElementName, final Class<ST> savedElementTargetValueClass, final Class<IT> injectedValueClass, final Function<? super ST,? extends IT> injectedValueFunction) throws NoSuchElementException {
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getSavedValues(savedElementName, savedElementTargetValueClass).map(injectedValueFunction).toArray((n) -> (Object[])java.lang.reflect.Array.newInstance(injectedValueClass, n)));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getSavedValues(savedElementName, savedElementTargetValueClass).map(injectedValueFunction).toArray((n) -> (Object[])java.lang.reflect.Array.newInstance(injectedValueClass, n))));
         return this;
       }
 
@@ -3195,7 +7063,7 @@ public class XMLStreamParser<@NonNull T> {
        */
       public InjectedTargetElementBuilder<ET> injectSavedArray(final String injectedFieldName, final QName savedElementName) throws NoSuchElementException {
         final ElementParser<?> savedElementParser = getParser(savedElementName);
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getSavedValues(savedElementName, savedElementParser.getTargetValueClass()).toArray((n) -> (Object[])java.lang.reflect.Array.newInstance(savedElementParser.getTargetValueClass(), n)));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getSavedValues(savedElementName, savedElementParser.getTargetValueClass()).toArray((n) -> (Object[])java.lang.reflect.Array.newInstance(savedElementParser.getTargetValueClass(), n))));
         return this;
       }
 
@@ -3257,7 +7125,7 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public <@NonNull ST,@NonNull IT> InjectedTargetElementBuilder<ET> injectSavedList(final String injectedFieldName, final QName savedElementName, final Class<ST> savedElementTargetValueClass, final Class<IT> injectedValueClass, final Function<? super ST,? extends IT> injectedValueFunction) throws NoSuchElementException {
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(savedElementName, savedElementTargetValueClass).map(injectedValueFunction).collect(Collectors.toList()));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(savedElementName, savedElementTargetValueClass).map(injectedValueFunction).collect(Collectors.toList())));
         return this;
       }
 
@@ -3285,7 +7153,8 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public InjectedTargetElementBuilder<ET> injectSavedList(final String injectedFieldName, final QName savedElementName) throws NoSuchElementException {
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(savedElementName, getParser(savedElementName).getTargetValueClass()).collect(Collectors.toList()));
+        final Class<?> savedElementTargetValueClass = getParser(savedElementName).getTargetValueClass();
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(savedElementName, savedElementTargetValueClass).collect(Collectors.toList())));
         return this;
       }
 
@@ -3346,7 +7215,7 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public <@NonNull ST,@NonNull IT> InjectedTargetElementBuilder<ET> injectSavedSet(final String injectedFieldName, final QName savedElementName, final Class<ST> savedElementTargetValueClass, final Class<IT> injectedValueClass, final Function<? super ST,? extends IT> injectedValueFunction) throws NoSuchElementException {
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(savedElementName, savedElementTargetValueClass).map(injectedValueFunction).collect(Collectors.toSet()));
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(savedElementName, savedElementTargetValueClass).map(injectedValueFunction).collect(Collectors.toSet())));
         return this;
       }
 
@@ -3374,7 +7243,8 @@ public class XMLStreamParser<@NonNull T> {
        * @see XMLStreamParser.ElementParsingContext#getInjectedValue(Class, Map)
        */
       public InjectedTargetElementBuilder<ET> injectSavedSet(final String injectedFieldName, final QName savedElementName) throws NoSuchElementException {
-        injectionSpecs.put(injectedFieldName, (ctx) -> ctx.getChildValues(savedElementName, getParser(savedElementName).getTargetValueClass()).collect(Collectors.toSet()));
+        final Class<?> savedElementTargetValueClass = getParser(savedElementName).getTargetValueClass();
+        injectionSpecs.put(injectedFieldName, serializable((ctx) -> ctx.getChildValues(savedElementName, savedElementTargetValueClass).collect(Collectors.toSet())));
         return this;
       }
 
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * <p>
+ * A service for concurrently {@linkplain XMLStreamParser#parse(InputStream, XMLStreamParser.TargetValueHandler)
+ * parsing} a collection of XML files using an {@link XMLStreamParser}.
+ * </p>
+ *
+ * <p>
+ * Each file is parsed as a separate task on the {@link Executor} supplied to the service, which could be a fixed
+ * thread pool, a {@link ForkJoinPool}, or an executor creating a new thread per task, etc. Tasks are submitted largest
+ * file first, so that a single very large file doesn't end up starting last and becoming the long tail of the job.
+ * Results can be retrieved either {@linkplain #parse(Collection, boolean) unordered}, as they become available, or
+ * merged back into (file, value) order.
+ * </p>
+ *
+ * <p>
+ * A problem parsing any one file is isolated to that file, being reported as a {@linkplain FileResult#isFailure()
+ * failure} result, after which the job carries on with the remaining files. A
+ * {@link XMLStreamParser.RecoverableExceptionElementException RecoverableExceptionElementException} is also reported as
+ * a failure result, but parsing of that file will then continue.
+ * </p>
+ *
+ * @param <T> The type of target values produced.
+ */
+@NonNullByDefault
+public class XMLStreamParsingService<@NonNull T> {
+  /**
+   * The default capacity for the buffer of results used by an unordered job.
+   */
+  public static final int DEFAULT_BUFFER_CAPACITY = 4096;
+  private static final Object END_OF_FILE = new Object();
+  protected final XMLStreamParser<T> parser;
+  protected final Executor executor;
+  protected final int bufferCapacity;
+
+  /**
+   * Construct a new {@link XMLStreamParsingService}.
+   *
+   * @param parser The {@link XMLStreamParser} to parse each file with.
+   * @param executor The {@link Executor} to parse each file on.
+   * @param bufferCapacity The maximum number of results an unordered job will buffer before parsing tasks are made to
+   * wait for the consumer to catch up.
+   * @throws IllegalArgumentException If <code>bufferCapacity</code> is less than one.
+   */
+  public XMLStreamParsingService(final XMLStreamParser<T> parser, final Executor executor, final int bufferCapacity) throws IllegalArgumentException {
+    this.parser = Objects.requireNonNull(parser, "null parser");
+    this.executor = Objects.requireNonNull(executor, "null executor");
+    if (bufferCapacity < 1) throw new IllegalArgumentException("bufferCapacity < 1");
+    this.bufferCapacity = bufferCapacity;
+    return;
+  }
+
+  /**
+   * Construct a new {@link XMLStreamParsingService} using the {@linkplain #DEFAULT_BUFFER_CAPACITY default buffer
+   * capacity}.
+   *
+   * @param parser The {@link XMLStreamParser} to parse each file with.
+   * @param executor The {@link Executor} to parse each file on.
+   */
+  public XMLStreamParsingService(final XMLStreamParser<T> parser, final Executor executor) {
+    this(parser, executor, DEFAULT_BUFFER_CAPACITY);
+    return;
+  }
+
+  /**
+   * Start a job parsing the supplied files.
+   *
+   * @param files The files to be parsed.
+   * @param ordered Should results be returned in (file, value) order? If <code>false</code>, results are returned as
+   * soon as they become available. Note that, in order to keep every task running, an ordered job will buffer
+   * <em>all</em> results for files which complete ahead of the file currently being consumed.
+   * @return A {@link ParsingJob} which can be used to retrieve the results and monitor progress.
+   */
+  public ParsingJob parse(final Collection<Path> files, final boolean ordered) {
+    final ParsingJob job = new ParsingJob(new ArrayList<>(Objects.requireNonNull(files, "null files")), ordered);
+    job.start();
+    return job;
+  }
+
+  /**
+   * A result from a {@link ParsingJob}, which is either a target value, or a failure.
+   *
+   * @param <T> The type of target values produced.
+   */
+  public static class FileResult<@NonNull T> {
+    protected final Path file;
+    protected final int fileIndex;
+    protected final long valueIndex;
+    protected final @Nullable T value;
+    protected final @Nullable Exception exception;
+
+    protected FileResult(final Path file, final int fileIndex, final long valueIndex, final @Nullable T value, final @Nullable Exception exception) {
+      this.file = file;
+      this.fileIndex = fileIndex;
+      this.valueIndex = valueIndex;
+      this.value = value;
+      this.exception = exception;
+      return;
+    }
+
+    /**
+     * Get the file this result came from.
+     *
+     * @return The file this result came from.
+     */
+    public Path getFile() {
+      return file;
+    }
+
+    /**
+     * Get the position of the file this result came from within the collection of files supplied to the job.
+     *
+     * @return The index of the file this result came from.
+     */
+    public int getFileIndex() {
+      return fileIndex;
+    }
+
+    /**
+     * Get the position of this result amongst all the results from the same file.
+     *
+     * @return The index of this result within it's file.
+     */
+    public long getValueIndex() {
+      return valueIndex;
+    }
+
+    /**
+     * Is this result a failure?
+     *
+     * @return <code>true</code> if this result is a {@linkplain #getException() failure}, or <code>false</code> if it's
+     * a {@linkplain #getValue() value}.
+     */
+    public boolean isFailure() {
+      return exception != null;
+    }
+
+    /**
+     * Get the target value for this result.
+     *
+     * @return The target value, if this result isn't a {@linkplain #isFailure() failure}.
+     */
+    public Optional<T> getValue() {
+      return Optional.ofNullable(value);
+    }
+
+    /**
+     * Get the exception for this result.
+     *
+     * @return The exception, if this result is a {@linkplain #isFailure() failure}.
+     */
+    public Optional<Exception> getException() {
+      return Optional.ofNullable(exception);
+    }
+
+    @Override
+    public String toString() {
+      return file.toString() + '[' + valueIndex + "]=" + ((exception != null) ? exception : value);
+    }
+
+  } // FileResult
+
+  /**
+   * A job, {@linkplain XMLStreamParsingService#parse(Collection, boolean) started} by the service, which is parsing a
+   * collection of files. The job is an {@link Iterator} over it's {@linkplain FileResult results}, where calls will
+   * block until the next result is available. {@linkplain #close() Closing} the job will stop any further parsing.
+   */
+  public class ParsingJob implements Iterator<FileResult<T>>, AutoCloseable {
+    protected final List<Path> files;
+    protected final boolean ordered;
+    protected final List<BlockingQueue<Object>> queues;
+    protected final long[] fileSizes;
+    protected final AtomicInteger filesCompleted = new AtomicInteger();
+    protected final AtomicInteger filesFailed = new AtomicInteger();
+    protected final AtomicLong bytesCompleted = new AtomicLong();
+    protected final LongAdder valueCount = new LongAdder();
+    protected volatile boolean closed = false;
+    private int filesConsumed = 0;
+    private @Nullable FileResult<T> nextResult = null;
+
+    protected ParsingJob(final List<Path> files, final boolean ordered) {
+      this.files = Collections.unmodifiableList(files);
+      this.ordered = ordered;
+      if (ordered) {
+        queues = Collections.unmodifiableList(IntStream.range(0, files.size()).<BlockingQueue<Object>> mapToObj((i) -> new LinkedBlockingQueue<>()).collect(Collectors.toList()));
+      } else {
+        queues = Collections.singletonList(new LinkedBlockingQueue<>(bufferCapacity));
+      }
+      fileSizes = files.stream().mapToLong((file) -> {
+        try {
+          return Files.size(file);
+        } catch (IOException ioe) {
+          return 0; // Any problem reading the file will be reported when it's parsed.
+        }
+      }).toArray();
+      return;
+    }
+
+    protected void start() {
+      IntStream.range(0, files.size()).boxed().sorted(Comparator.<Integer> comparingLong((i) -> fileSizes[i]).reversed()).forEachOrdered((i) -> executor.execute(() -> parseFile(i)));
+      return;
+    }
+
+    protected BlockingQueue<Object> getQueue(final int fileIndex) {
+      return queues.get(ordered ? fileIndex : 0);
+    }
+
+    protected boolean put(final int fileIndex, final Object entry) {
+      final BlockingQueue<Object> queue = getQueue(fileIndex);
+      try {
+        while (!closed) {
+          if (queue.offer(entry, 100, TimeUnit.MILLISECONDS)) return true;
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+      return false;
+    }
+
+    protected void parseFile(final int fileIndex) {
+      final Path file = files.get(fileIndex);
+      final long[] valueIndex = new long[] { 0 };
+      try {
+        if (closed) return;
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(file), 64 * 1024)) {
+          parser.parse(inputStream, new XMLStreamParser.TargetValueHandler<T>() {
+
+            @Override
+            public boolean handle(final T targetValue) {
+              valueCount.increment();
+              return put(fileIndex, new FileResult<T>(file, fileIndex, valueIndex[0]++, targetValue, null));
+            }
+
+            @Override
+            public boolean handleException(final XMLStreamParser.RecoverableExceptionElementException exception) {
+              return put(fileIndex, new FileResult<T>(file, fileIndex, valueIndex[0]++, null, exception));
+            }
+
+          });
+        }
+      } catch (IOException | RuntimeException e) {
+        filesFailed.incrementAndGet();
+        put(fileIndex, new FileResult<T>(file, fileIndex, valueIndex[0]++, null, e));
+      } finally {
+        bytesCompleted.addAndGet(fileSizes[fileIndex]);
+        filesCompleted.incrementAndGet();
+        put(fileIndex, END_OF_FILE);
+      }
+      return;
+    }
+
+    /**
+     * Get the files being parsed by this job.
+     *
+     * @return The files being parsed.
+     */
+    public List<Path> getFiles() {
+      return files;
+    }
+
+    /**
+     * Get the number of files which have finished being parsed, whether successfully or not.
+     *
+     * @return The number of files completed.
+     */
+    public int getFilesCompleted() {
+      return filesCompleted.get();
+    }
+
+    /**
+     * Get the number of files for which parsing ended with a failure.
+     *
+     * @return The number of files failed.
+     */
+    public int getFilesFailed() {
+      return filesFailed.get();
+    }
+
+    /**
+     * Get the total size of all the files being parsed.
+     *
+     * @return The total number of bytes.
+     */
+    public long getBytesTotal() {
+      return LongStream.of(fileSizes).sum();
+    }
+
+    /**
+     * Get the total size of all the files which have finished being parsed.
+     *
+     * @return The number of bytes completed.
+     */
+    public long getBytesCompleted() {
+      return bytesCompleted.get();
+    }
+
+    /**
+     * Get the number of target values which have been parsed so far.
+     *
+     * @return The number of values parsed.
+     */
+    public long getValueCount() {
+      return valueCount.sum();
+    }
+
+    /**
+     * Has every file finished being parsed?
+     *
+     * @return <code>true</code> if all files have been completed.
+     */
+    public boolean isDone() {
+      return filesCompleted.get() >= files.size();
+    }
+
+    @Override
+    public boolean hasNext() throws IllegalStateException {
+      while (nextResult == null) {
+        if ((closed) || (filesConsumed >= files.size())) return false;
+        final Object entry;
+        try {
+          entry = getQueue(filesConsumed).take();
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException("Interrupted waiting for a result", ie);
+        }
+        if (entry == END_OF_FILE) {
+          filesConsumed++;
+        } else {
+          @SuppressWarnings("unchecked")
+          final FileResult<T> result = (FileResult<T>)entry;
+          nextResult = result;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public FileResult<T> next() throws NoSuchElementException, IllegalStateException {
+      if (!hasNext()) throw new NoSuchElementException();
+      final FileResult<T> result = Objects.requireNonNull(nextResult);
+      nextResult = null;
+      return result;
+    }
+
+    /**
+     * Stop this job. Files which haven't yet started will be skipped, and those being parsed will stop at their next
+     * value.
+     */
+    @Override
+    public void close() {
+      closed = true;
+      queues.forEach(Collection::clear);
+      return;
+    }
+
+  } // ParsingJob
+
+}
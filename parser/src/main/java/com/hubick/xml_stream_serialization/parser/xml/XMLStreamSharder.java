@@ -0,0 +1,386 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import javax.xml.*;
+import javax.xml.namespace.*;
+import javax.xml.stream.*;
+import javax.xml.stream.events.*;
+
+import org.eclipse.jdt.annotation.*;
+
+
+/**
+ * <p>
+ * A tool for splitting a large XML document into a number of smaller, well-formed, shard documents, each of which
+ * contains a contiguous range of the target value elements from the original.
+ * </p>
+ *
+ * <p>
+ * Target value elements are identified in the same way an {@link XMLStreamParser} identifies them, as children of a
+ * target container element. Every shard begins with the same prologue as the original document, followed by the full
+ * chain of ancestor elements (with their attributes and namespace declarations) which were open at the point where the
+ * shard starts, and ends by closing that chain. Any content between target value elements is copied to whichever shard
+ * is current at that point, so that the shards, taken together, contain all the content of the original.
+ * </p>
+ *
+ * <p>
+ * A new shard is started before a target value element once the current shard has reached either it's
+ * {@linkplain #XMLStreamSharder(QName, Set, long, long) maximum number of values, or maximum size in bytes}, so every
+ * shard other than the last contains at least one value, and no target value element is ever split between shards.
+ * </p>
+ *
+ * <p>
+ * This class can also be {@linkplain #main(String[]) run} from the command line.
+ * </p>
+ */
+@NonNullByDefault
+public class XMLStreamSharder {
+  private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+  protected final QName targetContainerElementName;
+  protected final Set<QName> targetValueElementNames;
+  protected final long maxValuesPerShard;
+  protected final long maxBytesPerShard;
+
+  /**
+   * Construct a new {@link XMLStreamSharder}.
+   *
+   * @param targetContainerElementName The name of the container element whose children are the target values.
+   * @param targetValueElementNames The names of the target value elements.
+   * @param maxValuesPerShard The maximum number of target values to write to each shard, or {@link Long#MAX_VALUE} for
+   * no limit.
+   * @param maxBytesPerShard The size, in bytes, after which no further target values will be written to a shard, or
+   * {@link Long#MAX_VALUE} for no limit. A shard may exceed this size by the length of it's last value, plus the
+   * elements required to close it.
+   * @throws IllegalArgumentException If either limit is less than one, or no target value element names are supplied.
+   */
+  public XMLStreamSharder(final QName targetContainerElementName, final Set<QName> targetValueElementNames, final long maxValuesPerShard, final long maxBytesPerShard) throws IllegalArgumentException {
+    this.targetContainerElementName = Objects.requireNonNull(targetContainerElementName, "null targetContainerElementName");
+    this.targetValueElementNames = Collections.unmodifiableSet(new CopyOnWriteArraySet<>(Objects.requireNonNull(targetValueElementNames, "null targetValueElementNames")));
+    if (this.targetValueElementNames.isEmpty()) throw new IllegalArgumentException("No targetValueElementNames");
+    if (maxValuesPerShard < 1) throw new IllegalArgumentException("maxValuesPerShard < 1");
+    if (maxBytesPerShard < 1) throw new IllegalArgumentException("maxBytesPerShard < 1");
+    this.maxValuesPerShard = maxValuesPerShard;
+    this.maxBytesPerShard = maxBytesPerShard;
+    return;
+  }
+
+  /**
+   * Construct a new {@link XMLStreamSharder} which will split documents using the target container and value elements
+   * from the supplied {@link XMLStreamParser}.
+   *
+   * @param parser The {@link XMLStreamParser} whose target elements the documents should be split by.
+   * @param maxValuesPerShard The maximum number of target values to write to each shard, or {@link Long#MAX_VALUE} for
+   * no limit.
+   * @param maxBytesPerShard The size, in bytes, after which no further target values will be written to a shard, or
+   * {@link Long#MAX_VALUE} for no limit.
+   * @throws IllegalArgumentException If either limit is less than one.
+   */
+  public XMLStreamSharder(final XMLStreamParser<?> parser, final long maxValuesPerShard, final long maxBytesPerShard) throws IllegalArgumentException {
+    this(parser.getTargetContainerElementName(), parser.getTargetValueElementNames(), maxValuesPerShard, maxBytesPerShard);
+    return;
+  }
+
+  /**
+   * A source for the {@link OutputStream} each shard should be written to.
+   */
+  @FunctionalInterface
+  public static interface ShardOutputFactory {
+
+    /**
+     * Create the {@link OutputStream} the given shard should be written to. It will be closed by the sharder once the
+     * shard is complete.
+     *
+     * @param shardIndex The index of the shard, starting from zero.
+     * @return The {@link OutputStream} to write the shard to.
+     * @throws IOException If there was a problem creating the output.
+     */
+    public OutputStream createOutput(int shardIndex) throws IOException;
+
+  } // ShardOutputFactory
+
+  /**
+   * Split the XML document provided by the supplied {@link InputStream} into shards.
+   *
+   * @param inputStream The {@link InputStream} to read XML from. It will be closed once sharding is complete.
+   * @param outputFactory The source for the {@link OutputStream} to write each shard to.
+   * @return The number of shards written.
+   * @throws IOException If there was a problem writing a shard.
+   * @throws XMLStreamParser.ParsingException If there was a problem reading or writing XML.
+   */
+  public int shard(final InputStream inputStream, final ShardOutputFactory outputFactory) throws IOException, XMLStreamParser.ParsingException {
+    Objects.requireNonNull(outputFactory, "null outputFactory");
+    try (InputStream is = Objects.requireNonNull(inputStream, "null inputStream")) {
+      final XMLEventReader reader = XML_INPUT_FACTORY.createXMLEventReader(is);
+      try {
+        return new ShardingJob(reader, outputFactory).run();
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException xse) {
+      throw new XMLStreamParser.XMLStreamParsingException(xse);
+    }
+  }
+
+  /**
+   * Split the supplied XML file into shard files.
+   *
+   * @param file The XML file to be split.
+   * @param outputDirectory The directory the shard files should be written to.
+   * @param prefix The prefix for each shard file name, which will be followed by the shard index and a
+   * "<code>.xml</code>" extension.
+   * @return The shard files written.
+   * @throws IOException If there was a problem reading or writing a file.
+   * @throws XMLStreamParser.ParsingException If there was a problem reading or writing XML.
+   */
+  public List<Path> shard(final Path file, final Path outputDirectory, final String prefix) throws IOException, XMLStreamParser.ParsingException {
+    Objects.requireNonNull(outputDirectory, "null outputDirectory");
+    Objects.requireNonNull(prefix, "null prefix");
+    final List<Path> shardFiles = new ArrayList<>();
+    shard(new BufferedInputStream(Files.newInputStream(file), 64 * 1024), (shardIndex) -> {
+      final Path shardFile = outputDirectory.resolve(String.format("%s%05d.xml", prefix, shardIndex));
+      shardFiles.add(shardFile);
+      return new BufferedOutputStream(Files.newOutputStream(shardFile), 64 * 1024);
+    });
+    return Collections.unmodifiableList(shardFiles);
+  }
+
+  /**
+   * The state for splitting a single document.
+   */
+  private final class ShardingJob {
+    private final XMLEventReader reader;
+    private final ShardOutputFactory outputFactory;
+    private final List<XMLEvent> prologue = new ArrayList<>(); // Any content preceding the document element.
+    private final Deque<StartElement> openElements = new ArrayDeque<>(); // Ancestors of the current position, innermost first.
+    private int shardCount = 0;
+    private @Nullable CountingOutputStream output = null;
+    private @Nullable XMLStreamWriter writer = null;
+    private long shardValueCount = 0;
+
+    public ShardingJob(final XMLEventReader reader, final ShardOutputFactory outputFactory) {
+      this.reader = reader;
+      this.outputFactory = outputFactory;
+      return;
+    }
+
+    private XMLStreamWriter startShard() throws IOException, XMLStreamException {
+      final CountingOutputStream out = new CountingOutputStream(outputFactory.createOutput(shardCount++));
+      final XMLStreamWriter w = XML_OUTPUT_FACTORY.createXMLStreamWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+      w.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+      for (XMLEvent event : prologue) {
+        XMLStreamParser.writeEvent(event, w);
+      }
+      final Iterator<StartElement> ancestors = openElements.descendingIterator();
+      while (ancestors.hasNext()) {
+        XMLStreamParser.writeEvent(ancestors.next(), w);
+      }
+      output = out;
+      writer = w;
+      shardValueCount = 0;
+      return w;
+    }
+
+    private void endShard() throws IOException, XMLStreamException {
+      final @Nullable XMLStreamWriter w = writer;
+      final @Nullable CountingOutputStream out = output;
+      if ((w == null) || (out == null)) return;
+      for (int i = 0; i < openElements.size(); i++) {
+        w.writeEndElement();
+      }
+      w.writeEndDocument();
+      w.flush();
+      w.close();
+      out.close();
+      writer = null;
+      output = null;
+      return;
+    }
+
+    private boolean isShardFull() throws XMLStreamException {
+      final @Nullable XMLStreamWriter w = writer;
+      final @Nullable CountingOutputStream out = output;
+      if ((w == null) || (out == null) || (shardValueCount == 0)) return false; // Always write at least one value.
+      if (shardValueCount >= maxValuesPerShard) return true;
+      if (maxBytesPerShard == Long.MAX_VALUE) return false;
+      w.flush(); // Stops at the CountingOutputStream, so the shard's own output isn't flushed for every value.
+      return out.getCount() >= maxBytesPerShard;
+    }
+
+    private boolean isTargetValueElement(final StartElement startElement) {
+      final @Nullable StartElement parent = openElements.peek();
+      return (parent != null) && (targetContainerElementName.equals(parent.getName())) && (targetValueElementNames.contains(startElement.getName()));
+    }
+
+    public int run() throws IOException, XMLStreamException {
+      try {
+        while (reader.hasNext()) {
+          final XMLEvent event = reader.nextEvent();
+          if ((event.isStartDocument()) || (event.isEndDocument())) continue; // Each shard writes it's own.
+          if ((writer == null) && (openElements.isEmpty()) && (!event.isStartElement())) { // Before the document element.
+            if (!event.isCharacters()) prologue.add(event);
+            continue;
+          }
+          if (event.isStartElement()) {
+            final StartElement startElement = event.asStartElement();
+            if (isTargetValueElement(startElement)) {
+              if (isShardFull()) endShard();
+              final XMLStreamWriter w = (writer != null) ? Objects.requireNonNull(writer) : startShard();
+              copyElement(startElement, w);
+              shardValueCount++;
+              continue;
+            }
+            XMLStreamParser.writeEvent(startElement, (writer != null) ? Objects.requireNonNull(writer) : startShard());
+            openElements.push(startElement);
+            continue;
+          }
+          if (event.isEndElement()) openElements.pop();
+          XMLStreamParser.writeEvent(event, (writer != null) ? Objects.requireNonNull(writer) : startShard());
+        }
+        endShard();
+      } finally {
+        final @Nullable CountingOutputStream out = output;
+        if (out != null) out.close(); // Only if there was a problem.
+      }
+      return shardCount;
+    }
+
+    private void copyElement(final StartElement startElement, final XMLStreamWriter w) throws XMLStreamException {
+      XMLStreamParser.writeEvent(startElement, w);
+      int depth = 1;
+      while (depth > 0) {
+        final XMLEvent event = reader.nextEvent();
+        if (event.isStartElement()) {
+          depth++;
+        } else if (event.isEndElement()) {
+          depth--;
+        }
+        XMLStreamParser.writeEvent(event, w);
+      }
+      return;
+    }
+
+  } // ShardingJob
+
+  /**
+   * Counts the bytes of a shard as they're encoded, ignoring flushes, so that checking the count doesn't also flush the
+   * shard's output.
+   */
+  private static final class CountingOutputStream extends FilterOutputStream {
+    private long count = 0;
+
+    public CountingOutputStream(final OutputStream out) {
+      super(out);
+      return;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+      count++;
+      return;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+      return;
+    }
+
+    @Override
+    public void flush() {
+      return;
+    }
+
+  } // CountingOutputStream
+
+  private static final QName parseQName(final String name, final @Nullable String namespace) {
+    return name.startsWith("{") ? QName.valueOf(name) : new QName((namespace != null) ? namespace : XMLConstants.NULL_NS_URI, name);
+  }
+
+  /**
+   * <p>
+   * Split an XML file into shard files from the command line.
+   * </p>
+   *
+   * <pre>
+   * XMLStreamSharder [options] &lt;file&gt; &lt;outputDirectory&gt; &lt;containerElement&gt; &lt;targetElement&gt;...
+   *   --namespace &lt;uri&gt;   The namespace for any element names not given in "{uri}local" form.
+   *   --values &lt;n&gt;        The maximum number of target values per shard.
+   *   --bytes &lt;n&gt;         The approximate maximum size of each shard.
+   *   --shards &lt;n&gt;        Split into approximately this many equally sized shards.
+   *   --prefix &lt;prefix&gt;   The file name prefix for each shard (defaults to "shard-").
+   * </pre>
+   *
+   * @param args The command line arguments.
+   * @throws Exception If there was a problem sharding the file.
+   */
+  public static void main(final String[] args) throws Exception {
+    @Nullable String namespace = null;
+    long maxValues = Long.MAX_VALUE;
+    long maxBytes = Long.MAX_VALUE;
+    int shards = 0;
+    String prefix = "shard-";
+    final List<String> positional = new ArrayList<>();
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--namespace":
+            namespace = args[++i];
+            break;
+          case "--values":
+            maxValues = Long.parseLong(args[++i]);
+            break;
+          case "--bytes":
+            maxBytes = Long.parseLong(args[++i]);
+            break;
+          case "--shards":
+            shards = Integer.parseInt(args[++i]);
+            break;
+          case "--prefix":
+            prefix = args[++i];
+            break;
+          default:
+            positional.add(args[i]);
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      positional.clear();
+    }
+    if (positional.size() < 4) {
+      System.err.println("Usage: " + XMLStreamSharder.class.getName() + " [--namespace <uri>] [--values <n>] [--bytes <n>] [--shards <n>] [--prefix <prefix>] <file> <outputDirectory> <containerElement> <targetElement>...");
+      System.exit(1);
+      return;
+    }
+    final Path file = Paths.get(positional.get(0));
+    final Path outputDirectory = Paths.get(positional.get(1));
+    if (shards > 0) maxBytes = Math.min(maxBytes, Math.max(1, (Files.size(file) + shards - 1) / shards));
+    final Set<QName> targetValueElementNames = new LinkedHashSet<>();
+    for (String targetValueElementName : positional.subList(3, positional.size())) {
+      targetValueElementNames.add(parseQName(targetValueElementName, namespace));
+    }
+    Files.createDirectories(outputDirectory);
+    final List<Path> shardFiles = new XMLStreamSharder(parseQName(positional.get(2), namespace), targetValueElementNames, maxValues, maxBytes).shard(file, outputDirectory, prefix);
+    shardFiles.forEach(System.out::println);
+    return;
+  }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml.annotation;
+
+import java.lang.annotation.*;
+
+
+/**
+ * Marks a field of an {@link XMLElement} class to be assigned from an attribute of the element. The field may be a
+ * {@link String}, a primitive or it's wrapper, a {@link java.math.BigDecimal}, a {@link java.math.BigInteger}, or an
+ * {@link Enum}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface XMLAttribute {
+
+  /**
+   * The {@linkplain javax.xml.namespace.QName#getLocalPart() local name} of the attribute (which is never in a
+   * namespace).
+   *
+   * @return The local name, or an empty string to use the name of the field.
+   */
+  String name() default "";
+
+}
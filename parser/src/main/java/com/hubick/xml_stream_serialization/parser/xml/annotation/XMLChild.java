@@ -0,0 +1,32 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml.annotation;
+
+import java.lang.annotation.*;
+
+
+/**
+ * Marks a field of an {@link XMLElement} class to be assigned from a child element. The field may be any of the simple
+ * types supported by {@link XMLAttribute}, in which case it's value is parsed from the child's text, another
+ * {@link XMLElement} class, or a {@link java.util.List} of either, to which every matching child will be added.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface XMLChild {
+
+  /**
+   * The {@linkplain javax.xml.namespace.QName#getLocalPart() local name} of the child element (which uses the
+   * {@linkplain XMLElement#namespace() namespace} of it's parent).
+   *
+   * @return The local name, or an empty string to use the name of the field.
+   */
+  String name() default "";
+
+}
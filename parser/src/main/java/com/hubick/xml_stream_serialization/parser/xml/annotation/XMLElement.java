@@ -0,0 +1,51 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml.annotation;
+
+import java.lang.annotation.*;
+
+
+/**
+ * <p>
+ * Marks a class as the target value of an XML element, for which the annotation processor (in the
+ * <code>xml-stream-serialization-processor</code> artifact) will generate a
+ * {@linkplain com.hubick.xml_stream_serialization.parser.xml.XMLStreamParser.GeneratedElementParser parser} at compile
+ * time.
+ * </p>
+ *
+ * <p>
+ * For a class named <code>Book</code>, a <code>Book_ElementParser</code> class will be generated in the same package,
+ * with an <code>INSTANCE</code> you can
+ * {@linkplain com.hubick.xml_stream_serialization.parser.xml.XMLStreamParser.SchemaBuilder#defineGeneratedElement(com.hubick.xml_stream_serialization.parser.xml.XMLStreamParser.GeneratedElementParser)
+ * add} to a schema. The annotated class must have a non-private no-argument constructor, and it's fields annotated with
+ * {@link XMLAttribute} or {@link XMLChild} must be non-private and non-final, as the generated code assigns them
+ * directly.
+ * </p>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface XMLElement {
+
+  /**
+   * The {@linkplain javax.xml.namespace.QName#getLocalPart() local name} of the element.
+   *
+   * @return The local name, or an empty string to use the class name with it's first letter in lower case.
+   */
+  String name() default "";
+
+  /**
+   * The {@linkplain javax.xml.namespace.QName#getNamespaceURI() namespace} of the element, which is also used for all
+   * of it's child elements.
+   *
+   * @return The namespace URI, or an empty string for no namespace.
+   */
+  String namespace() default "";
+
+}
@@ -127,6 +127,12 @@ public class SOAPStreamParser<@NonNull T> extends XMLStreamParser<T> {
     return;
   }
 
+  @SafeVarargs
+  protected SOAPStreamParser(final Class<T> targetValueClass, final Set<EnvelopeElementParser> envelopeParsers, final ContainerElementParser targetContainerElementParser, final ParsingLimits parsingLimits, final ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics, final @NonNull ElementParser<? extends T>... targetValueParsers) {
+    super(targetValueClass, envelopeParsers, targetContainerElementParser, parsingLimits, childValueSpill, metrics, targetValueParsers);
+    return;
+  }
+
   /**
    * Get a {@link Constructor} for the specified class which has the supplied parameter types, catching any
    * {@link NoSuchMethodException}.
@@ -260,14 +266,19 @@ public class SOAPStreamParser<@NonNull T> extends XMLStreamParser<T> {
   public static class SchemaBuilder<@NonNull SB extends SchemaBuilder<@NonNull ?>> extends XMLStreamParser.SchemaBuilder<SB> {
 
     protected SchemaBuilder(final Class<? extends SB> builderType, final @Nullable URI namespace, final @Nullable Set<ElementParser<?>> elementParsers, final @Nullable Map<String,Function<ElementParsingContext,@Nullable Object>> globalInjectionSpecs, final boolean unmodifiable) {
-      super(builderType, namespace, elementParsers, globalInjectionSpecs, unmodifiable);
+      this(builderType, namespace, elementParsers, globalInjectionSpecs, null, null, null, unmodifiable);
+      return;
+    }
+
+    protected SchemaBuilder(final Class<? extends SB> builderType, final @Nullable URI namespace, final @Nullable Set<ElementParser<?>> elementParsers, final @Nullable Map<String,Function<ElementParsingContext,@Nullable Object>> globalInjectionSpecs, final @Nullable ParsingLimits parsingLimits, final @Nullable ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics, final boolean unmodifiable) {
+      super(builderType, namespace, elementParsers, globalInjectionSpecs, parsingLimits, childValueSpill, metrics, unmodifiable);
       this.elementParsers.add(SOAP_1_2_FAULT_ELEMENT_PARSER);
       return;
     }
 
     @Override
-    protected SB forkImpl(final @Nullable URI namespace, final boolean unmodifiable) {
-      return Objects.requireNonNull(schemaBuilderType.cast(new SchemaBuilder<SB>(schemaBuilderType, namespace, elementParsers, globalInjectionSpecs, unmodifiable)));
+    protected SB forkImpl(final @Nullable URI namespace, final ParsingLimits parsingLimits, final ChildValueSpill childValueSpill, final @Nullable ParsingMetrics metrics, final boolean unmodifiable) {
+      return Objects.requireNonNull(schemaBuilderType.cast(new SchemaBuilder<SB>(schemaBuilderType, namespace, elementParsers, globalInjectionSpecs, parsingLimits, childValueSpill, metrics, unmodifiable)));
     }
 
     /**
@@ -366,7 +377,7 @@ public class SOAPStreamParser<@NonNull T> extends XMLStreamParser<T> {
 
     @Override
     public <@NonNull T> SOAPStreamParser<T> createXMLParser(final Class<T> targetValueClass, final Set<QName> documentElementNames, final QName targetContainerElementName, final @NonNull QName... targetValueElementNames) throws NoSuchElementException {
-      return new SOAPStreamParser<T>(targetValueClass, documentElementNames.stream().map((documentElementName) -> getParserOfParserType(EnvelopeElementParser.class, documentElementName)).collect(Collectors.toSet()), getParserOfParserType(ContainerElementParser.class, targetContainerElementName), getParsersWithTargetType(targetValueClass, targetValueElementNames));
+      return new SOAPStreamParser<T>(targetValueClass, documentElementNames.stream().map((documentElementName) -> getParserOfParserType(EnvelopeElementParser.class, documentElementName)).collect(Collectors.toSet()), getParserOfParserType(ContainerElementParser.class, targetContainerElementName), parsingLimits, childValueSpill, metrics, getParsersWithTargetType(targetValueClass, targetValueElementNames));
     }
 
     /**
@@ -384,7 +395,7 @@ public class SOAPStreamParser<@NonNull T> extends XMLStreamParser<T> {
      * @see #createSOAPParser(Class, String, String[])
      */
     public <@NonNull T> SOAPStreamParser<T> createSOAPParser(final Class<T> targetValueClass, final QName targetContainerElementName, final @NonNull QName... targetValueElementNames) throws NoSuchElementException {
-      return new SOAPStreamParser<T>(targetValueClass, Collections.singleton(getParserOfParserType(EnvelopeElementParser.class, SOAP_1_2_ENVELOPE_QNAME)), getParserOfParserType(ContainerElementParser.class, targetContainerElementName), getParsersWithTargetType(targetValueClass, targetValueElementNames));
+      return new SOAPStreamParser<T>(targetValueClass, Collections.singleton(getParserOfParserType(EnvelopeElementParser.class, SOAP_1_2_ENVELOPE_QNAME)), getParserOfParserType(ContainerElementParser.class, targetContainerElementName), parsingLimits, childValueSpill, metrics, getParsersWithTargetType(targetValueClass, targetValueElementNames));
     }
 
     /**
@@ -2,11 +2,15 @@ module com.hubick.xml_stream_serialization.parser {
   requires transitive org.eclipse.jdt.annotation;
   requires transitive java.xml;
   requires transitive java.desktop;
+  requires transitive com.hubick.xml_stream_serialization;
   requires java.xml.soap;
   requires java.xml.ws;
   requires org.jooq;
   requires java.sql;
+  requires java.management;
+  requires jdk.jfr;
 
   exports com.hubick.xml_stream_serialization.parser.xml;
+  exports com.hubick.xml_stream_serialization.parser.xml.annotation;
   exports com.hubick.xml_stream_serialization.parser.xml.soap;
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import javax.xml.namespace.*;
+import javax.xml.stream.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.junit.jupiter.api.*;
+
+import com.hubick.xml_stream_serialization.introspection.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * JUnit tests for {@link IntrospectionSchema}.
+ */
+@NonNullByDefault
+public class IntrospectionSchemaTest {
+  protected static final URI TEST_NS_URI = URI.create("https://chris.hubick.com/ns/");
+
+  protected static Broker createBroker() {
+    final Apartment apartment = new Apartment(new StreetAddress("John St", 42), "ING");
+    apartment.tenants.put(1, "Joe Smithers");
+    apartment.tenants.put(5, "John Doehead");
+    final Agent maury = new Agent("Maury", new House(new StreetAddress("Doe St", 1024), "TD"), new House(new StreetAddress("Doe St", 1025), null));
+    maury.listings.add(apartment);
+    maury.nicknames.add("Mo");
+    maury.nicknames.add(null);
+    final Agent joan = new Agent("Joan", new House(new StreetAddress("Elm St", 7), "TD"), null);
+    final Broker broker = new Broker();
+    broker.agents.put(55, maury);
+    broker.agents.put(56, joan);
+    return broker;
+  }
+
+  /**
+   * Test reading the XML written for an {@link Introspectable} object back into an identical
+   * {@link Introspectable.Info Info} snapshot.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testRoundTrip() throws Exception {
+    final Introspectable.Info<? extends Broker> info = createBroker().introspect();
+    final String xml = info.toXMLString();
+    assertTrue(xml.contains("<PrimaryHouse><House"));
+    assertTrue(xml.contains("<Listings><Apartment"));
+    assertTrue(xml.contains("<Nickname>Mo</Nickname><Nickname/>"));
+
+    final IntrospectionSchema<? extends Broker> schema = IntrospectionSchema.of(info);
+    assertSame(schema, IntrospectionSchema.of(Broker.class));
+    final Introspectable.Info<? extends Broker> parsed = schema.parseDocument(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    assertEquals(info, parsed);
+    assertEquals(xml, parsed.toXMLString());
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(schema);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertSame(schema, in.readObject());
+    }
+
+    assertThrows(XMLStreamParser.XMLStreamParsingException.class, () -> schema.parseDocument(new ByteArrayInputStream(("<Broker xmlns=\"" + TEST_NS_URI + "\"><Unknown/></Broker>").getBytes(StandardCharsets.UTF_8))));
+    return;
+  }
+
+  /**
+   * Test streaming {@link Introspectable.Info Info} snapshots, and objects reconstructed from them, out of a
+   * container element.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testStreaming() throws Exception {
+    final Broker broker = createBroker();
+    final List<Introspectable.Info<? extends Agent>> agents = new ArrayList<>();
+    final StringWriter xml = new StringWriter();
+    final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(xml);
+    writer.writeStartElement("agents");
+    for (Agent agent : broker.agents.values()) {
+      final Introspectable.Info<? extends Agent> info = agent.introspect();
+      agents.add(info);
+      info.writeXML(writer, null);
+    }
+    writer.writeEndElement();
+    writer.close();
+
+    final IntrospectionSchema<? extends Agent> schema = IntrospectionSchema.of(agents.get(0));
+    final List<Introspectable.Info<? extends Agent>> parsed = new ArrayList<>();
+    schema.createXMLParser(new QName("agents")).parse(new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8))).forEachRemaining(parsed::add);
+    assertEquals(agents, parsed);
+    assertSame(schema.compile(new QName("agents")), schema.compile(new QName("agents")));
+
+    final List<String> names = new ArrayList<>();
+    schema.createXMLParser(new QName("agents"), String.class, (info) -> String.valueOf(info.getAttrs().get("Name"))).parse(new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8))).forEachRemaining(names::add);
+    assertEquals(Arrays.asList("Maury", "Joan"), names);
+    return;
+  }
+
+  /**
+   * Test that deriving a schema from a sample discovers the extension types of any complex values it contains, even
+   * when a schema for the sample's own type is already cached. Schemas are cached for the life of the JVM, so this uses
+   * types no other test derives a schema for.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testExtensionDiscovery() throws Exception {
+    IntrospectionSchema.of(Portfolio.class); // Cache the schema for a Portfolio, derived from an empty instance without any lofts.
+    final Portfolio portfolio = new Portfolio();
+    portfolio.buildings.add(new Loft(new StreetAddress("Mill St", 3), null, 0));
+    portfolio.buildings.add(new Loft(new StreetAddress("Mill St", 5), null, 2));
+    final Introspectable.Info<? extends Portfolio> info = portfolio.introspect();
+    final String xml = info.toXMLString();
+    assertTrue(xml.contains("<Loft><StreetAddress"));
+    assertTrue(xml.contains("<Loft Floor=\"2\">"));
+
+    assertSame(IntrospectionSchema.of(Portfolio.class), IntrospectionSchema.of(info));
+    assertEquals(info, IntrospectionSchema.of(Portfolio.class).parseDocument(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8))));
+    return;
+  }
+
+  public static final class StreetAddress implements Introspectable {
+    protected final String street;
+    protected final int number;
+
+    public StreetAddress(final String street, final int number) {
+      this.street = street;
+      this.number = number;
+      return;
+    }
+
+    @Override
+    public Info<? extends StreetAddress> introspect() {
+      return new Info.Builder<StreetAddress>(StreetAddress.class, TEST_NS_URI, false).attr("Street", street).attr("Number", number).build();
+    }
+
+  } // StreetAddress
+
+  public static abstract class Building implements Introspectable {
+    protected final StreetAddress streetAddress;
+    protected final @Nullable String insuranceProvider;
+
+    public Building(final StreetAddress streetAddress, final @Nullable String insuranceProvider) {
+      this.streetAddress = streetAddress;
+      this.insuranceProvider = insuranceProvider;
+      return;
+    }
+
+    @Override
+    public Info<? extends Building> introspect() {
+      return new Info.Builder<Building>(Building.class, TEST_NS_URI, false).complexChild(StreetAddress.class, false, "StreetAddress", streetAddress).attr("InsuranceProvider", insuranceProvider).build();
+    }
+
+  } // Building
+
+  public static class Apartment extends Building {
+    protected final Map<Integer,String> tenants = new LinkedHashMap<>();
+
+    public Apartment(final StreetAddress streetAddress, final @Nullable String insuranceProvider) {
+      super(streetAddress, insuranceProvider);
+      return;
+    }
+
+    @Override
+    public final Info<? extends Apartment> introspect() {
+      return super.introspect().superCast(Building.class).build().type(Apartment.class).primitiveChild(Integer.class, false, "Suite", String.class, false, "Tenants", "Tenant", tenants).build();
+    }
+
+  } // Apartment
+
+  public static class House extends Building {
+
+    public House(final StreetAddress streetAddress, final @Nullable String insuranceProvider) {
+      super(streetAddress, insuranceProvider);
+      return;
+    }
+
+    @Override
+    public final Info<? extends House> introspect() {
+      return super.introspect().superCast(Building.class).build().type(House.class).build();
+    }
+
+  } // House
+
+  public static class Loft extends Building {
+    protected final int floor;
+
+    public Loft(final StreetAddress streetAddress, final @Nullable String insuranceProvider, final int floor) {
+      super(streetAddress, insuranceProvider);
+      this.floor = floor;
+      return;
+    }
+
+    @Override
+    public final Info<? extends Loft> introspect() {
+      return super.introspect().superCast(Building.class).build().type(Loft.class).attr(Integer.class, false, "Floor", 0, floor).build();
+    }
+
+  } // Loft
+
+  public static class Agent implements Introspectable {
+    protected final String name;
+    protected final House primaryHouse;
+    protected final @Nullable House secondaryHouse;
+    protected final List<Building> listings = new ArrayList<>();
+    protected final List<@Nullable String> nicknames = new ArrayList<>();
+
+    public Agent(final String name, final House primaryHouse, final @Nullable House secondaryHouse) {
+      this.name = name;
+      this.primaryHouse = primaryHouse;
+      this.secondaryHouse = secondaryHouse;
+      return;
+    }
+
+    @Override
+    public Info<? extends Agent> introspect() {
+      return new Info.Builder<Agent>(Agent.class, TEST_NS_URI, false).attr("Name", name).complexChild(House.class, false, "PrimaryHouse", primaryHouse).complexChild(House.class, false, "SecondaryHouse", secondaryHouse).complexChild(Building.class, true, "Listings", "Listing", listings).primitiveChild(String.class, false, "Nicknames", "Nickname", nicknames).build();
+    }
+
+  } // Agent
+
+  public static class Broker implements Introspectable {
+    protected final Map<Integer,Agent> agents = new LinkedHashMap<>();
+
+    public Broker() {
+      return;
+    }
+
+    @Override
+    public Info<? extends Broker> introspect() {
+      return new Info.Builder<Broker>(Broker.class, TEST_NS_URI, false).complexChild(Integer.class, false, "EmployeeNumber", Agent.class, false, "Agents", "Agent", agents).build();
+    }
+
+  } // Broker
+
+  public static class Portfolio implements Introspectable {
+    protected final List<Building> buildings = new ArrayList<>();
+
+    public Portfolio() {
+      return;
+    }
+
+    @Override
+    public Info<? extends Portfolio> introspect() {
+      return new Info.Builder<Portfolio>(Portfolio.class, TEST_NS_URI, false).complexChild(Building.class, true, "Buildings", "Building", buildings).build();
+    }
+
+  } // Portfolio
+
+}
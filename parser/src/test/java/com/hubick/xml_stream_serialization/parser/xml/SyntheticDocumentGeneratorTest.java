@@ -0,0 +1,159 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+
+import javax.xml.namespace.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.junit.jupiter.api.*;
+
+import com.hubick.xml_stream_serialization.introspection.*;
+import com.hubick.xml_stream_serialization.parser.xml.soap.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * JUnit tests for {@link SyntheticDocumentGenerator}.
+ */
+@NonNullByDefault
+public class SyntheticDocumentGeneratorTest {
+  protected static final String TEST_NS = "https://chris.hubick.com/ns/";
+  protected static final SOAPStreamParser<String> TRIP_STREAM_PARSER = SOAPStreamParser.buildSOAP12Schema(URI.create(TEST_NS))
+      .defineSimpleElement("year", Year.class, (ctx, value) -> Year.parse(value), true).defineHeaderElementWithChildBuilder().addChildValueElement("year").completeDefinition()
+      .defineStringElement("destination")
+      .defineSimpleElement("day", MonthDay.class, MonthDay::parse)
+      .defineElementWithChildBuilder("trip", String.class, (ctx) -> ctx.getRequiredChildValue("destination", String.class) + ' ' + ctx.getRequiredChildValue("day", MonthDay.class).atYear(ctx.getRequiredSavedValue("year", Year.class).getValue()), false, false).addChildValueElement("destination").addChildValueElement("day").completeDefinition()
+      .defineContainerElementWithChildBuilder("trips").addChildValueElement("trip").addChildExceptionElement(SOAPStreamParser.SOAP_1_2_FAULT_QNAME).completeDefinition()
+      .defineBodyElement("trips")
+      .defineEnvelopeElement(true).createSOAPParser(String.class, "trips", "trip");
+  protected static final XMLStreamParser<Integer> TREE_STREAM_PARSER = XMLStreamParser.buildSchema(URI.create(TEST_NS))
+      .defineStringElement("name")
+      .defineElementWithChildBuilder("node", Integer.class, (ctx) -> 1 + ctx.getOptionalChildValue("node", Integer.class).orElse(0), false, true).addChildValueElement("name").completeDefinition()
+      .defineContainerElementWithChildBuilder("tree").addChildValueElement("node").completeDefinition()
+      .createXMLParser(Integer.class, "tree", "tree", "node");
+
+  private static byte[] generate(final SyntheticDocumentGenerator generator) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertEquals(generator.writeTo(out), out.size());
+    return out.toByteArray();
+  }
+
+  /**
+   * Test generating a SOAP document, with faults and ignored content, that the parser it was generated for can read,
+   * and that the same seed always generates the same document.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testSOAP() throws Exception {
+    final SyntheticDocumentGenerator generator = new SyntheticDocumentGenerator(TRIP_STREAM_PARSER, 42).withTargetCount(500).withFanOut(3).withAttributeCount(2).withTextLength(4, 16).withIgnoredRatio(0.25).withFaultFrequency(0.1);
+
+    int trips = 0;
+    int faults = 0;
+    try (InputStream inputStream = generator.openStream()) {
+      final Iterator<String> iterator = TRIP_STREAM_PARSER.parse(inputStream);
+      while (iterator.hasNext()) {
+        try {
+          assertFalse(iterator.next().isEmpty());
+          trips++;
+        } catch (XMLStreamParser.RecoverableExceptionElementException reee) {
+          assertEquals("java.lang.IllegalStateException", reee.getCause().getCause().getClass().getName());
+          faults++;
+        }
+      }
+    }
+    assertEquals(500, trips + faults);
+    assertTrue((faults > 20) && (faults < 80), "faults: " + faults);
+
+    final byte[] document = generate(generator);
+    assertArrayEquals(document, generate(generator));
+    assertFalse(Arrays.equals(document, generate(generator.withSeed(43))));
+    final String xml = new String(document, StandardCharsets.UTF_8);
+    assertTrue(xml.contains(SyntheticDocumentGenerator.IGNORED_ELEMENT_NAME.getNamespaceURI()));
+    assertTrue(xml.contains(" a1=\""));
+    return;
+  }
+
+  /**
+   * Test generating recursive elements to a maximum depth, and generating a document up to a maximum size.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testDepthAndSize() throws Exception {
+    final SyntheticDocumentGenerator generator = new SyntheticDocumentGenerator(TREE_STREAM_PARSER, 7).withMaxDepth(5).withTargetCount(Long.MAX_VALUE).withMaxBytes(1024 * 1024);
+
+    final long size = generator.writeTo(OutputStream.nullOutputStream());
+    assertTrue((size >= 1024 * 1024) && (size < 1024 * 1024 + 1024), "size: " + size);
+
+    long count = 0;
+    try (InputStream inputStream = generator.openStream()) {
+      final Iterator<Integer> iterator = TREE_STREAM_PARSER.parse(inputStream);
+      while (iterator.hasNext()) {
+        assertEquals(Integer.valueOf(6), iterator.next());
+        count++;
+      }
+    }
+    assertTrue(count > 1000, "count: " + count);
+
+    assertThrows(IllegalArgumentException.class, () -> generator.withFanOut(0));
+    assertThrows(IllegalArgumentException.class, () -> generator.withTextLength(8, 4));
+    assertThrows(IllegalArgumentException.class, () -> generator.withIgnoredRatio(1.5));
+    return;
+  }
+
+  /**
+   * Test generating documents for an {@link Introspectable} type, and that they only draw extension values from the
+   * schemas which had been derived when the generator was created.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testIntrospectable() throws Exception {
+    IntrospectionSchema.of(IntrospectionSchemaTest.createBroker().introspect()); // Derive the schemas for the listing types.
+    final SyntheticDocumentGenerator generator = SyntheticDocumentGenerator.forType(IntrospectionSchemaTest.Broker.class, new QName(TEST_NS, "brokers"), 11).withTargetCount(50).withFanOut(2).withMaxDepth(3).withAttributeCount(1);
+
+    final List<Introspectable.Info<IntrospectionSchemaTest.Broker>> brokers = new ArrayList<>();
+    try (InputStream inputStream = generator.openStream()) {
+      IntrospectionSchema.of(IntrospectionSchemaTest.Broker.class).createXMLParser(new QName(TEST_NS, "brokers")).parse(inputStream).forEachRemaining(brokers::add);
+    }
+    assertEquals(50, brokers.size());
+    assertTrue(brokers.get(0).toXMLString().contains("<Agent "));
+    final byte[] document = generate(generator);
+    assertArrayEquals(document, generate(generator));
+
+    IntrospectionSchema.of(new Penthouse(new IntrospectionSchemaTest.StreetAddress("Main St", 1), null).introspect());
+    assertArrayEquals(document, generate(generator));
+    assertTrue(new String(generate(SyntheticDocumentGenerator.forType(IntrospectionSchemaTest.Broker.class, new QName(TEST_NS, "brokers"), 11).withTargetCount(50).withFanOut(2).withMaxDepth(3)), StandardCharsets.UTF_8).contains("<Penthouse"));
+    return;
+  }
+
+  public static final class Penthouse extends IntrospectionSchemaTest.Building {
+
+    public Penthouse(final IntrospectionSchemaTest.StreetAddress streetAddress, final @Nullable String insuranceProvider) {
+      super(streetAddress, insuranceProvider);
+      return;
+    }
+
+    @Override
+    public Introspectable.Info<? extends Penthouse> introspect() {
+      return super.introspect().superCast(IntrospectionSchemaTest.Building.class).build().type(Penthouse.class).build();
+    }
+
+  } // Penthouse
+
+}
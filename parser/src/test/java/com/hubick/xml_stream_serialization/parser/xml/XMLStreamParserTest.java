@@ -0,0 +1,695 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+import javax.xml.stream.*;
+import javax.xml.stream.events.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * JUnit tests for {@link XMLStreamParser}.
+ */
+@NonNullByDefault
+public class XMLStreamParserTest {
+  protected static final XMLStreamParser.SchemaBuilder<?> CATALOG_SCHEMA = XMLStreamParser.buildSchema(URI.create("https://chris.hubick.com/ns/"))
+      .defineStringElement("book")
+      .defineStringElement("author")
+      .defineContainerElementWithChildBuilder("books").addChildValueElement("book").completeDefinition()
+      .defineContainerElementWithChildBuilder("authors").addChildValueElement("author").completeDefinition()
+      .defineContainerElementWithChildBuilder("catalog").addChildValueElement("books").addChildValueElement("authors").completeDefinition()
+      .unmodifiable();
+  protected static final XMLStreamParser<String> BOOK_STREAM_PARSER = CATALOG_SCHEMA.createXMLParser(String.class, "catalog", "books", "book");
+
+  /**
+   * Test routing the values from several different container elements during a single pass over the document.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testRouter() throws Exception {
+    final List<String> books = new ArrayList<>();
+    final List<String> authors = new ArrayList<>();
+    final XMLStreamParser.XMLStreamRouter router = CATALOG_SCHEMA.buildXMLRouter("catalog").addRoute("book", String.class, books::add).addRoute("author", String.class, authors::add).createXMLRouter();
+    router.parse(XMLStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml").openStream());
+    assertEquals(Arrays.asList("Dune", "Emma", "Ulysses"), books);
+    assertEquals(Arrays.asList("Herbert", "Austen"), authors);
+    return;
+  }
+
+  /**
+   * Test pushing values to a handler, including stopping early.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testHandler() throws Exception {
+    final URL testURL = XMLStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml");
+    final List<String> books = new ArrayList<>();
+    assertTrue(BOOK_STREAM_PARSER.parse(testURL.openStream(), books::add));
+    assertEquals(Arrays.asList("Dune", "Emma"), books);
+    books.clear();
+    assertFalse(BOOK_STREAM_PARSER.parse(testURL.openStream(), (book) -> books.add(book) && (books.size() < 1)));
+    assertEquals(Arrays.asList("Dune"), books);
+    return;
+  }
+
+  /**
+   * Test retrieving values as a stream of batches.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testBatches() throws Exception {
+    final URL testURL = XMLStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml");
+    assertEquals(Arrays.asList(Arrays.asList("Dune"), Arrays.asList("Emma")), BOOK_STREAM_PARSER.parse(testURL.openStream()).batches(1).collect(Collectors.toList()));
+    return;
+  }
+
+  /**
+   * Test capturing an element subtree, including content not defined by the schema, and writing it back out.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testCapturedElement() throws Exception {
+    final XMLStreamParser<XMLStreamParser.CapturedElement> parser = XMLStreamParser.buildSchema(URI.create("https://chris.hubick.com/ns/"))
+        .defineCapturedElement("extra")
+        .defineContainerElementWithChildBuilder("catalog").addChildValueElement("extra").completeDefinition()
+        .createXMLParser(XMLStreamParser.CapturedElement.class, "catalog", "catalog", "extra");
+    final String extra = "<extra xmlns:x=\"urn:x\" x:id=\"1\"><x:note>Hi<!--c--></x:note><ignored a=\"b\"></ignored></extra>";
+    final String document = "<catalog xmlns=\"https://chris.hubick.com/ns/\">" + extra + "</catalog>";
+    final XMLStreamParser.CapturedElement captured = parser.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))).next();
+    assertEquals(new javax.xml.namespace.QName("https://chris.hubick.com/ns/", "extra"), captured.getElementName());
+    assertEquals("<extra xmlns:x=\"urn:x\" xmlns=\"https://chris.hubick.com/ns/\" x:id=\"1\"><x:note>Hi<!--c--></x:note><ignored a=\"b\"></ignored></extra>", captured.toXMLString());
+    return;
+  }
+
+  /**
+   * Test transforming some elements while copying the rest of the document through unchanged.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testTransformer() throws Exception {
+    final XMLStreamParser.XMLStreamTransformer transformer = CATALOG_SCHEMA.buildXMLTransformer()
+        .addTransform("book", String.class, (book) -> (streamWriter, parentNamespace) -> {
+          streamWriter.writeStartElement("book");
+          streamWriter.writeCharacters(book.toUpperCase());
+          streamWriter.writeEndElement();
+          return;
+        })
+        .addTransform("authors", StartElement.class, (authors) -> null)
+        .createXMLTransformer();
+    final StringWriter stringWriter = new StringWriter();
+    transformer.transform(XMLStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml").openStream(), XMLOutputFactory.newInstance().createXMLStreamWriter(stringWriter));
+    final String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><catalog xmlns=\"https://chris.hubick.com/ns/\">\n" +
+        "  <books>\n" +
+        "    <book>DUNE</book>\n" +
+        "    <ignored>This element is not part of the schema.</ignored>\n" +
+        "    <book>EMMA</book>\n" +
+        "  </books>\n" +
+        "  \n" +
+        "  <books>\n" +
+        "    <book>ULYSSES</book>\n" +
+        "  </books>\n" +
+        "</catalog>";
+    assertEquals(expected, stringWriter.toString());
+    return;
+  }
+
+  /**
+   * Test following a file which is appended to, and then rotated, while it's being parsed.
+   *
+   * @param tempDir A temporary directory to write the followed file to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  @Timeout(30)
+  public void testFollow(final @TempDir Path tempDir) throws Exception {
+    final Path file = tempDir.resolve("catalog.xml");
+    Files.write(file, "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><book>Dune</book><book>Emma</book>".getBytes(StandardCharsets.UTF_8));
+    final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    try (XMLStreamParser<String>.FollowingTargetValueIterator books = BOOK_STREAM_PARSER.follow(file, Duration.ofMillis(20))) {
+      assertEquals("Dune", books.next());
+      assertEquals("Emma", books.next());
+      executor.schedule(() -> {
+        Files.write(file, "<book>Ulysses</book>".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Files.move(file, tempDir.resolve("catalog.xml.1"));
+        Files.write(file, "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><book>Beloved</book></books></catalog>".getBytes(StandardCharsets.UTF_8));
+        return null;
+      }, 100, TimeUnit.MILLISECONDS);
+      assertEquals("Ulysses", books.next());
+      assertEquals("Beloved", books.next());
+      executor.schedule(books::close, 100, TimeUnit.MILLISECONDS);
+      assertFalse(books.hasNext());
+    } finally {
+      executor.shutdown();
+    }
+    return;
+  }
+
+  /**
+   * Test parsing a sequence of length prefixed, and delimited, documents from a single stream, including recovering
+   * from a malformed document.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testDocuments() throws Exception {
+    final List<String> documents = Arrays.asList(
+        "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><book>Dune</book><book>Emma</book></books></catalog>",
+        "<other/>",
+        "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><book>Bad</book><book>Worse</bok></books></catalog>",
+        "<?xml version=\"1.0\" encoding=\"UTF-8\"?><catalog xmlns=\"https://chris.hubick.com/ns/\"><books><book>Ulysses</book></books></catalog>");
+    final ByteArrayOutputStream framed = new ByteArrayOutputStream();
+    final ByteArrayOutputStream delimited = new ByteArrayOutputStream();
+    final ByteArrayOutputStream crlfDelimited = new ByteArrayOutputStream();
+    for (String document : documents) {
+      final byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+      framed.write(new byte[] { 0, 0, (byte)(bytes.length >> 8), (byte)bytes.length });
+      framed.write(bytes);
+      delimited.write(bytes);
+      delimited.write(0);
+      crlfDelimited.write(bytes);
+      crlfDelimited.write("\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+    final InputStream trickle = new FilterInputStream(new ByteArrayInputStream(crlfDelimited.toByteArray())) {
+
+      @Override
+      public int read(final byte[] b, final int off, final int len) throws IOException {
+        return super.read(b, off, Math.min(len, 1)); // Ensure the delimiter is split across reads.
+      }
+
+    };
+
+    for (FramedInputStream in : Arrays.asList(FramedInputStream.lengthPrefixed(new ByteArrayInputStream(framed.toByteArray())), FramedInputStream.delimited(new ByteArrayInputStream(delimited.toByteArray()), new byte[] { 0 }), FramedInputStream.delimited(trickle, "\r\n\r\n".getBytes(StandardCharsets.US_ASCII)))) {
+      final List<String> books = new ArrayList<>();
+      int errors = 0;
+      try (XMLStreamParser<String>.DocumentsTargetValueIterator values = BOOK_STREAM_PARSER.parseDocuments(in)) {
+        while (true) {
+          try {
+            if (!values.hasNext()) break;
+            books.add(values.next());
+          } catch (XMLStreamParser.ParsingException pe) {
+            errors++;
+          }
+        }
+        assertEquals(4, values.getDocumentCount());
+      }
+      assertEquals(Arrays.asList("Dune", "Emma", "Bad", "Ulysses"), books);
+      assertEquals(1, errors);
+    }
+    return;
+  }
+
+  /**
+   * Create a stream which supplies the given bytes, and then blocks until it's closed.
+   */
+  private static InputStream createStalledStream(final byte[] prefix) {
+    final CountDownLatch closed = new CountDownLatch(1);
+    return new SequenceInputStream(new ByteArrayInputStream(prefix), new InputStream() {
+
+      @Override
+      public int read() throws IOException {
+        try {
+          closed.await();
+        } catch (InterruptedException ie) {
+          throw new InterruptedIOException();
+        }
+        throw new IOException("Stream closed");
+      }
+
+      @Override
+      public void close() {
+        closed.countDown();
+        return;
+      }
+
+    });
+  }
+
+  /**
+   * Assert that closing the supplied stream, from another thread, releases a read blocked waiting for data.
+   */
+  private static void assertCloseReleasesBlockedRead(final InputStream in) throws Exception {
+    final FutureTask<Integer> read = new FutureTask<>(in::read);
+    new Thread(read).start();
+    Thread.sleep(100); // Give the read time to block.
+    assertFalse(read.isDone());
+    in.close();
+    assertTrue(assertThrows(ExecutionException.class, () -> read.get(10, TimeUnit.SECONDS)).getCause() instanceof IOException);
+    return;
+  }
+
+  private static void writeBGZFBlock(final OutputStream out, final byte[] data, final int offset, final int length) throws IOException {
+    final java.util.zip.Deflater deflater = new java.util.zip.Deflater(java.util.zip.Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(data, offset, length);
+    deflater.finish();
+    final byte[] deflated = new byte[length + 64];
+    final int deflatedLength = deflater.deflate(deflated);
+    deflater.end();
+    final java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+    crc.update(data, offset, length);
+    final int blockSize = 18 + deflatedLength + 8 - 1;
+    out.write(new byte[] { 0x1F, (byte)0x8B, 8, 4, 0, 0, 0, 0, 0, (byte)0xFF, 6, 0, 'B', 'C', 2, 0, (byte)blockSize, (byte)(blockSize >> 8) });
+    out.write(deflated, 0, deflatedLength);
+    for (long value : new long[] { crc.getValue(), length }) {
+      out.write(new byte[] { (byte)value, (byte)(value >> 8), (byte)(value >> 16), (byte)(value >> 24) });
+    }
+    return;
+  }
+
+  /**
+   * Test parsing files compressed as a single gzip member, as multiple plain gzip members, and as BGZF blocks.
+   *
+   * @param tempDir A temporary directory to write the compressed files to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  @Timeout(30)
+  public void testCompressedInput(final @TempDir Path tempDir) throws Exception {
+    final byte[] catalog = XMLStreamParserTest.class.getResourceAsStream("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml").readAllBytes();
+    final List<String> expected = Arrays.asList("Dune", "Emma");
+
+    final Path plain = Files.write(tempDir.resolve("catalog.xml"), catalog);
+    final Path gzip = tempDir.resolve("catalog.xml.gz");
+    final Path members = tempDir.resolve("members.xml.gz");
+    final Path bgzf = tempDir.resolve("catalog.xml.bgz");
+    try (OutputStream out = new java.util.zip.GZIPOutputStream(Files.newOutputStream(gzip))) {
+      out.write(catalog);
+    }
+    try (OutputStream out = Files.newOutputStream(members)) {
+      for (int offset = 0; offset < catalog.length; offset += 50) {
+        final java.util.zip.GZIPOutputStream member = new java.util.zip.GZIPOutputStream(out);
+        member.write(catalog, offset, Math.min(50, catalog.length - offset));
+        member.finish();
+      }
+    }
+    try (OutputStream out = Files.newOutputStream(bgzf)) {
+      for (int offset = 0; offset < catalog.length; offset += 20) {
+        writeBGZFBlock(out, catalog, offset, Math.min(20, catalog.length - offset));
+      }
+      writeBGZFBlock(out, new byte[0], 0, 0); // The BGZF end-of-file marker.
+    }
+
+    for (Path file : Arrays.asList(plain, gzip, members, bgzf)) {
+      final List<String> books = new ArrayList<>();
+      BOOK_STREAM_PARSER.parse(file).forEachRemaining(books::add);
+      assertEquals(expected, books, file.toString());
+    }
+    try (DecompressingInputStream in = new DecompressingInputStream(Files.newInputStream(bgzf), 1, ForkJoinPool.commonPool(), null)) {
+      assertEquals(DecompressingInputStream.Format.GZIP, in.getFormat());
+      assertArrayEquals(catalog, in.readAllBytes());
+    }
+
+    final Path zstd = Files.write(tempDir.resolve("catalog.xml.zst"), new byte[] { 0x28, (byte)0xB5, 0x2F, (byte)0xFD, 0 });
+    assertThrows(IOException.class, () -> BOOK_STREAM_PARSER.parse(zstd));
+    try (DecompressingInputStream in = new DecompressingInputStream(Files.newInputStream(zstd), 1, ForkJoinPool.commonPool(), (compressed) -> new ByteArrayInputStream(catalog))) {
+      assertEquals(DecompressingInputStream.Format.ZSTD, in.getFormat());
+      assertArrayEquals(catalog, in.readAllBytes());
+    }
+
+    final byte[] corrupt = Files.readAllBytes(bgzf);
+    corrupt[corrupt.length - 40] ^= 0xFF;
+    assertThrows(IOException.class, () -> new DecompressingInputStream(new ByteArrayInputStream(corrupt)).readAllBytes());
+    final ByteArrayOutputStream oversized = new ByteArrayOutputStream();
+    writeBGZFBlock(oversized, catalog, 0, catalog.length);
+    final byte[] oversizedBlock = oversized.toByteArray();
+    Arrays.fill(oversizedBlock, oversizedBlock.length - 4, oversizedBlock.length, (byte)0xFF);
+    oversizedBlock[oversizedBlock.length - 1] = 0x7F; // An ISIZE trailer claiming the block inflates to 2GiB.
+    assertThrows(IOException.class, () -> new DecompressingInputStream(new ByteArrayInputStream(oversizedBlock)).readAllBytes());
+
+    assertCloseReleasesBlockedRead(new DecompressingInputStream(createStalledStream(Arrays.copyOf(Files.readAllBytes(gzip), 4))));
+    return;
+  }
+
+  /**
+   * Test reading input ahead of the parser, from a slow source.
+   *
+   * @param tempDir A temporary directory to write the test files to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  @Timeout(30)
+  public void testReadAhead(final @TempDir Path tempDir) throws Exception {
+    final byte[] catalog = XMLStreamParserTest.class.getResourceAsStream("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml").readAllBytes();
+    final Path plain = Files.write(tempDir.resolve("catalog.xml"), catalog);
+    final Path gzip = tempDir.resolve("catalog.xml.gz");
+    try (OutputStream out = new java.util.zip.GZIPOutputStream(Files.newOutputStream(gzip))) {
+      out.write(catalog);
+    }
+    for (Path file : Arrays.asList(plain, gzip)) {
+      final List<String> books = new ArrayList<>();
+      BOOK_STREAM_PARSER.parse(file, 2, 64).forEachRemaining(books::add);
+      assertEquals(Arrays.asList("Dune", "Emma"), books, file.toString());
+    }
+
+    final InputStream slow = new FilterInputStream(new ByteArrayInputStream(catalog)) {
+
+      @Override
+      public int read(final byte[] b, final int off, final int len) throws IOException {
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException ie) {
+          throw new InterruptedIOException();
+        }
+        return super.read(b, off, Math.min(len, 16));
+      }
+
+    };
+    try (ReadAheadInputStream in = new ReadAheadInputStream(slow, 2, 7)) {
+      assertArrayEquals(catalog, in.readAllBytes());
+      assertEquals(catalog.length, in.getBytesRead());
+      assertTrue(in.getStallCount() > 0);
+      assertTrue(in.getStallNanos() > 0);
+    }
+
+    final InputStream failing = new SequenceInputStream(new ByteArrayInputStream(catalog), new InputStream() {
+
+      @Override
+      public int read() throws IOException {
+        throw new IOException("Disk went boom.");
+      }
+
+    });
+    try (ReadAheadInputStream in = new ReadAheadInputStream(failing, 1, 64)) {
+      assertEquals("Disk went boom.", assertThrows(IOException.class, () -> in.readAllBytes()).getMessage());
+    }
+    assertThrows(IllegalArgumentException.class, () -> new ReadAheadInputStream(new ByteArrayInputStream(catalog), 0, 64));
+
+    assertCloseReleasesBlockedRead(new ReadAheadInputStream(createStalledStream(new byte[0]), 1, 64));
+    return;
+  }
+
+  /**
+   * Test cancelling a parse explicitly, and by deadline while it's blocked reading a stalled stream.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  @Timeout(30)
+  public void testCancellation() throws Exception {
+    final XMLStreamParser.CancellationToken token = new XMLStreamParser.CancellationToken();
+    final Iterator<String> books = BOOK_STREAM_PARSER.parse(XMLStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml").openStream(), token);
+    assertEquals("Dune", books.next());
+    token.cancel();
+    assertFalse(assertThrows(XMLStreamParser.ParsingCancelledException.class, books::next).isDeadlineExceeded());
+    final CountDownLatch registeredAfterCancel = new CountDownLatch(1);
+    token.register(registeredAfterCancel::countDown);
+    assertEquals(0, registeredAfterCancel.getCount());
+
+    final CountDownLatch closed = new CountDownLatch(1);
+    final InputStream stalled = new SequenceInputStream(new ByteArrayInputStream("<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><book>Dune</book>".getBytes(StandardCharsets.UTF_8)), new InputStream() {
+
+      @Override
+      public int read() throws IOException {
+        try {
+          closed.await();
+        } catch (InterruptedException ie) {
+          throw new InterruptedIOException();
+        }
+        throw new IOException("Stream closed");
+      }
+
+      @Override
+      public void close() {
+        closed.countDown();
+        return;
+      }
+
+    });
+    final List<String> values = new ArrayList<>();
+    assertTrue(assertThrows(XMLStreamParser.ParsingCancelledException.class, () -> BOOK_STREAM_PARSER.parse(stalled, values::add, new XMLStreamParser.CancellationToken(Duration.ofMillis(100)))).isDeadlineExceeded());
+    assertEquals(0, closed.getCount());
+    return;
+  }
+
+  /**
+   * Test that each of the parsing limits is enforced.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testLimits() throws Exception {
+    final URL testURL = XMLStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml");
+    final XMLStreamParser.ParsingLimits limits = XMLStreamParser.ParsingLimits.NONE;
+    assertEquals(XMLStreamParser.ParsingLimits.Limit.DEPTH, assertThrows(XMLStreamParser.ParsingLimitException.class, () -> CATALOG_SCHEMA.setParsingLimits(limits.withMaxDepth(1)).createXMLParser(String.class, "catalog", "books", "book").parse(testURL.openStream()).next()).getLimit());
+    assertEquals(XMLStreamParser.ParsingLimits.Limit.CHARACTERS, assertThrows(XMLStreamParser.ParsingLimitException.class, () -> CATALOG_SCHEMA.setParsingLimits(limits.withMaxCharacters(3)).createXMLParser(String.class, "catalog", "books", "book").parse(testURL.openStream()).next()).getLimit());
+    assertEquals(XMLStreamParser.ParsingLimits.Limit.CHILDREN, assertThrows(XMLStreamParser.ParsingLimitException.class, () -> CATALOG_SCHEMA.setParsingLimits(limits.withMaxChildren(1)).buildXMLRouter("catalog").addRoute("book", String.class, (book) -> {}).createXMLRouter().parse(testURL.openStream())).getLimit());
+    assertEquals(XMLStreamParser.ParsingLimits.Limit.DOCUMENT_BYTES, assertThrows(XMLStreamParser.ParsingLimitException.class, () -> CATALOG_SCHEMA.setParsingLimits(limits.withMaxDocumentBytes(64)).createXMLParser(String.class, "catalog", "books", "book").parse(testURL.openStream())).getLimit());
+    final String document = "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><book lang=\"en\">Dune</book></books></catalog>";
+    assertEquals(XMLStreamParser.ParsingLimits.Limit.ATTRIBUTES, assertThrows(XMLStreamParser.ParsingLimitException.class, () -> CATALOG_SCHEMA.setParsingLimits(limits.withMaxAttributes(0)).createXMLParser(String.class, "catalog", "books", "book").parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))).next()).getLimit());
+    assertEquals("Dune", CATALOG_SCHEMA.setParsingLimits(limits.withMaxDepth(2).withMaxCharacters(4).withMaxAttributes(1).withMaxDocumentBytes(1024)).createXMLParser(String.class, "catalog", "books", "book").parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))).next());
+    final String deepUndefined = "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><unknown><unknown><unknown/></unknown></unknown><book>Dune</book></books></catalog>";
+    assertEquals(XMLStreamParser.ParsingLimits.Limit.DEPTH, assertThrows(XMLStreamParser.ParsingLimitException.class, () -> CATALOG_SCHEMA.setParsingLimits(limits.withMaxDepth(3)).createXMLParser(String.class, "catalog", "books", "book").parse(new ByteArrayInputStream(deepUndefined.getBytes(StandardCharsets.UTF_8))).next()).getLimit());
+    assertEquals("Dune", CATALOG_SCHEMA.setParsingLimits(limits.withMaxDepth(4)).createXMLParser(String.class, "catalog", "books", "book").parse(new ByteArrayInputStream(deepUndefined.getBytes(StandardCharsets.UTF_8))).next());
+    final String attributedUndefined = "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><unknown a=\"1\" b=\"2\"/><book>Dune</book></books></catalog>";
+    assertEquals(XMLStreamParser.ParsingLimits.Limit.ATTRIBUTES, assertThrows(XMLStreamParser.ParsingLimitException.class, () -> CATALOG_SCHEMA.setParsingLimits(limits.withMaxAttributes(1)).createXMLParser(String.class, "catalog", "books", "book").parse(new ByteArrayInputStream(attributedUndefined.getBytes(StandardCharsets.UTF_8))).next()).getLimit());
+    return;
+  }
+
+  /**
+   * Test measuring a parse, and exposing the results through JMX.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testMetrics() throws Exception {
+    final byte[] catalog = XMLStreamParserTest.class.getResourceAsStream("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml").readAllBytes();
+    final InMemoryParsingMetrics metrics = new InMemoryParsingMetrics();
+    final XMLStreamParser<String> parser = CATALOG_SCHEMA.setParsingMetrics(metrics).createXMLParser(String.class, "catalog", "books", "book");
+    assertSame(metrics, parser.getParsingMetrics().get());
+    assertFalse(CATALOG_SCHEMA.getParsingMetrics().isPresent());
+    final List<String> books = new ArrayList<>();
+    parser.parse(new ByteArrayInputStream(catalog)).forEachRemaining(books::add);
+    assertEquals(Arrays.asList("Dune", "Emma"), books);
+
+    final InMemoryParsingMetrics.Snapshot snapshot = metrics.snapshot();
+    final javax.xml.namespace.QName book = new javax.xml.namespace.QName("https://chris.hubick.com/ns/", "book");
+    assertEquals(2, snapshot.getElements().get(book).getParsedCount());
+    assertEquals(1, snapshot.getElements().get(new javax.xml.namespace.QName("https://chris.hubick.com/ns/", "ignored")).getSkippedCount());
+    assertEquals(catalog.length, snapshot.getBytesRead());
+    assertTrue(snapshot.getEventsRead() > 0);
+    assertEquals(2, snapshot.getPeakDepth());
+    assertEquals(1, snapshot.getPeakBufferedChildren()); // The text within each book.
+
+    final InMemoryParsingMetrics capturedMetrics = new InMemoryParsingMetrics();
+    final List<XMLStreamParser.CapturedElement> capturedBooks = new ArrayList<>();
+    XMLStreamParser.buildSchema(URI.create("https://chris.hubick.com/ns/")).setParsingMetrics(capturedMetrics)
+        .defineCapturedElement("book")
+        .defineContainerElementWithChildBuilder("books").addChildValueElement("book").completeDefinition()
+        .defineContainerElementWithChildBuilder("catalog").addChildValueElement("books").completeDefinition()
+        .createXMLParser(XMLStreamParser.CapturedElement.class, "catalog", "books", "book").parse(new ByteArrayInputStream(catalog)).forEachRemaining(capturedBooks::add);
+    assertEquals(2, capturedBooks.size());
+    assertEquals(2, capturedMetrics.snapshot().getElements().get(book).getParsedCount()); // Captured elements are reported too.
+
+    final javax.management.ObjectName objectName = metrics.registerMBean("testMetrics");
+    try {
+      assertEquals(Long.valueOf(catalog.length), java.lang.management.ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "BytesRead"));
+      java.lang.management.ManagementFactory.getPlatformMBeanServer().invoke(objectName, "reset", null, null);
+      assertTrue(metrics.snapshot().getElements().isEmpty());
+    } finally {
+      java.lang.management.ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    }
+    return;
+  }
+
+  /**
+   * Test the Flight Recorder events emitted while parsing.
+   *
+   * @param tempDir A temporary directory to dump the recording to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testFlightRecorderEvents(final @TempDir Path tempDir) throws Exception {
+    final XMLStreamParser<String> parser = CATALOG_SCHEMA.createXMLParser(String.class, "catalog", "books", "book");
+    final Path dump = tempDir.resolve("parse.jfr");
+    try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+      for (String name : Arrays.asList("DocumentParse", "TargetValue", "ElementSkipped")) {
+        recording.enable("com.hubick.xml_stream_serialization." + name).withThreshold(Duration.ZERO);
+      }
+      recording.start();
+      final List<String> books = new ArrayList<>();
+      parser.parse(XMLStreamParserTest.class.getResourceAsStream("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml")).forEachRemaining(books::add);
+      assertEquals(Arrays.asList("Dune", "Emma"), books);
+      final Iterator<String> failing = CATALOG_SCHEMA.setParsingLimits(XMLStreamParser.ParsingLimits.NONE.withMaxCharacters(3)).createXMLParser(String.class, "catalog", "books", "book").parse(XMLStreamParserTest.class.getResourceAsStream("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml"));
+      assertThrows(XMLStreamParser.ParsingLimitException.class, failing::next); // Leaving the reader open.
+      recording.stop();
+      recording.dump(dump);
+    }
+    final Map<String,List<jdk.jfr.consumer.RecordedEvent>> events = jdk.jfr.consumer.RecordingFile.readAllEvents(dump).stream().collect(Collectors.groupingBy((event) -> event.getEventType().getName()));
+    assertEquals(2, events.get("com.hubick.xml_stream_serialization.DocumentParse").size()); // Including the failed one.
+    for (jdk.jfr.consumer.RecordedEvent documentParse : events.get("com.hubick.xml_stream_serialization.DocumentParse")) {
+      assertEquals("{https://chris.hubick.com/ns/}catalog", documentParse.getString("documentElement"));
+      assertTrue(documentParse.getLong("eventCount") > 0);
+    }
+    assertEquals(2, events.get("com.hubick.xml_stream_serialization.TargetValue").size());
+    assertNull(events.get("com.hubick.xml_stream_serialization.TargetValue").get(0).getStackTrace());
+    assertEquals("{https://chris.hubick.com/ns/}ignored", events.get("com.hubick.xml_stream_serialization.ElementSkipped").get(0).getString("elementName"));
+    return;
+  }
+
+  /**
+   * Test spilling child values to disk, reading them back, and never spilling values the codec can't encode.
+   *
+   * @param spillDirectory A temporary directory to spill values to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testChildValueSpill(final @TempDir Path spillDirectory) throws Exception {
+    final Supplier<Long> countSpillFiles = () -> {
+      try (Stream<Path> files = Files.list(spillDirectory)) {
+        return files.filter((file) -> file.getFileName().toString().endsWith(".spill")).count();
+      } catch (IOException ioe) {
+        throw new UncheckedIOException(ioe);
+      }
+    };
+    final XMLStreamParser.ChildValueSpill spill = XMLStreamParser.ChildValueSpill.of(1).withDirectory(spillDirectory);
+    assertEquals(Optional.of(spillDirectory), spill.getDirectory());
+    final List<Long> spillFileCounts = new ArrayList<>();
+    final XMLStreamParser<String> parser = XMLStreamParser.buildSchema(URI.create("https://chris.hubick.com/ns/"))
+        .setChildValueSpill(spill)
+        .defineStringElement("book")
+        .defineElementWithChildBuilder("books", String.class, (ctx) -> {
+          spillFileCounts.add(countSpillFiles.get());
+          return ctx.getChildValues("book", String.class).collect(Collectors.joining(","));
+        }, false, false).addChildValueElement("book").completeDefinition()
+        .defineContainerElementWithChildBuilder("catalog").addChildValueElement("books").completeDefinition()
+        .createXMLParser(String.class, "catalog", "catalog", "books");
+    assertEquals(spill, parser.getChildValueSpill());
+    final List<String> books = new ArrayList<>();
+    parser.parse(XMLStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml").openStream()).forEachRemaining(books::add);
+    assertEquals(Arrays.asList("Dune,Emma", "Ulysses"), books);
+    assertEquals(Arrays.asList(1L, 0L), spillFileCounts); // Only the first "books" element had more than one "book".
+    assertEquals(0L, countSpillFiles.get());
+
+    spillFileCounts.clear();
+    final XMLStreamParser<String> capturingParser = XMLStreamParser.buildSchema(URI.create("https://chris.hubick.com/ns/"))
+        .setChildValueSpill(spill)
+        .defineCapturedElement("book")
+        .defineElementWithChildBuilder("books", String.class, (ctx) -> {
+          spillFileCounts.add(countSpillFiles.get());
+          return ctx.getChildValues("book", XMLStreamParser.CapturedElement.class).map((book) -> book.toXMLString().replaceAll("<[^>]*>", "")).collect(Collectors.joining(","));
+        }, false, false).addChildValueElement("book").completeDefinition()
+        .defineContainerElementWithChildBuilder("catalog").addChildValueElement("books").completeDefinition()
+        .createXMLParser(String.class, "catalog", "catalog", "books");
+    books.clear();
+    capturingParser.parse(XMLStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml").openStream()).forEachRemaining(books::add);
+    assertEquals(Arrays.asList("Dune,Emma", "Ulysses"), books);
+    assertEquals(Arrays.asList(0L, 0L), spillFileCounts); // A CapturedElement isn't Serializable, so is never spilled.
+    return;
+  }
+
+  /**
+   * Test decoding binary content, both to a supplied stream, and to a temporary file.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testBinaryElements() throws Exception {
+    final byte[] data = new byte[100000];
+    new Random(42).nextBytes(data);
+    final StringBuilder hex = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      hex.append(String.format("%02X", data[i]));
+    }
+    final String document = "<attachments xmlns=\"https://chris.hubick.com/ns/\"><blob>" + Base64.getMimeEncoder().encodeToString(data) + "</blob><file>\n" + hex + "\n</file></attachments>";
+    final ByteArrayOutputStream blob = new ByteArrayOutputStream();
+    final XMLStreamParser.SchemaBuilder<?> schema = XMLStreamParser.buildSchema(URI.create("https://chris.hubick.com/ns/"))
+        .defineBinaryElement("blob", XMLStreamParser.BinaryEncoding.BASE64, (ctx) -> blob)
+        .defineBinaryFileElement("file", XMLStreamParser.BinaryEncoding.HEX)
+        .defineContainerElementWithChildBuilder("attachments").addChildValueElement("blob").addChildValueElement("file").completeDefinition();
+    assertEquals(Long.valueOf(data.length), schema.createXMLParser(Long.class, "attachments", "attachments", "blob").parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))).next());
+    assertArrayEquals(data, blob.toByteArray());
+    final Path file = schema.createXMLParser(Path.class, "attachments", "attachments", "file").parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))).next();
+    try {
+      assertArrayEquals(Arrays.copyOf(data, 100), Files.readAllBytes(file));
+    } finally {
+      Files.delete(file);
+    }
+    for (String malformed : Arrays.asList("QUJD+/-_", "QUI==", "QQ=", "QUJD=", "QQ===", "QQ==QQ==")) { // Mixed alphabets, and incorrect padding.
+      final String malformedDocument = "<attachments xmlns=\"https://chris.hubick.com/ns/\"><blob>" + malformed + "</blob></attachments>";
+      assertThrows(XMLStreamParser.ElementValueException.class, () -> schema.createXMLParser(Long.class, "attachments", "attachments", "blob").parse(new ByteArrayInputStream(malformedDocument.getBytes(StandardCharsets.UTF_8))).next(), malformed);
+    }
+    blob.reset();
+    assertEquals(Long.valueOf(2), schema.createXMLParser(Long.class, "attachments", "attachments", "blob").parse(new ByteArrayInputStream("<attachments xmlns=\"https://chris.hubick.com/ns/\"><blob>-_8</blob></attachments>".getBytes(StandardCharsets.UTF_8))).next());
+    assertArrayEquals(Base64.getUrlDecoder().decode("-_8"), blob.toByteArray());
+    return;
+  }
+
+  /**
+   * Test compiling a schema, writing a snapshot of it, and parsing using the schema read back from that snapshot.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testCompiledSchemaSnapshot() throws Exception {
+    final XMLStreamParser.SnapshotRegistry registry = new XMLStreamParser.SnapshotRegistry();
+    final Function<String,Integer> parseYear = registry.register("parseYear", Integer::valueOf);
+    final XMLStreamParser.CompiledSchema schema = XMLStreamParser.buildSchema(URI.create("https://chris.hubick.com/ns/"))
+        .defineSimpleElement("year", Integer.class, parseYear)
+        .defineStringElement("title")
+        .defineElementWithChildBuilder("book", String.class, (XMLStreamParser.SerializableFunction<XMLStreamParser.ElementParsingContext,String>)(ctx) -> ctx.getRequiredChildValue("title", String.class) + " (" + ctx.getRequiredChildValue("year", Integer.class) + ")", false, false).addChildValueElement("title").addChildValueElement("year").completeDefinition()
+        .defineContainerElementWithChildBuilder("books").addChildValueElement("book").completeDefinition()
+        .compile();
+    final String document = "<books xmlns=\"https://chris.hubick.com/ns/\"><book><title>Dune</title><year>1965</year></book><book><title>Emma</title><year>1815</year></book></books>";
+    final ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+    assertThrows(NotSerializableException.class, () -> schema.writeSnapshot(new ByteArrayOutputStream(), null));
+    schema.writeSnapshot(snapshot, registry);
+    assertThrows(InvalidObjectException.class, () -> XMLStreamParser.CompiledSchema.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()), null));
+    final XMLStreamParser.CompiledSchema restored = XMLStreamParser.CompiledSchema.readSnapshot(new ByteArrayInputStream(snapshot.toByteArray()), registry);
+    assertEquals(schema.getElementNames(), restored.getElementNames());
+    final List<String> books = new ArrayList<>();
+    restored.createXMLParser(String.class, "books", "books", "book").parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))).forEachRemaining(books::add);
+    assertEquals(Arrays.asList("Dune (1965)", "Emma (1815)"), books);
+    return;
+  }
+
+  /**
+   * Test that forks of a large schema are independent of each other, and that unmodifiable schemas stay that way.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testSchemaFork() throws Exception {
+    final XMLStreamParser.SchemaBuilder<?> schema = XMLStreamParser.buildSchema(URI.create("https://chris.hubick.com/ns/"));
+    final XMLStreamParser.SchemaBuilder<?>.ChildElementListBuilder container = schema.defineContainerElementWithChildBuilder("items");
+    for (int i = 0; i < 2000; i++) {
+      schema.defineStringElement("item" + i);
+      container.addChildValueElement("item" + i);
+    }
+    container.completeDefinition();
+    final XMLStreamParser.SchemaBuilder<?> unmodifiable = schema.unmodifiable();
+    final XMLStreamParser.SchemaBuilder<?> fork = unmodifiable.fork().defineStringElement("extra");
+    assertThrows(UnsupportedOperationException.class, () -> unmodifiable.defineStringElement("extra"));
+    assertEquals(2001, unmodifiable.compile().getElementNames().size());
+    assertEquals(2002, fork.compile().getElementNames().size());
+    assertThrows(NoSuchElementException.class, () -> schema.createXMLParser(String.class, "items", "items", "extra"));
+    assertEquals("Dune", fork.createXMLParser(String.class, "items", "items", "item1999").parse(new ByteArrayInputStream("<items xmlns=\"https://chris.hubick.com/ns/\"><item1999>Dune</item1999></items>".getBytes(StandardCharsets.UTF_8))).next());
+    return;
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * JUnit tests for {@link XMLStreamParsingService}.
+ */
+@NonNullByDefault
+public class XMLStreamParsingServiceTest {
+
+  private static Path writeCatalog(final Path dir, final String name, final @NonNull String... books) throws IOException {
+    final String xml = "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books>" + Stream.of(books).map((book) -> "<book>" + book + "</book>").collect(Collectors.joining()) + "</books></catalog>";
+    return Files.write(dir.resolve(name), xml.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Test parsing several files, including a broken one, with ordered results.
+   *
+   * @param tempDir A temporary directory to write the test files to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testOrderedWithFailure(final @TempDir Path tempDir) throws Exception {
+    final List<Path> files = Arrays.asList(writeCatalog(tempDir, "a.xml", "Dune", "Emma"), Files.write(tempDir.resolve("broken.xml"), "<catalog xmlns=\"https://chris.hubick.com/ns/\"><books><book>".getBytes(StandardCharsets.UTF_8)), writeCatalog(tempDir, "c.xml", "Ulysses"));
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (XMLStreamParsingService<String>.ParsingJob job = new XMLStreamParsingService<>(XMLStreamParserTest.BOOK_STREAM_PARSER, executor).parse(files, true)) {
+      final List<XMLStreamParsingService.FileResult<String>> results = new ArrayList<>();
+      job.forEachRemaining(results::add);
+      assertEquals("[Dune, Emma, FAILURE, Ulysses]", results.stream().map((result) -> result.isFailure() ? "FAILURE" : result.getValue().get()).collect(Collectors.toList()).toString());
+      assertEquals(1, results.get(2).getFileIndex());
+      assertEquals(3, job.getFilesCompleted());
+      assertEquals(1, job.getFilesFailed());
+      assertEquals(3, job.getValueCount());
+      assertEquals(job.getBytesTotal(), job.getBytesCompleted());
+    } finally {
+      executor.shutdown();
+    }
+    return;
+  }
+
+  /**
+   * Test parsing many files with unordered results.
+   *
+   * @param tempDir A temporary directory to write the test files to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testUnordered(final @TempDir Path tempDir) throws Exception {
+    final List<Path> files = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      files.add(writeCatalog(tempDir, i + ".xml", IntStream.range(0, i + 1).mapToObj((j) -> "book" + j).toArray(String[]::new)));
+    }
+    final ForkJoinPool executor = new ForkJoinPool(4);
+    try (XMLStreamParsingService<String>.ParsingJob job = new XMLStreamParsingService<>(XMLStreamParserTest.BOOK_STREAM_PARSER, executor, 8).parse(files, false)) {
+      int count = 0;
+      while (job.hasNext()) {
+        assertFalse(job.next().isFailure());
+        count++;
+      }
+      assertEquals(210, count);
+      assertTrue(job.isDone());
+    } finally {
+      executor.shutdown();
+    }
+    return;
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.parser.xml;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * JUnit tests for {@link XMLStreamSharder}.
+ */
+@NonNullByDefault
+public class XMLStreamSharderTest {
+
+  private static List<String> parse(final Path file) throws Exception {
+    final List<String> books = new ArrayList<>();
+    XMLStreamParserTest.CATALOG_SCHEMA.buildXMLRouter("catalog").addRoute("book", String.class, books::add).createXMLRouter().parse(Files.newInputStream(file));
+    return books;
+  }
+
+  /**
+   * Test splitting a document into shards by value count, and by size.
+   *
+   * @param tempDir A temporary directory to write the shards to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testShard(final @TempDir Path tempDir) throws Exception {
+    final Path catalog = tempDir.resolve("catalog.xml");
+    Files.copy(XMLStreamSharderTest.class.getResourceAsStream("/com/hubick/xml_stream_serialization/parser/xml/catalog.xml"), catalog);
+
+    final List<Path> shards = new XMLStreamSharder(XMLStreamParserTest.BOOK_STREAM_PARSER, 1, Long.MAX_VALUE).shard(catalog, tempDir, "count-");
+    assertEquals(3, shards.size());
+    assertEquals(Arrays.asList(Arrays.asList("Dune"), Arrays.asList("Emma"), Arrays.asList("Ulysses")), shards.stream().map((shard) -> {
+      try {
+        return parse(shard);
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    }).collect(Collectors.toList()));
+    assertTrue(new String(Files.readAllBytes(shards.get(1))).contains("<author>Austen</author>"));
+
+    final List<Path> whole = new XMLStreamSharder(XMLStreamParserTest.BOOK_STREAM_PARSER, Long.MAX_VALUE, Long.MAX_VALUE).shard(catalog, tempDir, "whole-");
+    assertEquals(1, whole.size());
+    assertEquals(Arrays.asList("Dune", "Emma", "Ulysses"), parse(whole.get(0)));
+
+    final long budget = Files.size(shards.get(0)) + 1; // Until it's closing tags are written, a shard holding only Dune is still under this, so Emma joins it.
+    final List<Path> sized = new XMLStreamSharder(XMLStreamParserTest.BOOK_STREAM_PARSER, Long.MAX_VALUE, budget).shard(catalog, tempDir, "bytes-");
+    assertEquals(2, sized.size());
+    assertEquals(Arrays.asList(Arrays.asList("Dune", "Emma"), Arrays.asList("Ulysses")), Arrays.asList(parse(sized.get(0)), parse(sized.get(1))));
+    for (Path shard : sized) {
+      assertTrue(Files.size(shard) < budget * 2, shard + ": " + Files.size(shard));
+    }
+
+    final List<Path> tiny = new XMLStreamSharder(XMLStreamParserTest.BOOK_STREAM_PARSER, Long.MAX_VALUE, 1).shard(catalog, tempDir, "tiny-"); // Every shard still gets one value.
+    assertEquals(3, tiny.size());
+    assertEquals(Arrays.asList(Arrays.asList("Dune"), Arrays.asList("Emma"), Arrays.asList("Ulysses")), Arrays.asList(parse(tiny.get(0)), parse(tiny.get(1)), parse(tiny.get(2))));
+    return;
+  }
+
+}
@@ -10,6 +10,7 @@ package com.hubick.xml_stream_serialization.parser.xml.soap;
 
 import java.beans.*;
 import java.net.*;
+import java.nio.file.*;
 import java.time.*;
 import java.util.*;
 import java.util.stream.*;
@@ -19,6 +20,7 @@ import javax.xml.ws.soap.*;
 import org.eclipse.jdt.annotation.*;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -127,6 +129,73 @@ public class SOAPStreamParserTest {
     return;
   }
 
+  /**
+   * Test the Flight Recorder event emitted for a local fault.
+   * 
+   * @param tempDir A temporary directory to dump the recording to.
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testLocalFaultFlightRecorderEvent(final @TempDir Path tempDir) throws Exception {
+    final URL testURL = SOAPStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/soap/departures_local_fault.xml");
+    final Path dump = tempDir.resolve("fault.jfr");
+    try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+      recording.enable("com.hubick.xml_stream_serialization.ExceptionElement");
+      recording.start();
+      final List<String> departures = new ArrayList<>();
+      final Iterator<Departure> iterator = DEPARTURE_STREAM_PARSER.parse(testURL.openStream());
+      while (iterator.hasNext()) {
+        try {
+          departures.add(iterator.next().toString());
+        } catch (SOAPStreamParser.RecoverableExceptionElementException reee) {}
+      }
+      assertEquals(Arrays.asList("Canada[2001-01-01]", "USA[2001-02-01]", "Australia[2001-03-01]"), departures);
+      recording.stop();
+      recording.dump(dump);
+    }
+    final List<jdk.jfr.consumer.RecordedEvent> events = jdk.jfr.consumer.RecordingFile.readAllEvents(dump).stream().filter((event) -> event.getEventType().getName().equals("com.hubick.xml_stream_serialization.ExceptionElement")).collect(Collectors.toList());
+    assertEquals(1, events.size());
+    assertEquals(SOAPStreamParser.SOAP_1_2_FAULT_QNAME.toString(), events.get(0).getString("elementName"));
+    assertEquals(SOAPFaultException.class.getName(), events.get(0).getClass("exceptionClass").getName());
+    assertEquals("Invalid departure record.", events.get(0).getString("message"));
+    return;
+  }
+
+  /**
+   * Test local fault recovery while retrieving values in batches.
+   * 
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testLocalFaultBatchRecovery() throws Exception {
+    final URL testURL = SOAPStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/soap/departures_local_fault.xml");
+    final SOAPStreamParser.TargetValueIterator<Departure> departures = DEPARTURE_STREAM_PARSER.parse(testURL.openStream());
+    assertEquals("[Canada[2001-01-01], USA[2001-02-01]]", departures.nextBatch(10).toString());
+    assertThrows(SOAPStreamParser.RecoverableExceptionElementException.class, () -> departures.nextBatch(10));
+    assertEquals("[Australia[2001-03-01]]", departures.nextBatch(10).toString());
+    assertTrue(departures.nextBatch(10).isEmpty());
+    return;
+  }
+
+  /**
+   * Test lazily parsing target values, where only some of them are ever constructed.
+   * 
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testLazy() throws Exception {
+    final URL testURL = SOAPStreamParserTest.class.getResource("/com/hubick/xml_stream_serialization/parser/xml/soap/departures_ignore_extra.xml");
+    final List<SOAPStreamParser.LazyTargetValue<Departure>> departures = DEPARTURE_STREAM_PARSER.parseLazily(testURL.openStream()).nextBatch(10);
+    assertEquals(3, departures.size());
+    assertEquals("departure", departures.get(1).getElementName().getLocalPart());
+    assertFalse(departures.get(1).isParsed());
+    assertEquals("USA[2001-02-01]", departures.get(1).get().toString());
+    assertTrue(departures.get(1).isParsed());
+    assertFalse(departures.get(0).isParsed());
+    assertEquals("Canada[2001-01-01]", departures.get(0).get().toString());
+    return;
+  }
+
   /**
    * An example data model class representing a departure.
    */
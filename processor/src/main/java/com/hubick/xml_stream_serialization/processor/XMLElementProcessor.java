@@ -0,0 +1,311 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.processor;
+
+import java.io.*;
+import java.util.*;
+
+import javax.annotation.processing.*;
+import javax.lang.model.*;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.*;
+import javax.tools.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import com.hubick.xml_stream_serialization.parser.xml.annotation.*;
+
+
+/**
+ * <p>
+ * An annotation processor which generates an
+ * {@linkplain com.hubick.xml_stream_serialization.parser.xml.XMLStreamParser.GeneratedElementParser element parser}
+ * for each class annotated with {@link XMLElement}.
+ * </p>
+ *
+ * <p>
+ * The generated parser dispatches on the names of the expected children using a straight-line <code>switch</code>,
+ * assigns the annotated fields of the target directly, converts simple values inline, and calls the generated parsers
+ * for any nested {@link XMLElement} classes directly, so that the whole tree can be inlined by the JIT, with none of the
+ * functions, contexts, or reflective injection used by elements
+ * {@linkplain com.hubick.xml_stream_serialization.parser.xml.XMLStreamParser.SchemaBuilder defined} at runtime.
+ * Unexpected attributes are ignored, and unexpected child elements skipped.
+ * </p>
+ *
+ * <p>
+ * The processor is registered as a service, and will be run automatically by <code>javac</code> when this artifact is
+ * on the compilation class path (or annotation processor path).
+ * </p>
+ */
+@NonNullByDefault
+@SupportedAnnotationTypes("com.hubick.xml_stream_serialization.parser.xml.annotation.XMLElement")
+public class XMLElementProcessor extends AbstractProcessor {
+  /**
+   * The suffix appended to the name of an annotated class in order to name it's generated parser class.
+   */
+  public static final String PARSER_CLASS_SUFFIX = "_ElementParser";
+  private static final String GENERATED_ELEMENT_PARSER = "com.hubick.xml_stream_serialization.parser.xml.XMLStreamParser.GeneratedElementParser";
+  private static final Map<String,String> CONVERSIONS;
+  static {
+    final Map<String,String> conversions = new HashMap<>();
+    conversions.put("java.lang.String", "%s");
+    conversions.put("int", "java.lang.Integer.parseInt(%s.trim())");
+    conversions.put("java.lang.Integer", "java.lang.Integer.valueOf(%s.trim())");
+    conversions.put("long", "java.lang.Long.parseLong(%s.trim())");
+    conversions.put("java.lang.Long", "java.lang.Long.valueOf(%s.trim())");
+    conversions.put("short", "java.lang.Short.parseShort(%s.trim())");
+    conversions.put("java.lang.Short", "java.lang.Short.valueOf(%s.trim())");
+    conversions.put("byte", "java.lang.Byte.parseByte(%s.trim())");
+    conversions.put("java.lang.Byte", "java.lang.Byte.valueOf(%s.trim())");
+    conversions.put("double", "java.lang.Double.parseDouble(%s.trim())");
+    conversions.put("java.lang.Double", "java.lang.Double.valueOf(%s.trim())");
+    conversions.put("float", "java.lang.Float.parseFloat(%s.trim())");
+    conversions.put("java.lang.Float", "java.lang.Float.valueOf(%s.trim())");
+    conversions.put("boolean", GENERATED_ELEMENT_PARSER + ".parseBoolean(%s)");
+    conversions.put("java.lang.Boolean", "java.lang.Boolean.valueOf(" + GENERATED_ELEMENT_PARSER + ".parseBoolean(%s))");
+    conversions.put("java.math.BigDecimal", "new java.math.BigDecimal(%s.trim())");
+    conversions.put("java.math.BigInteger", "new java.math.BigInteger(%s.trim())");
+    CONVERSIONS = Collections.unmodifiableMap(conversions);
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+    for (Element element : roundEnv.getElementsAnnotatedWith(XMLElement.class)) {
+      try {
+        if (element.getKind() != ElementKind.CLASS) throw new InvalidElementException("@XMLElement can only be applied to a class", element);
+        generate((TypeElement)element);
+      } catch (InvalidElementException iee) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, iee.getMessage(), iee.getElement());
+      } catch (IOException ioe) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write parser: " + ioe, element);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * An exception reporting a problem with an annotated element.
+   */
+  protected static class InvalidElementException extends Exception {
+    private static final long serialVersionUID = 1L;
+    protected final Element element;
+
+    public InvalidElementException(final String message, final Element element) {
+      super(message);
+      this.element = element;
+      return;
+    }
+
+    public Element getElement() {
+      return element;
+    }
+
+  } // InvalidElementException
+
+  /**
+   * Get the name of the package containing the given class.
+   */
+  protected String getPackageName(final TypeElement typeElement) {
+    return processingEnv.getElementUtils().getPackageOf(typeElement).getQualifiedName().toString();
+  }
+
+  /**
+   * Get the fully qualified name of the parser class generated for the given class.
+   */
+  protected String getParserClassName(final TypeElement typeElement) {
+    final String packageName = getPackageName(typeElement);
+    final String qualifiedName = typeElement.getQualifiedName().toString();
+    final String simpleName = (packageName.isEmpty() ? qualifiedName : qualifiedName.substring(packageName.length() + 1)).replace('.', '_') + PARSER_CLASS_SUFFIX;
+    return packageName.isEmpty() ? simpleName : packageName + '.' + simpleName;
+  }
+
+  protected static String literal(final String value) {
+    final StringBuilder literal = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if ((c == '"') || (c == '\\')) {
+        literal.append('\\').append(c);
+      } else if ((c < ' ') || (c > '~')) {
+        literal.append(String.format("\\u%04x", (int)c));
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.append('"').toString();
+  }
+
+  /**
+   * Get the {@link TypeElement} for the given type, if it's a class annotated with {@link XMLElement}.
+   */
+  protected @Nullable TypeElement getXMLElementType(final TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) return null;
+    final TypeElement typeElement = (TypeElement)((DeclaredType)type).asElement();
+    return (typeElement.getAnnotation(XMLElement.class) != null) ? typeElement : null;
+  }
+
+  /**
+   * Get the element type, if the given type is a {@link List} (or {@link Collection}, or {@link ArrayList}).
+   */
+  protected @Nullable TypeMirror getListElementType(final TypeMirror type) {
+    if (type.getKind() != TypeKind.DECLARED) return null;
+    final DeclaredType declaredType = (DeclaredType)type;
+    final String name = ((TypeElement)declaredType.asElement()).getQualifiedName().toString();
+    if ((!name.equals("java.util.List")) && (!name.equals("java.util.Collection")) && (!name.equals("java.util.ArrayList"))) return null;
+    if (declaredType.getTypeArguments().size() != 1) return null;
+    final TypeMirror elementType = declaredType.getTypeArguments().get(0);
+    return (elementType.getKind() == TypeKind.WILDCARD) ? ((WildcardType)elementType).getExtendsBound() : elementType;
+  }
+
+  /**
+   * Get an expression converting the <code>valueExpression</code> string to the given type.
+   */
+  protected @Nullable String getConversion(final TypeMirror type, final String valueExpression) {
+    if (type.getKind() == TypeKind.DECLARED) {
+      final TypeElement typeElement = (TypeElement)((DeclaredType)type).asElement();
+      if (typeElement.getKind() == ElementKind.ENUM) return typeElement.getQualifiedName() + ".valueOf(" + valueExpression + ".trim())";
+      final @Nullable String conversion = CONVERSIONS.get(typeElement.getQualifiedName().toString());
+      return (conversion != null) ? String.format(conversion, valueExpression) : null;
+    }
+    final @Nullable String conversion = CONVERSIONS.get(type.toString());
+    return (conversion != null) ? String.format(conversion, valueExpression) : null;
+  }
+
+  /**
+   * Get an expression reading the current child element's content as the given type.
+   */
+  protected String getChildValue(final VariableElement field, final TypeMirror type) throws InvalidElementException {
+    final @Nullable TypeElement elementType = getXMLElementType(type);
+    if (elementType != null) return getParserClassName(elementType) + ".readElement(child, reader)";
+    final @Nullable String conversion = getConversion(type, "reader.getElementText()");
+    if (conversion == null) throw new InvalidElementException("Unsupported @XMLChild type '" + type + "'", field);
+    return conversion;
+  }
+
+  protected void checkAccessible(final Element element, final String description) throws InvalidElementException {
+    if (element.getModifiers().contains(Modifier.PRIVATE)) throw new InvalidElementException(description + " can't be private", element);
+    return;
+  }
+
+  protected void generate(final TypeElement typeElement) throws InvalidElementException, IOException {
+    final XMLElement xmlElement = Objects.requireNonNull(typeElement.getAnnotation(XMLElement.class));
+    checkAccessible(typeElement, "@XMLElement class");
+    if (typeElement.getModifiers().contains(Modifier.ABSTRACT)) throw new InvalidElementException("@XMLElement class can't be abstract", typeElement);
+    if ((typeElement.getNestingKind() == NestingKind.MEMBER) && (!typeElement.getModifiers().contains(Modifier.STATIC))) throw new InvalidElementException("@XMLElement class must be static", typeElement);
+    if ((typeElement.getNestingKind() == NestingKind.LOCAL) || (typeElement.getNestingKind() == NestingKind.ANONYMOUS)) throw new InvalidElementException("@XMLElement class must be a top level or static member class", typeElement);
+    final List<ExecutableElement> constructors = ElementFilter.constructorsIn(typeElement.getEnclosedElements());
+    if (constructors.stream().noneMatch((constructor) -> (constructor.getParameters().isEmpty()) && (!constructor.getModifiers().contains(Modifier.PRIVATE)))) throw new InvalidElementException("@XMLElement class requires a non-private no-argument constructor", typeElement);
+
+    final String className = typeElement.getQualifiedName().toString();
+    final String localName = xmlElement.name().isEmpty() ? Character.toLowerCase(typeElement.getSimpleName().charAt(0)) + typeElement.getSimpleName().toString().substring(1) : xmlElement.name();
+    final String parserClassName = getParserClassName(typeElement);
+    final String packageName = getPackageName(typeElement);
+    final String parserSimpleName = packageName.isEmpty() ? parserClassName : parserClassName.substring(packageName.length() + 1);
+
+    final Map<String,String> attributes = new LinkedHashMap<>(); // attribute name -> assignment statement
+    final Map<String,String> children = new LinkedHashMap<>(); // child name -> statements
+    for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+      final @Nullable XMLAttribute xmlAttribute = field.getAnnotation(XMLAttribute.class);
+      final @Nullable XMLChild xmlChild = field.getAnnotation(XMLChild.class);
+      if ((xmlAttribute == null) && (xmlChild == null)) continue;
+      if ((xmlAttribute != null) && (xmlChild != null)) throw new InvalidElementException("Field can't be both an @XMLAttribute and an @XMLChild", field);
+      checkAccessible(field, "Annotated field");
+      if (field.getModifiers().contains(Modifier.FINAL)) throw new InvalidElementException("Annotated field can't be final", field);
+      if (field.getModifiers().contains(Modifier.STATIC)) throw new InvalidElementException("Annotated field can't be static", field);
+      final String fieldName = field.getSimpleName().toString();
+      final TypeMirror fieldType = field.asType();
+      if (xmlAttribute != null) {
+        final String attributeName = xmlAttribute.name().isEmpty() ? fieldName : xmlAttribute.name();
+        final @Nullable String conversion = getConversion(fieldType, "attribute.getValue()");
+        if (conversion == null) throw new InvalidElementException("Unsupported @XMLAttribute type '" + fieldType + "'", field);
+        if (attributes.containsKey(attributeName)) throw new InvalidElementException("Duplicate @XMLAttribute '" + attributeName + "'", field);
+        attributes.put(attributeName, "target." + fieldName + " = " + conversion + ";");
+      } else {
+        final String childName = Objects.requireNonNull(xmlChild).name().isEmpty() ? fieldName : xmlChild.name();
+        if (children.containsKey(childName)) throw new InvalidElementException("Duplicate @XMLChild '" + childName + "'", field);
+        final @Nullable TypeMirror listElementType = getListElementType(fieldType);
+        if (listElementType != null) {
+          children.put(childName, "if (target." + fieldName + " == null) target." + fieldName + " = new java.util.ArrayList<>();\n          target." + fieldName + ".add(" + getChildValue(field, listElementType) + ");");
+        } else {
+          children.put(childName, "target." + fieldName + " = " + getChildValue(field, fieldType) + ";");
+        }
+      }
+    }
+
+    final JavaFileObject sourceFile = processingEnv.getFiler().createSourceFile(parserClassName, typeElement);
+    try (PrintWriter out = new PrintWriter(sourceFile.openWriter())) {
+      if (!packageName.isEmpty()) out.println("package " + packageName + ";");
+      out.println();
+      out.println("/**");
+      out.println(" * The element parser generated for {@link " + className + "}.");
+      out.println(" */");
+      out.println("public final class " + parserSimpleName + " extends " + GENERATED_ELEMENT_PARSER + "<" + className + "> {");
+      out.println("  private static final long serialVersionUID = 1L;");
+      out.println("  public static final String NAMESPACE = " + literal(xmlElement.namespace()) + ";");
+      out.println("  public static final javax.xml.namespace.QName ELEMENT_NAME = new javax.xml.namespace.QName(NAMESPACE, " + literal(localName) + ");");
+      out.println("  public static final " + parserSimpleName + " INSTANCE = new " + parserSimpleName + "(false);");
+      int attributeIndex = 0;
+      for (String attributeName : attributes.keySet()) {
+        out.println("  private static final javax.xml.namespace.QName ATTRIBUTE_" + attributeIndex++ + " = new javax.xml.namespace.QName(" + literal(attributeName) + ");");
+      }
+      out.println();
+      out.println("  public " + parserSimpleName + "(final boolean saveTargetValue) {");
+      out.println("    super(" + className + ".class, ELEMENT_NAME, saveTargetValue);");
+      out.println("    return;");
+      out.println("  }");
+      out.println();
+      out.println("  public static " + className + " readElement(final javax.xml.stream.events.StartElement startElement, final javax.xml.stream.XMLEventReader reader) throws javax.xml.stream.XMLStreamException {");
+      out.println("    final " + className + " target = new " + className + "();");
+      if (!attributes.isEmpty()) out.println("    javax.xml.stream.events.Attribute attribute;");
+      attributeIndex = 0;
+      for (String assignment : attributes.values()) {
+        out.println("    attribute = startElement.getAttributeByName(ATTRIBUTE_" + attributeIndex++ + ");");
+        out.println("    if (attribute != null) " + assignment);
+      }
+      out.println("    while (true) {");
+      out.println("      final javax.xml.stream.events.XMLEvent event = reader.nextEvent();");
+      out.println("      if (event.isEndElement()) return target;");
+      out.println("      if (!event.isStartElement()) continue;");
+      out.println("      final javax.xml.stream.events.StartElement child = event.asStartElement();");
+      out.println("      if (!NAMESPACE.equals(child.getName().getNamespaceURI())) {");
+      out.println("        skip(reader);");
+      out.println("        continue;");
+      out.println("      }");
+      out.println("      switch (child.getName().getLocalPart()) {");
+      for (Map.Entry<String,String> entry : children.entrySet()) {
+        out.println("        case " + literal(entry.getKey()) + ":");
+        out.println("          " + entry.getValue());
+        out.println("          break;");
+      }
+      out.println("        default:");
+      out.println("          skip(reader);");
+      out.println("          break;");
+      out.println("      }");
+      out.println("    }");
+      out.println("  }");
+      out.println();
+      out.println("  @Override");
+      out.println("  protected " + className + " read(final javax.xml.stream.events.StartElement startElement, final javax.xml.stream.XMLEventReader reader) throws javax.xml.stream.XMLStreamException {");
+      out.println("    return readElement(startElement, reader);");
+      out.println("  }");
+      out.println();
+      out.println("  private Object readResolve() {");
+      out.println("    return saveTargetValue ? this : INSTANCE;");
+      out.println("  }");
+      out.println();
+      out.println("}");
+    }
+    return;
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.processor;
+
+import java.io.*;
+import java.math.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import org.junit.jupiter.api.*;
+
+import com.hubick.xml_stream_serialization.parser.xml.*;
+import com.hubick.xml_stream_serialization.parser.xml.annotation.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * JUnit tests for {@link XMLElementProcessor}.
+ */
+@NonNullByDefault
+public class XMLElementProcessorTest {
+  protected static final String NAMESPACE = "https://chris.hubick.com/ns/";
+
+  public static enum Format {
+    HARDCOVER, PAPERBACK
+  } // Format
+
+  @XMLElement(namespace = NAMESPACE)
+  public static class Author {
+    @XMLAttribute
+    @Nullable
+    String name;
+  } // Author
+
+  @XMLElement(namespace = NAMESPACE)
+  public static class Book {
+    @XMLAttribute
+    int id;
+    @XMLAttribute(name = "in-print")
+    boolean inPrint;
+    @XMLChild
+    @Nullable
+    String title;
+    @XMLChild
+    @Nullable
+    Integer year;
+    @XMLChild
+    @Nullable
+    BigDecimal price;
+    @XMLChild
+    @Nullable
+    Format format;
+    @XMLChild(name = "author")
+    @Nullable
+    List<Author> authors;
+  } // Book
+
+  /**
+   * Test parsing using the generated parsers.
+   *
+   * @throws Exception If there was a problem executing this test.
+   */
+  @Test
+  public void testGeneratedParser() throws Exception {
+    final XMLStreamParser<Book> parser = XMLStreamParser.buildSchema(URI.create(NAMESPACE))
+        .defineGeneratedElement(XMLElementProcessorTest_Book_ElementParser.INSTANCE)
+        .defineContainerElementWithChildBuilder("books").addChildValueElement("book").completeDefinition()
+        .createXMLParser(Book.class, "books", "books", "book");
+    final String document = "<books xmlns=\"" + NAMESPACE + "\">" +
+        "<book id=\"1\" in-print=\"true\" ignored=\"x\"><title>Good Omens</title><year> 1990 </year><price>9.99</price><format>PAPERBACK</format><author name=\"Pratchett\"/><unknown><title>Skipped</title></unknown><author name=\"Gaiman\"/></book>" +
+        "<book id=\"2\" in-print=\"0\"><title>Emma</title></book>" +
+        "</books>";
+    final Iterator<Book> books = parser.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8)));
+    final Book first = books.next();
+    assertEquals(1, first.id);
+    assertTrue(first.inPrint);
+    assertEquals("Good Omens", first.title);
+    assertEquals(Integer.valueOf(1990), first.year);
+    assertEquals(new BigDecimal("9.99"), first.price);
+    assertEquals(Format.PAPERBACK, first.format);
+    assertEquals(Arrays.asList("Pratchett", "Gaiman"), Objects.requireNonNull(first.authors).stream().map((author) -> author.name).collect(java.util.stream.Collectors.toList()));
+    final Book second = books.next();
+    assertEquals(2, second.id);
+    assertFalse(second.inPrint);
+    assertEquals("Emma", second.title);
+    assertNull(second.year);
+    assertNull(second.authors);
+    assertFalse(books.hasNext());
+    assertThrows(XMLStreamParser.ElementValueException.class, () -> parser.parse(new ByteArrayInputStream(("<books xmlns=\"" + NAMESPACE + "\"><book id=\"x\"/></books>").getBytes(StandardCharsets.UTF_8))).next());
+    return;
+  }
+
+}
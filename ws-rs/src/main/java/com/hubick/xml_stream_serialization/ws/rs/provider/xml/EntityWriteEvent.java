@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2020 by Chris Hubick. All Rights Reserved.
+ *
+ * This work is licensed under the terms of the "GNU AFFERO GENERAL PUBLIC LICENSE" version 3, as published by the Free
+ * Software Foundation <http://www.gnu.org/licenses/>, plus additional permissions, a copy of which you should have
+ * received in the file LICENSE.txt.
+ */
+
+package com.hubick.xml_stream_serialization.ws.rs.provider.xml;
+
+import java.io.*;
+
+import org.eclipse.jdt.annotation.*;
+
+import com.hubick.xml_stream_serialization.xml.*;
+
+import jdk.jfr.*;
+
+
+/**
+ * A JDK Flight Recorder event recording an entity {@linkplain XMLSerializableMessageBodyWriter written} as XML, which
+ * (by default) is only recorded when slow.
+ */
+@NonNullByDefault
+@Name("com.hubick.xml_stream_serialization.EntityWrite")
+@Label("Entity Write")
+@Description("The writing of an XML entity to a response.")
+@Category({ "XML Stream Serialization", "Serialization" })
+@Threshold("20 ms")
+final class EntityWriteEvent extends Event {
+  @Label("Entity Class")
+  @Nullable
+  Class<?> entityClass;
+  @Label("Element Count")
+  @Description("The number of elements written.")
+  long elementCount;
+  @Label("Size")
+  @Description("The number of bytes written.")
+  @DataAmount
+  long size;
+
+  /**
+   * An {@link OutputStream} counting the bytes written through it.
+   */
+  static final class CountingOutputStream extends FilterOutputStream {
+    private long count = 0;
+
+    public CountingOutputStream(final OutputStream out) {
+      super(out);
+      return;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      out.write(b);
+      count++;
+      return;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      out.write(b, off, len);
+      count += len;
+      return;
+    }
+
+  } // CountingOutputStream
+
+}
@@ -65,11 +65,24 @@ public class XMLSerializableMessageBodyWriter implements MessageBodyWriter<XMLSe
 
   @Override
   public final void writeTo(final XMLSerializable entity, final Class<?> type, final Type genericType, final @NonNull Annotation[] annotations, final MediaType mediaType, final MultivaluedMap<String,Object> httpHeaders, final OutputStream entityStream) throws IOException, WebApplicationException {
+    final EntityWriteEvent event = new EntityWriteEvent();
+    final EntityWriteEvent.@Nullable CountingOutputStream countingStream = event.isEnabled() ? new EntityWriteEvent.CountingOutputStream(entityStream) : null;
     try {
-      final XMLStreamWriter streamWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter(entityStream, UTF_8_CHARSET.name());
+      final XMLStreamWriter xmlStreamWriter = XML_OUTPUT_FACTORY.createXMLStreamWriter((countingStream != null) ? countingStream : entityStream, UTF_8_CHARSET.name());
+      final @Nullable CountingXMLStreamWriter countingWriter = (countingStream != null) ? new CountingXMLStreamWriter(xmlStreamWriter) : null;
+      final XMLStreamWriter streamWriter = (countingWriter != null) ? countingWriter : xmlStreamWriter;
+      event.begin();
       streamWriter.writeStartDocument();
       writeXML(entity, streamWriter, null);
       streamWriter.writeEndDocument();
+      streamWriter.flush();
+      event.end();
+      if ((countingStream != null) && (countingWriter != null) && (event.shouldCommit())) {
+        event.entityClass = entity.getClass();
+        event.elementCount = countingWriter.getElementCount();
+        event.size = countingStream.getCount();
+        event.commit();
+      }
     } catch (XMLStreamException xmlse) {
       final Throwable cause = xmlse.getCause();
       if (cause instanceof IOException) throw Objects.requireNonNull(IOException.class.cast(cause));
@@ -3,6 +3,7 @@ module com.hubick.xml_stream_serialization.ws_rs {
   requires transitive java.ws.rs;
   requires transitive com.hubick.xml_stream_serialization;
   requires java.xml.soap;
+  requires jdk.jfr;
   requires java.naming;
 
   exports com.hubick.xml_stream_serialization.ws.rs.provider.xml;